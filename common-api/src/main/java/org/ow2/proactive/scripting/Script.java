@@ -51,10 +51,11 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import javax.script.Bindings;
+import javax.script.CompiledScript;
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineFactory;
-import javax.script.ScriptEngineManager;
+import javax.script.SimpleScriptContext;
 
 import org.objectweb.proactive.annotation.PublicAPI;
 import org.ow2.proactive.utils.BoundedStringWriter;
@@ -281,17 +282,25 @@ public abstract class Script<E> implements Serializable {
      */
     public ScriptResult<E> execute(Map<String, Object> aBindings, PrintStream outputSink,
             PrintStream errorSink) {
-        ScriptEngine engine = createScriptEngine();
+        ScriptEngineFactory factory = ScriptEnginePool.findFactory(scriptEngineLookup);
 
-        if (engine == null)
+        if (factory == null)
             return new ScriptResult<>(
               new Exception("No Script Engine Found for name or extension " + scriptEngineLookup));
 
+        ScriptEnginePool.PooledScriptEngine pooledEngine = ScriptEnginePool.borrow(factory);
+        ScriptEngine engine = pooledEngine.getEngine();
+
+        // each execution has its own context so that pooled engines do not share bindings
+        ScriptContext context = new SimpleScriptContext();
+        context.setBindings(engine.createBindings(), ScriptContext.ENGINE_SCOPE);
+        context.setBindings(engine.getBindings(ScriptContext.GLOBAL_SCOPE), ScriptContext.GLOBAL_SCOPE);
+
         // SCHEDULING-1532: redirect script output to a buffer (keep the latest DEFAULT_OUTPUT_MAX_SIZE)
         BoundedStringWriter outputBoundedWriter = new BoundedStringWriter(outputSink, DEFAULT_OUTPUT_MAX_SIZE);
         BoundedStringWriter errorBoundedWriter = new BoundedStringWriter(errorSink, DEFAULT_OUTPUT_MAX_SIZE);
-        engine.getContext().setWriter(new PrintWriter(outputBoundedWriter));
-        engine.getContext().setErrorWriter(new PrintWriter(errorBoundedWriter));
+        context.setWriter(new PrintWriter(outputBoundedWriter));
+        context.setErrorWriter(new PrintWriter(errorBoundedWriter));
         Reader closedInput = new Reader() {
             @Override
             public int read(char[] cbuf, int off, int len) throws IOException {
@@ -303,11 +312,12 @@ public abstract class Script<E> implements Serializable {
 
             }
         };
-        engine.getContext().setReader(closedInput);
-        engine.getContext().setAttribute(ScriptEngine.FILENAME, scriptName, ScriptContext.ENGINE_SCOPE);
+        context.setReader(closedInput);
+        context.setAttribute(ScriptEngine.FILENAME, scriptName, ScriptContext.ENGINE_SCOPE);
 
+        boolean reusable = false;
         try {
-            Bindings bindings = engine.getBindings(ScriptContext.ENGINE_SCOPE);
+            Bindings bindings = context.getBindings(ScriptContext.ENGINE_SCOPE);
             //add additional bindings
             if (aBindings != null) {
                 for (Entry<String, Object> e : aBindings.entrySet()) {
@@ -315,10 +325,19 @@ public abstract class Script<E> implements Serializable {
                 }
             }
             prepareBindings(bindings);
-            Object evalResult = engine.eval(getReader());
 
-            engine.getContext().getErrorWriter().flush();
-            engine.getContext().getWriter().flush();
+            Object evalResult;
+            String scriptContent = readScript();
+            CompiledScript compiledScript = pooledEngine.compile(scriptContent);
+            if (compiledScript != null) {
+                evalResult = compiledScript.eval(context);
+            } else {
+                evalResult = engine.eval(scriptContent, context);
+            }
+            reusable = true;
+
+            context.getErrorWriter().flush();
+            context.getWriter().flush();
 
             // Add output to the script result
             ScriptResult<E> result = this.getResult(evalResult, bindings);
@@ -326,6 +345,7 @@ public abstract class Script<E> implements Serializable {
 
             return result;
         } catch (javax.script.ScriptException e) {
+            reusable = true;
             // drop exception cause as it might not be serializable
             ScriptException scriptException = new ScriptException(e.getMessage());
             scriptException.setStackTrace(e.getStackTrace());
@@ -336,6 +356,27 @@ public abstract class Script<E> implements Serializable {
                 stack = t.getMessage() + System.lineSeparator() + stack;
             }
             return new ScriptResult<>(new Exception(stack));
+        } finally {
+            // an engine which failed unexpectedly may be in an inconsistent state
+            if (reusable) {
+                ScriptEnginePool.release(pooledEngine);
+            }
+        }
+    }
+
+    /** Reads the whole script through {@link #getReader()}. */
+    private String readScript() throws IOException {
+        Reader reader = getReader();
+        try {
+            StringBuilder builder = new StringBuilder();
+            char[] buffer = new char[4096];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                builder.append(buffer, 0, read);
+            }
+            return builder.toString();
+        } finally {
+            reader.close();
         }
     }
 
@@ -347,24 +388,6 @@ public abstract class Script<E> implements Serializable {
     /** The reader used to read the script. */
     protected abstract Reader getReader();
 
-    /** The Script Engine used to evaluate the script. */
-    protected ScriptEngine createScriptEngine() {
-        for (ScriptEngineFactory factory : new ScriptEngineManager().getEngineFactories()) {
-            for (String name : factory.getNames()) {
-                if (name.equalsIgnoreCase(scriptEngineLookup)) {
-                    return factory.getScriptEngine();
-                }
-            }
-            for (String ext : factory.getExtensions()) {
-                String scriptEngineLookupLowercase = scriptEngineLookup.toLowerCase();
-                if (scriptEngineLookupLowercase.endsWith(ext.toLowerCase())) {
-                    return factory.getScriptEngine();
-                }
-            }
-        }
-        return null;
-    }
-
     /** Specify the variable awaited from the script execution */
     protected abstract void prepareSpecialBindings(Bindings bindings);
 
@@ -0,0 +1,222 @@
+/*
+ * ################################################################
+ *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2011 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s):
+ *
+ * ################################################################
+ * $$PROACTIVE_INITIAL_DEV$$
+ */
+package org.ow2.proactive.scripting;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptEngineManager;
+
+
+/**
+ * Shared cache of script engines used by {@link Script} executions.
+ * <p>
+ * Engine factories are looked up once per engine name or file extension instead of
+ * building a {@link ScriptEngineManager} for every execution. Engines are pooled by factory
+ * once an execution is done with them, and each pooled engine keeps the scripts it compiled,
+ * keyed by script content, when it implements {@link Compilable}.
+ * <p>
+ * A borrowed engine is used by a single execution at a time, each execution evaluates
+ * the script in its own {@link javax.script.ScriptContext}.
+ * <p>
+ * The number of idle engines kept per factory is set by the {@value #POOL_SIZE_PROPERTY}
+ * system property, 0 disables the pool.
+ */
+final class ScriptEnginePool {
+
+    static final String POOL_SIZE_PROPERTY = "pa.scripting.engine.pool.size";
+
+    private static final int DEFAULT_POOL_SIZE = 4;
+
+    /** Maximum number of compiled scripts kept by a pooled engine */
+    private static final int MAX_COMPILED_SCRIPTS = 100;
+
+    private static final int POOL_SIZE = Integer.getInteger(POOL_SIZE_PROPERTY, DEFAULT_POOL_SIZE);
+
+    // lower case engine name or path => factory
+    private static final ConcurrentMap<String, ScriptEngineFactory> factories = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<ScriptEngineFactory, Pool> pools = new ConcurrentHashMap<>();
+
+    private ScriptEnginePool() {
+    }
+
+    /**
+     * Finds the factory of the engines matching an engine name or the extension of a file path.
+     *
+     * @param scriptEngineLookup name of the script engine or path to script file
+     * @return the factory or null if no engine matches
+     */
+    static ScriptEngineFactory findFactory(String scriptEngineLookup) {
+        if (scriptEngineLookup == null) {
+            return null;
+        }
+        String scriptEngineLookupLowercase = scriptEngineLookup.toLowerCase();
+        ScriptEngineFactory factory = factories.get(scriptEngineLookupLowercase);
+        if (factory == null) {
+            factory = lookupFactory(scriptEngineLookupLowercase);
+            if (factory != null) {
+                factories.putIfAbsent(scriptEngineLookupLowercase, factory);
+            }
+        }
+        return factory;
+    }
+
+    private static ScriptEngineFactory lookupFactory(String scriptEngineLookupLowercase) {
+        for (ScriptEngineFactory factory : new ScriptEngineManager().getEngineFactories()) {
+            for (String name : factory.getNames()) {
+                if (name.equalsIgnoreCase(scriptEngineLookupLowercase)) {
+                    return factory;
+                }
+            }
+            for (String ext : factory.getExtensions()) {
+                if (scriptEngineLookupLowercase.endsWith(ext.toLowerCase())) {
+                    return factory;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes an idle engine of the given factory from the pool or creates a new one.
+     * The engine must be given back with {@link #release(PooledScriptEngine)} once the execution is done.
+     */
+    static PooledScriptEngine borrow(ScriptEngineFactory factory) {
+        if (POOL_SIZE > 0) {
+            PooledScriptEngine engine = getPool(factory).idle.poll();
+            if (engine != null) {
+                getPool(factory).size.decrementAndGet();
+                return engine;
+            }
+        }
+        return new PooledScriptEngine(factory);
+    }
+
+    /**
+     * Gives an engine back to the pool, the engine is dropped if the pool is full.
+     */
+    static void release(PooledScriptEngine engine) {
+        if (POOL_SIZE <= 0) {
+            return;
+        }
+        Pool pool = getPool(engine.factory);
+        if (pool.size.incrementAndGet() <= POOL_SIZE) {
+            pool.idle.offer(engine);
+        } else {
+            pool.size.decrementAndGet();
+        }
+    }
+
+    private static Pool getPool(ScriptEngineFactory factory) {
+        Pool pool = pools.get(factory);
+        if (pool == null) {
+            Pool newPool = new Pool();
+            pool = pools.putIfAbsent(factory, newPool);
+            if (pool == null) {
+                pool = newPool;
+            }
+        }
+        return pool;
+    }
+
+    private static final class Pool {
+
+        private final Queue<PooledScriptEngine> idle = new ConcurrentLinkedQueue<>();
+
+        // number of idle engines, ConcurrentLinkedQueue#size is not constant time
+        private final AtomicInteger size = new AtomicInteger();
+    }
+
+    /**
+     * A script engine with the scripts it compiled.
+     */
+    static final class PooledScriptEngine {
+
+        private final ScriptEngineFactory factory;
+
+        private final ScriptEngine engine;
+
+        // script content => compiled script, least recently used first
+        private final Map<String, CompiledScript> compiledScripts = new LinkedHashMap<String, CompiledScript>(
+            16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledScript> eldest) {
+                return size() > MAX_COMPILED_SCRIPTS;
+            }
+        };
+
+        private PooledScriptEngine(ScriptEngineFactory factory) {
+            this.factory = factory;
+            this.engine = factory.getScriptEngine();
+        }
+
+        ScriptEngine getEngine() {
+            return engine;
+        }
+
+        /**
+         * Returns the compiled form of a script, compiling it on first use.
+         *
+         * @param script the script content
+         * @return the compiled script or null if the engine cannot compile scripts
+         * @throws javax.script.ScriptException if the script cannot be compiled
+         */
+        CompiledScript compile(String script) throws javax.script.ScriptException {
+            if (!(engine instanceof Compilable) || POOL_SIZE <= 0) {
+                // without pool the engine and its compiled scripts are used only once
+                return null;
+            }
+            CompiledScript compiled = compiledScripts.get(script);
+            if (compiled == null) {
+                compiled = ((Compilable) engine).compile(script);
+                compiledScripts.put(script, compiled);
+            }
+            return compiled;
+        }
+    }
+
+}
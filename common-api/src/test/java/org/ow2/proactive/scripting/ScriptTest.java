@@ -34,8 +34,10 @@
  */
 package org.ow2.proactive.scripting;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.Reader;
@@ -51,7 +53,7 @@ public class ScriptTest {
     public void testScriptCanBeCreatedWithoutScriptEngines_Script_Inlined() throws Exception {
         ScriptForTests script = new ScriptForTests("println toto", "mySuperNonExistingScriptEngine");
 
-        assertNull(script.createScriptEngine());
+        assertNull(ScriptEnginePool.findFactory(script.scriptEngineLookup));
 
         ScriptResult<Object> result = script.execute();
 
@@ -62,7 +64,7 @@ public class ScriptTest {
     public void testScriptCanBeCreatedWithoutScriptEngines_Script_File() throws Exception {
         ScriptForTests script = new ScriptForTests(File.createTempFile("script", ".blahblah"));
 
-        assertNull(script.createScriptEngine());
+        assertNull(ScriptEnginePool.findFactory(script.scriptEngineLookup));
 
         ScriptResult<Object> result = script.execute();
 
@@ -73,7 +75,7 @@ public class ScriptTest {
     public void testJavaScriptEngine_Script_Inlined() throws Exception {
         SimpleScript script = new SimpleScript("1+1", "javascript");
 
-        assertNotNull(script.createScriptEngine());
+        assertNotNull(ScriptEnginePool.findFactory(script.scriptEngineLookup));
 
         ScriptResult<Object> result = script.execute();
 
@@ -84,13 +86,40 @@ public class ScriptTest {
     public void testJavaScriptEngine_Script_File() throws Exception {
         SimpleScript script = new SimpleScript(File.createTempFile("script", ".js"), new String[0]);
 
-        assertNotNull(script.createScriptEngine());
+        assertNotNull(ScriptEnginePool.findFactory(script.scriptEngineLookup));
 
         ScriptResult<Object> result = script.execute();
 
         assertNull(result.getException());
     }
 
+    @Test
+    public void testReusedEngineDoesNotShareBindings() throws Exception {
+        String content = "selected = typeof counter === 'undefined' && args[0] == 'a'; counter = 1;";
+
+        for (int i = 0; i < 3; i++) {
+            SelectionScript script = new SelectionScript(content, "javascript", new String[] { "a" }, true);
+            ScriptResult<Boolean> result = script.execute();
+
+            assertNull(result.getException());
+            assertTrue(result.getResult());
+        }
+
+        SelectionScript script = new SelectionScript(content, "javascript", new String[] { "b" }, true);
+        assertFalse(script.execute().getResult());
+    }
+
+    @Test
+    public void testReusedEngineOutput() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            SimpleScript script = new SimpleScript("print('hello" + i + "')", "javascript");
+            ScriptResult<Object> result = script.execute();
+
+            assertNull(result.getException());
+            assertTrue(result.getOutput().contains("hello" + i));
+        }
+    }
+
     class ScriptForTests extends Script<Object> {
 
         @Override
@@ -47,6 +47,8 @@ import org.ow2.proactive.utils.FileToBytesConverter;
 import org.apache.log4j.Logger;
 import org.rrd4j.ConsolFun;
 import org.rrd4j.DsType;
+import org.rrd4j.core.FetchData;
+import org.rrd4j.core.FetchRequest;
 import org.rrd4j.core.RrdDb;
 import org.rrd4j.core.RrdDef;
 import org.rrd4j.core.Sample;
@@ -209,6 +211,38 @@ public class RRDDataStore extends Thread {
         }
     }
 
+    /**
+     * Fetches the consolidated history of some data sources directly from the data base,
+     * so that only the requested points are sent to a client.
+     *
+     * @param sources names of the data sources
+     * @param timeRange number of seconds to fetch, until the last update of the data base
+     * @param resolution wanted resolution in seconds, the archive with the closest one is used
+     * @return the average values of each data source, NaN when a value is unknown
+     * @throws IOException when data base cannot be read
+     */
+    public HashMap<String, double[]> fetch(String[] sources, long timeRange, long resolution)
+            throws IOException {
+        synchronized (dataSources) {
+            RrdDb dataBase = new RrdDb(dataBaseFile, true);
+            try {
+                long timeEnd = dataBase.getLastUpdateTime();
+                FetchRequest request = dataBase.createFetchRequest(ConsolFun.AVERAGE, timeEnd - timeRange,
+                        timeEnd, Math.max(resolution, 1));
+                request.setFilter(sources);
+                FetchData fetchData = request.fetchData();
+
+                HashMap<String, double[]> history = new HashMap<>();
+                for (String source : sources) {
+                    history.put(source, fetchData.getValues(source));
+                }
+                return history;
+            } finally {
+                dataBase.close();
+            }
+        }
+    }
+
     /**
      * Terminates the thread activity.
      */
@@ -0,0 +1,142 @@
+/*
+ *  *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2014 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s):
+ *
+ *  * $$ACTIVEEON_INITIAL_DEV$$
+ */
+package org.ow2.proactive.jmx;
+
+import java.io.File;
+import java.util.HashMap;
+
+import org.apache.log4j.BasicConfigurator;
+import org.apache.log4j.Logger;
+import org.apache.log4j.varia.NullAppender;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rrd4j.core.RrdDb;
+import org.rrd4j.core.Sample;
+
+import static org.junit.Assert.*;
+
+
+public class RRDDataStoreTest {
+
+    private static final int STEP = 4;
+
+    // samples start on a multiple of the steps of the first two archives (1 and 5 steps)
+    private static final int ALIGNMENT = 10 * STEP;
+
+    // duration of the sampling, the last sample is aligned on the steps of the first archives
+    private static final int SAMPLING_SECONDS = 120;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private RRDDataStore store;
+
+    @BeforeClass
+    public static void configureLog4J() {
+        BasicConfigurator.configure(new NullAppender());
+    }
+
+    @Before
+    public void createDataBase() throws Exception {
+        File rrdFile = new File(temp.newFolder(), "statistics.rrd");
+        store = new RRDDataStore(rrdFile.getPath(), STEP, Logger.getLogger("test"));
+        store.dataSources.put("FreeNodes", "FreeNodesCount");
+        store.dataSources.put("BusyNodes", "BusyNodesCount");
+        store.initDatabase();
+
+        // the samples are written with explicit times following the creation time of the data base,
+        // the tests do not depend on the time they take to run
+        long firstSampleTime;
+        long lastSampleTime;
+        RrdDb dataBase = new RrdDb(rrdFile.getPath());
+        try {
+            firstSampleTime = (dataBase.getLastUpdateTime() / ALIGNMENT + 1) * ALIGNMENT;
+            for (long time = firstSampleTime; time <= firstSampleTime + SAMPLING_SECONDS; time += STEP) {
+                Sample sample = dataBase.createSample(time);
+                sample.setValue("FreeNodes", 7);
+                sample.setValue("BusyNodes", 3);
+                sample.update();
+            }
+            lastSampleTime = dataBase.getLastUpdateTime();
+        } finally {
+            dataBase.close();
+        }
+        assertEquals(firstSampleTime + SAMPLING_SECONDS, lastSampleTime);
+    }
+
+    @Test
+    public void fetchesTheDetailedHistoryOfTheRequestedSources() throws Exception {
+        HashMap<String, double[]> history = store.fetch(new String[] { "FreeNodes", "BusyNodes" }, 60, 1);
+
+        assertEquals(2, history.size());
+        double[] free = history.get("FreeNodes");
+        double[] busy = history.get("BusyNodes");
+        // one value per step, both ends of the time range included
+        assertEquals(60 / STEP + 1, free.length);
+        assertEquals(60 / STEP + 1, busy.length);
+        for (int i = 0; i < free.length; i++) {
+            assertEquals(7, free[i], 0.001);
+            assertEquals(3, busy[i], 0.001);
+        }
+    }
+
+    @Test
+    public void fetchesOnlyTheFilteredSources() throws Exception {
+        HashMap<String, double[]> history = store.fetch(new String[] { "BusyNodes" }, 60, 1);
+
+        assertEquals(1, history.size());
+        assertFalse(history.containsKey("FreeNodes"));
+        assertEquals(3, history.get("BusyNodes")[0], 0.001);
+    }
+
+    @Test
+    public void fetchesTheConsolidatedHistoryClosestToTheResolution() throws Exception {
+        // the second archive averages 5 steps of 4 seconds
+        HashMap<String, double[]> history = store.fetch(new String[] { "FreeNodes" }, 600, 20);
+
+        double[] free = history.get("FreeNodes");
+        assertEquals(600 / 20 + 1, free.length);
+        // the time range starts before the data base was created
+        assertTrue(Double.isNaN(free[0]));
+        // and ends with the sampled period
+        for (int i = free.length - SAMPLING_SECONDS / 20; i < free.length; i++) {
+            assertEquals(7, free[i], 0.001);
+        }
+    }
+
+}
@@ -36,23 +36,21 @@
  */
 package org.ow2.proactive_grid_cloud_portal.rm;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.security.KeyException;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
-import javax.management.Attribute;
-import javax.management.AttributeList;
 import javax.management.InstanceNotFoundException;
 import javax.management.IntrospectionException;
 import javax.management.MBeanException;
@@ -82,6 +80,7 @@ import org.ow2.proactive.authentication.crypto.CredData;
 import org.ow2.proactive.authentication.crypto.Credentials;
 import org.ow2.proactive.resourcemanager.common.RMState;
 import org.ow2.proactive.resourcemanager.common.event.RMInitialState;
+import org.ow2.proactive.resourcemanager.common.event.RMStateDelta;
 import org.ow2.proactive.resourcemanager.common.util.RMProxyUserInterface;
 import org.ow2.proactive.resourcemanager.core.jmx.RMJMXBeans;
 import org.ow2.proactive.resourcemanager.exception.RMException;
@@ -100,10 +99,6 @@ import org.ow2.proactive_grid_cloud_portal.common.StatHistoryCaching.StatHistory
 import org.ow2.proactive_grid_cloud_portal.common.dto.LoginForm;
 import org.jboss.resteasy.annotations.GZIP;
 import org.jboss.resteasy.annotations.providers.multipart.MultipartForm;
-import org.rrd4j.ConsolFun;
-import org.rrd4j.core.FetchData;
-import org.rrd4j.core.FetchRequest;
-import org.rrd4j.core.RrdDb;
 
 
 @Path("/rm")
@@ -120,6 +115,12 @@ public class RMRest implements RMRestInterface {
     // "MaxFreeNodes" // redundant with AvailableNodesCount
     };
 
+    // finest resolution, the RM uses the most detailed archive covering the time range
+    private static final long STAT_HISTORY_RESOLUTION = 1;
+
+    private static final String[] FETCH_STAT_HISTORY_SIGNATURE = { String[].class.getName(),
+            long.class.getName(), long.class.getName() };
+
     private SessionStore sessionStore = SharedSessionStore.getInstance();
 
     private RMProxyUserInterface checkAccess(String sessionId) throws NotConnectedException {
@@ -243,6 +244,31 @@ public class RMRest implements RMRestInterface {
         return RMStateCaching.getRMInitialState();
     }
 
+    /**
+     * Returns the changes of the state of the resource manager since a revision.
+     * Clients first call it without revision to get the full state, then with the
+     * epoch and revision of the previous answer to get only the nodes and node sources which changed.
+     * @param sessionId a valid session id
+     * @param epoch the epoch of the previous answer, none to get the full state
+     * @param revision the revision of the previous answer, -1 to get the full state
+     * @return the latest event of each node and node source changed since the revision,
+     * or the full state if these changes are not known any more
+     * @throws NotConnectedException 
+     */
+    @Override
+    @GET
+    @GZIP
+    @Path("monitoring/delta")
+    @Produces("application/json")
+    public RMStateDelta getStateDelta(@HeaderParam("sessionid")
+    String sessionId, @QueryParam("epoch")
+    String epoch, @QueryParam("revision")
+    @DefaultValue("-1")
+    long revision) throws NotConnectedException {
+        checkAccess(sessionId);
+        return RMStateCaching.getRMStateDelta(epoch, revision);
+    }
+
     /**
      * Returns true if the resource manager is operational.
      *
@@ -775,6 +801,7 @@ public class RMRest implements RMRestInterface {
      * @throws NullPointerException
      * @throws InterruptedException
      * @throws NotConnectedException 
+     * @throws MBeanException
      */
     @Override
     @GET
@@ -784,7 +811,8 @@ public class RMRest implements RMRestInterface {
     public String getStatHistory(@HeaderParam("sessionid")
     String sessionId, @QueryParam("range")
     String range) throws InstanceNotFoundException, IntrospectionException, ReflectionException, IOException,
-            MalformedObjectNameException, NullPointerException, InterruptedException, NotConnectedException {
+            MalformedObjectNameException, NullPointerException, InterruptedException, NotConnectedException,
+            MBeanException {
 
         RMProxyUserInterface rm = checkAccess(sessionId);
 
@@ -806,23 +834,30 @@ public class RMRest implements RMRestInterface {
 
         long l1 = System.currentTimeMillis();
 
-        ObjectName on = new ObjectName(RMJMXBeans.RUNTIMEDATA_MBEAN_NAME);
-        AttributeList attrs = rm.getMBeanAttributes(on, new String[] { "StatisticHistory" });
-        Attribute attr = (Attribute) attrs.get(0);
-        // content of the RRD4J database backing file
-        byte[] rrd4j = (byte[]) attr.getValue();
-
-        File rrd4jDb = File.createTempFile("database", "rr4dj");
-        rrd4jDb.deleteOnExit();
-
-        OutputStream out = new FileOutputStream(rrd4jDb);
-        out.write(rrd4j);
-        out.close();
+        // data sources sharing a time range are fetched together
+        Map<Long, List<String>> sourcesByRange = new HashMap<>();
+        for (int i = 0; i < dataSources.length; i++) {
+            Long timeRange = getStatHistoryTimeRange(range.charAt(i));
+            List<String> sources = sourcesByRange.get(timeRange);
+            if (sources == null) {
+                sources = new ArrayList<>();
+                sourcesByRange.put(timeRange, sources);
+            }
+            sources.add(dataSources[i]);
+        }
 
-        // create RRD4J DB, should be identical to the one held by the RM
-        RrdDb db = new RrdDb(rrd4jDb.getAbsolutePath(), true);
+        // the history is consolidated by the RM, only the requested points are sent
+        ObjectName on = new ObjectName(RMJMXBeans.RUNTIMEDATA_MBEAN_NAME);
+        Map<String, double[]> history = new HashMap<>();
+        for (Map.Entry<Long, List<String>> entry : sourcesByRange.entrySet()) {
+            Object[] params = { entry.getValue().toArray(new String[entry.getValue().size()]),
+                    entry.getKey(), STAT_HISTORY_RESOLUTION };
+            @SuppressWarnings("unchecked")
+            Map<String, double[]> values = (Map<String, double[]>) rm.invokeMBeanOperation(on,
+                    "fetchStatisticHistory", params, FETCH_STAT_HISTORY_SIGNATURE);
+            history.putAll(values);
+        }
 
-        long timeEnd = db.getLastUpdateTime();
         // force float separator for JSON parsing
         DecimalFormatSymbols otherSymbols = new DecimalFormatSymbols(Locale.US);
         otherSymbols.setDecimalSeparator('.');
@@ -835,43 +870,9 @@ public class RMRest implements RMRestInterface {
 
         for (int i = 0; i < dataSources.length; i++) {
             String dataSource = dataSources[i];
-            char zone = range.charAt(i);
-            long timeStart;
-
-            switch (zone) {
-                default:
-                case 'a': // 1 minute
-                    timeStart = timeEnd - 60;
-                    break;
-                case 'm': // 10 minute
-                    timeStart = timeEnd - 60 * 10;
-                    break;
-                case 'h': // 1 hours
-                    timeStart = timeEnd - 60 * 60;
-                    break;
-                case 'H': // 8 hours
-                    timeStart = timeEnd - 60 * 60 * 8;
-                    break;
-                case 'd': // 1 day
-                    timeStart = timeEnd - 60 * 60 * 24;
-                    break;
-                case 'w': // 1 week
-                    timeStart = timeEnd - 60 * 60 * 24 * 7;
-                    break;
-                case 'M': // 1 month
-                    timeStart = timeEnd - 60 * 60 * 24 * 28;
-                    break;
-                case 'y': // 1 year
-                    timeStart = timeEnd - 60 * 60 * 24 * 365;
-                    break;
-            }
-
-            FetchRequest req = db.createFetchRequest(ConsolFun.AVERAGE, timeStart, timeEnd);
-            req.setFilter(dataSource);
-            FetchData fetchData = req.fetchData();
             result.append("\"").append(dataSource).append("\":[");
 
-            double[] values = fetchData.getValues(dataSource);
+            double[] values = history.get(dataSource);
             for (int j = 0; j < values.length; j++) {
                 if (Double.compare(Double.NaN, values[j]) == 0) {
                     result.append("null");
@@ -887,9 +888,6 @@ public class RMRest implements RMRestInterface {
         }
         result.append("}");
 
-        db.close();
-        rrd4jDb.delete();
-
         String ret = result.toString();
 
         StatHistoryCaching.getInstance().addEntry(range, l1, ret);
@@ -897,6 +895,32 @@ public class RMRest implements RMRestInterface {
         return ret;
     }
 
+    /**
+     * @param zone a char of the range parameter of {@link #getStatHistory(String, String)}
+     * @return the corresponding number of seconds
+     */
+    private static long getStatHistoryTimeRange(char zone) {
+        switch (zone) {
+            default:
+            case 'a': // 1 minute
+                return 60;
+            case 'm': // 10 minute
+                return 60 * 10;
+            case 'h': // 1 hours
+                return 60 * 60;
+            case 'H': // 8 hours
+                return 60 * 60 * 8;
+            case 'd': // 1 day
+                return 60 * 60 * 24;
+            case 'w': // 1 week
+                return 60 * 60 * 24 * 7;
+            case 'M': // 1 month
+                return 60 * 60 * 24 * 28;
+            case 'y': // 1 year
+                return 60 * 60 * 24 * 365;
+        }
+    }
+
     /**
      * Returns the version of the rest api
      * @return returns the version of the rest api
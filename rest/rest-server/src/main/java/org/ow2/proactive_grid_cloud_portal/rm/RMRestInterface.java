@@ -63,6 +63,7 @@ import org.objectweb.proactive.ActiveObjectCreationException;
 import org.objectweb.proactive.core.node.NodeException;
 import org.ow2.proactive.resourcemanager.common.RMState;
 import org.ow2.proactive.resourcemanager.common.event.RMInitialState;
+import org.ow2.proactive.resourcemanager.common.event.RMStateDelta;
 import org.ow2.proactive.resourcemanager.exception.RMException;
 import org.ow2.proactive.resourcemanager.frontend.topology.Topology;
 import org.ow2.proactive.resourcemanager.nodesource.common.PluginDescriptor;
@@ -110,6 +111,16 @@ public interface RMRestInterface {
     RMInitialState getInitialState(@HeaderParam("sessionid")
     String sessionId) throws NotConnectedException;
 
+    @GET
+    @GZIP
+    @Path("monitoring/delta")
+    @Produces("application/json")
+    RMStateDelta getStateDelta(@HeaderParam("sessionid")
+    String sessionId, @QueryParam("epoch")
+    String epoch, @QueryParam("revision")
+    @DefaultValue("-1")
+    long revision) throws NotConnectedException;
+
     @GET
     @Path("isactive")
     @Produces("application/json")
@@ -279,7 +290,8 @@ public interface RMRestInterface {
     String getStatHistory(@HeaderParam("sessionid")
     String sessionId, @QueryParam("range")
     String range) throws InstanceNotFoundException, IntrospectionException, ReflectionException, IOException,
-            MalformedObjectNameException, NullPointerException, InterruptedException, NotConnectedException;
+            MalformedObjectNameException, NullPointerException, InterruptedException, NotConnectedException,
+            MBeanException;
 
     @GET
     @Path("version")
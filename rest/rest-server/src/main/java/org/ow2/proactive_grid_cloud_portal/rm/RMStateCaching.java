@@ -45,6 +45,7 @@ import org.objectweb.proactive.utils.Sleeper;
 import org.ow2.proactive.authentication.crypto.CredData;
 import org.ow2.proactive.authentication.crypto.Credentials;
 import org.ow2.proactive.resourcemanager.common.event.RMInitialState;
+import org.ow2.proactive.resourcemanager.common.event.RMStateDelta;
 import org.ow2.proactive.resourcemanager.common.util.RMProxyUserInterface;
 import org.ow2.proactive_grid_cloud_portal.webapp.PortalConfiguration;
 import org.apache.log4j.Logger;
@@ -59,7 +60,10 @@ import org.apache.log4j.Logger;
  * Use this class to start a thread that will periodically get this object
  * using a watcher account, making the cached version available to any client instantly.
  * <p>
- * Refresh rate can be configured using {@link PortalConfiguration#rm_cache_refreshrate}
+ * Refresh rate can be configured using {@link PortalConfiguration#rm_cache_refreshrate}.
+ * The full state is fetched again only when the revision of the state maintained by the
+ * listener from the RM events changed. Clients can also get the changes since a revision
+ * with {@link #getRMStateDelta(String, long)}.
  * 
  * 
  * 
@@ -70,6 +74,9 @@ public class RMStateCaching {
 
     private static RMProxyUserInterface rm;
     private static RMInitialState state;
+    // epoch and revision of the cached state
+    private static volatile String stateEpoch = null;
+    private static volatile long stateRevision = -1;
 
     private static Thread rmUpdater;
     private static int refreshInterval;
@@ -139,13 +146,22 @@ public class RMStateCaching {
 
                     try {
                         long t1 = System.currentTimeMillis();
-                        state = PAFuture.getFutureValue(rm.getRMInitialState());
-                        long t2 = System.currentTimeMillis();
-                        logger.debug("updated RM initial state in " + (t2 - t1) + "ms");
+                        // the full state is fetched only when it changed
+                        RMStateDelta delta = PAFuture.getFutureValue(rm.getRMStateDelta(stateEpoch,
+                                stateRevision));
+                        if (delta.hasChanges()) {
+                            state = PAFuture.getFutureValue(rm.getRMInitialState());
+                            stateEpoch = delta.getEpoch();
+                            stateRevision = delta.getRevision();
+                            long t2 = System.currentTimeMillis();
+                            logger.debug("updated RM initial state in " + (t2 - t1) + "ms");
+                        }
                     } catch (Throwable t) {
                         logger
                                 .error("Exception occurrend while updating RM state cache, connection reset",
                                         t);
+                        stateEpoch = null;
+                        stateRevision = -1;
                         init_();
                     }
 
@@ -165,6 +181,23 @@ public class RMStateCaching {
         return state;
     }
 
+    /**
+     * Returns the changes of the RM state since a revision, computed by the
+     * listener from the RM events.
+     *
+     * @param epoch the epoch of the revision known by the client, or null to get the full state
+     * @param revision the revision known by the client, or -1 to get the full state
+     * @return the changes since the revision, or the full state if they are not known
+     */
+    public static RMStateDelta getRMStateDelta(String epoch, long revision) {
+        RMProxyUserInterface proxy = rm;
+        if (proxy == null) {
+            // not connected yet
+            return new RMStateDelta(null, -1, state);
+        }
+        return PAFuture.getFutureValue(proxy.getRMStateDelta(epoch, revision));
+    }
+
     /**
      * @return stop the RM State polling thread
      */
@@ -40,12 +40,11 @@ import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Random;
 
-import javax.management.Attribute;
-import javax.management.AttributeList;
 import javax.management.ObjectName;
 
 import org.objectweb.proactive.core.util.wrapper.BooleanWrapper;
@@ -68,6 +67,8 @@ import org.junit.Test;
 import org.mockito.Matchers;
 import org.rrd4j.ConsolFun;
 import org.rrd4j.DsType;
+import org.rrd4j.core.FetchData;
+import org.rrd4j.core.FetchRequest;
 import org.rrd4j.core.RrdDb;
 import org.rrd4j.core.RrdDef;
 import org.rrd4j.core.Sample;
@@ -105,16 +106,27 @@ public class RMRestTest extends RestTestServer {
         RMProxyUserInterface rmMock = mock(RMProxyUserInterface.class);
         String sessionId = SharedSessionStoreTestUtils.createValidSession(rmMock);
 
-        AttributeList value = new AttributeList(Collections.singletonList(new Attribute("test", createRrdDb()
-                .getBytes())));
-        when(rmMock.getMBeanAttributes(Matchers.<ObjectName> any(), Matchers.<String[]> any())).thenReturn(
-                value);
+        when(
+                rmMock.invokeMBeanOperation(Matchers.<ObjectName> any(), anyString(), Matchers.<Object[]> any(),
+                        Matchers.<String[]> any())).thenReturn(fetchHistory(createRrdDb()));
         RMRestInterface client = ProxyFactory.create(RMRestInterface.class, "http://localhost:" + port + "/");
 
         String statHistory = client.getStatHistory(sessionId, "hhhhh");
         return (JSONObject) new JSONParser().parse(statHistory);
     }
 
+    private HashMap<String, double[]> fetchHistory(RrdDb rrdDb) throws IOException {
+        long timeEnd = rrdDb.getLastUpdateTime();
+        FetchRequest request = rrdDb.createFetchRequest(ConsolFun.AVERAGE, timeEnd - 60 * 60, timeEnd);
+        FetchData fetchData = request.fetchData();
+
+        HashMap<String, double[]> history = new HashMap<>();
+        for (String dataSource : RMRest.dataSources) {
+            history.put(dataSource, fetchData.getValues(dataSource));
+        }
+        return history;
+    }
+
     private RrdDb createRrdDb() throws IOException {
         final long start = (System.currentTimeMillis() - 10000) / 1000;
         final long end = System.currentTimeMillis() / 1000;
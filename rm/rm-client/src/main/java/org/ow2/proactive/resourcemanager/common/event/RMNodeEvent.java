@@ -164,6 +164,34 @@ public final class RMNodeEvent extends RMEvent {
         this.nodeOwner = rmNode.getOwnerName();
     }
 
+    /**
+     * Creates a copy of a node event with another previous node state.
+     * Used when several state changes of a node are merged into the last one.
+     * @param event the node event to copy
+     * @param previousNodeState the previous state of the node concerned by this event
+     */
+    public RMNodeEvent(final RMNodeEvent event, final NodeState previousNodeState) {
+        super(event.type);
+
+        this.setRMUrl(event.getRMUrl());
+        this.initiator = event.initiator;
+        this.timeStamp = event.timeStamp;
+        this.counter = event.counter;
+        this.nodeUrl = event.nodeUrl;
+        this.nodeSource = event.nodeSource;
+        this.PADName = event.PADName;
+        this.VnName = event.VnName;
+        this.hostName = event.hostName;
+        this.VMName = event.VMName;
+        this.nodeState = event.nodeState;
+        this.description = event.description;
+        this.defaultJMXUrl = event.defaultJMXUrl;
+        this.proactiveJMXUrl = event.proactiveJMXUrl;
+        this.previousNodeState = previousNodeState;
+        this.nodeProvider = event.nodeProvider;
+        this.nodeOwner = event.nodeOwner;
+    }
+
     /**
      * Compare two RMNodeEvent objects.
      *
@@ -0,0 +1,159 @@
+/*
+ * ################################################################
+ *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2011 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s):
+ *
+ * ################################################################
+ * $$PROACTIVE_INITIAL_DEV$$
+ */
+package org.ow2.proactive.resourcemanager.common.event;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.objectweb.proactive.annotation.PublicAPI;
+
+
+/**
+ * Changes of the Resource Manager state since a given revision.
+ * <p>
+ * Contains the latest event of each node and node source which changed since this revision,
+ * a {@link RMEventType#NODE_REMOVED} or {@link RMEventType#NODESOURCE_REMOVED} event meaning
+ * that it does not exist any more. When the changes since the revision are not known,
+ * the full state is returned instead.
+ * <p>
+ * A revision is only meaningful along with its epoch, both have to be given to get the next changes.
+ *
+ * @see RMInitialState
+ */
+@PublicAPI
+@XmlRootElement
+public class RMStateDelta implements Serializable {
+
+    /** Epoch of the revision, changes when the revisions are numbered again from scratch */
+    private String epoch;
+
+    /** Revision of the state after applying the changes */
+    private long revision;
+
+    /** Full state when the changes are not known, null otherwise */
+    private RMInitialState initialState;
+
+    /** Latest event of each changed node */
+    private ArrayList<RMNodeEvent> nodesEvents = new ArrayList<>();
+
+    /** Latest event of each changed node source */
+    private ArrayList<RMNodeSourceEvent> nodeSourcesEvents = new ArrayList<>();
+
+    /**
+     * ProActive empty constructor
+     */
+    public RMStateDelta() {
+    }
+
+    /**
+     * Creates a delta holding the full state.
+     *
+     * @param epoch epoch of the revision
+     * @param revision revision of the state
+     * @param initialState the full state
+     */
+    public RMStateDelta(String epoch, long revision, RMInitialState initialState) {
+        this.epoch = epoch;
+        this.revision = revision;
+        this.initialState = initialState;
+    }
+
+    /**
+     * Creates a delta holding the changes since a revision.
+     *
+     * @param epoch epoch of the revision
+     * @param revision revision of the state after the changes
+     * @param nodesEvents latest event of each changed node
+     * @param nodeSourcesEvents latest event of each changed node source
+     */
+    public RMStateDelta(String epoch, long revision, ArrayList<RMNodeEvent> nodesEvents,
+            ArrayList<RMNodeSourceEvent> nodeSourcesEvents) {
+        this.epoch = epoch;
+        this.revision = revision;
+        this.nodesEvents = nodesEvents;
+        this.nodeSourcesEvents = nodeSourcesEvents;
+    }
+
+    /**
+     * Returns the epoch of the revision to use to get the next changes.
+     * @return the epoch of the revision
+     */
+    public String getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Returns the revision to use to get the next changes.
+     * @return the revision of the state
+     */
+    public long getRevision() {
+        return revision;
+    }
+
+    /**
+     * Returns the full state when the changes since the requested revision are not known.
+     * @return the full state or null
+     */
+    public RMInitialState getInitialState() {
+        return initialState;
+    }
+
+    /**
+     * Returns the latest event of each changed node.
+     * @return the nodes events
+     */
+    public ArrayList<RMNodeEvent> getNodesEvents() {
+        return nodesEvents;
+    }
+
+    /**
+     * Returns the latest event of each changed node source.
+     * @return the node sources events
+     */
+    public ArrayList<RMNodeSourceEvent> getNodeSourcesEvents() {
+        return nodeSourcesEvents;
+    }
+
+    /**
+     * @return true if the state changed since the requested revision
+     */
+    public boolean hasChanges() {
+        return initialState != null || !nodesEvents.isEmpty() || !nodeSourcesEvents.isEmpty();
+    }
+}
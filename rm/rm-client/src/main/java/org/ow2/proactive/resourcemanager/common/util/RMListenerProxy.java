@@ -70,6 +70,7 @@ import org.ow2.proactive.resourcemanager.common.event.RMEventType;
 import org.ow2.proactive.resourcemanager.common.event.RMInitialState;
 import org.ow2.proactive.resourcemanager.common.event.RMNodeEvent;
 import org.ow2.proactive.resourcemanager.common.event.RMNodeSourceEvent;
+import org.ow2.proactive.resourcemanager.common.event.RMStateDelta;
 import org.ow2.proactive.resourcemanager.exception.RMException;
 import org.ow2.proactive.resourcemanager.frontend.RMConnection;
 import org.ow2.proactive.resourcemanager.frontend.RMEventListener;
@@ -102,6 +103,9 @@ public class RMListenerProxy extends RMGroupEventListener {
 
     protected long counter = 0;
 
+    // revisions of the cached state allowing to get the changes since a revision
+    protected RMStateRevisions revisions = new RMStateRevisions();
+
     public boolean init(String url, CredData credData) throws RMException, KeyException, LoginException {
         this.rmAuth = RMConnection.join(url);
         Credentials cred = Credentials.createCredentials(credData, rmAuth.getPublicKey());
@@ -116,6 +120,7 @@ public class RMListenerProxy extends RMGroupEventListener {
 
         rmInitialState = this.target.getMonitoring().addRMEventListener(
                 (RMEventListener) PAActiveObject.getStubOnThis());
+        revisions.reset(rmInitialState);
 
         // here we log on using an empty login field to ensure that
         // credentials are used.
@@ -136,6 +141,7 @@ public class RMListenerProxy extends RMGroupEventListener {
             }
             rmInitialState = this.target.getMonitoring().addRMEventListener(
                     (RMEventListener) PAActiveObject.getStubOnThis());
+            revisions.reset(rmInitialState);
             counter = 0;
         } else {
             counter = event.getCounter();
@@ -175,6 +181,7 @@ public class RMListenerProxy extends RMGroupEventListener {
                 }
                 break;
         }
+        revisions.nodeSourceEvent(event);
 
         checkCounter(event);
     }
@@ -195,6 +202,7 @@ public class RMListenerProxy extends RMGroupEventListener {
                 break;
 
         }
+        revisions.nodeEvent(event);
         checkCounter(event);
     }
 
@@ -206,6 +214,16 @@ public class RMListenerProxy extends RMGroupEventListener {
         return rmInitialState;
     }
 
+    /**
+     * Gives access to the changes of the cached initial state since a revision
+     * @param epoch the epoch of the revision known by the caller
+     * @param revision the revision known by the caller
+     * @return the changes since the revision, or the full state if they are not known
+     */
+    public RMStateDelta getRMStateDelta(String epoch, long revision) {
+        return revisions.getDelta(epoch, revision, rmInitialState);
+    }
+
     /**
      * Retrieves attributes of the specified mbean.
      * 
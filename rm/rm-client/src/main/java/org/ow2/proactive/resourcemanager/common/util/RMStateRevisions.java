@@ -0,0 +1,190 @@
+/*
+ * ################################################################
+ *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2011 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ActiveEon Team
+ *                        http://www.activeeon.com/
+ *  Contributor(s):
+ *
+ * ################################################################
+ * $$ACTIVEEON_INITIAL_DEV$$
+ */
+package org.ow2.proactive.resourcemanager.common.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import org.ow2.proactive.resourcemanager.common.event.RMEvent;
+import org.ow2.proactive.resourcemanager.common.event.RMEventType;
+import org.ow2.proactive.resourcemanager.common.event.RMInitialState;
+import org.ow2.proactive.resourcemanager.common.event.RMNodeEvent;
+import org.ow2.proactive.resourcemanager.common.event.RMNodeSourceEvent;
+import org.ow2.proactive.resourcemanager.common.event.RMStateDelta;
+
+
+/**
+ * Revisions of the Resource Manager state maintained from the events received by a listener.
+ * <p>
+ * Every event changing a node or a node source gets a new revision. Only the latest event
+ * of each node and node source is kept, so that the changes since a revision known by
+ * a client can be returned instead of the full state. Removed nodes and node sources are
+ * remembered up to a limit, clients with an older revision get the full state.
+ * <p>
+ * Revisions are only meaningful for the instance which numbered them: each instance has its own
+ * epoch, clients with the revision of another epoch (after a reconnection to the resource manager
+ * or a restart) get the full state.
+ * <p>
+ * This class is not thread safe.
+ */
+public class RMStateRevisions {
+
+    /** Max number of removed nodes and node sources remembered */
+    private static final int MAX_REMOVALS = 10000;
+
+    // identifies the numbering of the revisions of this instance
+    private final String epoch = UUID.randomUUID().toString();
+    private long revision = 0;
+    // changes before this revision are not known
+    private long oldestRevision = 0;
+
+    // latest revision of each node and node source
+    private final Map<String, Long> nodeRevisions = new HashMap<>();
+    private final Map<String, Long> nodeSourceRevisions = new HashMap<>();
+    // latest event of each node and node source by revision
+    private final TreeMap<Long, RMEvent> changes = new TreeMap<>();
+    // revisions of the removals
+    private final TreeSet<Long> removals = new TreeSet<>();
+
+    /**
+     * Forgets all the changes and starts from a new full state.
+     *
+     * @param state the full state
+     */
+    public void reset(RMInitialState state) {
+        nodeRevisions.clear();
+        nodeSourceRevisions.clear();
+        changes.clear();
+        removals.clear();
+        for (RMNodeSourceEvent event : state.getNodeSource()) {
+            // events of the state have no type
+            addChange(nodeSourceRevisions.put(event.getSourceName(), ++revision), event, false);
+        }
+        for (RMNodeEvent event : state.getNodesEvents()) {
+            nodeEvent(event);
+        }
+        oldestRevision = revision;
+    }
+
+    /**
+     * Records a node event.
+     *
+     * @param event the node event
+     */
+    public void nodeEvent(RMNodeEvent event) {
+        addChange(nodeRevisions.put(event.getNodeUrl(), ++revision), event,
+                event.getEventType() == RMEventType.NODE_REMOVED);
+    }
+
+    /**
+     * Records a node source event. Only creations and removals change the state.
+     *
+     * @param event the node source event
+     */
+    public void nodeSourceEvent(RMNodeSourceEvent event) {
+        boolean removal = event.getEventType() == RMEventType.NODESOURCE_REMOVED;
+        if (removal || event.getEventType() == RMEventType.NODESOURCE_CREATED) {
+            addChange(nodeSourceRevisions.put(event.getSourceName(), ++revision), event, removal);
+        }
+    }
+
+    private void addChange(Long previousRevision, RMEvent event, boolean removal) {
+        if (previousRevision != null) {
+            changes.remove(previousRevision);
+            removals.remove(previousRevision);
+        }
+        changes.put(revision, event);
+
+        if (removal) {
+            removals.add(revision);
+            if (removals.size() > MAX_REMOVALS) {
+                // forgetting the oldest removal, its revision is not usable any more
+                Long forgotten = removals.pollFirst();
+                RMEvent forgottenEvent = changes.remove(forgotten);
+                if (forgottenEvent instanceof RMNodeEvent) {
+                    nodeRevisions.remove(((RMNodeEvent) forgottenEvent).getNodeUrl());
+                } else {
+                    nodeSourceRevisions.remove(((RMNodeSourceEvent) forgottenEvent).getSourceName());
+                }
+                oldestRevision = Math.max(oldestRevision, forgotten);
+            }
+        }
+    }
+
+    /**
+     * @return the epoch of the revisions of this instance
+     */
+    public String getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * @return the current revision
+     */
+    public long getRevision() {
+        return revision;
+    }
+
+    /**
+     * Returns the changes since a revision.
+     *
+     * @param sinceEpoch epoch of the revision known by the client
+     * @param since revision known by the client
+     * @param state current full state, returned when the changes since the revision are not known
+     * @return the changes since the revision
+     */
+    public RMStateDelta getDelta(String sinceEpoch, long since, RMInitialState state) {
+        if (!epoch.equals(sinceEpoch) || since < oldestRevision || since > revision) {
+            return new RMStateDelta(epoch, revision, state);
+        }
+        ArrayList<RMNodeEvent> nodesEvents = new ArrayList<>();
+        ArrayList<RMNodeSourceEvent> nodeSourcesEvents = new ArrayList<>();
+        for (RMEvent event : changes.tailMap(since, false).values()) {
+            if (event instanceof RMNodeEvent) {
+                nodesEvents.add((RMNodeEvent) event);
+            } else {
+                nodeSourcesEvents.add((RMNodeSourceEvent) event);
+            }
+        }
+        return new RMStateDelta(epoch, revision, nodesEvents, nodeSourcesEvents);
+    }
+
+}
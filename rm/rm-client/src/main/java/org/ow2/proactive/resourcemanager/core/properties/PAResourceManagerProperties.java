@@ -84,6 +84,15 @@ public enum PAResourceManagerProperties {
      */
     RM_SELECT_SCRIPT_NODE_DYNAMICITY("pa.rm.select.node.dynamicity", PropertyType.INTEGER),
 
+    /**
+     * Time in ms during which a dynamic selection script which passed on a node is not
+     * executed there again, 0 disables the cache for dynamic scripts.
+     */
+    RM_SELECT_SCRIPT_DYNAMIC_RESULT_TTL("pa.rm.select.script.dynamic.ttl", PropertyType.INTEGER),
+
+    /** The maximum number of dynamic selection script results kept in the cache */
+    RM_SELECT_SCRIPT_DYNAMIC_RESULT_CACHE_SIZE("pa.rm.select.script.dynamic.cache", PropertyType.INTEGER),
+
     /** Timeout in ms for remote script execution using
      *  {@link SelectionManager#executeScript(org.ow2.proactive.scripting.Script, java.util.HashMap)}*/
     RM_EXECUTE_SCRIPT_TIMEOUT("pa.rm.execute.script.timeout", PropertyType.INTEGER),
@@ -167,6 +176,9 @@ public enum PAResourceManagerProperties {
     /** Max number of threads in node source for parallel task execution */
     RM_MONITORING_MAX_THREAD_NUMBER("pa.rm.monitoring.maxthreadnumber", PropertyType.INTEGER),
 
+    /** Max number of events waiting for delivery to a client, slower clients are removed from listeners */
+    RM_MONITORING_MAX_PENDING_EVENTS("pa.rm.monitoring.max.pending.events", PropertyType.INTEGER),
+
     /** Max number of threads in the core for cleaning nodes after computations */
     RM_CLEANING_MAX_THREAD_NUMBER("pa.rm.cleaning.maxthreadnumber", PropertyType.INTEGER),
 
@@ -201,6 +213,9 @@ public enum PAResourceManagerProperties {
 
     RM_TOPOLOGY_PINGER("pa.rm.topology.pinger.class", PropertyType.STRING),
 
+    /** Maximum number of hosts pinged in parallel when computing the topology */
+    RM_TOPOLOGY_PINGER_THREADS("pa.rm.topology.pinger.threads", PropertyType.INTEGER),
+
     /** Resource Manager selection process logs*/
     RM_SELECTION_LOGS_LOCATION("pa.rm.logs.selection.location", PropertyType.STRING),
 
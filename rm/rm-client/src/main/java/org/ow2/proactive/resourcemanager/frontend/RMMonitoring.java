@@ -66,6 +66,9 @@ public interface RMMonitoring {
     /** Register a new Resource manager listener.
      * Way to a monitor object to ask at RMMonitoring to throw
      * RM events to it.
+     * A listener which does not receive the events fast enough gets only the latest
+     * state change of each node, the previous node state of such an event is not
+     * necessarily the state the listener received last.
      * @param listener a listener object which implements {@link RMEventListener}
      * interface.
      * @param events list of wanted events that must be received.
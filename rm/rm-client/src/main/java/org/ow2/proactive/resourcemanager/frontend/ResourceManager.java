@@ -348,6 +348,19 @@ public interface ResourceManager {
      */
     NodeSet getNodes(Criteria criteria);
 
+    /**
+     * Finds and books nodes for several requests in a single call.
+     * Criteria are served in the given order, each one as {@link #getNodes(Criteria)} would.
+     * If the selection fails for one criterion, an empty node set holding the failure
+     * (see {@link NodeSet#getSelectionFailure()}) is returned for it and the following
+     * criteria are still served.
+     *
+     * @param criteriaList criteria to select nodes
+     * @see {@link Criteria}
+     * @return one node set per criterion, in the same order as the given criteria
+     */
+    List<NodeSet> getNodes(List<Criteria> criteriaList);
+
     /**
      * Releases the node after computations. The specified node is marked as free and become
      * available to other users.
@@ -37,14 +37,18 @@
 package org.ow2.proactive.resourcemanager.frontend.topology;
 
 import java.net.InetAddress;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
 
 import org.objectweb.proactive.core.node.Node;
 import org.ow2.proactive.resourcemanager.frontend.topology.clustering.Cluster;
@@ -61,12 +65,36 @@ import org.ow2.proactive.topology.descriptor.DistanceFunction;
 @XmlAccessorType(XmlAccessType.FIELD)
 public class TopologyImpl implements Topology, Cloneable {
 
+    /** Matrix value for the hosts without known distance */
+    private static final long UNKNOWN_DISTANCE = Long.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 16;
+
     /**
-     * Host -> Hosts -> Distance
-     * Store here only half of matrix - each host have distances to hosts added before.
-     * Assume that they are symmetrical.
+     * Host -> index of the host in the distances matrix.
+     * The matrix and its indexes are not serialized to XML or JSON, see {@link #getDistances()}.
+     */
+    @XmlTransient
+    private HashMap<InetAddress, Integer> hostIndexes = new HashMap<>();
+    /**
+     * Index -> order in which the host has been added, used to keep the semantic
+     * of {@link #getHostTopology(InetAddress)}.
+     */
+    @XmlTransient
+    private long[] additionOrder = new long[INITIAL_CAPACITY];
+    @XmlTransient
+    private long additionCounter = 0;
+    /**
+     * Index -> Index -> Distance
+     * Symmetrical matrix of the distances between hosts, UNKNOWN_DISTANCE when the distance
+     * between two hosts is not known. Indexes of removed hosts are reused by new ones.
      */
-    private HashMap<InetAddress, HashMap<InetAddress, Long>> distances = new HashMap<>();
+    @XmlTransient
+    private long[][] distanceMatrix = createMatrix(INITIAL_CAPACITY);
+    @XmlTransient
+    private LinkedList<Integer> freeIndexes = new LinkedList<>();
+    @XmlTransient
+    private int usedIndexes = 0;
     /**
      * This map is needed to store the dependency between host name and address.
      * All listeners of the RM receive only host name in events, so for them it's simpler to
@@ -88,11 +116,15 @@ public class TopologyImpl implements Topology, Cloneable {
      */
     public Long getDistance(InetAddress host, InetAddress host2) {
         if (host.equals(host2)) {
-            return new Long(0);
-        } else if (distances.get(host) != null && distances.get(host).get(host2) != null) {
-            return distances.get(host).get(host2);
-        } else if (distances.get(host2) != null && distances.get(host2).get(host) != null) {
-            return distances.get(host2).get(host);
+            return 0L;
+        }
+        Integer index = hostIndexes.get(host);
+        Integer index2 = hostIndexes.get(host2);
+        if (index != null && index2 != null) {
+            long distance = distanceMatrix[index][index2];
+            if (distance != UNKNOWN_DISTANCE) {
+                return distance;
+            }
         }
         return null;
     }
@@ -121,7 +153,7 @@ public class TopologyImpl implements Topology, Cloneable {
      * {@inheritDoc}
      */
     public Set<InetAddress> getHosts() {
-        return distances.keySet();
+        return hostIndexes.keySet();
     }
 
     /**
@@ -134,10 +166,47 @@ public class TopologyImpl implements Topology, Cloneable {
      */
     public void addHostTopology(String hostName, InetAddress hostAddress,
             HashMap<InetAddress, Long> hostTopology) {
-        distances.put(hostAddress, hostTopology);
+        Integer index = hostIndexes.get(hostAddress);
+        if (index == null) {
+            index = allocateIndex();
+            hostIndexes.put(hostAddress, index);
+        } else {
+            clearIndex(index);
+        }
+        additionOrder[index] = additionCounter++;
+
+        for (Map.Entry<InetAddress, Long> entry : hostTopology.entrySet()) {
+            Integer otherIndex = hostIndexes.get(entry.getKey());
+            if (otherIndex != null && !otherIndex.equals(index) && entry.getValue() != null) {
+                distanceMatrix[index][otherIndex] = entry.getValue();
+                distanceMatrix[otherIndex][index] = entry.getValue();
+            }
+        }
         hosts.put(hostName, hostAddress);
     }
 
+    /**
+     * Adds distances from an already known host to other known hosts.
+     * Unlike {@link #addHostTopology(String, InetAddress, HashMap)} the distances
+     * previously measured from this host are kept.
+     *
+     * @param hostAddress the address of the host
+     * @param hostTopology distances to other hosts
+     */
+    public void updateHostTopology(InetAddress hostAddress, HashMap<InetAddress, Long> hostTopology) {
+        Integer index = hostIndexes.get(hostAddress);
+        if (index == null) {
+            return;
+        }
+        for (Map.Entry<InetAddress, Long> entry : hostTopology.entrySet()) {
+            Integer otherIndex = hostIndexes.get(entry.getKey());
+            if (otherIndex != null && !otherIndex.equals(index) && entry.getValue() != null) {
+                distanceMatrix[index][otherIndex] = entry.getValue();
+                distanceMatrix[otherIndex][index] = entry.getValue();
+            }
+        }
+    }
+
     /**
      * Removes all information about host from the topology.
      * As it stores internally names and addresses we do not try to convert one into
@@ -147,13 +216,12 @@ public class TopologyImpl implements Topology, Cloneable {
      * @param hostAddress host address to be removed
      */
     public void removeHostTopology(String hostName, InetAddress hostAddress) {
-        distances.remove(hostAddress);
+        Integer index = hostIndexes.remove(hostAddress);
         hosts.remove(hostName);
-        // removing links to "host"
-        for (InetAddress h : distances.keySet()) {
-            if (distances.get(h).containsKey(hostAddress)) {
-                distances.get(h).remove(hostAddress);
-            }
+        if (index != null) {
+            // removing links to "host"
+            clearIndex(index);
+            freeIndexes.add(index);
         }
     }
 
@@ -161,14 +229,39 @@ public class TopologyImpl implements Topology, Cloneable {
      * {@inheritDoc}
      */
     public HashMap<InetAddress, Long> getHostTopology(InetAddress hostAddress) {
-        return distances.get(hostAddress);
+        Integer index = hostIndexes.get(hostAddress);
+        if (index == null) {
+            return null;
+        }
+        HashMap<InetAddress, Long> hostTopology = new HashMap<>();
+        for (Map.Entry<InetAddress, Integer> entry : hostIndexes.entrySet()) {
+            int otherIndex = entry.getValue();
+            long distance = distanceMatrix[index][otherIndex];
+            if (additionOrder[otherIndex] < additionOrder[index] && distance != UNKNOWN_DISTANCE) {
+                hostTopology.put(entry.getKey(), distance);
+            }
+        }
+        return hostTopology;
+    }
+
+    /**
+     * Host -> Hosts -> Distance
+     * Distances of each host to the hosts added before it, as they are given to REST clients.
+     */
+    @XmlElement(name = "distances")
+    private HashMap<InetAddress, HashMap<InetAddress, Long>> getDistances() {
+        HashMap<InetAddress, HashMap<InetAddress, Long>> hostDistances = new HashMap<>();
+        for (InetAddress host : hostIndexes.keySet()) {
+            hostDistances.put(host, getHostTopology(host));
+        }
+        return hostDistances;
     }
 
     /**
      * {@inheritDoc}
      */
     public boolean knownHost(InetAddress hostAddress) {
-        return distances.containsKey(hostAddress);
+        return hostIndexes.containsKey(hostAddress);
     }
 
     /**
@@ -176,12 +269,53 @@ public class TopologyImpl implements Topology, Cloneable {
      */
     public Object clone() {
         try {
-            return super.clone();
+            TopologyImpl clone = (TopologyImpl) super.clone();
+            clone.hostIndexes = new HashMap<>(hostIndexes);
+            clone.additionOrder = additionOrder.clone();
+            clone.distanceMatrix = new long[distanceMatrix.length][];
+            for (int i = 0; i < distanceMatrix.length; i++) {
+                clone.distanceMatrix[i] = distanceMatrix[i].clone();
+            }
+            clone.freeIndexes = new LinkedList<>(freeIndexes);
+            clone.hosts = new HashMap<>(hosts);
+            return clone;
         } catch (CloneNotSupportedException e) {
         }
         return null;
     }
 
+    private int allocateIndex() {
+        if (!freeIndexes.isEmpty()) {
+            return freeIndexes.removeFirst();
+        }
+        if (usedIndexes == distanceMatrix.length) {
+            // growing the matrix
+            int capacity = distanceMatrix.length * 2;
+            long[][] newDistances = createMatrix(capacity);
+            for (int i = 0; i < distanceMatrix.length; i++) {
+                System.arraycopy(distanceMatrix[i], 0, newDistances[i], 0, distanceMatrix.length);
+            }
+            distanceMatrix = newDistances;
+            additionOrder = Arrays.copyOf(additionOrder, capacity);
+        }
+        return usedIndexes++;
+    }
+
+    private void clearIndex(int index) {
+        Arrays.fill(distanceMatrix[index], UNKNOWN_DISTANCE);
+        for (long[] row : distanceMatrix) {
+            row[index] = UNKNOWN_DISTANCE;
+        }
+    }
+
+    private static long[][] createMatrix(int capacity) {
+        long[][] matrix = new long[capacity][capacity];
+        for (long[] row : matrix) {
+            Arrays.fill(row, UNKNOWN_DISTANCE);
+        }
+        return matrix;
+    }
+
     /**
      * {@inheritDoc}
      */
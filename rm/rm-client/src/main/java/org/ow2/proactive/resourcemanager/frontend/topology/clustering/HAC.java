@@ -36,12 +36,14 @@
  */
 package org.ow2.proactive.resourcemanager.frontend.topology.clustering;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Set;
 
 import org.apache.log4j.Logger;
@@ -57,10 +59,18 @@ import org.ow2.proactive.topology.descriptor.DistanceFunction;
  * For details see
  * http://en.wikipedia.org/wiki/Cluster_analysis#Agglomerative_hierarchical_clustering
  *
+ * Distances between clusters are kept in a primitive matrix indexed by cluster and
+ * the closest clusters are taken from a priority queue, so that a full clustering
+ * of n elements takes O(n^2 log n).
+ *
  */
 public class HAC {
 
     private final static Logger logger = Logger.getLogger(HAC.class);
+
+    /** Distance of the clusters which are not connected */
+    private static final long NOT_CONNECTED = -1;
+
     private Topology topology;
     private final List<Node> pivot;
     private DistanceFunction distanceFunction;
@@ -105,10 +115,10 @@ public class HAC {
             return new LinkedList<>();
         }
 
-        // initializing cluster distances map
+        // initializing cluster distances matrix
         // cluster is a group of nodes, initially each cluster consist of one node
         logger.debug("Initializing clusters map");
-        HashMap<Cluster<Node>, HashMap<Cluster<Node>, Long>> clusterDistances = initClusterDistances(from);
+        ClusterDistances<Node> clusterDistances = initClusterDistances(from);
 
         // no topology information for provided nodes
         if (from.size() > 0 && clusterDistances.size() == 0) {
@@ -119,47 +129,52 @@ public class HAC {
         if (pivot.size() > 0) {
             // fixed orientation clustering
             Iterator<Node> it = pivot.iterator();
-            Node pivotNode = it.next();
-            target = new Cluster<>(getNodeId(pivotNode), pivotNode);
+            int targetIndex = clusterDistances.indexOf(getNodeId(it.next()));
             // merging pivot nodes into one cluster and recalculating distances
             logger.debug("Merging pivot nodes into one cluster");
             while (it.hasNext()) {
                 // merging clusters and recalculating distances between others
-                pivotNode = it.next();
-                Cluster<Node> pivotCluster = new Cluster<>(getNodeId(pivotNode), pivotNode);
-                target = recalculateDistances(target, pivotCluster, clusterDistances);
+                int pivotIndex = clusterDistances.indexOf(getNodeId(it.next()));
+                if (pivotIndex != targetIndex) {
+                    targetIndex = clusterDistances.merge(targetIndex, pivotIndex);
+                }
             }
+            target = clusterDistances.get(targetIndex);
 
             // clustering centralized to the pivot
             logger.debug("Begin centralized hierarchical agglomerative clustering");
             while (clusterDistances.size() > 1 && target.size() < (number + pivot.size())) {
-                Cluster<Node> closest = findClosestClustersTo(target, clusterDistances);
+                int closest = clusterDistances.findClosestTo(targetIndex);
 
-                if (closest == null) {
+                if (closest < 0) {
                     // no clusters found => cannot merge anything => stop where we are
                     break;
                 }
                 // merging clusters and recalculating distances between others
-                target = recalculateDistances(target, closest, clusterDistances);
+                targetIndex = clusterDistances.merge(targetIndex, closest);
+                target = clusterDistances.get(targetIndex);
             }
 
             // removing pivot nodes from the result
             target.remove(pivot);
         } else {
             logger.debug("Begin hierarchical agglomerative clustering");
-            target = (Cluster<Node>) clusterDistances.keySet().iterator().next();
+            target = clusterDistances.get(0);
             Cluster<Node> largest = target;
+            clusterDistances.initClosestPairs();
             // floating clustering
             while (clusterDistances.size() > 1) {
                 // finding two clusters to merge according
-                Cluster<Node>[] clustersToMerge = findClosestClusters(clusterDistances);
+                int[] clustersToMerge = clusterDistances.pollClosestPair();
                 if (clustersToMerge == null) {
                     // there is no clusters close to each other
                     // stop the process
                     break;
                 }
+                Cluster<Node> first = clusterDistances.get(clustersToMerge[0]);
+                Cluster<Node> second = clusterDistances.get(clustersToMerge[1]);
                 // merging clusters and recalculating distances between others
-                target = recalculateDistances(clustersToMerge[0], clustersToMerge[1], clusterDistances);
+                target = clusterDistances.get(clusterDistances.merge(clustersToMerge[0], clustersToMerge[1]));
                 if (target.size() >= largest.size()) {
                     largest = target;
                 }
@@ -175,8 +190,7 @@ public class HAC {
                     logger.debug("Number of node in the cluster exceeded required node number " +
                         target.size() + " vs " + number);
 
-                    Cluster<Node> anotherCluster = clustersToMerge[0] == target ? clustersToMerge[1]
-                            : clustersToMerge[0];
+                    Cluster<Node> anotherCluster = first == target ? second : first;
                     target.removeLast(anotherCluster.size());
                     final Cluster<Node> finalTarget = target;
 
@@ -226,7 +240,7 @@ public class HAC {
         return topology.getDistance(node, node2);
     }
 
-    private HashMap<Cluster<Node>, HashMap<Cluster<Node>, Long>> initClusterDistances(List<Node> from) {
+    private ClusterDistances<Node> initClusterDistances(List<Node> from) {
         if (pivot.size() > 0) {
             from = new LinkedList<>(from);
             for (Node piv : pivot) {
@@ -235,169 +249,254 @@ public class HAC {
             }
         }
 
-        HashMap<Cluster<Node>, HashMap<Cluster<Node>, Long>> clusterDistances = new HashMap<>();
-
+        List<Cluster<Node>> clusters = new ArrayList<>(from.size());
+        HashMap<String, Integer> indexes = new HashMap<>();
         for (Node node : from) {
-            Cluster<Node> newCluster = new Cluster<>(getNodeId(node), node);
-            HashMap<Cluster<Node>, Long> dist = new HashMap<>();
-            for (Cluster<Node> cluster : clusterDistances.keySet()) {
-                dist.put(cluster, getDistance(node, cluster.getElements().get(0)));
+            String id = getNodeId(node);
+            if (!indexes.containsKey(id)) {
+                indexes.put(id, clusters.size());
+                clusters.add(new Cluster<>(id, node));
+            }
+        }
+
+        ClusterDistances<Node> clusterDistances = new ClusterDistances<>(clusters, indexes);
+        for (int i = 0; i < clusters.size(); i++) {
+            Node node = clusters.get(i).getElements().get(0);
+            for (int j = 0; j < i; j++) {
+                clusterDistances.setDistance(i, j, getDistance(node, clusters.get(j).getElements().get(0)));
             }
-            clusterDistances.put(newCluster, dist);
         }
         return clusterDistances;
     }
 
-    @SuppressWarnings(value = "unchecked")
-    private <T> Cluster<T>[] findClosestClusters(HashMap<Cluster<T>, HashMap<Cluster<T>, Long>> curDistances) {
+    private String getNodeId(Node node) {
+        if (node.getNodeInformation() == null) {
+            // for test purpose when nodes are imitated
+            return node.toString();
+        } else {
+            return node.getNodeInformation().getURL();
+        }
+    }
 
-        Cluster<T>[] res = null;
-        long proximity = threshold;
+    public List<Cluster<String>> clusterize(int numberOfClusters, Set<String> hosts) {
 
-        for (Cluster<?> a : curDistances.keySet()) {
-            for (Cluster<?> b : curDistances.get(a).keySet()) {
-                if (a.equals(b)) {
-                    continue;
-                }
+        if (numberOfClusters <= 0) {
+            throw new IllegalArgumentException("numberOfClusters must be positive");
+        }
 
-                Long distance = curDistances.get(a).get(b);
-                if (distance >= 0 && distance <= proximity) {
-                    res = (Cluster<T>[]) new Cluster[] { a, b };
-                    proximity = curDistances.get(a).get(b);
-                }
+        logger.debug("Initializing clusters map");
+        List<Cluster<String>> clusters = new ArrayList<>(hosts.size());
+        HashMap<String, Integer> indexes = new HashMap<>();
+        for (String host : hosts) {
+            indexes.put(host, clusters.size());
+            clusters.add(new Cluster<>(host, host));
+        }
+
+        ClusterDistances<String> clusterDistances = new ClusterDistances<>(clusters, indexes);
+        for (int i = 0; i < clusters.size(); i++) {
+            String host = clusters.get(i).getElements().get(0);
+            for (int j = 0; j < i; j++) {
+                clusterDistances.setDistance(i, j, topology.getDistance(host, clusters.get(j).getElements()
+                        .get(0)));
+            }
+        }
+
+        clusterDistances.initClosestPairs();
+        while (clusterDistances.size() > numberOfClusters) {
+            // finding two clusters to merge according
+            int[] clustersToMerge = clusterDistances.pollClosestPair();
+            if (clustersToMerge == null) {
+                // there is no clusters close to each other
+                // stop the process
+                break;
             }
+            // merging clusters and recalculating distances between others
+            clusterDistances.merge(clustersToMerge[0], clustersToMerge[1]);
         }
 
-        return res;
+        return clusterDistances.getClusters();
     }
 
-    @SuppressWarnings(value = "unchecked")
-    private <T> Cluster<T> findClosestClustersTo(Cluster<T> cluster,
-            HashMap<Cluster<T>, HashMap<Cluster<T>, Long>> curDistances) {
+    /**
+     * Distances between the current clusters, each cluster being identified by an index.
+     * Merged clusters keep the index of the bigger one.
+     */
+    private final class ClusterDistances<T> {
 
-        Cluster<T>[] res = null;
-        long proximity = threshold;
+        private final List<Cluster<T>> clusters;
 
-        for (Cluster<T> a : curDistances.keySet()) {
-            for (Cluster<T> b : curDistances.get(a).keySet()) {
-                if (a.equals(b) || (!a.equals(cluster) && !b.equals(cluster))) {
-                    continue;
-                }
+        private final HashMap<String, Integer> indexes;
 
-                Long distance = curDistances.get(a).get(b);
-                if (distance >= 0 && distance <= proximity) {
-                    res = (Cluster<T>[]) new Cluster[] { a, b };
-                    proximity = distance;
-                }
-            }
-        }
+        // symmetrical matrix of distances between clusters
+        private final long[][] distances;
 
-        // no closest found
-        if (res == null)
-            return null;
+        private final boolean[] merged;
 
-        //return the one that is not 'cluster'
-        return (res[0].equals(cluster)) ? res[1] : res[0];
+        // incremented each time the distances of a cluster change, to invalidate queued pairs
+        private final int[] versions;
 
-    }
+        private int size;
 
-    private String getNodeId(Node node) {
-        if (node.getNodeInformation() == null) {
-            // for test purpose when nodes are imitated
-            return node.toString();
-        } else {
-            return node.getNodeInformation().getURL();
+        // pairs of clusters closer than the threshold, lazily cleaned from outdated pairs
+        private PriorityQueue<ClusterPair> closestPairs;
+
+        private ClusterDistances(List<Cluster<T>> clusters, HashMap<String, Integer> indexes) {
+            this.clusters = clusters;
+            this.indexes = indexes;
+            this.size = clusters.size();
+            this.distances = new long[size][size];
+            this.merged = new boolean[size];
+            this.versions = new int[size];
         }
-    }
 
-    /**
-     * Merges two cluster and recalculates distances to other.
-     * To achieve better performance new cluster is not created.
-     * Instead the bigger cluster is used as a container for nodes
-     * from smaller one.
-     */
-    private <T> Cluster<T> recalculateDistances(Cluster<T> cluster1, Cluster<T> cluster2,
-            HashMap<Cluster<T>, HashMap<Cluster<T>, Long>> curDistances) {
+        private int size() {
+            return size;
+        }
 
-        final Cluster<T> biggerCluster = cluster1.size() > cluster2.size() ? cluster1 : cluster2;
-        final Cluster<T> smallerCluster = cluster1.size() > cluster2.size() ? cluster2 : cluster1;
+        private Cluster<T> get(int index) {
+            return clusters.get(index);
+        }
 
-        if (logger.isDebugEnabled()) {
-            logger.debug("Recalculating distances");
-            logger.debug("Clusters to merge:\n" + biggerCluster + "\n" + smallerCluster);
+        private int indexOf(String id) {
+            return indexes.get(id);
         }
 
-        for (Cluster<T> cluster : curDistances.keySet()) {
-            if (cluster.equals(smallerCluster) || cluster.equals(biggerCluster)) {
-                continue;
+        private List<Cluster<T>> getClusters() {
+            List<Cluster<T>> result = new LinkedList<>();
+            for (int i = 0; i < clusters.size(); i++) {
+                if (!merged[i]) {
+                    result.add(clusters.get(i));
+                }
             }
+            return result;
+        }
 
-            //logger.debug(curDistances);
-            long d0, d1;
-            if (curDistances.get(cluster) != null && curDistances.get(cluster).containsKey(biggerCluster)) {
-                d0 = curDistances.get(cluster).get(biggerCluster);
-            } else {
-                d0 = curDistances.get(biggerCluster).get(cluster);
-            }
-            if (curDistances.get(cluster) != null && curDistances.get(cluster).containsKey(smallerCluster)) {
-                d1 = curDistances.get(cluster).get(smallerCluster);
-            } else {
-                d1 = curDistances.get(smallerCluster).get(cluster);
+        private void setDistance(int i, int j, Long distance) {
+            long value = distance == null ? NOT_CONNECTED : distance;
+            distances[i][j] = value;
+            distances[j][i] = value;
+        }
+
+        private boolean isClose(long distance) {
+            return distance >= 0 && distance <= threshold;
+        }
+
+        /**
+         * Returns the cluster closest to the given one or -1 if no cluster is close enough.
+         */
+        private int findClosestTo(int index) {
+            int closest = -1;
+            long proximity = threshold;
+            for (int i = 0; i < clusters.size(); i++) {
+                if (i == index || merged[i]) {
+                    continue;
+                }
+                long distance = distances[index][i];
+                if (distance >= 0 && distance <= proximity) {
+                    closest = i;
+                    proximity = distance;
+                }
             }
+            return closest;
+        }
 
-            long newDistance = distanceFunction.distance(d0, d1);
-            curDistances.get(biggerCluster).put(cluster, newDistance);
+        private void initClosestPairs() {
+            closestPairs = new PriorityQueue<>();
+            for (int i = 0; i < clusters.size(); i++) {
+                for (int j = 0; j < i; j++) {
+                    if (isClose(distances[i][j])) {
+                        closestPairs.add(new ClusterPair(distances[i][j], i, j, 0, 0));
+                    }
+                }
+            }
+        }
 
-            if (curDistances.get(cluster) != null) {
-                curDistances.get(cluster).remove(smallerCluster);
-                curDistances.get(cluster).remove(biggerCluster);
+        /**
+         * Returns the two closest clusters or null if no clusters are close enough.
+         */
+        private int[] pollClosestPair() {
+            ClusterPair pair;
+            while ((pair = closestPairs.poll()) != null) {
+                if (!merged[pair.first] && !merged[pair.second] &&
+                    versions[pair.first] == pair.firstVersion && versions[pair.second] == pair.secondVersion) {
+                    return new int[] { pair.first, pair.second };
+                }
             }
+            return null;
         }
 
-        biggerCluster.add(smallerCluster.getElements());
-        // we may actually add nodes to another instance of the cluster
-        // so override the key value in the hash
-        curDistances.put(biggerCluster, curDistances.remove(biggerCluster));
+        /**
+         * Merges two cluster and recalculates distances to other.
+         * To achieve better performance new cluster is not created.
+         * Instead the bigger cluster is used as a container for nodes
+         * from smaller one.
+         *
+         * @return the index of the merged cluster
+         */
+        private int merge(int index1, int index2) {
+            Cluster<T> cluster1 = clusters.get(index1);
+            Cluster<T> cluster2 = clusters.get(index2);
+            final int bigger = cluster1.size() > cluster2.size() ? index1 : index2;
+            final int smaller = cluster1.size() > cluster2.size() ? index2 : index1;
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("Recalculating distances");
+                logger.debug("Clusters to merge:\n" + clusters.get(bigger) + "\n" + clusters.get(smaller));
+            }
 
-        curDistances.remove(smallerCluster);
-        curDistances.get(biggerCluster).remove(smallerCluster);
+            versions[bigger]++;
+            for (int i = 0; i < clusters.size(); i++) {
+                if (i == bigger || i == smaller || merged[i]) {
+                    continue;
+                }
+                long newDistance = distanceFunction.distance(distances[i][bigger], distances[i][smaller]);
+                distances[i][bigger] = newDistance;
+                distances[bigger][i] = newDistance;
+                if (closestPairs != null && isClose(newDistance)) {
+                    closestPairs.add(new ClusterPair(newDistance, bigger, i, versions[bigger], versions[i]));
+                }
+            }
 
-        if (logger.isDebugEnabled()) {
-            logger.debug(biggerCluster + " size = " + biggerCluster.size());
+            clusters.get(bigger).add(clusters.get(smaller).getElements());
+            merged[smaller] = true;
+            size--;
+
+            if (logger.isDebugEnabled()) {
+                logger.debug(clusters.get(bigger) + " size = " + clusters.get(bigger).size());
+            }
+            return bigger;
         }
-        return biggerCluster;
     }
 
-    public List<Cluster<String>> clusterize(int numberOfClusters, Set<String> hosts) {
+    private static final class ClusterPair implements Comparable<ClusterPair> {
 
-        if (numberOfClusters <= 0) {
-            throw new IllegalArgumentException("numberOfClusters must be positive");
-        }
+        private final long distance;
 
-        logger.debug("Initializing clusters map");
-        HashMap<Cluster<String>, HashMap<Cluster<String>, Long>> clusterDistances = new HashMap<>();
+        private final int first;
 
-        for (String host : hosts) {
-            Cluster<String> newCluster = new Cluster<>(host, host);
-            HashMap<Cluster<String>, Long> dist = new HashMap<>();
-            for (Cluster<String> cluster : clusterDistances.keySet()) {
-                dist.put(cluster, topology.getDistance(host, cluster.getElements().get(0)));
-            }
-            clusterDistances.put(newCluster, dist);
+        private final int second;
+
+        private final int firstVersion;
+
+        private final int secondVersion;
+
+        private ClusterPair(long distance, int first, int second, int firstVersion, int secondVersion) {
+            this.distance = distance;
+            this.first = first;
+            this.second = second;
+            this.firstVersion = firstVersion;
+            this.secondVersion = secondVersion;
         }
 
-        while (clusterDistances.size() > numberOfClusters) {
-            // finding two clusters to merge according
-            Cluster<String>[] clustersToMerge = findClosestClusters(clusterDistances);
-            if (clustersToMerge == null) {
-                // there is no clusters close to each other
-                // stop the process
-                break;
+        @Override
+        public int compareTo(ClusterPair other) {
+            if (distance != other.distance) {
+                return distance < other.distance ? -1 : 1;
             }
-            // merging clusters and recalculating distances between others
-            recalculateDistances(clustersToMerge[0], clustersToMerge[1], clusterDistances);
+            if (first != other.first) {
+                return first < other.first ? -1 : 1;
+            }
+            return second < other.second ? -1 : (second == other.second ? 0 : 1);
         }
-
-        return new LinkedList<>(clusterDistances.keySet());
     }
 }
@@ -67,6 +67,11 @@ public class NodeSet extends ArrayList<Node> {
      */
     private Collection<Node> extraNodes;
 
+    /**
+     * the reason why the nodes could not be selected
+     */
+    private RuntimeException selectionFailure;
+
     /**
      * constructor.
      */
@@ -100,6 +105,7 @@ public class NodeSet extends ArrayList<Node> {
         if (another.getExtraNodes() != null) {
             this.extraNodes = new LinkedList<>(another.getExtraNodes());
         }
+        this.selectionFailure = another.getSelectionFailure();
     }
 
     /**
@@ -116,4 +122,21 @@ public class NodeSet extends ArrayList<Node> {
     public void setExtraNodes(Collection<Node> extraNodes) {
         this.extraNodes = extraNodes;
     }
+
+    /**
+     * Returns the exception raised while selecting the nodes of this set, null if the
+     * selection succeeded. It allows an empty set given because no node matched to be
+     * distinguished from a failed selection.
+     */
+    public RuntimeException getSelectionFailure() {
+        return selectionFailure;
+    }
+
+    /**
+     * Sets the exception raised while selecting the nodes of this set.
+     * @param selectionFailure
+     */
+    public void setSelectionFailure(RuntimeException selectionFailure) {
+        this.selectionFailure = selectionFailure;
+    }
 }
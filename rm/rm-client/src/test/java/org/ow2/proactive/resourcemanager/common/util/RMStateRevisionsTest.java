@@ -0,0 +1,131 @@
+/*
+ *  *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2013 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s):
+ *
+ *  * $$PROACTIVE_INITIAL_DEV$$
+ */
+package org.ow2.proactive.resourcemanager.common.util;
+
+import java.util.ArrayList;
+
+import org.ow2.proactive.resourcemanager.common.NodeState;
+import org.ow2.proactive.resourcemanager.common.event.RMEventType;
+import org.ow2.proactive.resourcemanager.common.event.RMInitialState;
+import org.ow2.proactive.resourcemanager.common.event.RMNodeDescriptor;
+import org.ow2.proactive.resourcemanager.common.event.RMNodeEvent;
+import org.ow2.proactive.resourcemanager.common.event.RMNodeSourceEvent;
+import org.ow2.proactive.resourcemanager.common.event.RMStateDelta;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+public class RMStateRevisionsTest {
+
+    @Test
+    public void unknownRevisionGetsFullState() throws Exception {
+        RMInitialState state = createState("node1", "node2");
+        RMStateRevisions revisions = new RMStateRevisions();
+        revisions.reset(state);
+
+        RMStateDelta delta = revisions.getDelta(null, -1, state);
+        assertSame(state, delta.getInitialState());
+        assertEquals(revisions.getEpoch(), delta.getEpoch());
+        assertEquals(revisions.getRevision(), delta.getRevision());
+
+        delta = revisions.getDelta(revisions.getEpoch(), revisions.getRevision() + 1, state);
+        assertSame(state, delta.getInitialState());
+    }
+
+    @Test
+    public void revisionOfAnotherEpochGetsFullState() throws Exception {
+        RMInitialState state = createState("node1", "node2");
+        RMStateRevisions revisions = new RMStateRevisions();
+        revisions.reset(state);
+        // numbered from scratch, as after a reconnection
+        RMStateRevisions newRevisions = new RMStateRevisions();
+        newRevisions.reset(state);
+        newRevisions.nodeEvent(createNodeEvent("node1", RMEventType.NODE_STATE_CHANGED, NodeState.BUSY));
+
+        assertNotEquals(revisions.getEpoch(), newRevisions.getEpoch());
+        assertFalse(revisions.getDelta(revisions.getEpoch(), revisions.getRevision(), state).hasChanges());
+        RMStateDelta delta = newRevisions.getDelta(revisions.getEpoch(), revisions.getRevision(), state);
+        assertSame(state, delta.getInitialState());
+        assertEquals(newRevisions.getEpoch(), delta.getEpoch());
+    }
+
+    @Test
+    public void onlyLatestChangesAreReturned() throws Exception {
+        RMInitialState state = createState("node1", "node2");
+        RMStateRevisions revisions = new RMStateRevisions();
+        revisions.reset(state);
+        long revision = revisions.getRevision();
+
+        assertFalse(revisions.getDelta(revisions.getEpoch(), revision, state).hasChanges());
+
+        revisions.nodeEvent(createNodeEvent("node1", RMEventType.NODE_STATE_CHANGED, NodeState.BUSY));
+        RMNodeEvent latest = createNodeEvent("node1", RMEventType.NODE_STATE_CHANGED, NodeState.FREE);
+        revisions.nodeEvent(latest);
+        RMNodeEvent removed = createNodeEvent("node2", RMEventType.NODE_REMOVED, NodeState.FREE);
+        revisions.nodeEvent(removed);
+        RMNodeSourceEvent created = new RMNodeSourceEvent(RMEventType.NODESOURCE_CREATED, "admin", "source",
+            "", "admin");
+        revisions.nodeSourceEvent(created);
+
+        RMStateDelta delta = revisions.getDelta(revisions.getEpoch(), revision, state);
+        assertNull(delta.getInitialState());
+        assertEquals(2, delta.getNodesEvents().size());
+        assertSame(latest, delta.getNodesEvents().get(0));
+        assertSame(removed, delta.getNodesEvents().get(1));
+        assertEquals(1, delta.getNodeSourcesEvents().size());
+        assertSame(created, delta.getNodeSourcesEvents().get(0));
+
+        assertFalse(revisions.getDelta(delta.getEpoch(), delta.getRevision(), state).hasChanges());
+    }
+
+    private RMInitialState createState(String... nodeUrls) {
+        ArrayList<RMNodeEvent> nodes = new ArrayList<>();
+        for (String nodeUrl : nodeUrls) {
+            nodes.add(createNodeEvent(nodeUrl, null, NodeState.FREE));
+        }
+        ArrayList<RMNodeSourceEvent> nodeSources = new ArrayList<>();
+        nodeSources.add(new RMNodeSourceEvent("Default", "", "admin"));
+        return new RMInitialState(nodes, nodeSources);
+    }
+
+    private RMNodeEvent createNodeEvent(String nodeUrl, RMEventType type, NodeState state) {
+        RMNodeDescriptor descriptor = new RMNodeDescriptor();
+        descriptor.setNodeURL(nodeUrl);
+        descriptor.setState(state);
+        return new RMNodeEvent(descriptor, type, null, null);
+    }
+
+}
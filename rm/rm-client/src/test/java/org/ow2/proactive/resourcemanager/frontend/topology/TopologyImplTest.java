@@ -0,0 +1,206 @@
+/*
+ *  *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2014 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s):
+ *
+ *  * $$ACTIVEEON_INITIAL_DEV$$
+ */
+package org.ow2.proactive.resourcemanager.frontend.topology;
+
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.codehaus.jackson.map.AnnotationIntrospector;
+import org.codehaus.jackson.map.DeserializationConfig;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.SerializationConfig;
+import org.codehaus.jackson.xc.JaxbAnnotationIntrospector;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+public class TopologyImplTest {
+
+    private TopologyImpl topology = new TopologyImpl();
+
+    @Test
+    public void matrixGrowsWithTheNumberOfHosts() throws Exception {
+        int hostsNumber = 40;
+        for (int i = 0; i < hostsNumber; i++) {
+            addHost(i);
+        }
+
+        assertEquals(hostsNumber, topology.getHosts().size());
+        for (int i = 0; i < hostsNumber; i++) {
+            assertEquals(i, topology.getHostTopology(host(i)).size());
+            for (int j = 0; j < i; j++) {
+                assertEquals(distance(i, j), topology.getDistance(host(i), host(j)).longValue());
+                assertEquals(distance(i, j), topology.getDistance(host(j), host(i)).longValue());
+                assertEquals(distance(i, j), topology.getDistance("host" + i, "host" + j).longValue());
+            }
+        }
+    }
+
+    @Test
+    public void removedHostIndexIsReusedWithoutItsDistances() throws Exception {
+        addHost(0);
+        addHost(1);
+        addHost(2);
+
+        topology.removeHostTopology("host1", host(1));
+
+        assertFalse(topology.knownHost(host(1)));
+        assertNull(topology.getDistance(host(0), host(1)));
+        assertNull(topology.getDistance("host0", "host1"));
+        assertEquals(2, topology.getHosts().size());
+
+        // the new host takes the index of the removed one
+        HashMap<InetAddress, Long> hostTopology = new HashMap<>();
+        hostTopology.put(host(0), 7L);
+        topology.addHostTopology("host3", host(3), hostTopology);
+
+        assertEquals(7L, topology.getDistance(host(3), host(0)).longValue());
+        assertNull(topology.getDistance(host(3), host(2)));
+        assertEquals(distance(2, 0), topology.getDistance(host(2), host(0)).longValue());
+        assertEquals(1, topology.getHostTopology(host(3)).size());
+        assertEquals(1, topology.getHostTopology(host(2)).size());
+    }
+
+    @Test
+    public void hostTopologyHoldsOnlyHostsAddedBefore() throws Exception {
+        addHost(0);
+        addHost(1);
+        addHost(2);
+
+        assertTrue(topology.getHostTopology(host(0)).isEmpty());
+        assertEquals(1, topology.getHostTopology(host(1)).size());
+        assertEquals(distance(1, 0), topology.getHostTopology(host(1)).get(host(0)).longValue());
+        assertEquals(2, topology.getHostTopology(host(2)).size());
+        assertNull(topology.getHostTopology(host(5)));
+
+        // a host added again comes after the others
+        HashMap<InetAddress, Long> hostTopology = new HashMap<>();
+        hostTopology.put(host(1), 3L);
+        hostTopology.put(host(2), 4L);
+        topology.addHostTopology("host0", host(0), hostTopology);
+
+        assertEquals(2, topology.getHostTopology(host(0)).size());
+        assertEquals(3L, topology.getHostTopology(host(0)).get(host(1)).longValue());
+        assertTrue(topology.getHostTopology(host(1)).isEmpty());
+        assertEquals(1, topology.getHostTopology(host(2)).size());
+        assertNull(topology.getHostTopology(host(2)).get(host(0)));
+    }
+
+    @Test
+    public void cloneIsIndependent() throws Exception {
+        addHost(0);
+        addHost(1);
+        TopologyImpl clone = (TopologyImpl) topology.clone();
+
+        topology.removeHostTopology("host1", host(1));
+        addHost(2);
+
+        assertEquals(distance(1, 0), clone.getDistance(host(1), host(0)).longValue());
+        assertFalse(clone.knownHost(host(2)));
+    }
+
+    /**
+     * REST clients get the hosts and the distances of each host to the hosts added before it,
+     * the internal matrix must not be serialized.
+     */
+    @Test
+    public void serializedFormKeepsDistancesByHost() throws Exception {
+        addHost(0);
+        addHost(1);
+        addHost(2);
+        topology.removeHostTopology("host1", host(1));
+
+        String json = restMapper().writeValueAsString(topology);
+        TopologyView view = clientMapper().readValue(json, TopologyView.class);
+
+        assertEquals(2, view.hosts.size());
+        assertTrue(view.hosts.containsKey("host0"));
+        assertTrue(view.hosts.containsKey("host2"));
+        assertEquals(2, view.distances.size());
+        assertTrue(view.distances.get(host(0).toString()).isEmpty());
+        assertEquals(1, view.distances.get(host(2).toString()).size());
+        assertEquals(String.valueOf(distance(2, 0)),
+                view.distances.get(host(2).toString()).get(host(0).toString()));
+        assertFalse(json.contains("distanceMatrix"));
+        assertFalse(json.contains("hostIndexes"));
+    }
+
+    /**
+     * The mapper of the REST server, which only relies on the JAXB annotations.
+     */
+    private static ObjectMapper restMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        AnnotationIntrospector introspector = new JaxbAnnotationIntrospector();
+        mapper.getDeserializationConfig().setAnnotationIntrospector(introspector);
+        mapper.getSerializationConfig().setAnnotationIntrospector(introspector);
+        mapper.getSerializationConfig().disable(SerializationConfig.Feature.FAIL_ON_EMPTY_BEANS);
+        return mapper;
+    }
+
+    /**
+     * The mapper of the command line client, which reads the topology as a {@link TopologyView}.
+     */
+    private static ObjectMapper clientMapper() {
+        return new ObjectMapper().configure(DeserializationConfig.Feature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    private void addHost(int i) throws Exception {
+        HashMap<InetAddress, Long> hostTopology = new HashMap<>();
+        for (InetAddress other : topology.getHosts()) {
+            int j = other.getAddress()[3];
+            hostTopology.put(other, distance(i, j));
+        }
+        topology.addHostTopology("host" + i, host(i), hostTopology);
+    }
+
+    private static long distance(int i, int j) {
+        return 10 + Math.abs(i - j);
+    }
+
+    private static InetAddress host(int i) throws Exception {
+        return InetAddress.getByAddress("host" + i, new byte[] { 10, 0, 0, (byte) i });
+    }
+
+    /**
+     * Same shape as the topology read by the command line client.
+     */
+    public static class TopologyView {
+        public Map<String, Map<String, String>> distances;
+        public Map<String, String> hosts;
+    }
+
+}
@@ -77,6 +77,11 @@ public class NodeCleaner implements Callable<Boolean> {
             return false;
         }
 
+        try {
+            rmnode.getNodeSource().recordNodeActivity(rmnode.getNodeURL());
+        } catch (Throwable t) {
+            logger.debug("Cannot record the activity of the node " + rmnode.getNodeURL(), t);
+        }
         return true;
     }
 }
@@ -44,6 +44,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -192,8 +193,11 @@ public class RMCore implements ResourceManager, InitActive, RunActive {
     /** HashMaps of nodes known by the RMCore */
     private HashMap<String, RMNode> allNodes;
 
-    /** list of all free nodes */
-    private ArrayList<RMNode> freeNodes;
+    /** all free nodes, in the order they became free */
+    private LinkedHashSet<RMNode> freeNodes;
+
+    /** free nodes by node source name, in the order they became free */
+    private HashMap<String, LinkedHashSet<RMNode>> freeNodesBySource;
 
     private SelectionManager selectionManager;
 
@@ -253,16 +257,34 @@ public class RMCore implements ResourceManager, InitActive, RunActive {
      *             if a problem occurs on the target node.
      */
     public RMCore(String id, Node nodeRM) throws ActiveObjectCreationException, NodeException {
+        this(id, nodeRM, null, null, null);
+
+        this.accountsManager = new RMAccountsManager();
+        this.jmxHelper = new RMJMXHelper(this.accountsManager);
+    }
+
+    /**
+     * Creates the RMCore object with the given services, without starting any active object.
+     *
+     * @param caller the client calling the core
+     * @param monitoring the monitoring receiving the node events
+     * @param selectionManager the selection manager providing the nodes
+     * @param nodeConfigurator the configurator of the registered nodes
+     */
+    RMCore(String id, Node nodeRM, Client caller, RMMonitoringImpl monitoring,
+            SelectionManager selectionManager, RMNodeConfigurator nodeConfigurator) {
         this.id = id;
         this.nodeRM = nodeRM;
+        this.caller = caller;
+        this.monitoring = monitoring;
+        this.selectionManager = selectionManager;
+        this.nodeConfigurator = nodeConfigurator;
 
         nodeSources = new HashMap<>();
         brokenNodeSources = new ArrayList<>();
         allNodes = new HashMap<>();
-        freeNodes = new ArrayList<>();
-
-        this.accountsManager = new RMAccountsManager();
-        this.jmxHelper = new RMJMXHelper(this.accountsManager);
+        freeNodes = new LinkedHashSet<>();
+        freeNodesBySource = new HashMap<>();
     }
 
     /**
@@ -466,7 +488,7 @@ public class RMCore implements ResourceManager, InitActive, RunActive {
         }
         // reseting owner here
         rmNode.setFree();
-        this.freeNodes.add(rmNode);
+        addFreeNode(rmNode);
         // create the event
         this.registerAndEmitNodeEvent(rmNode.createNodeEvent(RMEventType.NODE_STATE_CHANGED,
                 previousNodeState, client.getName()));
@@ -540,9 +562,10 @@ public class RMCore implements ResourceManager, InitActive, RunActive {
         logger.debug("Removing node " + rmnode.getNodeURL() + " provided by " + rmnode.getProvider());
         // removing the node from the HM list
         if (rmnode.isFree()) {
-            freeNodes.remove(rmnode);
+            removeFreeNode(rmnode);
         }
         this.allNodes.remove(rmnode.getNodeURL());
+        this.selectionManager.nodeRemoved(rmnode.getNodeURL());
         // create the event
         this.registerAndEmitNodeEvent(rmnode.createNodeEvent(RMEventType.NODE_REMOVED, rmnode.getState(),
                 initiator.getName()));
@@ -744,7 +767,10 @@ public class RMCore implements ResourceManager, InitActive, RunActive {
 
         // temporary list to avoid concurrent modification
         List<RMNode> nodelList = new LinkedList<>();
-        nodelList.addAll(freeNodes);
+        LinkedHashSet<RMNode> sourceFreeNodes = freeNodesBySource.get(nodeSourceName);
+        if (sourceFreeNodes != null) {
+            nodelList.addAll(sourceFreeNodes);
+        }
 
         logger.debug("Free nodes size " + nodelList.size());
         for (RMNode node : nodelList) {
@@ -753,10 +779,8 @@ public class RMCore implements ResourceManager, InitActive, RunActive {
                 break;
             }
 
-            if (node.getNodeSource().getName().equals(nodeSourceName)) {
-                removeNode(node.getNodeURL(), preemptive);
-                numberOfRemovedNodes++;
-            }
+            removeNode(node.getNodeURL(), preemptive);
+            numberOfRemovedNodes++;
         }
 
         nodelList.clear();
@@ -1113,6 +1137,26 @@ public class RMCore implements ResourceManager, InitActive, RunActive {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<NodeSet> getNodes(List<Criteria> criteriaList) {
+        List<NodeSet> result = new ArrayList<>(criteriaList.size());
+        for (Criteria criteria : criteriaList) {
+            try {
+                result.add(getNodes(criteria));
+            } catch (RuntimeException e) {
+                // nodes already selected for previous criteria must reach the client
+                logger.error(caller + " failed to get " + criteria.getSize() + " nodes", e);
+                NodeSet failed = new NodeSet();
+                failed.setSelectionFailure(e);
+                result.add(failed);
+            }
+        }
+        return result;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -1218,6 +1262,7 @@ public class RMCore implements ResourceManager, InitActive, RunActive {
         // finish the shutdown
         this.selectionManager.shutdown();
         this.clientPinger.shutdown();
+        topologyManager.shutdown();
         // waiting while all events will be dispatched to listeners
         PAFuture.waitFor(this.monitoring.shutdown());
 
@@ -1264,7 +1309,7 @@ public class RMCore implements ResourceManager, InitActive, RunActive {
         // Get the previous state of the node needed for the event
         final NodeState previousNodeState = rmNode.getState();
         rmNode.setBusy(owner);
-        this.freeNodes.remove(rmNode);
+        removeFreeNode(rmNode);
         // create the event
         this.registerAndEmitNodeEvent(rmNode.createNodeEvent(RMEventType.NODE_STATE_CHANGED,
                 previousNodeState, owner.getName()));
@@ -1286,7 +1331,7 @@ public class RMCore implements ResourceManager, InitActive, RunActive {
             // Get the previous state of the node needed for the event
             final NodeState previousNodeState = rmNode.getState();
             if (rmNode.isFree()) {
-                freeNodes.remove(rmNode);
+                removeFreeNode(rmNode);
             }
             rmNode.setDown();
             // create the event
@@ -1320,8 +1365,32 @@ public class RMCore implements ResourceManager, InitActive, RunActive {
         }
     }
 
+    /**
+     * @return a copy of the list of free nodes, in the order they became free
+     */
     public ArrayList<RMNode> getFreeNodes() {
-        return freeNodes;
+        return new ArrayList<>(freeNodes);
+    }
+
+    private void addFreeNode(RMNode rmnode) {
+        freeNodes.add(rmnode);
+        LinkedHashSet<RMNode> sourceFreeNodes = freeNodesBySource.get(rmnode.getNodeSourceName());
+        if (sourceFreeNodes == null) {
+            sourceFreeNodes = new LinkedHashSet<>();
+            freeNodesBySource.put(rmnode.getNodeSourceName(), sourceFreeNodes);
+        }
+        sourceFreeNodes.add(rmnode);
+    }
+
+    private void removeFreeNode(RMNode rmnode) {
+        freeNodes.remove(rmnode);
+        LinkedHashSet<RMNode> sourceFreeNodes = freeNodesBySource.get(rmnode.getNodeSourceName());
+        if (sourceFreeNodes != null) {
+            sourceFreeNodes.remove(rmnode);
+            if (sourceFreeNodes.isEmpty()) {
+                freeNodesBySource.remove(rmnode.getNodeSourceName());
+            }
+        }
     }
 
     /**
@@ -1636,7 +1705,7 @@ public class RMCore implements ResourceManager, InitActive, RunActive {
             // can throws a security exception if caller is not an admin
             this.checkNodeAdminPermission(rmnode, this.caller);
             rmnode.lock(this.caller);
-            this.freeNodes.remove(rmnode);
+            removeFreeNode(rmnode);
         } catch (SecurityException ex) {
             logger.warn("", ex);
             return false;
@@ -1675,7 +1744,7 @@ public class RMCore implements ResourceManager, InitActive, RunActive {
             // can throws a security exception if caller is not an admin
             this.checkNodeAdminPermission(rmnode, this.caller);
             rmnode.setFree();
-            freeNodes.add(rmnode);
+            addFreeNode(rmnode);
         } catch (Exception ex) {
             logger.warn("", ex);
             return false;
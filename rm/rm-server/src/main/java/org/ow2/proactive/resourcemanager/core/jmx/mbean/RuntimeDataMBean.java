@@ -37,6 +37,7 @@
 package org.ow2.proactive.resourcemanager.core.jmx.mbean;
 
 import java.io.IOException;
+import java.util.HashMap;
 
 import org.objectweb.proactive.annotation.PublicAPI;
 import org.ow2.proactive.resourcemanager.common.NodeState;
@@ -192,4 +193,17 @@ public interface RuntimeDataMBean {
      */
     byte[] getStatisticHistory() throws IOException;
 
+    /**
+     * Fetches the statistics accumulated in the RRD data base, consolidated by the
+     * Resource Manager for the given time range and resolution
+     *
+     * @param dataSources names of the statistics to fetch
+     * @param timeRange number of seconds to fetch, until the last update of the data base
+     * @param resolution wanted resolution in seconds
+     * @return the average values of each statistic
+     * @throws IOException when data base cannot be read
+     */
+    HashMap<String, double[]> fetchStatisticHistory(String[] dataSources, long timeRange, long resolution)
+            throws IOException;
+
 }
\ No newline at end of file
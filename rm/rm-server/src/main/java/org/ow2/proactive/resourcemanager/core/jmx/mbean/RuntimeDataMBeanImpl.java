@@ -37,6 +37,7 @@
 package org.ow2.proactive.resourcemanager.core.jmx.mbean;
 
 import java.io.IOException;
+import java.util.HashMap;
 
 import javax.management.NotCompliantMBeanException;
 import javax.management.StandardMBean;
@@ -220,4 +221,12 @@ public class RuntimeDataMBeanImpl extends StandardMBean implements RuntimeDataMB
     public byte[] getStatisticHistory() throws IOException {
         return RMJMXHelper.getInstance().getDataStore().getBytes();
     }
-}
\ No newline at end of file
+
+    /**
+     * @see org.ow2.proactive.resourcemanager.core.jmx.mbean.RuntimeDataMBean#fetchStatisticHistory(String[], long, long)
+     */
+    public HashMap<String, double[]> fetchStatisticHistory(String[] dataSources, long timeRange,
+            long resolution) throws IOException {
+        return RMJMXHelper.getInstance().getDataStore().fetch(dataSources, timeRange, resolution);
+    }
+}
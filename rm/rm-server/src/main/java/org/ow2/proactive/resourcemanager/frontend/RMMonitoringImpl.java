@@ -36,12 +36,12 @@
  */
 package org.ow2.proactive.resourcemanager.frontend;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -91,10 +91,14 @@ import org.apache.log4j.Logger;
 public class RMMonitoringImpl implements RMMonitoring, RMEventListener, InitActive, RunActive {
     private static final Logger logger = Logger.getLogger(RMMonitoringImpl.class);
 
+    private static final int DEFAULT_MAX_PENDING_EVENTS = 10000;
+
     // Attributes
     private RMCore rmcore;
-    private Map<UniqueID, EventDispatcher> dispatchers;
+    private ConcurrentMap<UniqueID, EventDispatcher> dispatchers;
     private transient ExecutorService eventDispatcherThreadPool;
+    // max number of events waiting for delivery to a client
+    private int maxPendingEvents;
 
     /** Resource Manager's statistics */
     public static final AtomicRMStatisticsHolder rmStatistics = new AtomicRMStatisticsHolder();
@@ -111,8 +115,25 @@ public class RMMonitoringImpl implements RMMonitoring, RMEventListener, InitActi
      * @param rmcore Stub of the RMCore active object.
      */
     public RMMonitoringImpl(RMCore rmcore) {
-        this.dispatchers = new HashMap<>();
+        this.dispatchers = new ConcurrentHashMap<>();
         this.rmcore = rmcore;
+        if (PAResourceManagerProperties.RM_MONITORING_MAX_PENDING_EVENTS.isSet()) {
+            this.maxPendingEvents = PAResourceManagerProperties.RM_MONITORING_MAX_PENDING_EVENTS
+                    .getValueAsInt();
+        } else {
+            this.maxPendingEvents = DEFAULT_MAX_PENDING_EVENTS;
+        }
+    }
+
+    /**
+     * Creates a monitoring object delivering events in the given thread pool.
+     * Used by tests, no active object is involved.
+     */
+    RMMonitoringImpl(RMCore rmcore, ExecutorService eventDispatcherThreadPool, int maxPendingEvents) {
+        this.dispatchers = new ConcurrentHashMap<>();
+        this.rmcore = rmcore;
+        this.eventDispatcherThreadPool = eventDispatcherThreadPool;
+        this.maxPendingEvents = maxPendingEvents;
     }
 
     /**
@@ -159,13 +180,15 @@ public class RMMonitoringImpl implements RMMonitoring, RMEventListener, InitActi
         protected Client client;
 
         protected RMEventListener listener;
-        protected LinkedList<RMEvent> events;
+        // pending events, state changes of nodes are keyed by the node url
+        // in order to keep only the latest one when the client falls behind
+        protected LinkedHashMap<Object, RMEvent> events;
         protected List<RMEventType> eventTypes = null;
 
         protected AtomicBoolean inProcess = new AtomicBoolean(false);
 
-
         protected long counter = 0;
+        protected long sequence = 0;
 
         public EventDispatcher(Client client, RMEventListener listener, RMEventType[] eventTypes) {
             this.client = client;
@@ -174,7 +197,7 @@ public class RMMonitoringImpl implements RMMonitoring, RMEventListener, InitActi
                 this.eventTypes = Arrays.asList(eventTypes);
             }
 
-            this.events = new LinkedList<>();
+            this.events = new LinkedHashMap<>();
         }
 
         public void run() {
@@ -187,22 +210,22 @@ public class RMMonitoringImpl implements RMMonitoring, RMEventListener, InitActi
             }
 
             while (true) {
-                RMEvent event = null;
+                List<RMEvent> toDeliver;
                 synchronized (events) {
                     if (logger.isDebugEnabled()) {
                         logger.debug(events.size() + " pending events for the client '" + client + "'");
                     }
-                    if (events.size() > 0) {
-                        event = events.removeFirst();
+                    if (events.isEmpty()) {
+                        inProcess.set(false);
+                        break;
                     }
+                    toDeliver = takeEvents();
                 }
 
-                if (event != null) {
-                    deliverEvent(event);
-                    numberOfEventDelivered++;
-                } else {
+                if (!deliverEvents(toDeliver)) {
                     break;
                 }
+                numberOfEventDelivered += toDeliver.size();
             }
 
             if (logger.isDebugEnabled()) {
@@ -210,10 +233,43 @@ public class RMMonitoringImpl implements RMMonitoring, RMEventListener, InitActi
                     "'. " + numberOfEventDelivered + " events were delivered in " +
                     (System.currentTimeMillis() - timeStamp) + " ms");
             }
-            inProcess.set(false);
         }
 
-        private void deliverEvent(RMEvent event) {
+        /**
+         * Removes all the pending events and numbers them.
+         * Must be called while holding the lock on events.
+         */
+        private List<RMEvent> takeEvents() {
+            List<RMEvent> taken = new ArrayList<>(events.size());
+            for (RMEvent event : events.values()) {
+                try {
+                    // clone event object to set a different counter for each client
+                    RMEvent cloneEvent = (RMEvent) event.clone();
+                    // counter is set at delivery so that coalesced events do not leave gaps
+                    cloneEvent.setCounter(++counter);
+                    taken.add(cloneEvent);
+                } catch (CloneNotSupportedException ex) {
+                    logger.error(ex.getMessage(), ex);
+                }
+            }
+            events.clear();
+            return taken;
+        }
+
+        /**
+         * Delivers events to the client.
+         * @return false if the client cannot receive events any more
+         */
+        protected boolean deliverEvents(List<RMEvent> events) {
+            for (RMEvent event : events) {
+                if (!deliverEvent(event)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean deliverEvent(RMEvent event) {
 
             //dispatch event
             long timeStamp = System.currentTimeMillis();
@@ -241,84 +297,68 @@ public class RMMonitoringImpl implements RMMonitoring, RMEventListener, InitActi
             } catch (Exception e) {
                 // probably listener was removed or disconnected
                 logger.warn("Cannot send events to " + client, e);
-                synchronized (dispatchers) {
-                    dispatchers.remove(client.getId());
-                    logger.warn(client + " was removed from listeners");
-                }
+                removeDispatcher();
+                return false;
             }
+            return true;
         }
 
-        public void queueEvent(RMEvent event) {
+        protected void removeDispatcher() {
+            dispatchers.remove(client.getId(), this);
+            logger.warn(client + " was removed from listeners");
             synchronized (events) {
-                if (eventTypes == null || eventTypes.contains(event.getEventType())) {
-                    try {
-                        // clone event object to set a different counter for each client
-                        RMEvent cloneEvent = (RMEvent)event.clone();
-                        cloneEvent.setCounter(++counter);
-                        events.add(cloneEvent);
-
-                        if (inProcess.get()) {
-                            if (logger.isDebugEnabled()) {
-                                logger.debug("Communication to the client " + client +
-                                    " is in progress in one thread of the thread pool.");
-                            }
-                        } else {
-                            inProcess.set(true);
-                            eventDispatcherThreadPool.submit(this);
-                        }
-                    } catch (CloneNotSupportedException ex) {
-                        logger.error(ex.getMessage(), ex);
-                    }
-                }
+                events.clear();
             }
         }
-    }
 
-    private class GroupEventDispatcher extends EventDispatcher {
-
-        public GroupEventDispatcher(Client client, RMEventListener stub, RMEventType[] events) {
-            super(client, stub, events);
-        }
-
-        public void run() {
-
-            long timeStamp = System.currentTimeMillis();
-            if (logger.isDebugEnabled()) {
-                logger.debug("Initializing " + Thread.currentThread() + " for events delivery to client '" +
-                    client + "'");
+        /**
+         * Queues an event for the client.
+         * @return false if the client has too many pending events
+         */
+        public boolean queueEvent(RMEvent event) {
+            if (eventTypes != null && !eventTypes.contains(event.getEventType())) {
+                return true;
             }
-
-            while (true) {
-                LinkedList<RMEvent> toDeliver = new LinkedList<>();
-                synchronized (events) {
-                    if (logger.isDebugEnabled()) {
-                        logger.debug(events.size() + " pending events for the client '" + client + "'");
+            synchronized (events) {
+                if (event instanceof RMNodeEvent && event.getEventType() == RMEventType.NODE_STATE_CHANGED) {
+                    // the previous state of the node is not delivered yet, replacing it.
+                    // The client goes from the state it received last to the new one.
+                    String nodeUrl = ((RMNodeEvent) event).getNodeUrl();
+                    RMNodeEvent replaced = (RMNodeEvent) events.remove(nodeUrl);
+                    if (replaced != null) {
+                        event = new RMNodeEvent((RMNodeEvent) event, replaced.getPreviousNodeState());
                     }
+                    events.put(nodeUrl, event);
+                } else {
+                    events.put(++sequence, event);
+                }
 
-                    if (events.size() > 0) {
-                        toDeliver.clear();
-                        toDeliver.addAll(events);
-                        events.clear();
-                    }
+                if (events.size() > maxPendingEvents) {
+                    return false;
                 }
 
-                if (toDeliver.size() > 0) {
-                    if (deliverEvents(toDeliver)) {
-                        if (logger.isDebugEnabled()) {
-                            logger.debug("Finishing delivery in " + Thread.currentThread() + " to client '" +
-                                client + "'. " + toDeliver.size() + " events were delivered in " +
-                                (System.currentTimeMillis() - timeStamp) + " ms");
-                        }
+                if (inProcess.get()) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Communication to the client " + client +
+                            " is in progress in one thread of the thread pool.");
                     }
-
                 } else {
-                    break;
+                    inProcess.set(true);
+                    eventDispatcherThreadPool.submit(this);
                 }
             }
-            inProcess.set(false);
+            return true;
+        }
+    }
+
+    private class GroupEventDispatcher extends EventDispatcher {
+
+        public GroupEventDispatcher(Client client, RMEventListener stub, RMEventType[] events) {
+            super(client, stub, events);
         }
 
-        private boolean deliverEvents(Collection<RMEvent> events) {
+        @Override
+        protected boolean deliverEvents(List<RMEvent> events) {
             //dispatch event
             long timeStamp = System.currentTimeMillis();
 
@@ -338,10 +378,7 @@ public class RMMonitoringImpl implements RMMonitoring, RMEventListener, InitActi
             } catch (Exception e) {
                 // probably listener was removed or disconnected
                 logger.warn("Cannot send events to " + client, e);
-                synchronized (dispatchers) {
-                    dispatchers.remove(client.getId());
-                    logger.warn(client + " was removed from listeners");
-                }
+                removeDispatcher();
                 return false;
             }
             return true;
@@ -360,36 +397,35 @@ public class RMMonitoringImpl implements RMMonitoring, RMEventListener, InitActi
         UniqueID id = PAActiveObject.getContext().getCurrentRequest().getSourceBodyID();
 
         logger.debug("Adding the RM listner for " + id.shortString());
-        synchronized (dispatchers) {
-            Client client = null;
-            synchronized (RMCore.clients) {
-                client = RMCore.clients.get(id);
-            }
-            if (client == null) {
-                throw new IllegalArgumentException("Unknown client " + id.shortString());
-            }
-
-            if (stub instanceof RMGroupEventListener) {
-                this.dispatchers.put(id, new GroupEventDispatcher(client, stub, events));
-            } else {
-                this.dispatchers.put(id, new EventDispatcher(client, stub, events));
-            }
+        Client client = null;
+        synchronized (RMCore.clients) {
+            client = RMCore.clients.get(id);
         }
+        if (client == null) {
+            throw new IllegalArgumentException("Unknown client " + id.shortString());
+        }
+
+        addEventDispatcher(id, client, stub, events);
         return rmcore.getRMInitialState();
     }
 
+    void addEventDispatcher(UniqueID id, Client client, RMEventListener stub, RMEventType... events) {
+        if (stub instanceof RMGroupEventListener) {
+            this.dispatchers.put(id, new GroupEventDispatcher(client, stub, events));
+        } else {
+            this.dispatchers.put(id, new EventDispatcher(client, stub, events));
+        }
+    }
+
     /**
      * Removes a listener from RMMonitoring. Only listener itself must call this method
      */
     public void removeRMEventListener() throws RMException {
         UniqueID id = PAActiveObject.getContext().getCurrentRequest().getSourceBodyID();
-        synchronized (dispatchers) {
-            if (dispatchers.containsKey(id)) {
-                logger.debug("Removing the RM listner for " + id.shortString());
-                dispatchers.remove(id);
-            } else {
-                throw new RMException("Listener is unknown");
-            }
+        if (dispatchers.remove(id) != null) {
+            logger.debug("Removing the RM listner for " + id.shortString());
+        } else {
+            throw new RMException("Listener is unknown");
         }
     }
 
@@ -404,9 +440,11 @@ public class RMMonitoringImpl implements RMMonitoring, RMEventListener, InitActi
             logger.debug(event.toString() + " event");
         }
 
-        synchronized (dispatchers) {
-            for (EventDispatcher dispatcher : dispatchers.values()) {
-                dispatcher.queueEvent(event);
+        for (EventDispatcher dispatcher : dispatchers.values()) {
+            if (!dispatcher.queueEvent(event)) {
+                logger.warn(dispatcher.client + " has more than " + maxPendingEvents +
+                    " pending events and does not receive them fast enough");
+                dispatcher.removeDispatcher();
             }
         }
     }
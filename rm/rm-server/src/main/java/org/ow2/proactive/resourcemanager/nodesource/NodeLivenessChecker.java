@@ -0,0 +1,163 @@
+/*
+ * ################################################################
+ *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2011 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s): ActiveEon Team - http://www.activeeon.com
+ *
+ * ################################################################
+ * $$ACTIVEEON_CONTRIBUTOR$$
+ */
+package org.ow2.proactive.resourcemanager.nodesource;
+
+import java.rmi.dgc.VMID;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.objectweb.proactive.core.node.Node;
+import org.ow2.proactive.resourcemanager.utils.Clock;
+
+
+/**
+ * Decides which nodes of a node source have to be pinged.
+ * <p>
+ * Nodes are grouped by runtime, so that all the nodes of a runtime are checked at once.
+ * The checks of the runtimes are spread over the ping period instead of pinging all
+ * the nodes at the same time. Nodes which had a successful interaction with the resource
+ * manager during the last period (script execution, cleaning after a task) are known
+ * to be alive and are not pinged.
+ * <p>
+ * Instances are used by the node source active object only. Activities may be recorded
+ * by other threads, they are ignored for nodes which are not in the node source.
+ */
+public class NodeLivenessChecker {
+
+    // time of the last successful interaction with the nodes of the node source
+    private final ConcurrentMap<String, Long> lastActivities = new ConcurrentHashMap<>();
+
+    // time of the next check of each runtime
+    private final Map<VMID, Long> nextChecks = new HashMap<>();
+
+    private final Random random = new Random();
+
+    private final Clock clock;
+
+    public NodeLivenessChecker() {
+        this(new Clock());
+    }
+
+    NodeLivenessChecker(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Starts recording the interactions with a node added to the node source.
+     *
+     * @param nodeUrl url of the node
+     */
+    public void track(String nodeUrl) {
+        lastActivities.put(nodeUrl, Long.MIN_VALUE);
+    }
+
+    /**
+     * Records a successful interaction with a node. The node will not be pinged
+     * until the end of the current ping period.
+     *
+     * @param nodeUrl url of the node
+     */
+    public void recordActivity(String nodeUrl) {
+        // the node may have been removed in the meantime
+        lastActivities.replace(nodeUrl, clock.now());
+    }
+
+    /**
+     * Forgets the interactions with a removed node.
+     *
+     * @param nodeUrl url of the node
+     */
+    public void forget(String nodeUrl) {
+        lastActivities.remove(nodeUrl);
+    }
+
+    /**
+     * Returns the nodes to ping now, grouped by runtime.
+     *
+     * @param nodes all the alive nodes of the node source
+     * @param now current time
+     * @param period ping period
+     * @return lists of nodes to ping, all the nodes of a list belong to the same runtime
+     */
+    List<List<Node>> getNodesToPing(Collection<Node> nodes, long now, long period) {
+        Map<VMID, List<Node>> runtimes = new HashMap<>();
+        for (Node node : nodes) {
+            VMID runtime = node.getVMInformation().getVMID();
+            List<Node> runtimeNodes = runtimes.get(runtime);
+            if (runtimeNodes == null) {
+                runtimeNodes = new LinkedList<>();
+                runtimes.put(runtime, runtimeNodes);
+            }
+            runtimeNodes.add(node);
+        }
+        // runtimes without nodes any more
+        nextChecks.keySet().retainAll(runtimes.keySet());
+
+        List<List<Node>> toPing = new LinkedList<>();
+        for (Map.Entry<VMID, List<Node>> runtime : runtimes.entrySet()) {
+            Long nextCheck = nextChecks.get(runtime.getKey());
+            if (nextCheck == null) {
+                // first check of the runtime at a random time of the period
+                nextChecks.put(runtime.getKey(), now + (long) (random.nextDouble() * period));
+                continue;
+            }
+            if (nextCheck > now) {
+                continue;
+            }
+            nextChecks.put(runtime.getKey(), now + period);
+
+            List<Node> inactiveNodes = new LinkedList<>();
+            for (Node node : runtime.getValue()) {
+                Long lastActivity = lastActivities.get(node.getNodeInformation().getURL());
+                if (lastActivity == null || lastActivity <= now - period) {
+                    inactiveNodes.add(node);
+                }
+            }
+            if (!inactiveNodes.isEmpty()) {
+                toPing.add(inactiveNodes);
+            }
+        }
+        return toPing;
+    }
+
+}
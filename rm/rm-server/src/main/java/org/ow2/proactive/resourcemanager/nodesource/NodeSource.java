@@ -37,9 +37,12 @@
 package org.ow2.proactive.resourcemanager.nodesource;
 
 import java.security.Permission;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -124,6 +127,10 @@ public class NodeSource implements InitActive, RunActive {
 
     private static ThreadPoolHolder threadPoolHolder;
 
+    // number of times per ping period the nodes to ping are looked for
+    private static final int CHECKS_PER_PING_PERIOD = 10;
+    private final NodeLivenessChecker livenessChecker = new NodeLivenessChecker();
+
     private NodeSource stub;
     private final Client administrator;
 
@@ -224,23 +231,26 @@ public class NodeSource implements InitActive, RunActive {
     public void runActivity(Body body) {
         Service service = new Service(body);
 
-        long timeStamp = System.currentTimeMillis();
-        long delta = 0;
+        long lastCheck = System.currentTimeMillis();
 
-        // recalculating nodes number only once per policy period
         while (body.isActive()) {
 
             try {
-                service.blockingServeOldest(pingFrequency);
-                delta += System.currentTimeMillis() - timeStamp;
-                timeStamp = System.currentTimeMillis();
-
-                if (delta > pingFrequency) {
-                    logger.info("[" + name + "] Pinging alive nodes");
-                    for (Node node : getAliveNodes()) {
-                        pingNode(node);
+                // nodes are checked several times per ping period in order to spread the pings
+                long checkPeriod = Math.max(pingFrequency / CHECKS_PER_PING_PERIOD, 1);
+                service.blockingServeOldest(checkPeriod);
+                long now = System.currentTimeMillis();
+
+                if (now - lastCheck >= checkPeriod) {
+                    List<List<Node>> toPing = livenessChecker.getNodesToPing(getAliveNodes(), now,
+                            pingFrequency);
+                    if (logger.isDebugEnabled() && !toPing.isEmpty()) {
+                        logger.debug("[" + name + "] Pinging nodes of " + toPing.size() + " runtimes");
+                    }
+                    for (List<Node> runtimeNodes : toPing) {
+                        pingNodes(runtimeNodes);
                     }
-                    delta = 0;
+                    lastCheck = now;
                 }
             } catch (InterruptedException e) {
                 logger.warn("runActivity interrupted", e);
@@ -260,6 +270,7 @@ public class NodeSource implements InitActive, RunActive {
         logger.info("[" + name + "] new node available : " + node.getNodeInformation().getURL());
         infrastructureManager.internalRegisterAcquiredNode(node);
         nodes.put(nodeUrl, node);
+        livenessChecker.track(nodeUrl);
     }
 
     /**
@@ -337,6 +348,7 @@ public class NodeSource implements InitActive, RunActive {
                     // removing it from the nodes list but don't propagate
                     // the request the the infrastructure because the restarted node will be killed
                     nodes.remove(nodeUrl);
+                    livenessChecker.forget(nodeUrl);
                 }
             }
         }
@@ -480,6 +492,7 @@ public class NodeSource implements InitActive, RunActive {
         if (this.nodes.containsKey(nodeUrl)) {
             logger.info("[" + name + "] removing node : " + nodeUrl);
             Node node = nodes.remove(nodeUrl);
+            livenessChecker.forget(nodeUrl);
             RMCore.topologyManager.removeNode(node);
             try {
                 infrastructureManager.internalRemoveNode(node);
@@ -655,6 +668,7 @@ public class NodeSource implements InitActive, RunActive {
 
         logger.info("[" + name + "] Detected down node " + nodeUrl);
         Node downNode = nodes.remove(nodeUrl);
+        livenessChecker.forget(nodeUrl);
         if (downNode != null) {
             try {
                 RMCore.topologyManager.removeNode(downNode);
@@ -684,6 +698,17 @@ public class NodeSource implements InitActive, RunActive {
         NodeSource.threadPoolHolder.execute(EXTERNAL_POOL, task);
     }
 
+    /**
+     * Records a successful interaction with a node of the node source,
+     * which will not be pinged until the end of the current ping period.
+     *
+     * @param nodeUrl the url of the node
+     */
+    @ImmediateService
+    public void recordNodeActivity(String nodeUrl) {
+        livenessChecker.recordActivity(nodeUrl);
+    }
+
     /**
      * Pings the node with specified url.
      * If the node is dead sends the request to the node source.
@@ -691,17 +716,51 @@ public class NodeSource implements InitActive, RunActive {
     public void pingNode(final Node node) {
         executeInParallel(new Runnable() {
             public void run() {
+                checkNode(node);
+            }
+        });
+    }
+
+    /**
+     * Pings nodes of the same runtime. The names of the nodes of the runtime are
+     * retrieved at once, nodes which are not found are pinged one by one.
+     */
+    private void pingNodes(final List<Node> runtimeNodes) {
+        if (runtimeNodes.size() == 1) {
+            pingNode(runtimeNodes.get(0));
+            return;
+        }
+        executeInParallel(new Runnable() {
+            public void run() {
+                Set<String> nodeNames;
                 try {
-                    node.getNumberOfActiveObjects();
-                    if (logger.isDebugEnabled())
-                        logger.debug("Node " + node.getNodeInformation().getURL() + " is alive");
+                    nodeNames = new HashSet<>(Arrays.asList(runtimeNodes.get(0).getProActiveRuntime()
+                            .getLocalNodeNames()));
                 } catch (Throwable t) {
-                    stub.detectedPingedDownNode(node.getNodeInformation().getURL());
+                    nodeNames = Collections.emptySet();
+                }
+                for (Node node : runtimeNodes) {
+                    if (nodeNames.contains(node.getNodeInformation().getName())) {
+                        if (logger.isDebugEnabled())
+                            logger.debug("Node " + node.getNodeInformation().getURL() + " is alive");
+                    } else {
+                        checkNode(node);
+                    }
                 }
             }
         });
     }
 
+    private void checkNode(Node node) {
+        try {
+            node.getNumberOfActiveObjects();
+            if (logger.isDebugEnabled())
+                logger.debug("Node " + node.getNodeInformation().getURL() + " is alive");
+        } catch (Throwable t) {
+            stub.detectedPingedDownNode(node.getNodeInformation().getURL());
+        }
+    }
+
     /**
      * The provider of the node source is the resource manager client initiated
      * the node source creation.
@@ -102,11 +102,12 @@ public class RMNodeConfigurator implements RunActive {
             rmnodeToAdd.setJMXUrl(JMXTransportProtocol.RO, nodeToAdd.getProperty(RMNodeStarter.JMX_URL +
                 JMXTransportProtocol.RO));
 
-            // blocking call involving running ping process on the node
             if (PAResourceManagerProperties.RM_TOPOLOGY_ENABLED.getValueAsBoolean()) {
-                RMCore.topologyManager.addNode(nodeToAdd);
+                // the ping process runs in the topology manager, the node is added once it is finished
+                RMCore.topologyManager.addNode(nodeToAdd, new NodeAddition(rmcore, rmnodeToAdd));
+            } else {
+                rmcore.internalAddNodeToCore(rmnodeToAdd);
             }
-            rmcore.internalAddNodeToCore(rmnodeToAdd);
         } catch (Exception e) {
             logger.warn("Cannot properly configure the node " + nodeURL +
                 " because of an error during configuration phase", e);
@@ -129,6 +130,28 @@ public class RMNodeConfigurator implements RunActive {
         conf.configureNode();
     }
 
+    /**
+     * Adds a configured node to the core once the topology manager knows its host.
+     */
+    private static class NodeAddition implements Runnable {
+        private final RMCore rmcore;
+        private final RMNode rmnode;
+
+        NodeAddition(RMCore rmcore, RMNode rmnode) {
+            this.rmcore = rmcore;
+            this.rmnode = rmnode;
+        }
+
+        public void run() {
+            try {
+                rmcore.internalAddNodeToCore(rmnode);
+            } catch (Exception e) {
+                logger.warn("Cannot add the node " + rmnode.getNodeURL() + " to the core", e);
+                rmcore.setDownNode(rmnode.getNodeURL());
+            }
+        }
+    }
+
     /**
      * Method controls the execution of every request.
      * Tries to keep this active object alive in case of any exception.
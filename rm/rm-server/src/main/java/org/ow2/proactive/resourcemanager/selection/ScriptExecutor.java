@@ -187,6 +187,12 @@ public class ScriptExecutor implements Callable<Node> {
             }
             return null;
         }
+        try {
+            rmnode.getNodeSource().recordNodeActivity(rmnode.getNodeURL());
+        } catch (Throwable t) {
+            // the node source may be removed
+            logger.debug(rmnode.getNodeURL() + " : cannot record the node activity", t);
+        }
 
         if (exception != null) {
             throw exception;
@@ -184,6 +184,13 @@ public abstract class SelectionManager {
     public abstract boolean processScriptResult(SelectionScript script, ScriptResult<Boolean> scriptResult,
             RMNode rmnode);
 
+    /**
+     * Forgets the script results known for a node removed from the resource manager.
+     *
+     * @param nodeUrl - url of the removed node
+     */
+    public abstract void nodeRemoved(String nodeUrl);
+
     public NodeSet selectNodes(Criteria criteria, Client client) {
 
         maybeSetLoggingContext(criteria);
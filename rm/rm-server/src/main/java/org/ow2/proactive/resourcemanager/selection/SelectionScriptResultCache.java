@@ -0,0 +1,260 @@
+/*
+ * ################################################################
+ *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2011 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s):
+ *
+ * ################################################################
+ * $$PROACTIVE_INITIAL_DEV$$
+ */
+package org.ow2.proactive.resourcemanager.selection;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.ow2.proactive.resourcemanager.common.event.RMNodeEvent;
+import org.ow2.proactive.resourcemanager.core.properties.PAResourceManagerProperties;
+import org.ow2.proactive.resourcemanager.rmnode.RMNode;
+
+
+/**
+ * Cache of the dynamic selection scripts which recently passed on a node, keyed by
+ * script digest and node URL.
+ * <p>
+ * The results of static scripts are not cached here: they are kept by the selection
+ * manager as probabilities, see {@link SelectionManager#isPassed}. Failed dynamic scripts
+ * are not cached either, the node dynamicity period already prevents their execution.
+ * <p>
+ * A result is reused during {@link PAResourceManagerProperties#RM_SELECT_SCRIPT_DYNAMIC_RESULT_TTL}
+ * unless the node is removed or registered again. As all the results have the same time to
+ * live, they are kept in the order they expire and the expired ones are purged on each access.
+ * The number of results is bounded by
+ * {@link PAResourceManagerProperties#RM_SELECT_SCRIPT_DYNAMIC_RESULT_CACHE_SIZE}, the results
+ * closest to expiration being removed first.
+ * <p>
+ * This class is thread safe.
+ */
+public class SelectionScriptResultCache {
+
+    private final long ttl;
+
+    private final int maxResults;
+
+    // results in expiration order
+    private final LinkedHashMap<ResultKey, CachedResult> results;
+
+    // node url => keys of the node results
+    private final Map<String, Set<ResultKey>> keysByNode = new HashMap<>();
+
+    public SelectionScriptResultCache() {
+        this(getProperty(PAResourceManagerProperties.RM_SELECT_SCRIPT_DYNAMIC_RESULT_TTL, 0),
+                getProperty(PAResourceManagerProperties.RM_SELECT_SCRIPT_DYNAMIC_RESULT_CACHE_SIZE, 100000));
+    }
+
+    public SelectionScriptResultCache(long ttl, final int maxResults) {
+        this.ttl = ttl;
+        this.maxResults = maxResults;
+        this.results = new LinkedHashMap<ResultKey, CachedResult>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ResultKey, CachedResult> eldest) {
+                if (size() > maxResults) {
+                    removeNodeKey(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns whether a script recently passed on a node.
+     *
+     * @param digest - digest of the script
+     * @param rmnode - target node
+     * @return true if the script passed on the node and its result has not expired
+     */
+    public synchronized boolean isPassed(String digest, RMNode rmnode) {
+        if (!isEnabled()) {
+            return false;
+        }
+        purgeExpired();
+        ResultKey key = new ResultKey(digest, rmnode.getNodeURL());
+        CachedResult cached = results.get(key);
+        if (cached == null) {
+            return false;
+        }
+        if (cached.nodeAddTime != getAddTime(rmnode)) {
+            // results of a previous registration of the node
+            remove(key);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records that a script passed on a node.
+     *
+     * @param digest - digest of the script
+     * @param rmnode - node on which the script has been executed
+     */
+    public synchronized void putPassed(String digest, RMNode rmnode) {
+        if (!isEnabled()) {
+            return;
+        }
+        purgeExpired();
+        ResultKey key = new ResultKey(digest, rmnode.getNodeURL());
+        // removed first to keep the results in expiration order
+        results.remove(key);
+        results.put(key, new CachedResult(now() + ttl, getAddTime(rmnode)));
+        Set<ResultKey> nodeKeys = keysByNode.get(key.nodeUrl);
+        if (nodeKeys == null) {
+            nodeKeys = new HashSet<>();
+            keysByNode.put(key.nodeUrl, nodeKeys);
+        }
+        nodeKeys.add(key);
+    }
+
+    /**
+     * Removes the results of a node.
+     *
+     * @param nodeUrl - url of the node
+     */
+    public synchronized void removeNode(String nodeUrl) {
+        Set<ResultKey> nodeKeys = keysByNode.remove(nodeUrl);
+        if (nodeKeys != null) {
+            results.keySet().removeAll(nodeKeys);
+        }
+    }
+
+    /**
+     * @return the number of cached results
+     */
+    public synchronized int size() {
+        return results.size();
+    }
+
+    /**
+     * Current time in ms, used to expire the results.
+     */
+    long now() {
+        return System.currentTimeMillis();
+    }
+
+    private void purgeExpired() {
+        long now = now();
+        Iterator<Map.Entry<ResultKey, CachedResult>> iterator = results.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<ResultKey, CachedResult> eldest = iterator.next();
+            if (eldest.getValue().expirationTime > now) {
+                break;
+            }
+            iterator.remove();
+            removeNodeKey(eldest.getKey());
+        }
+    }
+
+    private void remove(ResultKey key) {
+        results.remove(key);
+        removeNodeKey(key);
+    }
+
+    private void removeNodeKey(ResultKey key) {
+        Set<ResultKey> nodeKeys = keysByNode.get(key.nodeUrl);
+        if (nodeKeys != null) {
+            nodeKeys.remove(key);
+            if (nodeKeys.isEmpty()) {
+                keysByNode.remove(key.nodeUrl);
+            }
+        }
+    }
+
+    private boolean isEnabled() {
+        return ttl > 0 && maxResults > 0;
+    }
+
+    /**
+     * The time stamp of the node registration identifies the node: a node registered
+     * again with the same URL must not reuse the results of the previous one.
+     */
+    private static long getAddTime(RMNode rmnode) {
+        RMNodeEvent addEvent = rmnode.getAddEvent();
+        return addEvent == null ? 0 : addEvent.getTimeStamp();
+    }
+
+    private static int getProperty(PAResourceManagerProperties property, int defaultValue) {
+        return property.isSet() ? property.getValueAsInt() : defaultValue;
+    }
+
+    private static final class ResultKey {
+
+        private final String digest;
+
+        private final String nodeUrl;
+
+        private ResultKey(String digest, String nodeUrl) {
+            this.digest = digest;
+            this.nodeUrl = nodeUrl;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ResultKey)) {
+                return false;
+            }
+            ResultKey other = (ResultKey) o;
+            return digest.equals(other.digest) && nodeUrl.equals(other.nodeUrl);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * digest.hashCode() + nodeUrl.hashCode();
+        }
+    }
+
+    private static final class CachedResult {
+
+        private final long expirationTime;
+
+        private final long nodeAddTime;
+
+        private CachedResult(long expirationTime, long nodeAddTime) {
+            this.expirationTime = expirationTime;
+            this.nodeAddTime = nodeAddTime;
+        }
+    }
+
+}
@@ -36,10 +36,11 @@
  */
 package org.ow2.proactive.resourcemanager.selection.statistics;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.ow2.proactive.resourcemanager.core.properties.PAResourceManagerProperties;
+import org.ow2.proactive.resourcemanager.utils.Clock;
 
 
 /**
@@ -53,44 +54,60 @@ import org.ow2.proactive.resourcemanager.core.properties.PAResourceManagerProper
  * 3. By calling "decrease" method it goes to 0 but never reach it. <BR>
  * 4. By calling "increase" method N times and then "decrease" method N times
  * it goes to the initial value.<BR>
+ *
+ * Updates are lock free: the value is computed from the step when it is read.
+ * After a decrease the value is 0 until the node dynamicity period expires, which is
+ * checked against the time stamp of the decrease.
  */
 public class Probability {
 
     public static final Probability ZERO = new Probability(0);
     public static final Probability ONE = new Probability(1);
 
-    private static Timer timer = new Timer("resourcemanager.selection.statistics.Probability timer", true);
-    private int step = 0;
-    private double probability = calcProbability(step);
-
-    private class RestoreProbabilityTask extends TimerTask {
+    private static final Clock DEFAULT_CLOCK = new Clock();
 
-        private final double probability;
+    private final boolean constant;
+    // value of a constant probability
+    private final double constantValue;
+    private final AtomicInteger step = new AtomicInteger();
+    // time until which the probability is 0 after a decrease, 0 if not paused
+    private final AtomicLong pausedUntil = new AtomicLong();
+    private final Clock clock;
 
-        private RestoreProbabilityTask(double probability) {
-            this.probability = probability;
-        }
+    /**
+     * Creates a probability with the default value
+     */
+    public Probability() {
+        this(DEFAULT_CLOCK);
+    }
 
-        @Override
-        public void run() {
-            synchronized (Probability.this) {
-                Probability.this.probability = probability;
-            }
-        }
+    Probability(Clock clock) {
+        this.constant = false;
+        this.constantValue = 0;
+        this.clock = clock;
     }
 
     /**
-     * Creates an object with given probability
+     * Creates a constant probability, which is not modified by increases and decreases
      */
-    public Probability(double probability) {
-        this.probability = probability;
+    public Probability(double constantValue) {
+        this.constant = true;
+        this.constantValue = constantValue;
+        this.clock = DEFAULT_CLOCK;
     }
 
     /**
      * Returns the probability value
      */
-    public synchronized double value() {
-        return probability;
+    public double value() {
+        if (constant) {
+            return constantValue;
+        }
+        long until = pausedUntil.get();
+        if (until != 0 && clock.now() < until) {
+            return 0;
+        }
+        return calcProbability(step.get());
     }
 
     /**
@@ -101,35 +118,43 @@ public class Probability {
     }
 
     /**
-     * Sets the probability to zero until the timer restores it.
+     * Sets the probability to zero for the node dynamicity period.
      * It's done to pause the permanent execution of dynamic selection scripts
      */
-    public synchronized void decrease() {
-
-        if (probability > 0 && probability < 1) {
-            // setting the probability to 0 to timeout the script execution on this node
-            // and scheduling the timer
-            probability = calcProbability(--step);
-            timer.schedule(new RestoreProbabilityTask(probability),
-                    PAResourceManagerProperties.RM_SELECT_SCRIPT_NODE_DYNAMICITY.getValueAsInt());
+    public void decrease() {
+        if (constant) {
+            return;
         }
 
-        probability = 0;
+        long now = clock.now();
+        long until = pausedUntil.get();
+        if (until != 0 && now < until) {
+            // already paused
+            return;
+        }
+        // only one of the concurrent decreases pauses the probability and lowers it
+        if (pausedUntil.compareAndSet(until, now +
+            PAResourceManagerProperties.RM_SELECT_SCRIPT_NODE_DYNAMICITY.getValueAsInt())) {
+            step.decrementAndGet();
+        }
     }
 
     /**
      * Increases the probability
      */
-    public synchronized void increase() {
-        probability = calcProbability(++step);
+    public void increase() {
+        if (constant) {
+            return;
+        }
+        step.incrementAndGet();
     }
 
     /**
      * Returns string probability representation
      */
     @Override
-    public synchronized String toString() {
-        return String.valueOf(probability);
+    public String toString() {
+        return String.valueOf(value());
     }
 
     private static double calcProbability(int step) {
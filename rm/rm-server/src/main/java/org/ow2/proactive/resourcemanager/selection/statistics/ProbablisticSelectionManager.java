@@ -40,8 +40,11 @@ import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.extensions.annotation.ActiveObject;
@@ -49,6 +52,7 @@ import org.ow2.proactive.resourcemanager.core.RMCore;
 import org.ow2.proactive.resourcemanager.core.properties.PAResourceManagerProperties;
 import org.ow2.proactive.resourcemanager.rmnode.RMNode;
 import org.ow2.proactive.resourcemanager.selection.SelectionManager;
+import org.ow2.proactive.resourcemanager.selection.SelectionScriptResultCache;
 import org.ow2.proactive.scripting.ScriptResult;
 import org.ow2.proactive.scripting.SelectionScript;
 
@@ -75,7 +79,7 @@ public class ProbablisticSelectionManager extends SelectionManager {
 
     // contains an information about already executed scripts
     // script digest => node => probability
-    private HashMap<String, HashMap<String, Probability>> probabilities;
+    private ConcurrentHashMap<String, ConcurrentHashMap<String, Probability>> probabilities;
 
     // in order to avoid OOM when the number of scripts exceeds the limit
     // we could :
@@ -84,14 +88,21 @@ public class ProbablisticSelectionManager extends SelectionManager {
     //	  need to store the time, update it each time, then sort when removing
     //    the system will be too CPU consuming working on the limit
     // 3. Removed the oldest added script. For this we have this queue. 
-    private LinkedList<String> digestQueue = new LinkedList<>();
+    private ConcurrentLinkedQueue<String> digestQueue = new ConcurrentLinkedQueue<>();
+
+    // number of scripts in the probabilities map, ConcurrentHashMap#size() is not constant time
+    private AtomicInteger digestCount = new AtomicInteger();
+
+    // dynamic scripts which recently passed, not executed again until their result expires
+    private SelectionScriptResultCache dynamicScriptResults;
 
     public ProbablisticSelectionManager() {
     }
 
     public ProbablisticSelectionManager(RMCore rmcore) {
         super(rmcore);
-        this.probabilities = new HashMap<>();
+        this.probabilities = new ConcurrentHashMap<>();
+        this.dynamicScriptResults = new SelectionScriptResultCache();
     }
 
     /**
@@ -121,10 +132,9 @@ public class ProbablisticSelectionManager extends SelectionManager {
                 boolean intersection = true;
                 double intersectionProbability = 1;
                 for (SelectionScript script : scripts) {
-                    String digest = new String(script.digest());
-                    if (probabilities.containsKey(digest) &&
-                        probabilities.get(digest).containsKey(rmnode.getNodeURL())) {
-                        double probability = probabilities.get(digest).get(rmnode.getNodeURL()).value();
+                    Probability known = getProbability(new String(script.digest()), rmnode);
+                    if (known != null) {
+                        double probability = known.value();
                         if (probability == 0) {
                             intersection = false;
                             break;
@@ -173,13 +183,17 @@ public class ProbablisticSelectionManager extends SelectionManager {
      * @return true if script will pass on the node
      */
     @Override
-    public synchronized boolean isPassed(SelectionScript script, RMNode rmnode) {
-        String digest;
+    public boolean isPassed(SelectionScript script, RMNode rmnode) {
         try {
-            digest = new String(script.digest());
-            if (probabilities.containsKey(digest) &&
-                probabilities.get(digest).containsKey(rmnode.getNodeURL())) {
-                Probability p = probabilities.get(digest).get(rmnode.getNodeURL());
+            String digest = new String(script.digest());
+            if (script.isDynamic() && dynamicScriptResults.isPassed(digest, rmnode)) {
+                if (logger.isDebugEnabled())
+                    logger.debug(rmnode.getNodeURL() + " : " + script.hashCode() +
+                        " dynamic script recently passed");
+                return true;
+            }
+            Probability p = getProbability(digest, rmnode);
+            if (p != null) {
                 String scriptType = script.isDynamic() ? "dynamic" : "static";
                 if (logger.isDebugEnabled())
                     logger.debug(rmnode.getNodeURL() + " : " + script.hashCode() + " known " + scriptType +
@@ -205,19 +219,19 @@ public class ProbablisticSelectionManager extends SelectionManager {
      * @return whether node is selected
      */
     @Override
-    public synchronized boolean processScriptResult(SelectionScript script,
-            ScriptResult<Boolean> scriptResult, RMNode rmnode) {
+    public boolean processScriptResult(SelectionScript script, ScriptResult<Boolean> scriptResult,
+            RMNode rmnode) {
 
         boolean result = false;
 
         try {
             String digest = new String(script.digest());
-            Probability probability = new Probability(Probability.defaultValue());
-            if (probabilities.containsKey(digest) &&
-                probabilities.get(digest).containsKey(rmnode.getNodeURL())) {
-                probability = probabilities.get(digest).get(rmnode.getNodeURL());
-                assert (probability.value() >= 0 && probability.value() <= 1);
+            ConcurrentHashMap<String, Probability> nodeProbabilities = getNodeProbabilities(digest, script);
+            Probability probability = nodeProbabilities.get(rmnode.getNodeURL());
+            if (probability == null) {
+                probability = new Probability();
             }
+            assert (probability.value() >= 0 && probability.value() <= 1);
 
             if (scriptResult == null || scriptResult != null && scriptResult.errorOccured()) {
                 // error during script execution
@@ -233,34 +247,18 @@ public class ProbablisticSelectionManager extends SelectionManager {
                 result = true;
                 if (script.isDynamic()) {
                     probability.increase();
+                    dynamicScriptResults.putPassed(digest, rmnode);
                 } else {
                     probability = Probability.ONE;
                 }
             }
 
-            if (!probabilities.containsKey(digest)) {
-                // checking if the number of selection script does not exceeded the maximum
-                if (probabilities.size() >= PAResourceManagerProperties.RM_SELECT_SCRIPT_CACHE_SIZE
-                        .getValueAsInt()) {
-                    String oldest = digestQueue.poll();
-                    probabilities.remove(oldest);
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("Removing the script: " + script.hashCode() +
-                            " from the data base because the limit is reached");
-                    }
-                }
-                // adding a new script record
-                probabilities.put(digest, new HashMap<String, Probability>());
-                logger.debug("Scripts cache size " + probabilities.size());
-                digestQueue.offer(digest);
-            }
-
             if (logger.isDebugEnabled()) {
                 logger.debug(rmnode.getNodeURL() + " : script " + script.hashCode() + ", probability " +
                     probability);
             }
 
-            probabilities.get(digest).put(rmnode.getNodeURL().intern(), probability);
+            nodeProbabilities.put(rmnode.getNodeURL().intern(), probability);
 
         } catch (NoSuchAlgorithmException e) {
             logger.error(e.getMessage(), e);
@@ -269,6 +267,60 @@ public class ProbablisticSelectionManager extends SelectionManager {
         return result;
     }
 
+    /**
+     * Forgets the probabilities and the cached results of a removed node, a node registered
+     * again with the same url has to execute the scripts again.
+     *
+     * @param nodeUrl - url of the removed node
+     */
+    @Override
+    public void nodeRemoved(String nodeUrl) {
+        for (Map<String, Probability> nodeProbabilities : probabilities.values()) {
+            nodeProbabilities.remove(nodeUrl);
+        }
+        dynamicScriptResults.removeNode(nodeUrl);
+    }
+
+    private Probability getProbability(String digest, RMNode rmnode) {
+        Map<String, Probability> nodeProbabilities = probabilities.get(digest);
+        return nodeProbabilities == null ? null : nodeProbabilities.get(rmnode.getNodeURL());
+    }
+
+    /**
+     * Returns the probabilities of a script, adding a new script record if needed.
+     * The oldest added scripts are removed when the number of scripts exceeds the maximum.
+     */
+    private ConcurrentHashMap<String, Probability> getNodeProbabilities(String digest, SelectionScript script) {
+        ConcurrentHashMap<String, Probability> nodeProbabilities = probabilities.get(digest);
+        if (nodeProbabilities != null) {
+            return nodeProbabilities;
+        }
+
+        ConcurrentHashMap<String, Probability> newNodeProbabilities = new ConcurrentHashMap<>();
+        nodeProbabilities = probabilities.putIfAbsent(digest, newNodeProbabilities);
+        if (nodeProbabilities != null) {
+            // added concurrently
+            return nodeProbabilities;
+        }
+
+        // adding a new script record
+        digestQueue.offer(digest);
+        // checking if the number of selection script does not exceeded the maximum
+        if (digestCount.incrementAndGet() > PAResourceManagerProperties.RM_SELECT_SCRIPT_CACHE_SIZE
+                .getValueAsInt()) {
+            String oldest = digestQueue.poll();
+            if (oldest != null && probabilities.remove(oldest) != null) {
+                digestCount.decrementAndGet();
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Removing the script: " + script.hashCode() +
+                        " from the data base because the limit is reached");
+                }
+            }
+        }
+        logger.debug("Scripts cache size " + digestCount.get());
+        return newNodeProbabilities;
+    }
+
     /**
      * @see org.ow2.proactive.authentication.Loggable#getLogger()
      */
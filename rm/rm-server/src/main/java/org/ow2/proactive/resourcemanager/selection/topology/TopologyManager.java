@@ -40,10 +40,14 @@ import java.net.InetAddress;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.ActiveObjectCreationException;
@@ -51,6 +55,7 @@ import org.objectweb.proactive.api.PAActiveObject;
 import org.objectweb.proactive.api.PAFuture;
 import org.objectweb.proactive.core.node.Node;
 import org.objectweb.proactive.core.node.NodeException;
+import org.objectweb.proactive.utils.NamedThreadFactory;
 import org.ow2.proactive.resourcemanager.core.properties.PAResourceManagerProperties;
 import org.ow2.proactive.resourcemanager.frontend.topology.Topology;
 import org.ow2.proactive.resourcemanager.frontend.topology.TopologyDisabledException;
@@ -79,6 +84,8 @@ public class TopologyManager {
     // logger
     private final static Logger logger = Logger.getLogger(TopologyManager.class);
 
+    private static final int DEFAULT_PINGER_THREADS = 5;
+
     // hosts distances
     private TopologyImpl topology = new TopologyImpl();
     // this hash map allows to quickly find nodes on a single host (much faster than from the topology).
@@ -88,6 +95,10 @@ public class TopologyManager {
 
     // class using for pinging
     private Class<? extends Pinger> pingerClass;
+    // hosts being pinged, nodes on these hosts are added once pinging is finished
+    private final HashMap<InetAddress, PendingHost> pendingHosts = new HashMap<>();
+    // pings several new hosts in parallel
+    private final ExecutorService pingerThreadPool;
 
     /**
      * Constructs new instance of the topology descriptor.
@@ -106,6 +117,12 @@ public class TopologyManager {
 
         pingerClass = (Class<? extends Pinger>) Class.forName(PAResourceManagerProperties.RM_TOPOLOGY_PINGER
                 .getValueAsString());
+
+        PAResourceManagerProperties pingerThreadsProperty = PAResourceManagerProperties.RM_TOPOLOGY_PINGER_THREADS;
+        int pingerThreads = pingerThreadsProperty.isSet() ? pingerThreadsProperty.getValueAsInt()
+                : DEFAULT_PINGER_THREADS;
+        pingerThreadPool = Executors.newFixedThreadPool(pingerThreads, new NamedThreadFactory(
+            "Topology pinger threadpool"));
     }
 
     /**
@@ -126,48 +143,50 @@ public class TopologyManager {
     }
 
     /**
-     * Updates the topology for new node. Executes the pinger on new node when this node belongs
-     * to unknow host.
+     * Updates the topology for new node. The pinger is executed on the new node when this node belongs
+     * to an unknown host. Pinging runs in the pinger thread pool, one at a time per host: nodes of a host
+     * which is being pinged wait for the end of this ping.
+     *
+     * @param node the new node
+     * @param whenAdded called once the distances from the host of the node are known,
+     * either in the calling thread or in a pinger thread
      */
-    public synchronized void addNode(Node node) {
+    public void addNode(Node node, Runnable whenAdded) {
         if (!PAResourceManagerProperties.RM_TOPOLOGY_ENABLED.getValueAsBoolean()) {
             // do not do anything if topology disabled
+            whenAdded.run();
             return;
         }
 
         InetAddress host = node.getVMInformation().getInetAddress();
         synchronized (topology) {
-            if (topology.knownHost(host)) {
-                // host topology is already known
-                logger.debug("The topology information has been already added for node " +
-                    node.getNodeInformation().getURL());
-                nodesOnHost.get(host).add(node);
+            PendingHost pendingHost = pendingHosts.get(host);
+            if (pendingHost != null) {
+                // the host is being pinged, the node will be added with it
+                logger.debug("The host of node " + node.getNodeInformation().getURL() + " is being pinged");
+                if (topology.knownHost(host)) {
+                    nodesOnHost.get(host).add(node);
+                } else {
+                    pendingHost.nodes.add(node);
+                }
+                pendingHost.listeners.add(whenAdded);
                 return;
             }
-        }
 
-        // lock the current node while pinging
-        synchronized (node.getNodeInformation().getURL().intern()) {
-            // unknown host => start pinging process
-            NodeSet toPing = new NodeSet();
-            synchronized (topology) {
-                // adding one node from each host
-                for (InetAddress h : nodesOnHost.keySet()) {
-                    // always have at least one node on each host
-                    toPing.add(nodesOnHost.get(h).iterator().next());
-                }
+            if (!topology.knownHost(host)) {
+                // unknown host => start pinging process
+                pendingHost = new PendingHost(host, node, whenAdded);
+                pendingHosts.put(host, pendingHost);
+                pingerThreadPool.submit(pendingHost);
+                return;
             }
 
-            HashMap<InetAddress, Long> hostsTopology = pingNode(node, toPing);
-            synchronized (topology) {
-                if (hostsTopology != null) {
-                    topology.addHostTopology(node.getVMInformation().getHostName(), host, hostsTopology);
-                    List<Node> nodesList = new LinkedList<>();
-                    nodesList.add(node);
-                    nodesOnHost.put(node.getVMInformation().getInetAddress(), nodesList);
-                }
-            }
+            // host topology is already known
+            logger.debug("The topology information has been already added for node " +
+                node.getNodeInformation().getURL());
+            nodesOnHost.get(host).add(node);
         }
+        whenAdded.run();
     }
 
     /**
@@ -179,22 +198,134 @@ public class TopologyManager {
             return;
         }
 
-        // if the node we're trying to remove is in process of pinging => wait
-        synchronized (node.getNodeInformation().getURL().intern()) {
+        synchronized (topology) {
+            InetAddress host = node.getVMInformation().getInetAddress();
+            if (!topology.knownHost(host)) {
+                PendingHost pendingHost = pendingHosts.get(host);
+                if (pendingHost != null) {
+                    // the host is being pinged, the ping will not be retried from this node
+                    pendingHost.nodes.remove(node);
+                } else {
+                    logger.warn("Topology info does not exist for node " +
+                        node.getNodeInformation().getURL());
+                }
+            } else {
+
+                nodesOnHost.get(host).remove(node);
+                if (nodesOnHost.get(host).size() == 0) {
+                    // no more nodes on the host
+                    topology.removeHostTopology(node.getVMInformation().getHostName(), host);
+                    nodesOnHost.remove(host);
+                }
+            }
+        }
+    }
+
+    /**
+     * Host being pinged and the nodes waiting for it.
+     * <p>
+     * The host is first pinged from one of its nodes to all the known hosts and added to the topology.
+     * As other hosts may have been added while pinging, it is pinged again to these hosts only
+     * until the distances to every known host are measured. The nodes are then notified.
+     * Distances between two hosts pinged in parallel are measured by the second one to be added.
+     */
+    private class PendingHost implements Runnable {
+
+        private final InetAddress host;
+        // nodes of the host to ping from while the host is not in the topology
+        private final List<Node> nodes = new LinkedList<>();
+        private final List<Runnable> listeners = new LinkedList<>();
+        // hosts for which the distance is already measured
+        private final Set<InetAddress> pingedHosts = new HashSet<>();
+
+        PendingHost(InetAddress host, Node node, Runnable listener) {
+            this.host = host;
+            this.nodes.add(node);
+            this.listeners.add(listener);
+        }
+
+        public void run() {
+            try {
+                while (pingNextHosts()) {
+                    // pinging the hosts added in the meantime
+                }
+            } catch (RuntimeException e) {
+                logger.error("Cannot ping the host " + host, e);
+                synchronized (topology) {
+                    pendingHosts.remove(host);
+                }
+            }
+            notifyListeners();
+        }
+
+        /**
+         * Pings the hosts not measured yet.
+         * @return true if the hosts have to be pinged again
+         */
+        private boolean pingNextHosts() {
+            Node node;
+            boolean known;
+            NodeSet toPing = new NodeSet();
             synchronized (topology) {
-                InetAddress host = node.getVMInformation().getInetAddress();
-                if (!topology.knownHost(host)) {
-                    logger
-                            .warn("Topology info does not exist for node " +
-                                node.getNodeInformation().getURL());
+                known = topology.knownHost(host);
+                if (known) {
+                    node = nodesOnHost.get(host).get(0);
+                } else if (!nodes.isEmpty()) {
+                    node = nodes.get(0);
                 } else {
+                    // all the nodes of the host are removed
+                    pendingHosts.remove(host);
+                    return false;
+                }
+
+                // adding one node from each host
+                for (InetAddress h : nodesOnHost.keySet()) {
+                    if (!h.equals(host) && !pingedHosts.contains(h)) {
+                        // always have at least one node on each host
+                        toPing.add(nodesOnHost.get(h).get(0));
+                    }
+                }
+                if (known && toPing.isEmpty()) {
+                    // distances to all known hosts are measured
+                    pendingHosts.remove(host);
+                    return false;
+                }
+            }
 
-                    nodesOnHost.get(host).remove(node);
-                    if (nodesOnHost.get(host).size() == 0) {
-                        // no more nodes on the host
-                        topology.removeHostTopology(node.getVMInformation().getHostName(), host);
-                        nodesOnHost.remove(host);
+            HashMap<InetAddress, Long> hostsTopology = toPing.isEmpty() ? new HashMap<InetAddress, Long>()
+                    : pingNode(node, toPing);
+            synchronized (topology) {
+                if (hostsTopology == null) {
+                    if (known) {
+                        // keeping the distances measured before
+                        pendingHosts.remove(host);
+                        return false;
                     }
+                    // trying from another node of the host, the node may already be removed
+                    nodes.remove(node);
+                    return true;
+                }
+
+                for (Node pinged : toPing) {
+                    pingedHosts.add(pinged.getVMInformation().getInetAddress());
+                }
+                if (known) {
+                    topology.updateHostTopology(host, hostsTopology);
+                } else if (!nodes.isEmpty()) {
+                    topology.addHostTopology(node.getVMInformation().getHostName(), host, hostsTopology);
+                    nodesOnHost.put(host, new LinkedList<>(nodes));
+                    nodes.clear();
+                }
+                return true;
+            }
+        }
+
+        private void notifyListeners() {
+            for (Runnable listener : listeners) {
+                try {
+                    listener.run();
+                } catch (RuntimeException e) {
+                    logger.warn("Cannot notify the addition of the host " + host, e);
                 }
             }
         }
@@ -203,8 +334,10 @@ public class TopologyManager {
     /**
      * Launches the pinging process from new host. It will ping all other hosts
      * according to the pinger logic.
+     *
+     * @return the distances to the hosts of the given nodes, null if the pinging failed
      */
-    private HashMap<InetAddress, Long> pingNode(Node node, NodeSet nodes) {
+    protected HashMap<InetAddress, Long> pingNode(Node node, NodeSet nodes) {
 
         try {
             logger.debug("Launching ping process on node " + node.getNodeInformation().getURL());
@@ -239,6 +372,13 @@ public class TopologyManager {
         return null;
     }
 
+    /**
+     * Stops the pinging of new hosts, the nodes of hosts being pinged are not added.
+     */
+    public void shutdown() {
+        pingerThreadPool.shutdownNow();
+    }
+
     /**
      * Returns the topology representation. As the Topology is not a thread-safe class
      * and all synchronization happens on TopologyManager level, the topology is cloned.
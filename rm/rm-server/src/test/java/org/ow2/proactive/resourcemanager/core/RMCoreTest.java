@@ -0,0 +1,256 @@
+/*
+ *  *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2014 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s):
+ *
+ *  * $$ACTIVEEON_INITIAL_DEV$$
+ */
+package org.ow2.proactive.resourcemanager.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.objectweb.proactive.core.UniqueID;
+import org.objectweb.proactive.core.node.Node;
+import org.ow2.proactive.resourcemanager.authentication.Client;
+import org.ow2.proactive.resourcemanager.frontend.RMMonitoringImpl;
+import org.ow2.proactive.resourcemanager.nodesource.NodeSource;
+import org.ow2.proactive.resourcemanager.nodesource.RMNodeConfigurator;
+import org.ow2.proactive.resourcemanager.rmnode.RMNode;
+import org.ow2.proactive.resourcemanager.rmnode.RMNodeImpl;
+import org.ow2.proactive.resourcemanager.selection.SelectionManager;
+import org.ow2.proactive.scripting.ScriptException;
+import org.ow2.proactive.utils.Criteria;
+import org.ow2.proactive.utils.NodeSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+
+public class RMCoreTest {
+
+    private Client caller;
+    private Client owner;
+    private SelectionManager selectionManager;
+    private RMCore rmCore;
+
+    @Before
+    public void setUp() {
+        caller = mock(Client.class);
+        owner = mock(Client.class);
+        when(owner.getId()).thenReturn(new UniqueID("owner"));
+        RMCore.clients.put(owner.getId(), owner);
+        selectionManager = mock(SelectionManager.class);
+        rmCore = new RMCore("test", null, caller, mock(RMMonitoringImpl.class), selectionManager,
+            mock(RMNodeConfigurator.class));
+    }
+
+    @After
+    public void tearDown() {
+        RMCore.clients.remove(owner.getId());
+    }
+
+    @Test
+    public void batchedRequestGivesTheSameNodesAsOneRequestPerCriteria() {
+        Criteria twoNodes = new Criteria(2);
+        Criteria oneNode = new Criteria(1);
+        when(selectionManager.selectNodes(twoNodes, caller)).thenReturn(nodes("node1", "node2"));
+        when(selectionManager.selectNodes(oneNode, caller)).thenReturn(nodes("node3"));
+
+        List<NodeSet> batched = rmCore.getNodes(Arrays.asList(twoNodes, oneNode));
+
+        assertEquals(2, batched.size());
+        assertEquals(urls(rmCore.getNodes(twoNodes)), urls(batched.get(0)));
+        assertEquals(urls(rmCore.getNodes(oneNode)), urls(batched.get(1)));
+        assertNull(batched.get(0).getSelectionFailure());
+        assertNull(batched.get(1).getSelectionFailure());
+    }
+
+    @Test
+    public void failedSelectionDoesNotLoseTheNodesOfTheOtherCriteria() {
+        Criteria first = new Criteria(1);
+        Criteria failing = new Criteria(1);
+        Criteria last = new Criteria(1);
+        when(selectionManager.selectNodes(first, caller)).thenReturn(nodes("node1"));
+        ScriptException failure = new ScriptException("bad selection script");
+        when(selectionManager.selectNodes(failing, caller)).thenThrow(failure);
+        when(selectionManager.selectNodes(last, caller)).thenReturn(nodes("node2"));
+
+        List<NodeSet> nodeSets = rmCore.getNodes(Arrays.asList(first, failing, last));
+
+        assertEquals(Arrays.asList("node1"), urls(nodeSets.get(0)));
+        assertTrue(nodeSets.get(1).isEmpty());
+        assertSame(failure, nodeSets.get(1).getSelectionFailure());
+        assertEquals(Arrays.asList("node2"), urls(nodeSets.get(2)));
+    }
+
+    @Test
+    public void invalidCriteriaIsReportedInItsNodeSet() {
+        Criteria invalid = new Criteria(0);
+        Criteria valid = new Criteria(1);
+        when(selectionManager.selectNodes(valid, caller)).thenReturn(nodes("node1"));
+
+        List<NodeSet> nodeSets = rmCore.getNodes(Arrays.asList(invalid, valid));
+
+        assertTrue(nodeSets.get(0).getSelectionFailure() instanceof IllegalArgumentException);
+        assertEquals(Arrays.asList("node1"), urls(nodeSets.get(1)));
+        verify(selectionManager, never()).selectNodes(invalid, caller);
+    }
+
+    @Test
+    public void emptyBatchSelectsNothing() {
+        assertTrue(rmCore.getNodes(new ArrayList<Criteria>()).isEmpty());
+
+        verify(selectionManager, never()).selectNodes(any(Criteria.class), any(Client.class));
+    }
+
+    @Test
+    public void freeNodesAreKeptInTheOrderTheyBecameFree() throws Exception {
+        NodeSource nodeSource = nodeSource("source");
+        addNodes(nodeSource, "node1", "node2", "node3");
+        assertEquals(Arrays.asList("node1", "node2", "node3"), freeNodeUrls());
+
+        rmCore.setBusyNode("node2", owner);
+        assertEquals(Arrays.asList("node1", "node3"), freeNodeUrls());
+
+        rmCore.setFreeNodes(nodesOf("node2"));
+        assertEquals(Arrays.asList("node1", "node3", "node2"), freeNodeUrls());
+
+        rmCore.lockNodes(Collections.singleton("node1"));
+        assertEquals(Arrays.asList("node3", "node2"), freeNodeUrls());
+
+        rmCore.unlockNodes(Collections.singleton("node1"));
+        assertEquals(Arrays.asList("node3", "node2", "node1"), freeNodeUrls());
+    }
+
+    @Test
+    public void freeNodesAreACopy() {
+        addNodes(nodeSource("source"), "node1");
+
+        rmCore.getFreeNodes().clear();
+
+        assertEquals(Arrays.asList("node1"), freeNodeUrls());
+    }
+
+    @Test
+    public void removedNodeIsNoLongerFree() {
+        NodeSource nodeSource = nodeSource("source");
+        addNodes(nodeSource, "node1", "node2");
+
+        rmCore.removeNode("node1", false);
+
+        assertEquals(Arrays.asList("node2"), freeNodeUrls());
+        verify(nodeSource).removeNode("node1", caller);
+        verify(selectionManager).nodeRemoved("node1");
+    }
+
+    @Test
+    public void freeNodesOfTheSourceAreRemovedFirst() throws Exception {
+        NodeSource source = nodeSource("source");
+        NodeSource otherSource = nodeSource("other");
+        addNodes(source, "busy");
+        addNodes(otherSource, "other1");
+        addNodes(source, "node1", "node2");
+        addNodes(otherSource, "other2");
+        rmCore.setBusyNode("busy", owner);
+
+        rmCore.removeNodes(2, "source", false);
+
+        assertEquals(Arrays.asList("other1", "other2"), freeNodeUrls());
+        verify(source).removeNode("node1", caller);
+        verify(source).removeNode("node2", caller);
+        verify(source, never()).removeNode("busy", caller);
+        verify(otherSource, never()).removeNode(anyString(), any(Client.class));
+    }
+
+    private static NodeSource nodeSource(String name) {
+        NodeSource nodeSource = mock(NodeSource.class);
+        when(nodeSource.getName()).thenReturn(name);
+        return nodeSource;
+    }
+
+    /**
+     * Registers the nodes and ends their configuration, so that they become free in the given order
+     */
+    private void addNodes(NodeSource nodeSource, String... urls) {
+        for (String url : urls) {
+            Node node = mock(Node.class, RETURNS_DEEP_STUBS);
+            when(node.getNodeInformation().getURL()).thenReturn(url);
+            when(node.getNodeInformation().getName()).thenReturn(url);
+            RMNode rmNode = new RMNodeImpl(node, nodeSource, caller, null);
+            rmCore.internalRegisterConfiguringNode(rmNode);
+            rmCore.internalAddNodeToCore(rmNode);
+        }
+    }
+
+    private List<RMNode> nodesOf(String... urls) {
+        List<RMNode> nodes = new ArrayList<>();
+        for (String url : urls) {
+            RMNode rmNode = mock(RMNode.class);
+            when(rmNode.getNodeURL()).thenReturn(url);
+            nodes.add(rmNode);
+        }
+        return nodes;
+    }
+
+    private List<String> freeNodeUrls() {
+        List<String> urls = new ArrayList<>();
+        for (RMNode rmNode : rmCore.getFreeNodes()) {
+            urls.add(rmNode.getNodeURL());
+        }
+        return urls;
+    }
+
+    private static NodeSet nodes(String... urls) {
+        NodeSet nodeSet = new NodeSet();
+        for (String url : urls) {
+            Node node = mock(Node.class, RETURNS_DEEP_STUBS);
+            when(node.getNodeInformation().getURL()).thenReturn(url);
+            nodeSet.add(node);
+        }
+        return nodeSet;
+    }
+
+    private static List<String> urls(NodeSet nodeSet) {
+        List<String> urls = new ArrayList<>();
+        for (Node node : nodeSet) {
+            urls.add(node.getNodeInformation().getURL());
+        }
+        return urls;
+    }
+
+}
@@ -0,0 +1,256 @@
+/*
+ *  *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2014 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s):
+ *
+ *  * $$ACTIVEEON_INITIAL_DEV$$
+ */
+package org.ow2.proactive.resourcemanager.frontend;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.proactive.core.UniqueID;
+import org.ow2.proactive.resourcemanager.authentication.Client;
+import org.ow2.proactive.resourcemanager.common.NodeState;
+import org.ow2.proactive.resourcemanager.common.event.RMEvent;
+import org.ow2.proactive.resourcemanager.common.event.RMEventType;
+import org.ow2.proactive.resourcemanager.common.event.RMNodeDescriptor;
+import org.ow2.proactive.resourcemanager.common.event.RMNodeEvent;
+import org.ow2.proactive.resourcemanager.common.event.RMNodeSourceEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+public class RMMonitoringImplTest {
+
+    private static final int MAX_PENDING_EVENTS = 3;
+
+    private ManualExecutor executor;
+    private RMMonitoringImpl monitoring;
+    private RecordingListener listener;
+
+    @Before
+    public void setUp() {
+        executor = new ManualExecutor();
+        monitoring = new RMMonitoringImpl(null, executor, MAX_PENDING_EVENTS);
+        listener = new RecordingListener();
+        Client client = new Client();
+        client.setId(new UniqueID());
+        monitoring.addEventDispatcher(client.getId(), client, listener);
+    }
+
+    @Test
+    public void stateChangesOfANodeAreCoalescedAfterThePendingEvents() {
+        monitoring.queueEvent(stateChanged("node1", NodeState.FREE, NodeState.BUSY));
+        monitoring.queueEvent(new RMEvent(RMEventType.STARTED));
+        monitoring.queueEvent(stateChanged("node2", NodeState.FREE, NodeState.BUSY));
+        monitoring.queueEvent(stateChanged("node1", NodeState.BUSY, NodeState.FREE));
+        executor.runAll();
+
+        assertEquals(3, listener.events.size());
+        assertEquals(RMEventType.STARTED, listener.events.get(0).getEventType());
+        assertEquals("node2", ((RMNodeEvent) listener.events.get(1)).getNodeUrl());
+        RMNodeEvent node1 = (RMNodeEvent) listener.events.get(2);
+        assertEquals("node1", node1.getNodeUrl());
+        assertEquals(NodeState.FREE, node1.getNodeState());
+        // the client never saw the node busy
+        assertEquals(NodeState.FREE, node1.getPreviousNodeState());
+    }
+
+    @Test
+    public void coalescedStateChangeStartsFromTheFirstPendingOne() {
+        monitoring.queueEvent(stateChanged("node1", NodeState.FREE, NodeState.BUSY));
+        monitoring.queueEvent(stateChanged("node1", NodeState.BUSY, NodeState.TO_BE_REMOVED));
+        monitoring.queueEvent(stateChanged("node1", NodeState.TO_BE_REMOVED, NodeState.DOWN));
+        executor.runAll();
+
+        assertEquals(1, listener.events.size());
+        RMNodeEvent node1 = (RMNodeEvent) listener.events.get(0);
+        assertEquals(RMEventType.NODE_STATE_CHANGED, node1.getEventType());
+        assertEquals(NodeState.FREE, node1.getPreviousNodeState());
+        assertEquals(NodeState.DOWN, node1.getNodeState());
+    }
+
+    @Test
+    public void additionsAndRemovalsAreNotCoalesced() {
+        monitoring.queueEvent(nodeEvent("node1", RMEventType.NODE_ADDED, null, NodeState.FREE));
+        monitoring.queueEvent(nodeEvent("node1", RMEventType.NODE_REMOVED, NodeState.FREE, NodeState.FREE));
+        monitoring.queueEvent(nodeEvent("node1", RMEventType.NODE_ADDED, null, NodeState.FREE));
+        executor.runAll();
+
+        assertEquals(3, listener.events.size());
+        assertEquals(RMEventType.NODE_ADDED, listener.events.get(0).getEventType());
+        assertEquals(RMEventType.NODE_REMOVED, listener.events.get(1).getEventType());
+        assertEquals(RMEventType.NODE_ADDED, listener.events.get(2).getEventType());
+    }
+
+    @Test
+    public void countersAreContiguousAfterCoalescing() {
+        for (int i = 0; i < 5; i++) {
+            monitoring.queueEvent(stateChanged("node1", NodeState.FREE, NodeState.BUSY));
+            monitoring.queueEvent(stateChanged("node2", NodeState.FREE, NodeState.BUSY));
+        }
+        executor.runAll();
+        monitoring.queueEvent(stateChanged("node1", NodeState.BUSY, NodeState.FREE));
+        monitoring.queueEvent(new RMEvent(RMEventType.STARTED));
+        executor.runAll();
+
+        assertEquals(4, listener.events.size());
+        for (int i = 0; i < listener.events.size(); i++) {
+            assertEquals(i + 1, listener.events.get(i).getCounter());
+        }
+    }
+
+    @Test
+    public void coalescedEventsDoNotCountAsPending() {
+        for (int i = 0; i < MAX_PENDING_EVENTS * 2; i++) {
+            monitoring.queueEvent(stateChanged("node1", NodeState.FREE, NodeState.BUSY));
+        }
+        executor.runAll();
+
+        assertEquals(1, listener.events.size());
+    }
+
+    @Test
+    public void clientIsRemovedWhenItHasTooManyPendingEvents() {
+        for (int i = 0; i <= MAX_PENDING_EVENTS; i++) {
+            monitoring.queueEvent(stateChanged("node" + i, NodeState.FREE, NodeState.BUSY));
+        }
+        executor.runAll();
+        assertTrue(listener.events.isEmpty());
+
+        monitoring.queueEvent(new RMEvent(RMEventType.STARTED));
+        executor.runAll();
+        assertTrue(listener.events.isEmpty());
+    }
+
+    @Test
+    public void clientIsRemovedWhenDeliveryFails() {
+        listener.failing = true;
+        monitoring.queueEvent(new RMEvent(RMEventType.STARTED));
+        executor.runAll();
+        assertEquals(1, listener.events.size());
+
+        listener.failing = false;
+        monitoring.queueEvent(new RMEvent(RMEventType.STARTED));
+        executor.runAll();
+        assertEquals(1, listener.events.size());
+    }
+
+    private static RMNodeEvent stateChanged(String nodeUrl, NodeState previousState, NodeState state) {
+        return nodeEvent(nodeUrl, RMEventType.NODE_STATE_CHANGED, previousState, state);
+    }
+
+    private static RMNodeEvent nodeEvent(String nodeUrl, RMEventType type, NodeState previousState,
+            NodeState state) {
+        RMNodeDescriptor descriptor = new RMNodeDescriptor();
+        descriptor.setNodeURL(nodeUrl);
+        descriptor.setState(state);
+        return new RMNodeEvent(descriptor, type, previousState, null);
+    }
+
+    private static class RecordingListener implements RMEventListener {
+
+        private final List<RMEvent> events = Collections.synchronizedList(new ArrayList<RMEvent>());
+        private volatile boolean failing;
+
+        @Override
+        public void rmEvent(RMEvent event) {
+            record(event);
+        }
+
+        @Override
+        public void nodeSourceEvent(RMNodeSourceEvent event) {
+            record(event);
+        }
+
+        @Override
+        public void nodeEvent(RMNodeEvent event) {
+            record(event);
+        }
+
+        private void record(RMEvent event) {
+            events.add(event);
+            if (failing) {
+                throw new RuntimeException("client disconnected");
+            }
+        }
+    }
+
+    /**
+     * Runs the deliveries only when asked to, so that events pile up as for a slow client.
+     */
+    private static class ManualExecutor extends AbstractExecutorService {
+
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return tasks;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+
+}
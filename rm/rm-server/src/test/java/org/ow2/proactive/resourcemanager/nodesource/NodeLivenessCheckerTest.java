@@ -0,0 +1,150 @@
+/*
+ *  *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2014 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s):
+ *
+ *  * $$ACTIVEEON_INITIAL_DEV$$
+ */
+package org.ow2.proactive.resourcemanager.nodesource;
+
+import java.rmi.dgc.VMID;
+import java.util.Arrays;
+import java.util.List;
+
+import org.objectweb.proactive.core.node.Node;
+import org.objectweb.proactive.core.node.NodeInformation;
+import org.objectweb.proactive.core.runtime.VMInformation;
+import org.ow2.proactive.resourcemanager.utils.Clock;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class NodeLivenessCheckerTest {
+
+    private static final long PERIOD = 1000;
+
+    @Test
+    public void runtimesAreCheckedOncePerPeriod() throws Exception {
+        VMID runtime = new VMID();
+        List<Node> nodes = Arrays.asList(createNode("node1", runtime), createNode("node2", runtime),
+                createNode("node3", new VMID()));
+        NodeLivenessChecker checker = new NodeLivenessChecker();
+
+        // first checks are spread over the period
+        assertTrue(checker.getNodesToPing(nodes, 0, PERIOD).isEmpty());
+
+        List<List<Node>> toPing = checker.getNodesToPing(nodes, PERIOD, PERIOD);
+        assertEquals(2, toPing.size());
+        assertEquals(3, toPing.get(0).size() + toPing.get(1).size());
+
+        assertTrue(checker.getNodesToPing(nodes, PERIOD + 1, PERIOD).isEmpty());
+        assertEquals(2, checker.getNodesToPing(nodes, 3 * PERIOD, PERIOD).size());
+    }
+
+    @Test
+    public void recentlyActiveNodesAreNotPinged() throws Exception {
+        VMID runtime = new VMID();
+        List<Node> nodes = Arrays.asList(createNode("active", runtime), createNode("inactive", runtime));
+        Clock clock = mock(Clock.class);
+        NodeLivenessChecker checker = createChecker(clock, nodes);
+
+        checker.getNodesToPing(nodes, 0, PERIOD);
+        when(clock.now()).thenReturn(PERIOD / 2);
+        checker.recordActivity("active");
+
+        List<List<Node>> toPing = checker.getNodesToPing(nodes, PERIOD, PERIOD);
+        assertEquals(1, toPing.size());
+        assertEquals(Arrays.asList(nodes.get(1)), toPing.get(0));
+
+        // the activity is older than the period
+        toPing = checker.getNodesToPing(nodes, 2 * PERIOD, PERIOD);
+        assertEquals(1, toPing.size());
+        assertEquals(nodes, toPing.get(0));
+    }
+
+    @Test
+    public void activityOfAForgottenNodeIsIgnored() throws Exception {
+        VMID runtime = new VMID();
+        List<Node> nodes = Arrays.asList(createNode("removed", runtime));
+        Clock clock = mock(Clock.class);
+        NodeLivenessChecker checker = createChecker(clock, nodes);
+
+        checker.getNodesToPing(nodes, 0, PERIOD);
+        checker.forget("removed");
+        when(clock.now()).thenReturn(PERIOD / 2);
+        checker.recordActivity("removed");
+        // the node is added again
+        checker.track("removed");
+
+        List<List<Node>> toPing = checker.getNodesToPing(nodes, PERIOD, PERIOD);
+        assertEquals(1, toPing.size());
+        assertEquals(nodes, toPing.get(0));
+    }
+
+    @Test
+    public void activitiesAreRecordedPerChecker() throws Exception {
+        VMID runtime = new VMID();
+        List<Node> nodes = Arrays.asList(createNode("node", runtime));
+        Clock clock = mock(Clock.class);
+        NodeLivenessChecker checker = createChecker(clock, nodes);
+        NodeLivenessChecker otherChecker = createChecker(clock, nodes);
+
+        checker.getNodesToPing(nodes, 0, PERIOD);
+        otherChecker.getNodesToPing(nodes, 0, PERIOD);
+        when(clock.now()).thenReturn(PERIOD / 2);
+        otherChecker.recordActivity("node");
+
+        assertEquals(1, checker.getNodesToPing(nodes, PERIOD, PERIOD).size());
+        assertTrue(otherChecker.getNodesToPing(nodes, PERIOD, PERIOD).isEmpty());
+    }
+
+    private static NodeLivenessChecker createChecker(Clock clock, List<Node> nodes) {
+        NodeLivenessChecker checker = new NodeLivenessChecker(clock);
+        for (Node node : nodes) {
+            checker.track(node.getNodeInformation().getURL());
+        }
+        return checker;
+    }
+
+    private Node createNode(String url, VMID runtime) {
+        Node node = mock(Node.class);
+        NodeInformation nodeInformation = mock(NodeInformation.class);
+        VMInformation vmInformation = mock(VMInformation.class);
+        when(node.getNodeInformation()).thenReturn(nodeInformation);
+        when(node.getVMInformation()).thenReturn(vmInformation);
+        when(nodeInformation.getURL()).thenReturn(url);
+        when(vmInformation.getVMID()).thenReturn(runtime);
+        return node;
+    }
+
+}
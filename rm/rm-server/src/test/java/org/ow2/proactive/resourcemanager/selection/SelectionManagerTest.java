@@ -112,6 +112,10 @@ public class SelectionManagerTest {
                     RMNode rmnode) {
                 return false;
             }
+
+            @Override
+            public void nodeRemoved(String nodeUrl) {
+            }
         };
     }
 
@@ -0,0 +1,184 @@
+/*
+ *  *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2014 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s):
+ *
+ *  * $$ACTIVEEON_INITIAL_DEV$$
+ */
+package org.ow2.proactive.resourcemanager.selection;
+
+import org.ow2.proactive.resourcemanager.common.event.RMNodeDescriptor;
+import org.ow2.proactive.resourcemanager.common.event.RMNodeEvent;
+import org.ow2.proactive.resourcemanager.rmnode.RMNode;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class SelectionScriptResultCacheTest {
+
+    @Test
+    public void passedScriptIsKeptUntilNodeIsRegisteredAgain() throws Exception {
+        TestCache cache = new TestCache(100, 10);
+        RMNode node = createNode("node1", 1);
+
+        assertFalse(cache.isPassed("script", node));
+        cache.putPassed("script", node);
+        assertTrue(cache.isPassed("script", node));
+        assertFalse(cache.isPassed("other", node));
+
+        RMNode registeredAgain = createNode("node1", 2);
+        assertFalse(cache.isPassed("script", registeredAgain));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void passedScriptExpires() throws Exception {
+        TestCache cache = new TestCache(100, 10);
+        RMNode node = createNode("node1", 1);
+
+        cache.putPassed("script", node);
+        cache.time = 99;
+        assertTrue(cache.isPassed("script", node));
+
+        cache.time = 100;
+        assertFalse(cache.isPassed("script", node));
+    }
+
+    @Test
+    public void expiredResultsArePurged() throws Exception {
+        TestCache cache = new TestCache(100, 10);
+        cache.putPassed("script1", createNode("node1", 1));
+        cache.putPassed("script1", createNode("node2", 1));
+        cache.time = 50;
+        cache.putPassed("script2", createNode("node1", 1));
+        assertEquals(3, cache.size());
+
+        // results are purged on any access
+        cache.time = 100;
+        cache.putPassed("script3", createNode("node3", 1));
+        assertEquals(2, cache.size());
+
+        cache.time = 150;
+        assertFalse(cache.isPassed("script1", createNode("node1", 1)));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void resultPutAgainExpiresLater() throws Exception {
+        TestCache cache = new TestCache(100, 10);
+        RMNode node = createNode("node1", 1);
+
+        cache.putPassed("script1", node);
+        cache.putPassed("script2", node);
+        cache.time = 50;
+        cache.putPassed("script1", node);
+
+        cache.time = 100;
+        assertTrue(cache.isPassed("script1", node));
+        assertFalse(cache.isPassed("script2", node));
+    }
+
+    @Test
+    public void zeroTtlDisablesCache() throws Exception {
+        TestCache cache = new TestCache(0, 10);
+        RMNode node = createNode("node1", 1);
+
+        cache.putPassed("script", node);
+        assertFalse(cache.isPassed("script", node));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void resultsClosestToExpirationAreRemovedFirst() throws Exception {
+        TestCache cache = new TestCache(100, 2);
+        RMNode node = createNode("node1", 1);
+
+        cache.putPassed("script1", node);
+        cache.putPassed("script2", node);
+        cache.putPassed("script3", node);
+
+        assertEquals(2, cache.size());
+        assertFalse(cache.isPassed("script1", node));
+        assertTrue(cache.isPassed("script2", node));
+        assertTrue(cache.isPassed("script3", node));
+    }
+
+    @Test
+    public void resultsOfRemovedNodeAreEvicted() throws Exception {
+        TestCache cache = new TestCache(100, 10);
+        RMNode node1 = createNode("node1", 1);
+        RMNode node2 = createNode("node2", 1);
+        cache.putPassed("script1", node1);
+        cache.putPassed("script2", node1);
+        cache.putPassed("script1", node2);
+
+        cache.removeNode("node1");
+
+        assertEquals(1, cache.size());
+        assertFalse(cache.isPassed("script1", node1));
+        assertFalse(cache.isPassed("script2", node1));
+        assertTrue(cache.isPassed("script1", node2));
+
+        // removing an unknown node does nothing
+        cache.removeNode("node3");
+        assertEquals(1, cache.size());
+    }
+
+    private RMNode createNode(String url, long addTime) {
+        RMNodeDescriptor descriptor = new RMNodeDescriptor();
+        descriptor.setStateChangeTime(addTime);
+        RMNodeEvent addEvent = new RMNodeEvent(descriptor);
+        RMNode node = mock(RMNode.class);
+        when(node.getNodeURL()).thenReturn(url);
+        when(node.getAddEvent()).thenReturn(addEvent);
+        return node;
+    }
+
+    /**
+     * Cache whose time is set by the test
+     */
+    private static class TestCache extends SelectionScriptResultCache {
+
+        private long time;
+
+        TestCache(long ttl, int maxResults) {
+            super(ttl, maxResults);
+        }
+
+        @Override
+        long now() {
+            return time;
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ *  *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2014 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s):
+ *
+ *  * $$ACTIVEEON_INITIAL_DEV$$
+ */
+package org.ow2.proactive.resourcemanager.selection.statistics;
+
+import org.ow2.proactive.resourcemanager.core.properties.PAResourceManagerProperties;
+import org.ow2.proactive.resourcemanager.utils.Clock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class ProbabilityTest {
+
+    private int dynamicity;
+
+    private Clock clock;
+
+    @Before
+    public void setDynamicity() {
+        dynamicity = PAResourceManagerProperties.RM_SELECT_SCRIPT_NODE_DYNAMICITY.getValueAsInt();
+        PAResourceManagerProperties.RM_SELECT_SCRIPT_NODE_DYNAMICITY.updateProperty("100");
+        clock = mock(Clock.class);
+        when(clock.now()).thenReturn(1000L);
+    }
+
+    @After
+    public void restoreDynamicity() {
+        PAResourceManagerProperties.RM_SELECT_SCRIPT_NODE_DYNAMICITY.updateProperty(String.valueOf(dynamicity));
+    }
+
+    @Test
+    public void decreasedProbabilityIsRestoredAfterDynamicityPeriod() throws Exception {
+        Probability probability = new Probability(clock);
+        assertEquals(Probability.defaultValue(), probability.value(), 0);
+        probability.increase();
+        double increased = probability.value();
+        assertTrue(increased > Probability.defaultValue());
+
+        probability.decrease();
+        assertEquals(0, probability.value(), 0);
+
+        // already paused, the step is not lowered again
+        when(clock.now()).thenReturn(1099L);
+        probability.decrease();
+        assertEquals(0, probability.value(), 0);
+
+        when(clock.now()).thenReturn(1100L);
+        assertEquals(Probability.defaultValue(), probability.value(), 0);
+
+        // the pause has expired, the step is lowered again
+        probability.decrease();
+        assertEquals(0, probability.value(), 0);
+        when(clock.now()).thenReturn(1200L);
+        assertTrue(probability.value() < Probability.defaultValue());
+    }
+
+    @Test
+    public void increasesAndDecreasesGoBackToTheInitialValue() throws Exception {
+        Probability probability = new Probability(clock);
+        for (int i = 0; i < 3; i++) {
+            probability.increase();
+        }
+        for (int i = 0; i < 3; i++) {
+            when(clock.now()).thenReturn(1000L + i * 100);
+            probability.decrease();
+        }
+
+        when(clock.now()).thenReturn(1300L);
+        assertEquals(Probability.defaultValue(), probability.value(), 0);
+    }
+
+    @Test
+    public void constantsAreNotModified() throws Exception {
+        Probability.ONE.decrease();
+        Probability.ZERO.increase();
+
+        assertEquals(1, Probability.ONE.value(), 0);
+        assertEquals(0, Probability.ZERO.value(), 0);
+    }
+
+}
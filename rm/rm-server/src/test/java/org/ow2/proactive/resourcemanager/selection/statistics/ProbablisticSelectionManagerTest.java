@@ -0,0 +1,107 @@
+/*
+ *  *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2014 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s):
+ *
+ *  * $$ACTIVEEON_INITIAL_DEV$$
+ */
+package org.ow2.proactive.resourcemanager.selection.statistics;
+
+import org.ow2.proactive.resourcemanager.core.RMCore;
+import org.ow2.proactive.resourcemanager.core.properties.PAResourceManagerProperties;
+import org.ow2.proactive.resourcemanager.rmnode.RMNode;
+import org.ow2.proactive.scripting.ScriptResult;
+import org.ow2.proactive.scripting.SelectionScript;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class ProbablisticSelectionManagerTest {
+
+    private String dynamicTtl;
+
+    private ProbablisticSelectionManager selectionManager;
+
+    private RMNode node;
+
+    @Before
+    public void createSelectionManager() {
+        PAResourceManagerProperties property = PAResourceManagerProperties.RM_SELECT_SCRIPT_DYNAMIC_RESULT_TTL;
+        dynamicTtl = property.isSet() ? property.getValueAsString() : "0";
+        property.updateProperty("60000");
+        selectionManager = new ProbablisticSelectionManager(mock(RMCore.class));
+
+        node = mock(RMNode.class);
+        when(node.getNodeURL()).thenReturn("node1");
+    }
+
+    @After
+    public void restoreDynamicTtl() {
+        PAResourceManagerProperties.RM_SELECT_SCRIPT_DYNAMIC_RESULT_TTL.updateProperty(dynamicTtl);
+    }
+
+    @Test
+    public void passedStaticScriptIsNotExecutedAgainUntilTheNodeIsRemoved() throws Exception {
+        SelectionScript script = new SelectionScript("static", "js", false);
+        assertFalse(selectionManager.isPassed(script, node));
+
+        assertTrue(selectionManager.processScriptResult(script, new ScriptResult<>(true), node));
+        assertTrue(selectionManager.isPassed(script, node));
+
+        selectionManager.nodeRemoved("node1");
+        assertFalse(selectionManager.isPassed(script, node));
+    }
+
+    @Test
+    public void passedDynamicScriptIsNotExecutedAgainUntilTheNodeIsRemoved() throws Exception {
+        SelectionScript script = new SelectionScript("dynamic", "js", true);
+        assertFalse(selectionManager.isPassed(script, node));
+
+        assertTrue(selectionManager.processScriptResult(script, new ScriptResult<>(true), node));
+        assertTrue(selectionManager.isPassed(script, node));
+
+        selectionManager.nodeRemoved("node1");
+        assertFalse(selectionManager.isPassed(script, node));
+    }
+
+    @Test
+    public void failedDynamicScriptIsNotPassed() throws Exception {
+        SelectionScript script = new SelectionScript("dynamic", "js", true);
+
+        assertFalse(selectionManager.processScriptResult(script, new ScriptResult<>(false), node));
+        assertFalse(selectionManager.isPassed(script, node));
+    }
+
+}
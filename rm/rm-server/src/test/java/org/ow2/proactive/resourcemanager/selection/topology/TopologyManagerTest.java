@@ -0,0 +1,265 @@
+/*
+ *  *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2014 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s):
+ *
+ *  * $$ACTIVEEON_INITIAL_DEV$$
+ */
+package org.ow2.proactive.resourcemanager.selection.topology;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.proactive.core.node.Node;
+import org.objectweb.proactive.core.node.NodeInformation;
+import org.objectweb.proactive.core.runtime.VMInformation;
+import org.ow2.proactive.resourcemanager.core.properties.PAResourceManagerProperties;
+import org.ow2.proactive.resourcemanager.frontend.topology.Topology;
+import org.ow2.proactive.resourcemanager.frontend.topology.pinging.HostsPinger;
+import org.ow2.proactive.utils.NodeSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class TopologyManagerTest {
+
+    private static final long DISTANCE = 42;
+
+    private String topologyEnabled;
+    private String pingerClass;
+
+    private TestTopologyManager topologyManager;
+
+    @Before
+    public void setUp() throws Exception {
+        topologyEnabled = PAResourceManagerProperties.RM_TOPOLOGY_ENABLED.getValueAsString();
+        pingerClass = PAResourceManagerProperties.RM_TOPOLOGY_PINGER.getValueAsString();
+        PAResourceManagerProperties.RM_TOPOLOGY_ENABLED.updateProperty("true");
+        PAResourceManagerProperties.RM_TOPOLOGY_PINGER.updateProperty(HostsPinger.class.getName());
+        topologyManager = new TestTopologyManager();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        topologyManager.shutdown();
+        PAResourceManagerProperties.RM_TOPOLOGY_ENABLED.updateProperty(topologyEnabled);
+        PAResourceManagerProperties.RM_TOPOLOGY_PINGER.updateProperty(pingerClass);
+    }
+
+    @Test
+    public void nodesOfTheSameHostArePingedOnce() throws Exception {
+        addKnownHost(0);
+        Node node1 = createNode(1, 1);
+        Node node2 = createNode(2, 1);
+        CountDownLatch pingOfNode1 = topologyManager.block(node1);
+
+        CountDownLatch added = new CountDownLatch(2);
+        topologyManager.addNode(node1, countDown(added));
+        topologyManager.waitForPing(node1);
+        topologyManager.addNode(node2, countDown(added));
+        assertEquals(2, added.getCount());
+
+        pingOfNode1.countDown();
+        assertTrue(added.await(10, TimeUnit.SECONDS));
+
+        assertEquals(Collections.singletonList(node1), topologyManager.pingedFrom);
+        Topology topology = topologyManager.getTopology();
+        assertEquals(DISTANCE, topology.getDistance(host(1), host(0)).longValue());
+        assertEquals(0, topology.getDistance(node1, node2).longValue());
+    }
+
+    @Test
+    public void failedPingIsRetriedFromAnotherNodeOfTheHost() throws Exception {
+        addKnownHost(0);
+        Node node1 = createNode(1, 1);
+        Node node2 = createNode(2, 1);
+        CountDownLatch pingOfNode1 = topologyManager.block(node1);
+        topologyManager.failing.add(node1);
+
+        CountDownLatch added = new CountDownLatch(2);
+        topologyManager.addNode(node1, countDown(added));
+        topologyManager.waitForPing(node1);
+        topologyManager.addNode(node2, countDown(added));
+        pingOfNode1.countDown();
+        assertTrue(added.await(10, TimeUnit.SECONDS));
+
+        assertEquals(2, topologyManager.pingedFrom.size());
+        assertEquals(node2, topologyManager.pingedFrom.get(1));
+        assertEquals(DISTANCE, topologyManager.getTopology().getDistance(host(1), host(0)).longValue());
+    }
+
+    @Test
+    public void failedPingOfARemovedNodeIsRetriedFromAnotherNodeOfTheHost() throws Exception {
+        addKnownHost(0);
+        Node node1 = createNode(1, 1);
+        Node node2 = createNode(2, 1);
+        CountDownLatch pingOfNode1 = topologyManager.block(node1);
+        topologyManager.failing.add(node1);
+
+        CountDownLatch added = new CountDownLatch(2);
+        topologyManager.addNode(node1, countDown(added));
+        topologyManager.waitForPing(node1);
+        topologyManager.addNode(node2, countDown(added));
+        topologyManager.removeNode(node1);
+        pingOfNode1.countDown();
+        assertTrue(added.await(10, TimeUnit.SECONDS));
+
+        assertEquals(2, topologyManager.pingedFrom.size());
+        assertEquals(node2, topologyManager.pingedFrom.get(1));
+        assertEquals(DISTANCE, topologyManager.getTopology().getDistance(host(1), host(0)).longValue());
+    }
+
+    @Test
+    public void hostIsNotAddedWhenItsNodesAreRemovedWhilePinging() throws Exception {
+        addKnownHost(0);
+        Node node1 = createNode(1, 1);
+        CountDownLatch pingOfNode1 = topologyManager.block(node1);
+
+        CountDownLatch added = new CountDownLatch(1);
+        topologyManager.addNode(node1, countDown(added));
+        topologyManager.waitForPing(node1);
+        topologyManager.removeNode(node1);
+        pingOfNode1.countDown();
+        assertTrue(added.await(10, TimeUnit.SECONDS));
+
+        assertFalse(topologyManager.getTopology().knownHost(host(1)));
+
+        // the host is pinged again when a new node comes
+        Node node2 = createNode(2, 1);
+        added = new CountDownLatch(1);
+        topologyManager.addNode(node2, countDown(added));
+        assertTrue(added.await(10, TimeUnit.SECONDS));
+
+        assertEquals(node2, topologyManager.pingedFrom.get(1));
+        assertTrue(topologyManager.getTopology().knownHost(host(1)));
+    }
+
+    private void addKnownHost(int hostIndex) throws Exception {
+        CountDownLatch added = new CountDownLatch(1);
+        topologyManager.addNode(createNode(100 + hostIndex, hostIndex), countDown(added));
+        assertTrue(added.await(10, TimeUnit.SECONDS));
+        // the first host has no other host to ping
+        assertTrue(topologyManager.pingedFrom.isEmpty());
+    }
+
+    private static Runnable countDown(final CountDownLatch latch) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        };
+    }
+
+    private static Node createNode(int nodeIndex, int hostIndex) throws Exception {
+        Node node = mock(Node.class);
+        VMInformation vmInformation = mock(VMInformation.class);
+        when(vmInformation.getInetAddress()).thenReturn(host(hostIndex));
+        when(vmInformation.getHostName()).thenReturn("host" + hostIndex);
+        when(node.getVMInformation()).thenReturn(vmInformation);
+        NodeInformation nodeInformation = mock(NodeInformation.class);
+        when(nodeInformation.getURL()).thenReturn("pnp://host" + hostIndex + "/node" + nodeIndex);
+        when(node.getNodeInformation()).thenReturn(nodeInformation);
+        return node;
+    }
+
+    private static InetAddress host(int hostIndex) throws Exception {
+        return InetAddress.getByAddress("host" + hostIndex, new byte[] { 10, 0, 0, (byte) hostIndex });
+    }
+
+    /**
+     * Measures the same distance to every host, pings can be blocked or fail.
+     */
+    private static class TestTopologyManager extends TopologyManager {
+
+        private final List<Node> pingedFrom = Collections.synchronizedList(new ArrayList<Node>());
+        private final Set<Node> failing = Collections.synchronizedSet(new HashSet<Node>());
+        private final HashMap<Node, CountDownLatch> blocked = new HashMap<>();
+        private final HashMap<Node, CountDownLatch> started = new HashMap<>();
+
+        TestTopologyManager() throws ClassNotFoundException {
+        }
+
+        synchronized CountDownLatch block(Node node) {
+            CountDownLatch latch = new CountDownLatch(1);
+            blocked.put(node, latch);
+            started.put(node, new CountDownLatch(1));
+            return latch;
+        }
+
+        void waitForPing(Node node) throws InterruptedException {
+            CountDownLatch latch;
+            synchronized (this) {
+                latch = started.get(node);
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        }
+
+        @Override
+        protected HashMap<InetAddress, Long> pingNode(Node node, NodeSet nodes) {
+            pingedFrom.add(node);
+            CountDownLatch latch;
+            synchronized (this) {
+                latch = blocked.get(node);
+                if (started.containsKey(node)) {
+                    started.get(node).countDown();
+                }
+            }
+            try {
+                if (latch != null) {
+                    latch.await(10, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                return null;
+            }
+            if (failing.contains(node)) {
+                return null;
+            }
+            HashMap<InetAddress, Long> distances = new HashMap<>();
+            for (Node pinged : nodes) {
+                distances.put(pinged.getVMInformation().getInetAddress(), DISTANCE);
+            }
+            return distances;
+        }
+    }
+
+}
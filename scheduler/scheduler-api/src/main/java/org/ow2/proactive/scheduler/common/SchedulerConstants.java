@@ -94,6 +94,9 @@ public class SchedulerConstants {
     /** Attribute name in task the generic information indicating that the task requires a node protedcted by token */
     public static final String NODE_ACCESS_TOKEN = "NODE_ACCESS_TOKEN";
 
+    /** Job variable lowering the number of files transferred in parallel by a task from or to the dataspaces */
+    public static final String DATASPACE_TRANSFER_THREADS_VARIABLE = "PA_DATASPACE_TRANSFER_THREADS";
+
     /**
      * The Application ID used by the scheduler for local Dataspaces
      */
@@ -186,6 +186,12 @@ public enum PASchedulerProperties {
     /** If true script tasks are ran in a forked JVM, if false they are ran in the node's JVM */
     TASK_FORK("pa.scheduler.task.fork", PropertyType.BOOLEAN),
 
+    /** Maximum number of idle forked JVMs kept by a node to run the next forked tasks, 0 disables the pool */
+    TASK_FORK_POOL_SIZE("pa.scheduler.task.fork.pool.size", PropertyType.INTEGER),
+
+    /** Number of tasks after which a pooled forked JVM is replaced by a new one */
+    TASK_FORK_POOL_MAX_TASKS("pa.scheduler.task.fork.pool.maxtasks", PropertyType.INTEGER),
+
     /* ***************************************************************** */
     /* ********************** DATASPACES PROPERTIES ******************** */
     /* ***************************************************************** */
@@ -229,6 +235,12 @@ public enum PASchedulerProperties {
     /** */
     DATASPACE_DEFAULTUSER_HOSTNAME("pa.scheduler.dataspace.defaultuser.hostname", PropertyType.STRING),
 
+    /** Maximum number of files transferred in parallel by a task from or to the dataspaces */
+    DATASPACE_TRANSFER_THREADS("pa.scheduler.dataspace.transfer.threads", PropertyType.INTEGER),
+
+    /** Size in MB of the chunks copied in parallel for the files transferred through the file system */
+    DATASPACE_TRANSFER_CHUNK_SIZE("pa.scheduler.dataspace.transfer.chunksize", PropertyType.INTEGER),
+
     /* ***************************************************************** */
     /* ************************* LOGS PROPERTIES *********************** */
     /* ***************************************************************** */
@@ -293,6 +305,42 @@ public enum PASchedulerProperties {
      */
     SCHEDULER_DB_LOAD_JOB_PERIOD("pa.scheduler.db.load.job.period", PropertyType.STRING),
 
+    /**
+     * Maximum number of task scripts kept in memory to build the executable containers of the tasks to start
+     * without reading them from the database. Scripts are cached when tasks are submitted.
+     * Set to 0 to disable the cache.
+     */
+    SCHEDULER_DB_EXECUTABLE_CONTAINER_CACHE_SIZE("pa.scheduler.db.executablecontainer.cache.size",
+            PropertyType.INTEGER),
+
+    /**
+     * If set to true, the state changes of finished tasks are queued and written to the database
+     * in grouped transactions. Queued changes are lost if the scheduler stops abruptly, the
+     * corresponding tasks are then restarted when the scheduler recovers.
+     */
+    SCHEDULER_DB_WRITE_BEHIND_ENABLED("pa.scheduler.db.writebehind.enabled", PropertyType.BOOLEAN),
+
+    /** Number of queued state changes which triggers a write to the database */
+    SCHEDULER_DB_WRITE_BEHIND_BATCH_SIZE("pa.scheduler.db.writebehind.batchsize", PropertyType.INTEGER),
+
+    /** Maximum time in milliseconds a state change is kept in the queue */
+    SCHEDULER_DB_WRITE_BEHIND_DELAY("pa.scheduler.db.writebehind.delay", PropertyType.INTEGER),
+
+    /**
+     * Directory (relative to scheduler home) in which the large task results are stored instead of
+     * the database. If not set, task results are kept in the database.
+     */
+    SCHEDULER_DB_RESULT_STORE_PATH("pa.scheduler.db.resultstore.path", PropertyType.STRING),
+
+    /** Size in bytes above which a task result value, exception or log is written to the result store */
+    SCHEDULER_DB_RESULT_STORE_THRESHOLD("pa.scheduler.db.resultstore.threshold", PropertyType.INTEGER),
+
+    /**
+     * Number of threads used to load and recover the jobs at scheduler startup.
+     * If not set, the number of available processors is used.
+     */
+    SCHEDULER_DB_RECOVERY_THREADS("pa.scheduler.db.recovery.threads", PropertyType.INTEGER),
+
     EMAIL_NOTIFICATIONS_ENABLED("pa.scheduler.notifications.email.enabled", PropertyType.BOOLEAN),
 
     EMAIL_NOTIFICATIONS_SENDER_ADDRESS("pa.scheduler.notifications.email.from", PropertyType.STRING);
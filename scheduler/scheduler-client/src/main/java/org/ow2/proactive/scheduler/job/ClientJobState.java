@@ -29,6 +29,13 @@ import org.ow2.proactive.scheduler.task.TaskInfoImpl;
  * 
  * @author esalagea
  */
+/**
+ * Light representation of a job held by the clients and the scheduler front-end.
+ * <p>
+ * The job and task infos of this state are replaced, never modified, by its updates. A copy
+ * made with {@link #ClientJobState(JobState)} is thus not modified by the next updates of the
+ * copied state.
+ */
 public final class ClientJobState extends JobState {
 
     private JobInfoImpl jobInfo;
@@ -90,9 +97,11 @@ public final class ClientJobState extends JobState {
                 "This task info is not applicable to this job. (expected job id is '" + getId() +
                     "' but got '" + taskInfo.getJobId() + "'");
         }
-        jobInfo.setNumberOfFinishedTasks(taskInfo.getJobInfo().getNumberOfFinishedTasks());
-        jobInfo.setNumberOfPendingTasks(taskInfo.getJobInfo().getNumberOfPendingTasks());
-        jobInfo.setNumberOfRunningTasks(taskInfo.getJobInfo().getNumberOfRunningTasks());
+        JobInfoImpl updatedJobInfo = new JobInfoImpl(jobInfo);
+        updatedJobInfo.setNumberOfFinishedTasks(taskInfo.getJobInfo().getNumberOfFinishedTasks());
+        updatedJobInfo.setNumberOfPendingTasks(taskInfo.getJobInfo().getNumberOfPendingTasks());
+        updatedJobInfo.setNumberOfRunningTasks(taskInfo.getJobInfo().getNumberOfRunningTasks());
+        jobInfo = updatedJobInfo;
         try {
             tasks.get(taskInfo.getTaskId()).update(taskInfo);
         } catch (NullPointerException e) {
@@ -114,8 +123,9 @@ public final class ClientJobState extends JobState {
         if (this.jobInfo.getTasksSkipped() != null) {
             for (TaskId id : tasks.keySet()) {
                 if (this.jobInfo.getTasksSkipped().contains(id)) {
-                    TaskInfoImpl taskInfo = (TaskInfoImpl) tasks.get(id).getTaskInfo();
+                    TaskInfoImpl taskInfo = new TaskInfoImpl((TaskInfoImpl) tasks.get(id).getTaskInfo());
                     taskInfo.setStatus(TaskStatus.SKIPPED);
+                    tasks.get(id).update(taskInfo);
                 }
             }
         }
@@ -10,6 +10,7 @@ import org.ow2.proactive.scheduler.common.job.JobType;
 import org.ow2.proactive.scheduler.common.task.TaskId;
 import org.ow2.proactive.scheduler.common.task.TaskInfo;
 import org.ow2.proactive.scheduler.common.task.TaskState;
+import org.ow2.proactive.scheduler.common.task.TaskStatus;
 import org.ow2.proactive.scheduler.task.TaskIdImpl;
 import org.ow2.proactive.scheduler.task.TaskInfoImpl;
 import org.apache.log4j.BasicConfigurator;
@@ -44,6 +45,24 @@ public class ClientJobStateTest {
         assertEquals(3, jobState.getJobInfo().getNumberOfFinishedTasks());
     }
 
+    @Test
+    public void copy_ShouldNotBeModified_ByTheUpdatesOfTheCopiedState() throws Exception {
+        JobInfoImpl jobInfo = createJobInfo();
+        ClientJobState jobState = new ClientJobState(createJobState(jobInfo));
+        ClientJobState copy = new ClientJobState(jobState);
+
+        JobInfoImpl updatedJobInfo = createJobInfo();
+        updatedJobInfo.setNumberOfRunningTasks(1);
+        TaskInfoImpl updatedTask = createTaskInfo(updatedJobInfo);
+        updatedTask.setStatus(TaskStatus.RUNNING);
+        jobState.update(updatedTask);
+
+        assertEquals(1, jobState.getJobInfo().getNumberOfRunningTasks());
+        assertEquals(0, copy.getJobInfo().getNumberOfRunningTasks());
+        assertEquals(TaskStatus.RUNNING, jobState.getTasks().get(0).getStatus());
+        assertFalse(copy.getTasks().get(0).getStatus() == TaskStatus.RUNNING);
+    }
+
     private JobInfoImpl createJobInfo() {
         JobInfoImpl jobInfo = new JobInfoImpl();
         JobIdImpl jobId = new JobIdImpl(1000, "job");
@@ -35,6 +35,7 @@
 package org.ow2.proactive.scheduler.task;
 
 import java.io.File;
+import java.util.Map;
 
 import org.objectweb.proactive.extensions.dataspaces.core.naming.NamingService;
 import org.ow2.proactive.scheduler.common.task.TaskId;
@@ -48,8 +49,9 @@ import org.ow2.proactive.scheduler.task.utils.Decrypter;
 public class ProActiveNonForkedTaskLauncherFactory implements TaskLauncherFactory {
 
     @Override
-    public TaskDataspaces createTaskDataspaces(TaskId taskId, NamingService namingService) throws Exception {
-        return new TaskProActiveDataspaces(taskId, namingService);
+    public TaskDataspaces createTaskDataspaces(TaskId taskId, NamingService namingService,
+            Map<String, String> jobVariables) throws Exception {
+        return new TaskProActiveDataspaces(taskId, namingService, jobVariables);
     }
 
     @Override
@@ -137,7 +137,8 @@ public class TaskLauncher implements InitActive {
 
         try {
             addShutdownHook();
-            dataspaces = factory.createTaskDataspaces(taskId, initializer.getNamingService());
+            dataspaces = factory.createTaskDataspaces(taskId, initializer.getNamingService(),
+                    initializer.getVariables());
 
             File taskLogFile = taskLogger.createFileAppender(dataspaces.getScratchFolder());
 
@@ -36,6 +36,7 @@ package org.ow2.proactive.scheduler.task;
 
 import java.io.File;
 import java.io.Serializable;
+import java.util.Map;
 
 import org.objectweb.proactive.extensions.dataspaces.core.naming.NamingService;
 import org.ow2.proactive.scheduler.common.task.TaskId;
@@ -46,7 +47,8 @@ import org.ow2.proactive.scheduler.task.utils.Decrypter;
 
 public interface TaskLauncherFactory extends Serializable {
 
-    TaskDataspaces createTaskDataspaces(TaskId taskId, NamingService namingService) throws Exception;
+    TaskDataspaces createTaskDataspaces(TaskId taskId, NamingService namingService,
+            Map<String, String> jobVariables) throws Exception;
 
     TaskExecutor createTaskExecutor(File workingDir, Decrypter decrypter);
 
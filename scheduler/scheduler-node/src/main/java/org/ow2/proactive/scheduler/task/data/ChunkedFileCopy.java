@@ -0,0 +1,158 @@
+/*
+ *  *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2014 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s):
+ *
+ *  * $$ACTIVEEON_INITIAL_DEV$$
+ */
+package org.ow2.proactive.scheduler.task.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.log4j.Logger;
+
+
+/**
+ * Copy of a file through the file system, in chunks copied in parallel at their position in the
+ * destination. If a chunk fails, the remaining chunks are skipped and the destination is deleted
+ * once the last chunk is done, so that no truncated file is left behind. Otherwise the last chunk
+ * runs the action given to check the copy.
+ */
+final class ChunkedFileCopy {
+
+    private static final Logger logger = Logger.getLogger(ChunkedFileCopy.class);
+
+    private final File source;
+    private final File destination;
+
+    private final Runnable whenCopied;
+
+    private final AtomicInteger remainingChunks;
+    private volatile boolean failed = false;
+
+    private ChunkedFileCopy(File source, File destination, int chunks, Runnable whenCopied) {
+        this.source = source;
+        this.destination = destination;
+        this.remainingChunks = new AtomicInteger(chunks);
+        this.whenCopied = whenCopied;
+    }
+
+    /**
+     * Allocates the destination and submits the copy of each chunk.
+     *
+     * @see #submit(File, File, long, ExecutorService, List, Runnable)
+     */
+    static void submit(File source, File destination, long chunkSize, ExecutorService executor,
+            List<Future> transferFutures) throws IOException {
+        submit(source, destination, chunkSize, executor, transferFutures, null);
+    }
+
+    /**
+     * Allocates the destination and submits the copy of each chunk.
+     *
+     * @param source the file to copy
+     * @param destination the copy, its folder is created if needed
+     * @param chunkSize the size in bytes of the chunks
+     * @param executor the executor copying the chunks
+     * @param transferFutures receives a future for each chunk, failing if the chunk failed
+     * @param whenCopied run by the last chunk when all the chunks are copied, can be null
+     * @throws IOException if the destination cannot be allocated, nothing is submitted then
+     */
+    static void submit(File source, File destination, long chunkSize, ExecutorService executor,
+            List<Future> transferFutures, Runnable whenCopied) throws IOException {
+        long size = source.length();
+        FileUtils.forceMkdir(destination.getParentFile());
+        try (RandomAccessFile file = new RandomAccessFile(destination, "rw")) {
+            file.setLength(size);
+        }
+
+        // an empty file is a single empty chunk
+        int chunks = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+        final ChunkedFileCopy copy = new ChunkedFileCopy(source, destination, chunks, whenCopied);
+        for (int i = 0; i < chunks; i++) {
+            final long position = i * chunkSize;
+            final long length = Math.min(chunkSize, size - position);
+            transferFutures.add(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws IOException {
+                    copy.copyChunk(position, length);
+                    return true;
+                }
+            }));
+        }
+    }
+
+    private void copyChunk(long position, long length) throws IOException {
+        try {
+            if (!failed) {
+                transfer(position, length);
+            }
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            throw e;
+        } finally {
+            if (remainingChunks.decrementAndGet() == 0) {
+                if (failed) {
+                    logger.debug("Deleting " + destination + ", it could not be fully copied");
+                    FileUtils.deleteQuietly(destination);
+                } else if (whenCopied != null) {
+                    whenCopied.run();
+                }
+            }
+        }
+    }
+
+    private void transfer(long position, long length) throws IOException {
+        try (FileChannel input = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+             FileChannel output = FileChannel.open(destination.toPath(), StandardOpenOption.WRITE)) {
+            long copied = 0;
+            while (copied < length) {
+                long transferred = input.transferTo(position + copied, length - copied,
+                        output.position(position + copied));
+                if (transferred <= 0) {
+                    throw new IOException("Unexpected end of " + source + " while copying it to " +
+                        destination);
+                }
+                copied += transferred;
+            }
+        }
+    }
+
+}
@@ -50,14 +50,18 @@ import org.ow2.proactive.scheduler.common.SchedulerConstants;
 import org.ow2.proactive.scheduler.common.task.TaskId;
 import org.ow2.proactive.scheduler.common.task.dataspaces.InputSelector;
 import org.ow2.proactive.scheduler.common.task.dataspaces.OutputSelector;
+import org.ow2.proactive.scheduler.core.properties.PASchedulerProperties;
 import org.ow2.proactive.utils.Formatter;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.*;
 
@@ -66,6 +70,9 @@ public class TaskProActiveDataspaces implements TaskDataspaces {
 
     private static final Logger logger = Logger.getLogger(TaskProActiveDataspaces.class);
 
+    private static final int DEFAULT_TRANSFER_THREADS = 5;
+    private static final int DEFAULT_TRANSFER_CHUNK_SIZE_MB = 64;
+
     private DataSpacesFileObject SCRATCH;
     private DataSpacesFileObject INPUT;
     private DataSpacesFileObject OUTPUT;
@@ -75,12 +82,78 @@ public class TaskProActiveDataspaces implements TaskDataspaces {
     private TaskId taskId;
     private NamingService namingService;
 
+    // size in bytes of the chunks of the files copied through the file system
+    private long transferChunkSize;
+
     public TaskProActiveDataspaces(TaskId taskId, NamingService namingService) throws Exception {
+        this(taskId, namingService, Collections.<String, String> emptyMap());
+    }
+
+    /**
+     * @param taskId the task id
+     * @param namingService the dataspaces naming service
+     * @param jobVariables the job variables, which can define the number of parallel transfers
+     * @throws Exception if the dataspaces cannot be configured
+     */
+    public TaskProActiveDataspaces(TaskId taskId, NamingService namingService,
+            Map<String, String> jobVariables) throws Exception {
         this.taskId = taskId;
         this.namingService = namingService;
+        this.executorTransfer = Executors.newFixedThreadPool(getTransferThreads(jobVariables),
+                new NamedThreadFactory("FileTransferThreadPool"));
+        int chunkSizeMB = DEFAULT_TRANSFER_CHUNK_SIZE_MB;
+        if (PASchedulerProperties.DATASPACE_TRANSFER_CHUNK_SIZE.isSet()) {
+            chunkSizeMB = Math.max(1, PASchedulerProperties.DATASPACE_TRANSFER_CHUNK_SIZE.getValueAsInt());
+        }
+        this.transferChunkSize = chunkSizeMB * 1024L * 1024L;
         initDataSpaces();
     }
 
+    /**
+     * Used by tests, the dataspaces are not configured.
+     */
+    TaskProActiveDataspaces(ExecutorService executorTransfer, long transferChunkSize) {
+        this.executorTransfer = executorTransfer;
+        this.transferChunkSize = transferChunkSize;
+    }
+
+    /**
+     * Returns the number of parallel transfers of a task. The node setting is the maximum,
+     * a job can only lower it with the {@link SchedulerConstants#DATASPACE_TRANSFER_THREADS_VARIABLE}
+     * variable.
+     *
+     * @param jobVariables the job variables
+     * @return the number of transfer threads
+     */
+    static int getTransferThreads(Map<String, String> jobVariables) {
+        int nodeTransferThreads = DEFAULT_TRANSFER_THREADS;
+        if (PASchedulerProperties.DATASPACE_TRANSFER_THREADS.isSet()) {
+            nodeTransferThreads = Math.max(1,
+                    PASchedulerProperties.DATASPACE_TRANSFER_THREADS.getValueAsInt());
+        }
+        String jobValue = jobVariables == null ? null :
+            jobVariables.get(SchedulerConstants.DATASPACE_TRANSFER_THREADS_VARIABLE);
+        if (jobValue != null) {
+            try {
+                int transferThreads = Integer.parseInt(jobValue.trim());
+                if (transferThreads > nodeTransferThreads) {
+                    logger.warn("The " + SchedulerConstants.DATASPACE_TRANSFER_THREADS_VARIABLE +
+                        " job variable " + transferThreads + " is limited to " + nodeTransferThreads +
+                        " by the node setting " + PASchedulerProperties.DATASPACE_TRANSFER_THREADS.getKey());
+                    return nodeTransferThreads;
+                }
+                if (transferThreads > 0) {
+                    return transferThreads;
+                }
+            } catch (NumberFormatException ignored) {
+                // the node configuration is used
+            }
+            logger.warn("Ignoring invalid value of the " +
+                SchedulerConstants.DATASPACE_TRANSFER_THREADS_VARIABLE + " job variable: " + jobValue);
+        }
+        return nodeTransferThreads;
+    }
+
     private DataSpacesFileObject createTaskIdFolder(DataSpacesFileObject space, String spaceName) {
         if (space != null) {
             String realURI = space.getRealURI();
@@ -383,7 +456,8 @@ public class TaskProActiveDataspaces implements TaskDataspaces {
                     throw new IllegalStateException();
                 }
                 logger.debug("* " + relativePath);
-                if (!relPathes.contains(relativePath)) {
+                if (!relPathes.contains(relativePath) &&
+                        !submitFileSystemCopy(dsfo, SCRATCH, relativePath, transferFutures, false)) {
                     logger.debug("------------ resolving " + relativePath);
                     final String finalRelativePath = relativePath;
                     final DataSpacesFileObject finaldsfo = dsfo;
@@ -474,8 +548,7 @@ public class TaskProActiveDataspaces implements TaskDataspaces {
         return null;
     }
 
-    protected ExecutorService executorTransfer = Executors.newFixedThreadPool(5,
-            new NamedThreadFactory("FileTransferThreadPool"));
+    protected ExecutorService executorTransfer;
 
     private boolean checkOuputSpaceConfigured(DataSpacesFileObject space, String spaceName, OutputSelector os) {
         if (space == null) {
@@ -556,6 +629,8 @@ public class TaskProActiveDataspaces implements TaskDataspaces {
 
     @Override
     public void cleanScratchSpace() {
+        // the task does not transfer files any more
+        executorTransfer.shutdown();
         FileUtils.deleteQuietly(getScratchFolder());
     }
 
@@ -611,6 +686,9 @@ public class TaskProActiveDataspaces implements TaskDataspaces {
             for (DataSpacesFileObject dsfo : results) {
                 String relativePath = dsfo.getVirtualURI().replaceFirst(buri + "/?", "");
                 logger.debug("* " + relativePath);
+                if (submitFileSystemCopy(dsfo, out, relativePath, transferFutures, true)) {
+                    continue;
+                }
 
                 final String finalRelativePath = relativePath;
                 final DataSpacesFileObject finaldsfo = dsfo;
@@ -624,11 +702,8 @@ public class TaskProActiveDataspaces implements TaskDataspaces {
                         finalout.resolveFile(finalRelativePath).copyFrom(finaldsfo,
                                 FileSelector.SELECT_SELF);
                         if (!finalout.resolveFile(finalRelativePath).exists()) {
-                            logger.error("There was a problem during the copy of " + finaldsfo.getRealURI() + " to " + finalout.getRealURI() +
-                                    "/" + finalRelativePath + ". File not present after copy.");
-                            logDataspacesStatus("There was a problem during the copy of " + finaldsfo.getRealURI() + " to " + finalout.getRealURI() +
-                                            "/" + finalRelativePath + ". File not present after copy.",
-                                    DataspacesStatusLevel.ERROR);
+                            reportMissingCopy(finaldsfo.getRealURI(), finalout.getRealURI() + "/" +
+                                finalRelativePath);
                         }
                         return true;
                     }
@@ -651,4 +726,64 @@ public class TaskProActiveDataspaces implements TaskDataspaces {
                     exceptionMsg.toString());
         }
     }
+
+    private void reportMissingCopy(String source, String destination) {
+        String message = "There was a problem during the copy of " + source + " to " + destination +
+            ". File not present after copy.";
+        logger.error(message);
+        logDataspacesStatus(message, DataspacesStatusLevel.ERROR);
+    }
+
+    /**
+     * Submits the copy of a file directly through the file system, when both the file and the
+     * destination space are accessible through it. Files larger than the chunk size are copied
+     * in parallel chunks, see {@link ChunkedFileCopy}.
+     *
+     * @param checkCopied true to report a copy which is not present once copied
+     * @return false if the file has to be copied through VFS
+     */
+    boolean submitFileSystemCopy(DataSpacesFileObject source, DataSpacesFileObject destinationSpace,
+            String relativePath, List<Future> transferFutures, boolean checkCopied) {
+        final File sourceFile = toLocalFile(source);
+        File destinationFolder = toLocalFile(destinationSpace);
+        if (sourceFile == null || destinationFolder == null || !sourceFile.isFile()) {
+            return false;
+        }
+        final File destinationFile = new File(destinationFolder, relativePath);
+        Runnable whenCopied = null;
+        if (checkCopied) {
+            whenCopied = new Runnable() {
+                @Override
+                public void run() {
+                    if (!destinationFile.isFile()) {
+                        reportMissingCopy(sourceFile.toString(), destinationFile.toString());
+                    }
+                }
+            };
+        }
+        try {
+            ChunkedFileCopy.submit(sourceFile, destinationFile, transferChunkSize, executorTransfer,
+                    transferFutures, whenCopied);
+        } catch (IOException e) {
+            logger.debug("Could not create " + destinationFile + ", copying it through VFS", e);
+            return false;
+        }
+        logger.info("Copying " + sourceFile + " to " + destinationFile);
+        return true;
+    }
+
+    /**
+     * @return the file if it is accessible through the file system, null otherwise
+     */
+    private static File toLocalFile(DataSpacesFileObject file) {
+        try {
+            URI uri = new URI(file.getRealURI());
+            if ("file".equals(uri.getScheme())) {
+                return new File(uri);
+            }
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            // not a valid file URI, VFS is used
+        }
+        return null;
+    }
 }
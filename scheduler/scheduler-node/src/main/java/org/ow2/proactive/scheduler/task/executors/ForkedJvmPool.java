@@ -0,0 +1,640 @@
+/*
+ *  *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2014 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s):
+ *
+ *  * $$ACTIVEEON_INITIAL_DEV$$
+ */
+package org.ow2.proactive.scheduler.task.executors;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.objectweb.proactive.utils.NamedThreadFactory;
+import org.ow2.proactive.scheduler.common.task.TaskId;
+import org.ow2.proactive.scheduler.core.properties.PASchedulerProperties;
+import org.ow2.proactive.scheduler.task.TaskContext;
+import org.ow2.proactive.scheduler.task.utils.ProcessStreamsReader;
+import org.ow2.proactive.utils.CookieBasedProcessTreeKiller;
+import com.google.common.hash.Hashing;
+import org.apache.log4j.Logger;
+
+
+/**
+ * Pool of forked JVMs kept alive between forked tasks, to avoid paying the JVM startup and the
+ * class loading for each task. The pool is disabled unless
+ * {@link PASchedulerProperties#TASK_FORK_POOL_SIZE} is greater than 0.
+ * <p>
+ * Pooled JVMs are keyed by the job owner, by their fork environment (java command line including
+ * the JVM arguments and the classpath, and the system environment) and by their working directory, a task
+ * only runs in a JVM started for the same user with the same environment and in the same directory as a
+ * non pooled one. The working directory of a process cannot change once started, and the
+ * <code>user.dir</code> property is not used to resolve relative files by recent JVMs, so a JVM is only
+ * reused by the tasks running in the directory it was started in. Task contexts are sent through a
+ * loopback socket, which also carries back the task output and result. A JVM is replaced after
+ * {@link PASchedulerProperties#TASK_FORK_POOL_MAX_TASKS} tasks, and destroyed as soon as it failed.
+ * <p>
+ * The processes started by a task are killed after the task using a cookie set in the environment of
+ * the pooled JVM for this task only, the ones remaining when a JVM is destroyed using the cookie set
+ * when it was started.
+ * <p>
+ * Tasks run in a pooled JVM are not isolated from the previous tasks run in it: the threads a task leaves
+ * running keep running during the next tasks, and the static state it changes (static fields of the
+ * classes loaded from the classpath, system properties, default locale or time zone...) is seen by the
+ * next tasks. Only the processes started by a task are killed after it. Tasks which need a fresh JVM
+ * must not be run on a node where the pool is enabled.
+ * <p>
+ * Idle JVMs are destroyed when the node JVM exits.
+ *
+ * @see ForkedTaskExecutor
+ */
+public final class ForkedJvmPool {
+
+    private static final Logger logger = Logger.getLogger(ForkedJvmPool.class);
+
+    private static final int DEFAULT_MAX_TASKS = 100;
+
+    /** Time given to a new JVM to connect to the pool, in milliseconds */
+    private static final int CONNECTION_TIMEOUT = 60000;
+    /** Blocking time of the socket operations, after which the interruption of the caller is checked */
+    private static final int POLLING_PERIOD = 1000;
+
+    private static final String TOKEN_VARIABLE = "PA_FORKED_JVM_POOL_TOKEN";
+
+    // frames exchanged with the pooled JVMs
+    private static final byte TASK_FRAME = 0;
+    private static final byte OUTPUT_FRAME = 1;
+    private static final byte ERROR_FRAME = 2;
+    private static final byte RESULT_FRAME = 3;
+
+    private static ForkedJvmPool instance;
+
+    private static final AtomicInteger jvmCounter = new AtomicInteger();
+
+    private final int size;
+    private final int maxTasks;
+
+    // idle JVMs, the least recently used first
+    private final LinkedList<PooledJvm> idleJvms = new LinkedList<>();
+
+    // starts the JVMs replacing the ones which ran too many tasks, its thread does not outlive the work
+    private final ThreadPoolExecutor starter = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(), new NamedThreadFactory("Forked JVM pool starter"));
+
+    private volatile boolean shutdown = false;
+
+    ForkedJvmPool(int size, int maxTasks) {
+        this.size = size;
+        this.maxTasks = maxTasks;
+        starter.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @return the pool of the node, or null if it is disabled
+     */
+    static synchronized ForkedJvmPool getInstance() {
+        if (instance == null) {
+            int size = 0;
+            if (PASchedulerProperties.TASK_FORK_POOL_SIZE.isSet()) {
+                size = PASchedulerProperties.TASK_FORK_POOL_SIZE.getValueAsInt();
+            }
+            if (size <= 0) {
+                return null;
+            }
+            int maxTasks = DEFAULT_MAX_TASKS;
+            if (PASchedulerProperties.TASK_FORK_POOL_MAX_TASKS.isSet()) {
+                maxTasks = PASchedulerProperties.TASK_FORK_POOL_MAX_TASKS.getValueAsInt();
+            }
+            instance = new ForkedJvmPool(size, Math.max(maxTasks, 1));
+
+            final ForkedJvmPool pool = instance;
+            Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    pool.shutdown();
+                }
+            }, "Forked JVM pool shutdown"));
+        }
+        return instance;
+    }
+
+    /**
+     * Takes an idle JVM started for the given user with the given command, environment and working
+     * directory, or starts a new one.
+     *
+     * @param owner the owner of the job, JVMs are never shared between users
+     * @param command the java command, without the main class
+     * @param environment the system environment of the JVM
+     * @param workingDir the working directory of the task
+     * @return a JVM which must be given back with {@link #release(PooledJvm, boolean)}
+     * @throws IOException if the JVM cannot be started
+     */
+    PooledJvm acquire(String owner, List<String> command, Map<String, String> environment, File workingDir)
+            throws IOException {
+        String key = Hashing.sha256().hashString(
+                owner + "\n" + command + "\n" + new TreeMap<>(environment) + "\n" +
+                    workingDir.getAbsolutePath(), StandardCharsets.UTF_8).toString();
+        synchronized (idleJvms) {
+            Iterator<PooledJvm> iterator = idleJvms.descendingIterator();
+            while (iterator.hasNext()) {
+                PooledJvm jvm = iterator.next();
+                if (jvm.key.equals(key)) {
+                    iterator.remove();
+                    return jvm;
+                }
+            }
+        }
+        return PooledJvm.start(key, command, environment, workingDir);
+    }
+
+    /**
+     * Gives back a JVM after a task.
+     *
+     * @param jvm the JVM
+     * @param reusable false if the JVM failed and must be destroyed
+     */
+    void release(final PooledJvm jvm, boolean reusable) {
+        if (!reusable || !jvm.isAlive()) {
+            jvm.destroy();
+        } else if (jvm.executedTasks >= maxTasks) {
+            jvm.destroy();
+            if (!jvm.workingDir.isDirectory()) {
+                // no more task will run in this directory
+                return;
+            }
+            try {
+                starter.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            addIdle(PooledJvm.start(jvm.key, jvm.command, jvm.environment, jvm.workingDir));
+                        } catch (Exception e) {
+                            logger.warn("Could not start a new forked JVM", e);
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException poolShutdown) {
+                logger.debug("Forked JVM not replaced, the pool is shut down");
+            }
+        } else {
+            addIdle(jvm);
+        }
+    }
+
+    private void addIdle(PooledJvm jvm) {
+        PooledJvm evicted = null;
+        synchronized (idleJvms) {
+            if (shutdown) {
+                evicted = jvm;
+            } else {
+                idleJvms.addLast(jvm);
+                if (idleJvms.size() > size) {
+                    evicted = idleJvms.removeFirst();
+                }
+            }
+        }
+        if (evicted != null) {
+            evicted.destroy();
+        }
+    }
+
+    /**
+     * Stops starting JVMs and destroys the idle ones, the JVMs running a task are destroyed when
+     * they are released.
+     */
+    void shutdown() {
+        List<PooledJvm> destroyed;
+        synchronized (idleJvms) {
+            shutdown = true;
+            destroyed = new ArrayList<>(idleJvms);
+            idleJvms.clear();
+        }
+        starter.shutdownNow();
+        for (PooledJvm jvm : destroyed) {
+            jvm.destroy();
+        }
+    }
+
+    /**
+     * A JVM of the pool, seen from the node.
+     */
+    static final class PooledJvm {
+
+        private final String key;
+        private final List<String> command;
+        private final Map<String, String> environment;
+        private final File workingDir;
+
+        private final Process process;
+        private final CookieBasedProcessTreeKiller processTreeKiller;
+        private final ProcessStreamsReader processStreamsReader;
+        // the process streams are only written by the processes started by the tasks
+        private final RedirectableOutputStream processOutput;
+        private final RedirectableOutputStream processError;
+
+        private final Socket socket;
+        private final DataInputStream input;
+        private final DataOutputStream output;
+
+        private int executedTasks = 0;
+
+        private PooledJvm(String key, List<String> command, Map<String, String> environment,
+                File workingDir, Process process, CookieBasedProcessTreeKiller processTreeKiller,
+                RedirectableOutputStream processOutput, RedirectableOutputStream processError,
+                ProcessStreamsReader processStreamsReader, Socket socket) throws IOException {
+            this.key = key;
+            this.command = command;
+            this.environment = environment;
+            this.workingDir = workingDir;
+            this.process = process;
+            this.processTreeKiller = processTreeKiller;
+            this.processOutput = processOutput;
+            this.processError = processError;
+            this.processStreamsReader = processStreamsReader;
+            this.socket = socket;
+            this.input = new DataInputStream(new BufferedInputStream(new InterruptibleInputStream(socket
+                    .getInputStream())));
+            this.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        private static PooledJvm start(String key, List<String> command, Map<String, String> environment,
+                File workingDir) throws IOException {
+            try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+                serverSocket.setSoTimeout(POLLING_PERIOD);
+                String token = UUID.randomUUID().toString();
+
+                ProcessBuilder processBuilder = new ProcessBuilder(new ArrayList<>(command));
+                processBuilder.command().add(ForkedJvmPool.class.getName());
+                processBuilder.command().add(Integer.toString(serverSocket.getLocalPort()));
+                processBuilder.environment().clear();
+                processBuilder.environment().putAll(environment);
+                processBuilder.environment().put(TOKEN_VARIABLE, token);
+                processBuilder.directory(workingDir);
+
+                CookieBasedProcessTreeKiller processTreeKiller = CookieBasedProcessTreeKiller
+                        .createProcessChildrenKiller("ForkedJvm" + jvmCounter.incrementAndGet(),
+                                processBuilder.environment());
+
+                RedirectableOutputStream processOutput = new RedirectableOutputStream(System.out);
+                RedirectableOutputStream processError = new RedirectableOutputStream(System.err);
+                Process process = processBuilder.start();
+                ProcessStreamsReader processStreamsReader = new ProcessStreamsReader(process,
+                    new PrintStream(processOutput, true), new PrintStream(processError, true));
+
+                Socket socket = null;
+                try {
+                    socket = accept(serverSocket, process);
+                    socket.setSoTimeout(CONNECTION_TIMEOUT);
+                    if (!token.equals(new DataInputStream(socket.getInputStream()).readUTF())) {
+                        throw new IOException("Unexpected connection to the forked JVM pool");
+                    }
+                    socket.setSoTimeout(POLLING_PERIOD);
+                    return new PooledJvm(key, command, environment, workingDir, process,
+                        processTreeKiller, processOutput, processError, processStreamsReader, socket);
+                } catch (IOException e) {
+                    if (socket != null) {
+                        socket.close();
+                    }
+                    process.destroy();
+                    processTreeKiller.kill();
+                    processStreamsReader.close();
+                    throw e;
+                }
+            }
+        }
+
+        private static Socket accept(ServerSocket serverSocket, Process process) throws IOException {
+            long deadline = System.currentTimeMillis() + CONNECTION_TIMEOUT;
+            while (true) {
+                try {
+                    return serverSocket.accept();
+                } catch (SocketTimeoutException e) {
+                    try {
+                        throw new IOException("Forked JVM exited with code " + process.exitValue());
+                    } catch (IllegalThreadStateException stillRunning) {
+                        if (System.currentTimeMillis() > deadline) {
+                            throw new IOException("Forked JVM did not connect to the pool in " +
+                                CONNECTION_TIMEOUT + " ms");
+                        }
+                        checkInterrupted();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Runs a task in this JVM, in the working directory the JVM was acquired for.
+         *
+         * @param context the task context
+         * @param outputSink the task standard output
+         * @param errorSink the task error output
+         * @return the result of the task, or the error which prevented to run it
+         * @throws IOException if the JVM failed or if the calling thread was interrupted
+         * @throws ClassNotFoundException if the result cannot be deserialized
+         */
+        Object execute(TaskContext context, PrintStream outputSink, PrintStream errorSink)
+                throws IOException, ClassNotFoundException {
+            executedTasks++;
+            processOutput.redirect(outputSink);
+            processError.redirect(errorSink);
+            try {
+                writeFrame(output, TASK_FRAME, serialize(context));
+                while (true) {
+                    byte type = input.readByte();
+                    byte[] data = new byte[input.readInt()];
+                    input.readFully(data);
+                    switch (type) {
+                        case OUTPUT_FRAME:
+                            outputSink.write(data, 0, data.length);
+                            outputSink.flush();
+                            break;
+                        case ERROR_FRAME:
+                            errorSink.write(data, 0, data.length);
+                            errorSink.flush();
+                            break;
+                        case RESULT_FRAME:
+                            return deserialize(data);
+                        default:
+                            throw new IOException("Unexpected frame " + type + " from the forked JVM");
+                    }
+                }
+            } finally {
+                processOutput.redirect(System.out);
+                processError.redirect(System.err);
+            }
+        }
+
+        boolean isAlive() {
+            try {
+                process.exitValue();
+                return false;
+            } catch (IllegalThreadStateException stillRunning) {
+                return true;
+            }
+        }
+
+        private void destroy() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // the JVM is destroyed anyway
+            }
+            process.destroy();
+            processTreeKiller.kill();
+            processStreamsReader.close();
+        }
+    }
+
+    private static void checkInterrupted() throws InterruptedIOException {
+        if (Thread.interrupted()) {
+            throw new InterruptedIOException("Interrupted while waiting for the forked JVM");
+        }
+    }
+
+    private static void writeFrame(DataOutputStream output, byte type, byte[] data, int offset, int length)
+            throws IOException {
+        synchronized (output) {
+            output.writeByte(type);
+            output.writeInt(length);
+            output.write(data, offset, length);
+            output.flush();
+        }
+    }
+
+    private static void writeFrame(DataOutputStream output, byte type, byte[] data) throws IOException {
+        writeFrame(output, type, data, 0, data.length);
+    }
+
+    private static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(bytes)) {
+            objectOutputStream.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream inputStream = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return inputStream.readObject();
+        }
+    }
+
+    /**
+     * Socket input whose blocking reads can be interrupted, as the task killing interrupts the
+     * executing thread.
+     */
+    private static final class InterruptibleInputStream extends FilterInputStream {
+
+        private InterruptibleInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            while (true) {
+                try {
+                    return super.read();
+                } catch (SocketTimeoutException e) {
+                    checkInterrupted();
+                }
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            while (true) {
+                try {
+                    return super.read(b, off, len);
+                } catch (SocketTimeoutException e) {
+                    checkInterrupted();
+                }
+            }
+        }
+    }
+
+    /**
+     * Output of a pooled JVM process, sent to the sinks of the running task.
+     */
+    private static final class RedirectableOutputStream extends OutputStream {
+
+        private volatile PrintStream target;
+
+        private RedirectableOutputStream(PrintStream target) {
+            this.target = target;
+        }
+
+        private void redirect(PrintStream target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) {
+            target.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            target.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            target.flush();
+        }
+    }
+
+    /**
+     * Output of the tasks run in a pooled JVM, sent to the node through the socket.
+     */
+    private static final class FrameOutputStream extends OutputStream {
+
+        private final DataOutputStream output;
+        private final byte type;
+
+        private FrameOutputStream(DataOutputStream output, byte type) {
+            this.output = output;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            writeFrame(output, type, b, off, len);
+        }
+    }
+
+    /**
+     * Everything here and called from here should only use System.out and System.err
+     */
+    public static void main(String[] args) throws Throwable {
+        if (args.length != 1) {
+            System.err.println("Port of the forked JVM pool is expected");
+            System.exit(-1);
+        }
+
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(args[0]));
+        DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        output.writeUTF(System.getenv(TOKEN_VARIABLE));
+        output.flush();
+
+        PrintStream taskOutput = new PrintStream(new BufferedOutputStream(new FrameOutputStream(output,
+            OUTPUT_FRAME)), true);
+        PrintStream taskError = new PrintStream(new BufferedOutputStream(new FrameOutputStream(output,
+            ERROR_FRAME)), true);
+        System.setOut(taskOutput);
+        System.setErr(taskError);
+
+        while (true) {
+            byte type;
+            try {
+                type = input.readByte();
+            } catch (EOFException poolClosed) {
+                break;
+            }
+            byte[] data = new byte[input.readInt()];
+            input.readFully(data);
+            if (type != TASK_FRAME) {
+                throw new IOException("Unexpected frame " + type + " from the forked JVM pool");
+            }
+
+            Object result = fromPool(data, taskOutput, taskError);
+            taskOutput.flush();
+            taskError.flush();
+
+            byte[] serializedResult;
+            try {
+                serializedResult = serialize(result);
+            } catch (Throwable couldNotSerializeResult) {
+                couldNotSerializeResult.printStackTrace(taskError);
+                taskError.flush();
+                serializedResult = serialize(couldNotSerializeResult);
+            }
+            writeFrame(output, RESULT_FRAME, serializedResult);
+        }
+        System.exit(0);
+    }
+
+    private static Object fromPool(byte[] serializedTask, PrintStream taskOutput, PrintStream taskError) {
+        CookieBasedProcessTreeKiller taskProcessTreeKiller = null;
+        try {
+            TaskContext context = (TaskContext) deserialize(serializedTask);
+
+            TaskId taskId = context.getTaskId();
+            taskProcessTreeKiller = CookieBasedProcessTreeKiller.createAllChildrenKiller("Job" +
+                taskId.getJobId().value() + "Task" + taskId.value());
+
+            return new InProcessTaskExecutor().execute(context, taskOutput, taskError);
+        } catch (Throwable throwable) {
+            throwable.printStackTrace(taskError);
+            return throwable;
+        } finally {
+            if (taskProcessTreeKiller != null) {
+                taskProcessTreeKiller.kill();
+            }
+        }
+    }
+
+}
@@ -75,6 +75,7 @@ import org.apache.commons.io.FileUtils;
 
 /**
  * Executor in charge to fork a new process for running a non forked task in a dedicated JVM.
+ * When {@link ForkedJvmPool} is enabled, tasks not run as the user are run in a reusable JVM instead.
  *
  * @see ForkedTaskExecutor#fromForkedJVM(String)
  * @see InProcessTaskExecutor
@@ -98,6 +99,11 @@ public class ForkedTaskExecutor implements TaskExecutor {
     }
 
     public TaskResultImpl execute(TaskContext context, PrintStream outputSink, PrintStream errorSink) {
+        ForkedJvmPool pool = ForkedJvmPool.getInstance();
+        if (pool != null && !context.isRunAsUser()) {
+            return executeInPooledJvm(pool, context, outputSink, errorSink);
+        }
+
         CookieBasedProcessTreeKiller taskProcessTreeKiller = null;
         Process process = null;
         ProcessStreamsReader processStreamsReader = null;
@@ -160,6 +166,30 @@ public class ForkedTaskExecutor implements TaskExecutor {
         }
     }
 
+    private TaskResultImpl executeInPooledJvm(ForkedJvmPool pool, TaskContext context,
+            PrintStream outputSink, PrintStream errorSink) {
+        ForkedJvmPool.PooledJvm jvm = null;
+        boolean reusable = false;
+        try {
+            OSProcessBuilder processBuilder = createForkedJvm(context, outputSink, errorSink);
+            jvm = pool.acquire(context.getInitializer().getJobOwner(), processBuilder.command(),
+                    processBuilder.environment(), workingDir);
+
+            Object result = jvm.execute(context, outputSink, errorSink);
+            if (result instanceof TaskResultImpl) {
+                reusable = true;
+                return (TaskResultImpl) result;
+            }
+            return createTaskResult(context, (Throwable) result);
+        } catch (Throwable throwable) {
+            return createTaskResult(context, throwable);
+        } finally {
+            if (jvm != null) {
+                pool.release(jvm, reusable);
+            }
+        }
+    }
+
     private TaskResultImpl createTaskResult(TaskContext context, Throwable throwable) {
         return new TaskResultImpl(context.getTaskId(), new ForkedJvmProcessException(
             "Failed to execute task in a forked JVM", throwable));
@@ -167,6 +197,21 @@ public class ForkedTaskExecutor implements TaskExecutor {
 
     private OSProcessBuilder createForkedProcess(TaskContext context, File serializedContext,
             PrintStream outputSink, PrintStream errorSink) throws Exception {
+        OSProcessBuilder processBuilder = createForkedJvm(context, outputSink, errorSink);
+
+        List<String> javaCommand = processBuilder.command();
+        javaCommand.add(ForkedTaskExecutor.class.getName());
+        javaCommand.add(serializedContext.getAbsolutePath());
+
+        processBuilder.directory(workingDir);
+        return processBuilder;
+    }
+
+    /**
+     * Creates the java command of the forked JVM, without its main class.
+     */
+    private OSProcessBuilder createForkedJvm(TaskContext context, PrintStream outputSink,
+            PrintStream errorSink) throws Exception {
         OSProcessBuilder processBuilder;
         String nativeScriptPath = context.getSchedulerHome();
 
@@ -248,10 +293,6 @@ public class ForkedTaskExecutor implements TaskExecutor {
         javaCommand.add("-cp");
         javaCommand.add(classpath.toString());
         javaCommand.addAll(jvmArguments);
-        javaCommand.add(ForkedTaskExecutor.class.getName());
-        javaCommand.add(serializedContext.getAbsolutePath());
-
-        processBuilder.directory(workingDir);
         return processBuilder;
     }
 
@@ -12,6 +12,7 @@ import org.ow2.proactive.scheduler.task.executors.TaskExecutor;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Semaphore;
 
 public class SlowDataspacesTaskLauncherFactory extends ProActiveForkedTaskLauncherFactory {
@@ -25,7 +26,8 @@ public class SlowDataspacesTaskLauncherFactory extends ProActiveForkedTaskLaunch
         }
 
         @Override
-        public TaskDataspaces createTaskDataspaces(TaskId taskId, NamingService namingService) {
+        public TaskDataspaces createTaskDataspaces(TaskId taskId, NamingService namingService,
+                Map<String, String> jobVariables) {
             return new SlowDataspaces(taskRunning);
         }
 
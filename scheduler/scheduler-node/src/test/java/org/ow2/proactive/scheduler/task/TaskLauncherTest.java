@@ -16,6 +16,7 @@ import java.io.InputStreamReader;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -190,7 +191,8 @@ public class TaskLauncherTest {
         TaskLauncher taskLauncher = TaskLauncherUtils.create(initializer, new TestTaskLauncherFactory() {
 
             @Override
-            public TaskDataspaces createTaskDataspaces(TaskId taskId, NamingService namingService) {
+            public TaskDataspaces createTaskDataspaces(TaskId taskId, NamingService namingService,
+                    Map<String, String> jobVariables) {
                 return dataspacesMock;
             }
         });
@@ -215,7 +217,8 @@ public class TaskLauncherTest {
         TaskLauncher taskLauncher = TaskLauncherUtils.create(initializer, new TestTaskLauncherFactory(){
 
             @Override
-            public TaskDataspaces createTaskDataspaces(TaskId taskId, NamingService namingService) {
+            public TaskDataspaces createTaskDataspaces(TaskId taskId, NamingService namingService,
+                    Map<String, String> jobVariables) {
                 return dataspacesMock;
             }
         });
@@ -238,7 +241,8 @@ public class TaskLauncherTest {
         TaskLauncher taskLauncher = TaskLauncherUtils.create(initializer, new TestTaskLauncherFactory() {
 
             @Override
-            public TaskDataspaces createTaskDataspaces(TaskId taskId, NamingService namingService) {
+            public TaskDataspaces createTaskDataspaces(TaskId taskId, NamingService namingService,
+                    Map<String, String> jobVariables) {
                 return dataspacesMock;
             }
         });
@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Semaphore;
 
@@ -37,7 +38,8 @@ public class TestTaskLauncherFactory extends ProActiveForkedTaskLauncherFactory
     }
 
     @Override
-    public TaskDataspaces createTaskDataspaces(TaskId taskId, NamingService namingService) {
+    public TaskDataspaces createTaskDataspaces(TaskId taskId, NamingService namingService,
+            Map<String, String> jobVariables) {
         return dataSpaces;
     }
 
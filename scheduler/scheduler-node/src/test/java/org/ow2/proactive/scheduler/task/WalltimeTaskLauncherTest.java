@@ -1,6 +1,7 @@
 package org.ow2.proactive.scheduler.task;
 
 import java.io.File;
+import java.util.Map;
 
 import org.objectweb.proactive.ActiveObjectCreationException;
 import org.objectweb.proactive.core.node.NodeException;
@@ -91,7 +92,8 @@ public class WalltimeTaskLauncherTest {
 
     private class ForkingTaskLauncherFactory extends ProActiveForkedTaskLauncherFactory {
         @Override
-        public TaskDataspaces createTaskDataspaces(TaskId taskId, NamingService namingService) {
+        public TaskDataspaces createTaskDataspaces(TaskId taskId, NamingService namingService,
+                Map<String, String> jobVariables) {
             return new TestTaskLauncherFactory.TaskFileDataspaces();
         }
 
@@ -0,0 +1,230 @@
+/*
+ *  *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2014 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s):
+ *
+ *  * $$ACTIVEEON_INITIAL_DEV$$
+ */
+package org.ow2.proactive.scheduler.task.data;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+
+public class ChunkedFileCopyTest {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(3);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void fileIsCopiedInChunks() throws Exception {
+        File source = createFile(CHUNK_SIZE * 3 + 100);
+        File destination = new File(tmpFolder.getRoot(), "sub/folder/destination");
+        List<Future> futures = new ArrayList<>();
+
+        ChunkedFileCopy.submit(source, destination, CHUNK_SIZE, executor, futures);
+        waitFor(futures);
+
+        assertEquals(4, futures.size());
+        assertArrayEquals(Files.readAllBytes(source.toPath()), Files.readAllBytes(destination.toPath()));
+    }
+
+    @Test
+    public void emptyFileIsCopied() throws Exception {
+        File source = createFile(0);
+        File destination = new File(tmpFolder.getRoot(), "destination");
+        List<Future> futures = new ArrayList<>();
+
+        ChunkedFileCopy.submit(source, destination, CHUNK_SIZE, executor, futures);
+        waitFor(futures);
+
+        assertEquals(1, futures.size());
+        assertTrue(destination.isFile());
+        assertEquals(0, destination.length());
+    }
+
+    @Test
+    public void fileSmallerThanAChunkIsCopiedAtOnce() throws Exception {
+        File source = createFile(CHUNK_SIZE / 2);
+        File destination = new File(tmpFolder.getRoot(), "destination");
+        List<Future> futures = new ArrayList<>();
+
+        ChunkedFileCopy.submit(source, destination, CHUNK_SIZE, executor, futures);
+        waitFor(futures);
+
+        assertEquals(1, futures.size());
+        assertArrayEquals(Files.readAllBytes(source.toPath()), Files.readAllBytes(destination.toPath()));
+    }
+
+    @Test
+    public void copyIsCheckedOnceAllChunksAreCopied() throws Exception {
+        File source = createFile(CHUNK_SIZE * 3 + 100);
+        final File destination = new File(tmpFolder.getRoot(), "destination");
+        List<Future> futures = new ArrayList<>();
+        final AtomicInteger checks = new AtomicInteger();
+        final List<Long> checkedLengths = new ArrayList<>();
+        ManualExecutor manualExecutor = new ManualExecutor();
+
+        ChunkedFileCopy.submit(source, destination, CHUNK_SIZE, manualExecutor, futures, new Runnable() {
+            @Override
+            public void run() {
+                checks.incrementAndGet();
+                checkedLengths.add(destination.length());
+            }
+        });
+        manualExecutor.runAll();
+        waitFor(futures);
+
+        assertEquals(1, checks.get());
+        assertEquals(Long.valueOf(source.length()), checkedLengths.get(0));
+    }
+
+    @Test
+    public void destinationIsDeletedWhenAChunkFails() throws Exception {
+        File source = createFile(CHUNK_SIZE * 3 + 100);
+        File destination = new File(tmpFolder.getRoot(), "destination");
+        List<Future> futures = new ArrayList<>();
+        final AtomicInteger checks = new AtomicInteger();
+        ManualExecutor manualExecutor = new ManualExecutor();
+
+        ChunkedFileCopy.submit(source, destination, CHUNK_SIZE, manualExecutor, futures, new Runnable() {
+            @Override
+            public void run() {
+                checks.incrementAndGet();
+            }
+        });
+        // the source is truncated before its last chunks are copied
+        try (RandomAccessFile file = new RandomAccessFile(source, "rw")) {
+            file.setLength(CHUNK_SIZE * 2 + 10);
+        }
+        manualExecutor.runAll();
+
+        futures.get(0).get();
+        futures.get(1).get();
+        try {
+            futures.get(2).get();
+            fail("The source ends in the third chunk");
+        } catch (ExecutionException expected) {
+        }
+        assertFalse(destination.exists());
+        assertEquals(0, checks.get());
+    }
+
+    private File createFile(int size) throws Exception {
+        byte[] content = new byte[size];
+        new Random(42).nextBytes(content);
+        File file = tmpFolder.newFile();
+        Files.write(file.toPath(), content);
+        return file;
+    }
+
+    private static void waitFor(List<Future> futures) throws Exception {
+        for (Future future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Runs the tasks only when asked to, in their submission order.
+     */
+    private static class ManualExecutor extends AbstractExecutorService {
+
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return tasks;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+
+}
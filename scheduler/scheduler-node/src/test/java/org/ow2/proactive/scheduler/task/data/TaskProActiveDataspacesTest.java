@@ -0,0 +1,181 @@
+/*
+ *  *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2014 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s):
+ *
+ *  * $$ACTIVEEON_INITIAL_DEV$$
+ */
+package org.ow2.proactive.scheduler.task.data;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.proactive.extensions.dataspaces.api.DataSpacesFileObject;
+import org.ow2.proactive.scheduler.common.SchedulerConstants;
+import org.ow2.proactive.scheduler.core.properties.PASchedulerProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class TaskProActiveDataspacesTest {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private String transferThreads;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        transferThreads = PASchedulerProperties.DATASPACE_TRANSFER_THREADS.isSet() ?
+                PASchedulerProperties.DATASPACE_TRANSFER_THREADS.getValueAsString() : null;
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        if (transferThreads == null) {
+            PASchedulerProperties.DATASPACE_TRANSFER_THREADS.unSet();
+        } else {
+            PASchedulerProperties.DATASPACE_TRANSFER_THREADS.updateProperty(transferThreads);
+        }
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void transferThreadsDefaultToTheNodeSetting() {
+        PASchedulerProperties.DATASPACE_TRANSFER_THREADS.unSet();
+        assertEquals(5, TaskProActiveDataspaces.getTransferThreads(null));
+
+        PASchedulerProperties.DATASPACE_TRANSFER_THREADS.updateProperty("8");
+        assertEquals(8, TaskProActiveDataspaces.getTransferThreads(Collections.<String, String> emptyMap()));
+
+        PASchedulerProperties.DATASPACE_TRANSFER_THREADS.updateProperty("0");
+        assertEquals(1, TaskProActiveDataspaces.getTransferThreads(null));
+    }
+
+    @Test
+    public void jobCanLowerTheTransferThreads() {
+        PASchedulerProperties.DATASPACE_TRANSFER_THREADS.updateProperty("8");
+
+        assertEquals(2, TaskProActiveDataspaces.getTransferThreads(jobTransferThreads(" 2 ")));
+    }
+
+    @Test
+    public void jobCannotRaiseTheTransferThreads() {
+        PASchedulerProperties.DATASPACE_TRANSFER_THREADS.updateProperty("8");
+
+        assertEquals(8, TaskProActiveDataspaces.getTransferThreads(jobTransferThreads("100")));
+    }
+
+    @Test
+    public void invalidJobTransferThreadsAreIgnored() {
+        PASchedulerProperties.DATASPACE_TRANSFER_THREADS.updateProperty("8");
+
+        assertEquals(8, TaskProActiveDataspaces.getTransferThreads(jobTransferThreads("0")));
+        assertEquals(8, TaskProActiveDataspaces.getTransferThreads(jobTransferThreads("many")));
+    }
+
+    @Test
+    public void localFileIsCopiedThroughTheFileSystem() throws Exception {
+        File source = tmpFolder.newFile("source");
+        Files.write(source.toPath(), new byte[CHUNK_SIZE * 2 + 10]);
+        File destinationFolder = tmpFolder.newFolder("destination");
+        List<Future> futures = new ArrayList<>();
+
+        boolean submitted = new TaskProActiveDataspaces(executor, CHUNK_SIZE).submitFileSystemCopy(
+                fileObject(source.toURI().toString()), fileObject(destinationFolder.toURI().toString()),
+                "sub/copy", futures, true);
+
+        assertTrue(submitted);
+        assertEquals(3, futures.size());
+        for (Future future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        assertArrayEquals(Files.readAllBytes(source.toPath()),
+                Files.readAllBytes(new File(destinationFolder, "sub/copy").toPath()));
+    }
+
+    @Test
+    public void remoteFileIsNotCopiedThroughTheFileSystem() throws Exception {
+        File destinationFolder = tmpFolder.newFolder("destination");
+        List<Future> futures = new ArrayList<>();
+
+        boolean submitted = new TaskProActiveDataspaces(executor, CHUNK_SIZE).submitFileSystemCopy(
+                fileObject("sftp://host/source"), fileObject(destinationFolder.toURI().toString()), "copy",
+                futures, false);
+
+        assertFalse(submitted);
+        assertTrue(futures.isEmpty());
+    }
+
+    @Test
+    public void folderIsNotCopiedThroughTheFileSystem() throws Exception {
+        File source = tmpFolder.newFolder("source");
+        File destinationFolder = tmpFolder.newFolder("destination");
+        List<Future> futures = new ArrayList<>();
+
+        boolean submitted = new TaskProActiveDataspaces(executor, CHUNK_SIZE).submitFileSystemCopy(
+                fileObject(source.toURI().toString()), fileObject(destinationFolder.toURI().toString()),
+                "copy", futures, false);
+
+        assertFalse(submitted);
+        assertTrue(futures.isEmpty());
+    }
+
+    private static Map<String, String> jobTransferThreads(String value) {
+        return Collections.singletonMap(SchedulerConstants.DATASPACE_TRANSFER_THREADS_VARIABLE, value);
+    }
+
+    private static DataSpacesFileObject fileObject(String realUri) {
+        DataSpacesFileObject fileObject = mock(DataSpacesFileObject.class);
+        when(fileObject.getRealURI()).thenReturn(realUri);
+        return fileObject;
+    }
+
+}
@@ -0,0 +1,253 @@
+/*
+ *  *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2014 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s):
+ *
+ *  * $$ACTIVEEON_INITIAL_DEV$$
+ */
+package org.ow2.proactive.scheduler.task.executors;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.ow2.proactive.scheduler.job.JobIdImpl;
+import org.ow2.proactive.scheduler.task.TaskContext;
+import org.ow2.proactive.scheduler.task.TaskIdImpl;
+import org.ow2.proactive.scheduler.task.TaskLauncherInitializer;
+import org.ow2.proactive.scheduler.task.TaskResultImpl;
+import org.ow2.proactive.scheduler.task.TestTaskOutput;
+import org.ow2.proactive.scheduler.task.containers.ScriptExecutableContainer;
+import org.ow2.proactive.scripting.SimpleScript;
+import org.ow2.proactive.scripting.TaskScript;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+
+public class ForkedJvmPoolTest {
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private ForkedJvmPool pool;
+
+    private File workingDir;
+
+    @Before
+    public void setUp() throws Exception {
+        workingDir = tmpFolder.newFolder();
+    }
+
+    @After
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void releasedJvmIsReusedByTheSameUserOnly() throws Exception {
+        pool = new ForkedJvmPool(2, 10);
+
+        ForkedJvmPool.PooledJvm jvm = pool.acquire("alice", javaCommand(), environment(), workingDir);
+        pool.release(jvm, true);
+
+        ForkedJvmPool.PooledJvm otherUserJvm = pool.acquire("bob", javaCommand(), environment(), workingDir);
+        assertNotSame(jvm, otherUserJvm);
+        assertSame(jvm, pool.acquire("alice", javaCommand(), environment(), workingDir));
+
+        pool.release(otherUserJvm, false);
+        pool.release(jvm, false);
+    }
+
+    @Test
+    public void releasedJvmIsReusedInTheSameWorkingDirectoryOnly() throws Exception {
+        pool = new ForkedJvmPool(2, 10);
+
+        ForkedJvmPool.PooledJvm jvm = pool.acquire("alice", javaCommand(), environment(), workingDir);
+        pool.release(jvm, true);
+
+        ForkedJvmPool.PooledJvm otherDirJvm = pool.acquire("alice", javaCommand(), environment(),
+                tmpFolder.newFolder());
+        assertNotSame(jvm, otherDirJvm);
+        assertSame(jvm, pool.acquire("alice", javaCommand(), environment(), workingDir));
+
+        pool.release(otherDirJvm, false);
+        pool.release(jvm, false);
+    }
+
+    @Test
+    public void relativeFilesAreWrittenInTheWorkingDirectory() throws Exception {
+        pool = new ForkedJvmPool(1, 10);
+        ForkedJvmPool.PooledJvm jvm = pool.acquire("alice", javaCommand(), environment(), workingDir);
+
+        for (int i = 0; i < 2; i++) {
+            TestTaskOutput taskOutput = new TestTaskOutput();
+
+            Object result = jvm.execute(taskContext("new File('task" + i + ".txt').text = 'written'; " +
+                "result='ok'"), taskOutput.outputStream, taskOutput.error);
+
+            assertEquals("ok", ((TaskResultImpl) result).value());
+            File written = new File(workingDir, "task" + i + ".txt");
+            assertTrue(written + " is missing", written.isFile());
+            assertEquals("written", new String(Files.readAllBytes(written.toPath()), StandardCharsets.UTF_8));
+        }
+        pool.release(jvm, true);
+    }
+
+    @Test
+    public void jvmIsReplacedAfterMaxTasks() throws Exception {
+        pool = new ForkedJvmPool(1, 1);
+        ForkedJvmPool.PooledJvm jvm = pool.acquire("alice", javaCommand(), environment(), workingDir);
+
+        TestTaskOutput taskOutput = new TestTaskOutput();
+        jvm.execute(taskContext("result='ok'"), taskOutput.outputStream, taskOutput.error);
+        pool.release(jvm, true);
+
+        waitForTermination(jvm);
+        ForkedJvmPool.PooledJvm replacement = pool.acquire("alice", javaCommand(), environment(), workingDir);
+        assertNotSame(jvm, replacement);
+        assertTrue(replacement.isAlive());
+        pool.release(replacement, false);
+    }
+
+    @Test
+    public void deadJvmIsNotReused() throws Exception {
+        pool = new ForkedJvmPool(1, 10);
+        ForkedJvmPool.PooledJvm jvm = pool.acquire("alice", javaCommand(), environment(), workingDir);
+
+        TestTaskOutput taskOutput = new TestTaskOutput();
+        try {
+            jvm.execute(taskContext("System.exit(1)"), taskOutput.outputStream, taskOutput.error);
+            fail("The JVM exited during the task");
+        } catch (IOException expected) {
+        }
+        // released as reusable, the pool checks that the JVM is still alive
+        waitForTermination(jvm);
+        pool.release(jvm, true);
+
+        ForkedJvmPool.PooledJvm newJvm = pool.acquire("alice", javaCommand(), environment(), workingDir);
+        assertNotSame(jvm, newJvm);
+        pool.release(newJvm, false);
+    }
+
+    @Test
+    public void interruptedTaskStopsWaitingAndDestroysTheJvm() throws Exception {
+        pool = new ForkedJvmPool(1, 10);
+        final ForkedJvmPool.PooledJvm jvm = pool.acquire("alice", javaCommand(), environment(), workingDir);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread taskThread = new Thread() {
+            @Override
+            public void run() {
+                TestTaskOutput taskOutput = new TestTaskOutput();
+                try {
+                    jvm.execute(taskContext("Thread.sleep(60000)"), taskOutput.outputStream,
+                            taskOutput.error);
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            }
+        };
+        taskThread.start();
+        Thread.sleep(2000);
+        taskThread.interrupt();
+        taskThread.join(10000);
+
+        assertFalse(taskThread.isAlive());
+        assertTrue(failure.get() instanceof InterruptedIOException);
+
+        pool.release(jvm, false);
+        waitForTermination(jvm);
+    }
+
+    @Test
+    public void jvmFailingToStartIsReported() throws Exception {
+        pool = new ForkedJvmPool(1, 10);
+        List<String> command = javaCommand();
+        command.add(1, "-XX:+ThisOptionDoesNotExist");
+
+        try {
+            pool.acquire("alice", command, environment(), workingDir);
+            fail("The JVM cannot start");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("exited with code"));
+        }
+    }
+
+    @Test
+    public void idleJvmsAreDestroyedAtShutdown() throws Exception {
+        pool = new ForkedJvmPool(1, 10);
+        ForkedJvmPool.PooledJvm jvm = pool.acquire("alice", javaCommand(), environment(), workingDir);
+        pool.release(jvm, true);
+
+        pool.shutdown();
+
+        waitForTermination(jvm);
+    }
+
+    private static List<String> javaCommand() {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        return new ArrayList<>(Arrays.asList(java, "-cp", System.getProperty("java.class.path")));
+    }
+
+    private static Map<String, String> environment() {
+        return new HashMap<>(System.getenv());
+    }
+
+    private static TaskContext taskContext(String script) throws Exception {
+        TaskLauncherInitializer initializer = new TaskLauncherInitializer();
+        initializer.setTaskId(TaskIdImpl.createTaskId(JobIdImpl.makeJobId("1000"), "job", 1000L));
+        return new TaskContext(new ScriptExecutableContainer(new TaskScript(new SimpleScript(script,
+            "groovy"))), initializer);
+    }
+
+    private static void waitForTermination(ForkedJvmPool.PooledJvm jvm) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (jvm.isAlive() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertFalse(jvm.isAlive());
+    }
+
+}
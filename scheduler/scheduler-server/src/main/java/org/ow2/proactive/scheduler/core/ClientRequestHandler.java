@@ -37,7 +37,9 @@
 package org.ow2.proactive.scheduler.core;
 
 import java.lang.reflect.Method;
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -47,7 +49,11 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.core.UniqueID;
 import org.objectweb.proactive.utils.NamedThreadFactory;
+import org.ow2.proactive.scheduler.common.NotificationData;
+import org.ow2.proactive.scheduler.common.SchedulerEvent;
 import org.ow2.proactive.scheduler.common.SchedulerEventListener;
+import org.ow2.proactive.scheduler.common.task.TaskId;
+import org.ow2.proactive.scheduler.common.task.TaskInfo;
 import org.ow2.proactive.scheduler.core.properties.PASchedulerProperties;
 import org.ow2.proactive.threading.ReifiedMethodCall;
 
@@ -55,6 +61,10 @@ import org.ow2.proactive.threading.ReifiedMethodCall;
 /**
  * ClientRequestHandler is used to delegate event call to client.
  * This class should be used with the ThreadPoolController which handles threads.
+ * <p>
+ * A task progress event which is still waiting to be sent is replaced by the next
+ * progress event of the same task, so that slow clients only receive the last progress.
+ * Other job and task events are never coalesced : listeners rely on every state transition.
  *
  * @author The ProActive Team
  * @since ProActive Scheduling 2.0
@@ -95,6 +105,8 @@ public class ClientRequestHandler {
     private final SchedulerEventListener client;
     /** Events queue to be stored */
     private final LinkedList<ReifiedMethodCall> eventCallsToStore;
+    /** Task progress events of the queue which can still be replaced, guarded by eventCallsToStore */
+    private final Map<TaskId, ReifiedMethodCall> queuedTaskProgressEvents;
     /** Cross reference to the front-end : used to mark client as dirty */
     private final SchedulerFrontendState frontend;
 
@@ -111,6 +123,7 @@ public class ClientRequestHandler {
         this.frontend = frontend;
         this.clientId = clientId;
         this.eventCallsToStore = new LinkedList<>();
+        this.queuedTaskProgressEvents = new HashMap<>();
     }
 
     /**
@@ -121,12 +134,49 @@ public class ClientRequestHandler {
      */
     public void addEvent(Method method, Object... args) {
         synchronized (eventCallsToStore) {
-            eventCallsToStore.add(new ReifiedMethodCall(method, args));
+            TaskId taskId = getUpdatedTaskId(method, args);
+            boolean taskProgress = taskId != null && isTaskProgress(args);
+            if (taskProgress) {
+                ReifiedMethodCall queuedProgress = queuedTaskProgressEvents.get(taskId);
+                if (queuedProgress != null) {
+                    //the queued progress is superseded by this one
+                    queuedProgress.setArguments(args);
+                    return;
+                }
+            } else if (taskId != null) {
+                //keep events order : a progress queued before another event of the task cannot be replaced
+                queuedTaskProgressEvents.remove(taskId);
+            }
+            ReifiedMethodCall methodCall = new ReifiedMethodCall(method, args);
+            eventCallsToStore.add(methodCall);
+            if (taskProgress) {
+                queuedTaskProgressEvents.put(taskId, methodCall);
+            }
             requestLeft.incrementAndGet();
         }
         tryStartTask();
     }
 
+    /**
+     * Get the id of the task updated by the given event call
+     *
+     * @return the id of the task if the event is a task state update, null otherwise
+     */
+    private static TaskId getUpdatedTaskId(Method method, Object[] args) {
+        if ("taskStateUpdatedEvent".equals(method.getName()) && args.length == 1 &&
+            args[0] instanceof NotificationData) {
+            Object data = ((NotificationData<?>) args[0]).getData();
+            if (data instanceof TaskInfo) {
+                return ((TaskInfo) data).getTaskId();
+            }
+        }
+        return null;
+    }
+
+    private static boolean isTaskProgress(Object[] args) {
+        return ((NotificationData<?>) args[0]).getEventType() == SchedulerEvent.TASK_PROGRESS;
+    }
+
     /**
      * Try to create a task with new events to send, and start it in the thread pool.
      * Can do nothing if some previous events are currently being sent.
@@ -140,6 +190,7 @@ public class ClientRequestHandler {
                 LinkedList<ReifiedMethodCall> tasks = (LinkedList<ReifiedMethodCall>) eventCallsToStore
                         .clone();
                 eventCallsToStore.clear();
+                queuedTaskProgressEvents.clear();
                 busy.set(true);
                 threadPoolForNetworkCalls.execute(new TaskRunnable(tasks));
             }
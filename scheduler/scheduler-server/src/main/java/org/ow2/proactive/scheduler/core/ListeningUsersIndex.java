@@ -0,0 +1,141 @@
+/*
+ *  *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2015 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s):
+ *
+ *  * $$PROACTIVE_INITIAL_DEV$$
+ */
+package org.ow2.proactive.scheduler.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ow2.proactive.scheduler.common.SchedulerEvent;
+import org.ow2.proactive.scheduler.job.UserIdentificationImpl;
+
+
+/**
+ * Immutable index of the listening users by the events they are listening to and,
+ * for the users which only want their own events, by user name.
+ * <p>
+ * It avoids going through every connected user for each event. A new index is built
+ * each time a listener is added or removed.
+ */
+class ListeningUsersIndex {
+
+    static final ListeningUsersIndex EMPTY = new ListeningUsersIndex(Collections.<ListeningUser> emptyList());
+
+    private static final List<SchedulerEvent> ALL_EVENTS = Arrays.asList(SchedulerEvent.values());
+
+    private final Map<SchedulerEvent, EventListeners> listenersByEvent = new EnumMap<>(SchedulerEvent.class);
+
+    ListeningUsersIndex(Collection<ListeningUser> users) {
+        for (ListeningUser listeningUser : users) {
+            if (!listeningUser.isListening()) {
+                continue;
+            }
+            UserIdentificationImpl user = listeningUser.getUser();
+            Collection<SchedulerEvent> events = user.getUserEvents() == null ? ALL_EVENTS : user
+                    .getUserEvents();
+            for (SchedulerEvent event : events) {
+                EventListeners listeners = listenersByEvent.get(event);
+                if (listeners == null) {
+                    listeners = new EventListeners();
+                    listenersByEvent.put(event, listeners);
+                }
+                listeners.add(listeningUser);
+            }
+        }
+    }
+
+    /**
+     * @param event the event to dispatch
+     * @return every user listening to the given event
+     */
+    List<ListeningUser> getListeners(SchedulerEvent event) {
+        EventListeners listeners = listenersByEvent.get(event);
+        return listeners == null ? Collections.<ListeningUser> emptyList() : listeners.all;
+    }
+
+    /**
+     * @param event the event to dispatch
+     * @param owner the user concerned by the event
+     * @return the users listening to the given event, either for every user or for the given owner only
+     */
+    List<ListeningUser> getListeners(SchedulerEvent event, String owner) {
+        EventListeners listeners = listenersByEvent.get(event);
+        if (listeners == null) {
+            return Collections.emptyList();
+        }
+        List<ListeningUser> ownerListeners = listeners.byOwner.get(owner);
+        if (ownerListeners == null) {
+            return listeners.allOwners;
+        }
+        List<ListeningUser> result = new ArrayList<>(listeners.allOwners.size() + ownerListeners.size());
+        result.addAll(listeners.allOwners);
+        result.addAll(ownerListeners);
+        return result;
+    }
+
+    private static class EventListeners {
+
+        /** Every user listening to the event */
+        private final List<ListeningUser> all = new ArrayList<>();
+
+        /** Users listening to the event for every user */
+        private final List<ListeningUser> allOwners = new ArrayList<>();
+
+        /** Users listening to the event for their own jobs only */
+        private final Map<String, List<ListeningUser>> byOwner = new HashMap<>();
+
+        void add(ListeningUser listeningUser) {
+            all.add(listeningUser);
+            UserIdentificationImpl user = listeningUser.getUser();
+            if (user.isMyEventsOnly()) {
+                List<ListeningUser> ownerListeners = byOwner.get(user.getUsername());
+                if (ownerListeners == null) {
+                    ownerListeners = new ArrayList<>();
+                    byOwner.put(user.getUsername(), ownerListeners);
+                }
+                ownerListeners.add(listeningUser);
+            } else {
+                allOwners.add(listeningUser);
+            }
+        }
+
+    }
+
+}
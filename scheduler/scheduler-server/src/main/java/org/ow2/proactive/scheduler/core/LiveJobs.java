@@ -2,6 +2,7 @@ package org.ow2.proactive.scheduler.core;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -74,6 +75,13 @@ class LiveJobs {
 
     private final ConcurrentHashMap<TaskIdWrapper, RunningTaskData> runningTasksData = new ConcurrentHashMap<>();
 
+    /**
+     * Jobs which may have eligible tasks. Every job is added when it is submitted or recovered and each time
+     * an operation locks it (task terminated, restarted, job paused or resumed...), and it is removed by the
+     * scheduling loop once it has no eligible task left. The scheduling loop only locks and orders these jobs.
+     */
+    private final Set<JobId> jobsToSchedule = Collections.newSetFromMap(new ConcurrentHashMap<JobId, Boolean>());
+
     LiveJobs(SchedulerDBManager dbManager, SchedulerStateUpdate listener) {
         this.dbManager = dbManager;
         this.listener = listener;
@@ -89,6 +97,7 @@ class LiveJobs {
 
     void jobRecovered(InternalJob job) {
         jobs.put(job.getId(), new JobData(job));
+        jobsToSchedule.add(job.getId());
     }
 
     void unpauseAll() {
@@ -211,6 +220,7 @@ class LiveJobs {
         dbManager.newJobSubmitted(job);
         ClientJobState clientJobState = new ClientJobState(job);
         jobs.put(job.getId(), new JobData(job));
+        jobsToSchedule.add(job.getId());
         listener.jobSubmitted(clientJobState);
     }
 
@@ -224,9 +234,39 @@ class LiveJobs {
         return result;
     }
 
+    /**
+     * Lock only the jobs which may have eligible tasks, instead of every live job.
+     * Jobs which are currently locked by another operation are skipped, they will be
+     * considered again on the next scheduling loop.
+     *
+     * @return the descriptors of the locked jobs
+     */
+    Map<JobId, JobDescriptor> lockReadyJobsToSchedule() {
+        Map<JobId, JobDescriptor> result = new HashMap<>();
+        for (JobId jobId : jobsToSchedule) {
+            JobData jobData = jobs.get(jobId);
+            if (jobData == null) {
+                jobsToSchedule.remove(jobId);
+                continue;
+            }
+            if (jobData.jobLock.tryLock()) {
+                if (jobs.containsKey(jobId)) {
+                    result.put(jobId, jobData.job.getJobDescriptor());
+                } else {
+                    jobData.unlock();
+                }
+            }
+        }
+        return result;
+    }
+
     void unlockJobsToSchedule(Collection<JobDescriptor> jobDescriptors) {
         for (JobDescriptor desc : jobDescriptors) {
             JobData jobData = checkJobAccess(desc.getJobId());
+            //job lock is held, so no other operation can make a task eligible in the meantime
+            if (desc.getEligibleTasks().isEmpty()) {
+                jobsToSchedule.remove(desc.getJobId());
+            }
             jobData.unlock();
         }
     }
@@ -581,6 +621,7 @@ class LiveJobs {
             job.terminate();
             jlogger.debug(job.getId(), "terminated");
             jobs.remove(job.getId());
+            jobsToSchedule.remove(job.getId());
             terminationData.addJobToTermiante(job.getId());
         }
 
@@ -623,6 +664,7 @@ class LiveJobs {
         JobId jobId = jobData.job.getId();
 
         jobs.remove(jobId);
+        jobsToSchedule.remove(jobId);
         terminationData.addJobToTermiante(jobId);
 
         InternalJob job = jobData.job;
@@ -698,6 +740,8 @@ class LiveJobs {
         }
         jobData.jobLock.lock();
         if (jobs.containsKey(jobId)) {
+            //the caller may make some tasks eligible, the scheduling loop has to consider this job again
+            jobsToSchedule.add(jobId);
             return jobData;
         } else {
             jobData.unlock();
@@ -62,8 +62,20 @@ import org.ow2.proactive.scheduler.util.TaskLogger;
 
 import java.lang.reflect.Method;
 import java.util.*;
-
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+
+/**
+ * State of the scheduler as seen by its clients.
+ * <p>
+ * Connected users and their listeners are modified under the monitor of this object. Permission
+ * checks read them without it, the session of a user being guarded by its identification.
+ * Jobs and the scheduler state are guarded by a read-write lock so that read only
+ * requests are not blocked by each other nor by the dispatch of events to the listeners.
+ * The read-write lock is always acquired after the monitor when both are needed.
+ */
 class SchedulerFrontendState implements SchedulerStateUpdate {
 
     /** Scheduler logger */
@@ -87,7 +99,11 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         }
     }
 
-    /** Mapping on the UniqueId of the sender and the user/admin identifications */
+    /**
+     * Mapping on the UniqueId of the sender and the user/admin identifications.
+     * Modified under the monitor of this object, read without it by the permission checks so
+     * that they are not blocked while events are dispatched.
+     */
     private final Map<UniqueID, ListeningUser> identifications;
 
     /** Map that link uniqueID to user credentials */
@@ -110,9 +126,15 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
 
     private final Map<JobId, JobState> jobsMap;
 
+    /** Listening users indexed by events, rebuilt when a listener is added or removed */
+    private ListeningUsersIndex listenersIndex = ListeningUsersIndex.EMPTY;
+
+    /** Guards jobs, jobsMap and the jobs of sState */
+    private final ReadWriteLock jobsLock = new ReentrantReadWriteLock();
+
     SchedulerFrontendState(SchedulerStateImpl sState, SchedulerJMXHelper jmxHelper) {
-        this.identifications = new HashMap<>();
-        this.credentials = new HashMap<>();
+        this.identifications = new ConcurrentHashMap<>();
+        this.credentials = new ConcurrentHashMap<>();
         this.dirtyList = new HashSet<>();
         this.jmxHelper = jmxHelper;
         this.jobsMap = new HashMap<>();
@@ -143,6 +165,7 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         for (JobState js : sState.getFinishedJobs()) {
             prepare(jobStates, js, true);
         }
+        jmxHelper.getSchedulerRuntimeMBean().recover(jobStates);
     }
 
     /**
@@ -176,9 +199,10 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
             throw new AlreadyConnectedException("This active object is already connected to the scheduler !");
         }
         logger.info(identification.getUsername() + " successfully connected !");
-        identifications.put(sourceBodyID, new ListeningUser(identification));
+        ListeningUser listeningUser = new ListeningUser(identification);
         credentials.put(sourceBodyID, cred);
-        renewUserSession(sourceBodyID, identification);
+        identifications.put(sourceBodyID, listeningUser);
+        renewUserSession(sourceBodyID, listeningUser);
         //add this new user in the list of connected user
         sState.getUsers().update(identification);
         //send events
@@ -189,56 +213,79 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
      * Create or renew the session (timer task) for the given user identification.
      * A call to this method will cancel the previous session (timerTask), 
      * create and schedule a new one and purge the timer.
+     * The session of a user is guarded by its identification, sessions are renewed without
+     * holding the monitor of this object.
      * 
      * @param id The unique ID of the user
-     * @param identification the user on which to renew the session
+     * @param listeningUser the user on which to renew the session
      */
-    private void renewUserSession(final UniqueID id, UserIdentificationImpl identification) {
-        if (identifications.get(id).isListening()) {
-            //if this id has a listener, do not renew user session
-            return;
-        }
-        final String userName = identification.getUsername();
-        TimerTask session = identification.getSession();
-        if (session != null) {
-            session.cancel();
-        }
-        identification.setSession(new TimerTask() {
-            @Override
-            public void run() {
-                logger.info("End of session for user " + userName + ", id=" + id);
-                disconnect(id);
+    private void renewUserSession(final UniqueID id, ListeningUser listeningUser) {
+        UserIdentificationImpl identification = listeningUser.getUser();
+        synchronized (identification) {
+            if (listeningUser.isListening()) {
+                //if this id has a listener, do not renew user session
+                return;
+            }
+            final String userName = identification.getUsername();
+            TimerTask session = identification.getSession();
+            if (session != null) {
+                session.cancel();
             }
-        });
-        sessionTimer.purge();
-        sessionTimer.schedule(identification.getSession(), USER_SESSION_DURATION);
+            identification.setSession(new TimerTask() {
+                @Override
+                public void run() {
+                    logger.info("End of session for user " + userName + ", id=" + id);
+                    disconnect(id);
+                }
+            });
+            sessionTimer.purge();
+            sessionTimer.schedule(identification.getSession(), USER_SESSION_DURATION);
+        }
     }
 
-    synchronized SchedulerStatus getStatus() throws NotConnectedException, PermissionException {
+    SchedulerStatus getStatus() throws NotConnectedException, PermissionException {
         //checking permissions
         checkPermission("getStatus", "You do not have permission to get the status !");
 
         return sState.getStatus();
     }
 
-    synchronized SchedulerState getState() throws NotConnectedException, PermissionException {
+    SchedulerState getState() throws NotConnectedException, PermissionException {
         return getState(false);
     }
 
-    synchronized SchedulerState getState(boolean myJobsOnly) throws NotConnectedException,
-            PermissionException {
+    SchedulerState getState(boolean myJobsOnly) throws NotConnectedException, PermissionException {
         //checking permissions
-        checkPermission("getState", "You do not have permission to get the state !");
+        ListeningUser ui = checkPermissionReturningListeningUser("getState",
+                "You do not have permission to get the state !");
 
-        ListeningUser ui = identifications.get(PAActiveObject.getContext().getCurrentRequest()
-                .getSourceBodyID());
         try {
             checkOwnStatePermission(myJobsOnly, ui.getUser());
-            return myJobsOnly ? sState.filterOnUser(ui.getUser().getUsername()) : sState;
         } catch (PermissionException ex) {
             logger.info(ex.getMessage());
             throw ex;
         }
+
+        jobsLock.readLock().lock();
+        try {
+            return myJobsOnly ? sState.filterOnUser(ui.getUser().getUsername()) : copyState();
+        } finally {
+            jobsLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copy the jobs lists of the scheduler state so that the returned state is not
+     * modified by the next events, jobs lists must be read locked.
+     */
+    private SchedulerStateImpl copyState() {
+        SchedulerStateImpl copy = new SchedulerStateImpl();
+        copy.setState(sState.getStatus());
+        copy.setUsers(sState.getUsers());
+        copy.setPendingJobs(new Vector<>(sState.getPendingJobs()));
+        copy.setRunningJobs(new Vector<>(sState.getRunningJobs()));
+        copy.setFinishedJobs(new Vector<>(sState.getFinishedJobs()));
+        return copy;
     }
 
     /**
@@ -248,7 +295,7 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
      * @param ui the user identification
      * @throws PermissionException if permission is denied
      */
-    synchronized void checkOwnStatePermission(boolean myOnly, UserIdentificationImpl ui)
+    void checkOwnStatePermission(boolean myOnly, UserIdentificationImpl ui)
             throws PermissionException {
         ui.checkPermission(new GetOwnStateOnlyPermission(myOnly), ui.getUsername() +
             " does not have permissions to retrieve full state");
@@ -293,10 +340,13 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         //set if the user wants to get its events only or every events
         uIdent.getUser().setMyEventsOnly(myEventsOnly);
         //add the listener to the list of listener for this user.
-        UniqueID id = PAActiveObject.getContext().getCurrentRequest().getSourceBodyID();
-        uIdent.setListener(new ClientRequestHandler(this, id, sel));
-        //cancel timer for this user : session is now managed by events
-        uIdent.getUser().getSession().cancel();
+        UniqueID id = getCallerId();
+        synchronized (uIdent.getUser()) {
+            uIdent.setListener(new ClientRequestHandler(this, id, sel));
+            //cancel timer for this user : session is now managed by events
+            uIdent.getUser().getSession().cancel();
+        }
+        updateListenersIndex();
         //return to the user
         return currentState;
     }
@@ -304,20 +354,40 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
     synchronized void removeEventListener() throws NotConnectedException, PermissionException {
         //Remove the listener on that user designated by its given UniqueID,
         //then renew its user session as it is no more managed by the listener.
-        UniqueID id = checkAccess();
-        ListeningUser uIdent = identifications.get(id);
-        uIdent.clearListener();
+        UniqueID id = getCallerId();
+        ListeningUser uIdent = getConnectedUser(id);
+        synchronized (uIdent.getUser()) {
+            uIdent.clearListener();
+        }
+        updateListenersIndex();
         //recreate the session for this user which is no more managed by listener
-        renewUserSession(id, uIdent.getUser());
+        renewUserSession(id, uIdent);
     }
 
     private UniqueID checkAccess() throws NotConnectedException {
-        UniqueID id = PAActiveObject.getContext().getCurrentRequest().getSourceBodyID();
-        if (!identifications.containsKey(id)) {
+        UniqueID id = getCallerId();
+        getConnectedUser(id);
+        return id;
+    }
+
+    /**
+     * @return the connected user of the given id
+     * @throws NotConnectedException if no user is connected with this id
+     */
+    private ListeningUser getConnectedUser(UniqueID id) throws NotConnectedException {
+        ListeningUser listeningUser = identifications.get(id);
+        if (listeningUser == null) {
             logger.info(ACCESS_DENIED);
             throw new NotConnectedException(ACCESS_DENIED);
         }
-        return id;
+        return listeningUser;
+    }
+
+    /**
+     * @return the id of the active object calling the front-end
+     */
+    UniqueID getCallerId() {
+        return PAActiveObject.getContext().getCurrentRequest().getSourceBodyID();
     }
 
     synchronized InternalJob createJob(Job userJob, UserIdentificationImpl ident)
@@ -354,7 +424,12 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
             throws NotConnectedException, PermissionException, SubmissionClosedException,
             JobCreationException {
         //put the job inside the frontend management list
-        jobs.put(job.getId(), new IdentifiedJob(job.getId(), ident));
+        jobsLock.writeLock().lock();
+        try {
+            jobs.put(job.getId(), new IdentifiedJob(job.getId(), ident));
+        } finally {
+            jobsLock.writeLock().unlock();
+        }
         //increase number of submit for this user
         ident.addSubmit();
         //send update user event
@@ -368,13 +443,13 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         }
     }
 
-    synchronized ListeningUser checkPermissionReturningListeningUser(String methodName, String permissionMsg)
+    ListeningUser checkPermissionReturningListeningUser(String methodName, String permissionMsg)
             throws NotConnectedException, PermissionException {
-        UniqueID id = checkAccess();
+        UniqueID id = getCallerId();
 
-        ListeningUser ident = identifications.get(id);
+        ListeningUser ident = getConnectedUser(id);
         //renew session for this user
-        renewUserSession(id, ident.getUser());
+        renewUserSession(id, ident);
 
         final String fullMethodName = SchedulerFrontend.class.getName() + "." + methodName;
         final MethodCallPermission methodCallPermission = new MethodCallPermission(fullMethodName);
@@ -388,7 +463,7 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         return ident;
     }
 
-    synchronized UserIdentificationImpl checkPermission(String methodName, String permissionMsg)
+    UserIdentificationImpl checkPermission(String methodName, String permissionMsg)
             throws NotConnectedException, PermissionException {
         return checkPermissionReturningListeningUser(methodName, permissionMsg).getUser();
     }
@@ -409,6 +484,7 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         if (ident != null) {
             //remove listeners if needed
             ident.clearListener();
+            updateListenersIndex();
             //remove this user to the list of connected user if it has not already been removed
             ident.getUser().setToRemove();
             sState.getUsers().update(ident.getUser());
@@ -422,7 +498,7 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         }
     }
 
-    synchronized boolean isConnected() {
+    boolean isConnected() {
         try {
             checkAccess();
             return true;
@@ -431,18 +507,23 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         }
     }
 
-    synchronized void renewSession() throws NotConnectedException {
-        UniqueID id = checkAccess();
-        UserIdentificationImpl ident = identifications.get(id).getUser();
+    void renewSession() throws NotConnectedException {
+        UniqueID id = getCallerId();
         //renew session for this user
-        renewUserSession(id, ident);
+        renewUserSession(id, getConnectedUser(id));
     }
 
-    synchronized IdentifiedJob checkJobOwner(String methodName, JobId jobId, String permissionMsg)
+    IdentifiedJob checkJobOwner(String methodName, JobId jobId, String permissionMsg)
             throws NotConnectedException, UnknownJobException, PermissionException {
         ListeningUser ident = checkPermissionReturningListeningUser(methodName, permissionMsg);
 
-        IdentifiedJob ij = jobs.get(jobId);
+        IdentifiedJob ij;
+        jobsLock.readLock().lock();
+        try {
+            ij = jobs.get(jobId);
+        } finally {
+            jobsLock.readLock().unlock();
+        }
 
         if (ij == null) {
             String msg = "The job represented by this ID '" + jobId + "' is unknown !";
@@ -458,13 +539,12 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         return ij;
     }
 
-    synchronized void checkChangeJobPriority(JobId jobId, JobPriority priority) throws NotConnectedException,
+    void checkChangeJobPriority(JobId jobId, JobPriority priority) throws NotConnectedException,
             UnknownJobException, PermissionException, JobAlreadyFinishedException {
-        checkJobOwner("changeJobPriority", jobId,
+        IdentifiedJob ij = checkJobOwner("changeJobPriority", jobId,
                 "You do not have permission to change the priority of this job !");
 
-        UserIdentificationImpl ui = identifications.get(
-                PAActiveObject.getContext().getCurrentRequest().getSourceBodyID()).getUser();
+        UserIdentificationImpl ui = getConnectedUser(getCallerId()).getUser();
 
         try {
             ui.checkPermission(new ChangePriorityPermission(priority.getPriority()), ui.getUsername() +
@@ -474,90 +554,109 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
             throw ex;
         }
 
-        if (jobs.get(jobId).isFinished()) {
+        if (ij.isFinished()) {
             String msg = " is already finished";
             jlogger.info(jobId, msg);
             throw new JobAlreadyFinishedException("Job " + jobId + msg);
         }
     }
 
-    synchronized Set<TaskId> getJobTasks(JobId jobId) {
-        JobState jobState = jobsMap.get(jobId);
-        if (jobState == null) {
-            return Collections.emptySet();
-        } else {
-            Set<TaskId> tasks = new HashSet<>(jobState.getTasks().size());
-            for (TaskState task : jobState.getTasks()) {
-                tasks.add(task.getId());
+    Set<TaskId> getJobTasks(JobId jobId) {
+        jobsLock.readLock().lock();
+        try {
+            JobState jobState = jobsMap.get(jobId);
+            if (jobState == null) {
+                return Collections.emptySet();
+            } else {
+                Set<TaskId> tasks = new HashSet<>(jobState.getTasks().size());
+                for (TaskState task : jobState.getTasks()) {
+                    tasks.add(task.getId());
+                }
+                return tasks;
             }
-            return tasks;
+        } finally {
+            jobsLock.readLock().unlock();
         }
     }
 
-    synchronized JobState getJobState(JobId jobId) throws NotConnectedException, UnknownJobException,
+    /**
+     * @return a copy of the state of the job, which is not modified by the next events
+     */
+    JobState getJobState(JobId jobId) throws NotConnectedException, UnknownJobException,
             PermissionException {
         checkJobOwner("getJobState", jobId, "You do not have permission to get the state of this job !");
-        return jobsMap.get(jobId);
+        jobsLock.readLock().lock();
+        try {
+            JobState jobState = jobsMap.get(jobId);
+            return jobState == null ? null : new ClientJobState(jobState);
+        } finally {
+            jobsLock.readLock().unlock();
+        }
     }
 
-    synchronized TaskState getTaskState(JobId jobId, TaskId taskId) throws NotConnectedException,
+    TaskState getTaskState(JobId jobId, TaskId taskId) throws NotConnectedException,
             UnknownJobException, UnknownTaskException, PermissionException {
         checkJobOwner("getJobState", jobId, "You do not have permission to get the state of this task !");
-        if (jobsMap.get(jobId) == null) {
-            throw new UnknownJobException(jobId);
-        }
-        TaskState ts = jobsMap.get(jobId).getHMTasks().get(taskId);
-        if (ts == null) {
-            throw new UnknownTaskException(taskId, jobId);
+        jobsLock.readLock().lock();
+        try {
+            JobState jobState = jobsMap.get(jobId);
+            if (jobState == null) {
+                throw new UnknownJobException(jobId);
+            }
+            TaskState ts = jobState.getHMTasks().get(taskId);
+            if (ts == null) {
+                throw new UnknownTaskException(taskId, jobId);
+            }
+            return ts;
+        } finally {
+            jobsLock.readLock().unlock();
         }
-        return ts;
     }
 
-    synchronized TaskState getTaskState(JobId jobId, String taskName) throws NotConnectedException,
+    TaskState getTaskState(JobId jobId, String taskName) throws NotConnectedException,
             UnknownJobException, UnknownTaskException, PermissionException {
         checkJobOwner("getJobState", jobId, "You do not have permission to get the state of this task !");
-        if (jobsMap.get(jobId) == null) {
-            throw new UnknownJobException(jobId);
-        }
-        TaskId taskId = null;
-        for (TaskId t : getJobTasks(jobId)) {
-            if (t.getReadableName().equals(taskName)) {
-                taskId = t;
+        jobsLock.readLock().lock();
+        try {
+            TaskId taskId = getTaskId(jobId, taskName);
+            TaskState ts = jobsMap.get(jobId).getHMTasks().get(taskId);
+            if (ts == null) {
+                throw new UnknownTaskException(taskId, jobId);
             }
+            return ts;
+        } finally {
+            jobsLock.readLock().unlock();
         }
-        if (taskId == null) {
-            throw new UnknownTaskException(taskName, jobId);
-        }
-        TaskState ts = jobsMap.get(jobId).getHMTasks().get(taskId);
-        if (ts == null) {
-            throw new UnknownTaskException(taskId, jobId);
-        }
-        return ts;
     }
 
-    synchronized TaskId getTaskId(JobId jobId, String taskName) throws UnknownTaskException,
-            UnknownJobException {
-        if (jobsMap.get(jobId) == null) {
-            throw new UnknownJobException(jobId);
-        }
-        TaskId taskId = null;
-        for (TaskId t : getJobTasks(jobId)) {
-            if (t.getReadableName().equals(taskName)) {
-                taskId = t;
+    TaskId getTaskId(JobId jobId, String taskName) throws UnknownTaskException, UnknownJobException {
+        jobsLock.readLock().lock();
+        try {
+            if (jobsMap.get(jobId) == null) {
+                throw new UnknownJobException(jobId);
             }
+            TaskId taskId = null;
+            for (TaskId t : getJobTasks(jobId)) {
+                if (t.getReadableName().equals(taskName)) {
+                    taskId = t;
+                }
+            }
+            if (taskId == null) {
+                throw new UnknownTaskException(taskName, jobId);
+            }
+            return taskId;
+        } finally {
+            jobsLock.readLock().unlock();
         }
-        if (taskId == null) {
-            throw new UnknownTaskException(taskName, jobId);
-        }
-        return taskId;
     }
 
-    synchronized void checkChangePolicy() throws NotConnectedException, PermissionException {
-        UniqueID id = checkAccess();
+    void checkChangePolicy() throws NotConnectedException, PermissionException {
+        UniqueID id = getCallerId();
 
-        UserIdentificationImpl ident = identifications.get(id).getUser();
+        ListeningUser listeningUser = getConnectedUser(id);
+        UserIdentificationImpl ident = listeningUser.getUser();
         //renew session for this user
-        renewUserSession(id, ident);
+        renewUserSession(id, listeningUser);
 
         try {
             ident.checkPermission(new ChangePolicyPermission(), ident.getUsername() +
@@ -568,12 +667,13 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         }
     }
 
-    synchronized void checkLinkResourceManager() throws NotConnectedException, PermissionException {
-        UniqueID id = checkAccess();
+    void checkLinkResourceManager() throws NotConnectedException, PermissionException {
+        UniqueID id = getCallerId();
 
-        UserIdentificationImpl ident = identifications.get(id).getUser();
+        ListeningUser listeningUser = getConnectedUser(id);
+        UserIdentificationImpl ident = listeningUser.getUser();
         //renew session for this user
-        renewUserSession(id, ident);
+        renewUserSession(id, listeningUser);
 
         try {
             ident.checkPermission(new ConnectToResourceManagerPermission(), ident.getUsername() +
@@ -590,6 +690,13 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
     /*                                                                                             */
     /* ########################################################################################### */
 
+    /**
+     * Rebuild the index of the listening users, must be called when a listener is added or removed
+     */
+    private void updateListenersIndex() {
+        listenersIndex = new ListeningUsersIndex(identifications.values());
+    }
+
     /**
      * Clear every dirty listeners that are no more responding
      */
@@ -630,15 +737,10 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
             if (logger.isDebugEnabled()) {
                 logger.debug("event [" + eventType.toString() + "]");
             }
-            for (ListeningUser userId : identifications.values()) {
+            for (ListeningUser userId : listenersIndex.getListeners(eventType)) {
                 //if this user has a listener
                 if (userId.isListening()) {
-                    //if there is no specified event OR if the specified event is allowed
-                    if ((userId.getUser().getUserEvents() == null) ||
-                        userId.getUser().getUserEvents().contains(eventType)) {
-                        userId.getListener().addEvent(eventMethods.get("schedulerStateUpdatedEvent"),
-                                eventType);
-                    }
+                    userId.getListener().addEvent(eventMethods.get("schedulerStateUpdatedEvent"), eventType);
                 }
             }
             clearListeners();
@@ -657,21 +759,13 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
             if (logger.isDebugEnabled()) {
                 jlogger.debug(job.getJobInfo().getJobId(), " event [" + SchedulerEvent.JOB_SUBMITTED + "]");
             }
-            for (ListeningUser listeningUserId : identifications.values()) {
+            //only the users which have the myEventOnly=false or (myEventOnly=true and it is its event)
+            for (ListeningUser listeningUserId : listenersIndex.getListeners(SchedulerEvent.JOB_SUBMITTED,
+                    job.getOwner())) {
                 //if this user has a listener
                 if (listeningUserId.isListening()) {
                     try {
-                        UserIdentificationImpl userId = listeningUserId.getUser();
-                        //if there is no specified event OR if the specified event is allowed
-                        if ((userId.getUserEvents() == null) ||
-                            userId.getUserEvents().contains(SchedulerEvent.JOB_SUBMITTED)) {
-                            //if this userId have the myEventOnly=false or (myEventOnly=true and it is its event)
-                            if (!userId.isMyEventsOnly() ||
-                                (userId.isMyEventsOnly() && userId.getUsername().equals(job.getOwner()))) {
-                                listeningUserId.getListener().addEvent(eventMethods.get("jobSubmittedEvent"),
-                                        job);
-                            }
-                        }
+                        listeningUserId.getListener().addEvent(eventMethods.get("jobSubmittedEvent"), job);
                     } catch (NullPointerException e) {
                         //can't do anything
                         logger.debug("", e);
@@ -703,20 +797,12 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
                         notification.getEventType() + "]");
                 }
             }
-            for (ListeningUser listeningUserId : identifications.values()) {
+            //only the users which have the myEventOnly=false or (myEventOnly=true and it is its event)
+            for (ListeningUser listeningUserId : listenersIndex.getListeners(notification.getEventType(),
+                    owner)) {
                 //if this user has a listener
                 if (listeningUserId.isListening()) {
-                    UserIdentificationImpl userId = listeningUserId.getUser();
-                    //if there is no specified event OR if the specified event is allowed
-                    if ((userId.getUserEvents() == null) ||
-                        userId.getUserEvents().contains(notification.getEventType())) {
-                        //if this userId have the myEventOnly=false or (myEventOnly=true and it is its event)
-                        if (!userId.isMyEventsOnly() ||
-                            (userId.isMyEventsOnly() && userId.getUsername().equals(owner))) {
-                            listeningUserId.getListener().addEvent(eventMethods.get("jobStateUpdatedEvent"),
-                                    notification);
-                        }
-                    }
+                    listeningUserId.getListener().addEvent(eventMethods.get("jobStateUpdatedEvent"), notification);
                 }
             }
             clearListeners();
@@ -737,20 +823,12 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
                 tlogger.debug(notification.getData().getTaskId(), "event [" + notification.getEventType() +
                     "]");
             }
-            for (ListeningUser listeningUserId : identifications.values()) {
+            //only the users which have the myEventOnly=false or (myEventOnly=true and it is its event)
+            for (ListeningUser listeningUserId : listenersIndex.getListeners(notification.getEventType(),
+                    owner)) {
                 //if this user has a listener
                 if (listeningUserId.isListening()) {
-                    UserIdentificationImpl userId = listeningUserId.getUser();
-                    //if there is no specified event OR if the specified event is allowed
-                    if ((userId.getUserEvents() == null) ||
-                        userId.getUserEvents().contains(notification.getEventType())) {
-                        //if this userId have the myEventOnly=false or (myEventOnly=true and it is its event)
-                        if (!userId.isMyEventsOnly() ||
-                            (userId.isMyEventsOnly() && userId.getUsername().equals(owner))) {
-                            listeningUserId.getListener().addEvent(eventMethods.get("taskStateUpdatedEvent"),
-                                    notification);
-                        }
-                    }
+                    listeningUserId.getListener().addEvent(eventMethods.get("taskStateUpdatedEvent"), notification);
                 }
             }
             clearListeners();
@@ -770,21 +848,13 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
             if (logger.isDebugEnabled()) {
                 logger.debug("event [" + notification.getEventType() + "]");
             }
-            for (ListeningUser listeningUserId : identifications.values()) {
+            //only the users which have the myEventOnly=false or (myEventOnly=true and it is its event)
+            for (ListeningUser listeningUserId : listenersIndex.getListeners(notification.getEventType(),
+                    notification.getData().getUsername())) {
                 //if this user has a listener
                 if (listeningUserId.isListening()) {
-                    UserIdentificationImpl userId = listeningUserId.getUser();
-                    //if there is no specified event OR if the specified event is allowed
-                    if ((userId.getUserEvents() == null) ||
-                        userId.getUserEvents().contains(notification.getEventType())) {
-                        //if this userId have the myEventOnly=false or (myEventOnly=true and it is its event)
-                        if (!userId.isMyEventsOnly() ||
-                            (userId.isMyEventsOnly() && userId.getUsername().equals(
-                                    notification.getData().getUsername()))) {
-                            listeningUserId.getListener().addEvent(eventMethods.get("usersUpdatedEvent"),
-                                    notification);
-                        }
-                    }
+                    listeningUserId.getListener().addEvent(eventMethods.get("usersUpdatedEvent"),
+                            notification);
                 }
             }
             //Important condition to avoid recursive checks
@@ -844,56 +914,74 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
     @Override
     public synchronized void jobSubmitted(JobState job) {
         JobState storedJobState = new ClientJobState(job);
-        jobsMap.put(job.getId(), storedJobState);
-        sState.getPendingJobs().add(storedJobState);
+        jobsLock.writeLock().lock();
+        try {
+            jobsMap.put(job.getId(), storedJobState);
+            sState.getPendingJobs().add(storedJobState);
+        } finally {
+            jobsLock.writeLock().unlock();
+        }
         dispatchJobSubmitted(job);
+        jmxHelper.getSchedulerRuntimeMBean().jobSubmittedEvent(job);
     }
 
     @Override
     public synchronized void jobStateUpdated(String owner, NotificationData<JobInfo> notification) {
-        JobState js = jobsMap.get(notification.getData().getJobId());
-        js.update(notification.getData());
-        switch (notification.getEventType()) {
-            case JOB_PENDING_TO_RUNNING:
-                sState.getPendingJobs().remove(js);
-                sState.getRunningJobs().add(js);
-                break;
-            case JOB_PAUSED:
-            case JOB_RESUMED:
-            case JOB_CHANGE_PRIORITY:
-            case TASK_REPLICATED:
-            case TASK_SKIPPED:
-                break;
-            case JOB_PENDING_TO_FINISHED:
-                sState.getPendingJobs().remove(js);
-                sState.getFinishedJobs().add(js);
-                //set this job finished, user can get its result
-                jobs.get(notification.getData().getJobId()).setFinished(true);
-                break;
-            case JOB_RUNNING_TO_FINISHED:
-                sState.getRunningJobs().remove(js);
-                sState.getFinishedJobs().add(js);
-                //set this job finished, user can get its result
-                jobs.get(notification.getData().getJobId()).setFinished(true);
-                break;
-            case JOB_REMOVE_FINISHED:
-                //removing jobs from the global list : this job is no more managed
-                sState.getFinishedJobs().remove(js);
-                jobsMap.remove(js.getId());
-                jobs.remove(notification.getData().getJobId());
-                break;
-            default:
-                logger.warn("**WARNING** - Unconsistent update type received from Scheduler Core : " +
-                    notification.getEventType());
-                return;
+        JobState js;
+        jobsLock.writeLock().lock();
+        try {
+            js = jobsMap.get(notification.getData().getJobId());
+            js.update(notification.getData());
+            switch (notification.getEventType()) {
+                case JOB_PENDING_TO_RUNNING:
+                    sState.getPendingJobs().remove(js);
+                    sState.getRunningJobs().add(js);
+                    break;
+                case JOB_PAUSED:
+                case JOB_RESUMED:
+                case JOB_CHANGE_PRIORITY:
+                case TASK_REPLICATED:
+                case TASK_SKIPPED:
+                    break;
+                case JOB_PENDING_TO_FINISHED:
+                    sState.getPendingJobs().remove(js);
+                    sState.getFinishedJobs().add(js);
+                    //set this job finished, user can get its result
+                    jobs.get(notification.getData().getJobId()).setFinished(true);
+                    break;
+                case JOB_RUNNING_TO_FINISHED:
+                    sState.getRunningJobs().remove(js);
+                    sState.getFinishedJobs().add(js);
+                    //set this job finished, user can get its result
+                    jobs.get(notification.getData().getJobId()).setFinished(true);
+                    break;
+                case JOB_REMOVE_FINISHED:
+                    //removing jobs from the global list : this job is no more managed
+                    sState.getFinishedJobs().remove(js);
+                    jobsMap.remove(js.getId());
+                    jobs.remove(notification.getData().getJobId());
+                    break;
+                default:
+                    logger.warn("**WARNING** - Unconsistent update type received from Scheduler Core : " +
+                        notification.getEventType());
+                    return;
+            }
+        } finally {
+            jobsLock.writeLock().unlock();
         }
         dispatchJobStateUpdated(owner, notification);
+        jmxHelper.getSchedulerRuntimeMBean().jobStateUpdatedEvent(notification);
         new JobEmailNotification(js, notification).checkAndSend();
     }
 
     @Override
     public synchronized void taskStateUpdated(String owner, NotificationData<TaskInfo> notification) {
-        jobsMap.get(notification.getData().getJobId()).update(notification.getData());
+        jobsLock.writeLock().lock();
+        try {
+            jobsMap.get(notification.getData().getJobId()).update(notification.getData());
+        } finally {
+            jobsLock.writeLock().unlock();
+        }
         switch (notification.getEventType()) {
             case TASK_PENDING_TO_RUNNING:
             case TASK_RUNNING_TO_FINISHED:
@@ -911,7 +999,9 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
             default:
                 logger.warn("**WARNING** - Unconsistent update type received from Scheduler Core : " +
                     notification.getEventType());
+                return;
         }
+        jmxHelper.getSchedulerRuntimeMBean().taskStateUpdatedEvent(notification);
     }
 
     @Override
@@ -38,7 +38,10 @@ package org.ow2.proactive.scheduler.core;
 
 import java.security.PrivateKey;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -79,6 +82,7 @@ import org.ow2.proactive.threading.TimeoutThreadPoolExecutor;
 import org.ow2.proactive.topology.descriptor.TopologyDescriptor;
 import org.ow2.proactive.utils.Criteria;
 import org.ow2.proactive.utils.NodeSet;
+import org.ow2.proactive.utils.TaskIdWrapper;
 import org.apache.log4j.Logger;
 
 
@@ -116,18 +120,23 @@ public final class SchedulingMethodImpl implements SchedulingMethod {
     private String schedulerUrl = null;
 
     public SchedulingMethodImpl(SchedulingService schedulingService) throws Exception {
-        this.schedulingService = schedulingService;
-
-        terminateNotification = new TerminateNotification(schedulingService);
-        terminateNotification = PAActiveObject.turnActive(terminateNotification,
-                TaskTerminateNotification.class.getName(), null);
-
-        this.threadPool = TimeoutThreadPoolExecutor.newFixedThreadPool(
+        this(schedulingService, PAActiveObject.turnActive(new TerminateNotification(schedulingService),
+                TaskTerminateNotification.class.getName(), null), TimeoutThreadPoolExecutor.newFixedThreadPool(
                 PASchedulerProperties.SCHEDULER_STARTTASK_THREADNUMBER.getValueAsInt(),
-                new NamedThreadFactory("DoTask_Action"));
+                new NamedThreadFactory("DoTask_Action")), Credentials.getPrivateKey(PASchedulerProperties
+                .getAbsolutePath(PASchedulerProperties.SCHEDULER_AUTH_PRIVKEY_PATH.getValueAsString())));
+    }
+
+    /**
+     * Creates the scheduling method with the given services, without starting any active object.
+     */
+    SchedulingMethodImpl(SchedulingService schedulingService, TaskTerminateNotification terminateNotification,
+            TimeoutThreadPoolExecutor threadPool, PrivateKey corePrivateKey) {
+        this.schedulingService = schedulingService;
+        this.terminateNotification = terminateNotification;
+        this.threadPool = threadPool;
         this.internalPolicy = new InternalPolicy();
-        this.corePrivateKey = Credentials.getPrivateKey(PASchedulerProperties
-                .getAbsolutePath(PASchedulerProperties.SCHEDULER_AUTH_PRIVKEY_PATH.getValueAsString()));
+        this.corePrivateKey = corePrivateKey;
     }
 
     RMProxiesManager getRMProxiesManager() {
@@ -143,12 +152,13 @@ public final class SchedulingMethodImpl implements SchedulingMethod {
     /**
      * Scheduling process. For this implementation, steps are :<br>
      * <ul>
-     * 	<li>Select running and pending jobs to be scheduled
+     * 	<li>Select running and pending jobs that may have eligible tasks (maintained by job and task events)
      * 	<li>Get an ordered list of the selected tasks to be scheduled
      * 	<li>While returned tasks list is not empty :
      * 		<ul>
-     * 			<li>Get n first compatible tasks (same selection script, same node exclusion)
-     * 			<li>Ask nodes to RM according to the previous specification
+     * 			<li>Get the next groups of compatible tasks (same selection script, same node exclusion)
+     * 			as long as there are free resources
+     * 			<li>Ask nodes to RM for every group in a single request (per job owner)
      * 			<li>Try to start each tasks
      * 			<li>Job started event if needed
      * 			<li>Task started event
@@ -166,8 +176,13 @@ public final class SchedulingMethodImpl implements SchedulingMethod {
         activeObjectCreationRetryTimeNumber = ACTIVEOBJECT_CREATION_RETRY_TIME_NUMBER;
 
         //get job Descriptor list with eligible jobs (running and pending)
-        Map<JobId, JobDescriptor> jobMap = schedulingService.lockJobsToSchedule();
+        Map<JobId, JobDescriptor> jobMap = schedulingService.lockReadyJobsToSchedule();
         try {
+            //no job with eligible tasks
+            if (jobMap.isEmpty()) {
+                return numberOfTaskStarted;
+            }
+
             List<JobDescriptor> descriptors = new ArrayList<>(jobMap.size());
             descriptors.addAll(jobMap.values());
 
@@ -184,8 +199,8 @@ public final class SchedulingMethodImpl implements SchedulingMethod {
             logger.debug("eligible tasks : " + taskRetrievedFromPolicy.size());
 
             while (!taskRetrievedFromPolicy.isEmpty()) {
-                //get rmState and update it in scheduling policy
-                RMState rmState = getRMProxiesManager().getRmProxy().getState();
+                //get rmState from the local view and update it in scheduling policy
+                RMState rmState = getRMProxiesManager().getRmProxy().getCachedState();
                 currentPolicy.setRMState(rmState);
                 internalPolicy.RMState = rmState;
                 int freeResourcesNb = rmState.getFreeNodesNumber();
@@ -195,69 +210,48 @@ public final class SchedulingMethodImpl implements SchedulingMethod {
                     break;
                 }
 
-                //get the next compatible tasks from the whole returned policy tasks
-                LinkedList<EligibleTaskDescriptor> tasksToSchedule = new LinkedList<>();
-                int neededResourcesNumber = 0;
-                while (taskRetrievedFromPolicy.size() > 0 && neededResourcesNumber == 0) {
-                    //the loop will search for next compatible task until it find something
-                    neededResourcesNumber = getNextcompatibleTasks(jobMap, taskRetrievedFromPolicy,
-                            freeResourcesNb, tasksToSchedule);
+                //get the next groups of compatible tasks from the whole returned policy tasks,
+                //as long as there are free resources for them
+                List<LinkedList<EligibleTaskDescriptor>> taskGroups = new ArrayList<>();
+                List<Integer> neededResources = new ArrayList<>();
+                while (!taskRetrievedFromPolicy.isEmpty() && freeResourcesNb > 0) {
+                    LinkedList<EligibleTaskDescriptor> tasksToSchedule = new LinkedList<>();
+                    int neededResourcesNumber = 0;
+                    while (taskRetrievedFromPolicy.size() > 0 && neededResourcesNumber == 0) {
+                        //the loop will search for next compatible task until it find something
+                        neededResourcesNumber = getNextcompatibleTasks(jobMap, taskRetrievedFromPolicy,
+                                freeResourcesNb, tasksToSchedule);
+                    }
+                    if (neededResourcesNumber == 0) {
+                        break;
+                    }
+                    taskGroups.add(tasksToSchedule);
+                    neededResources.add(neededResourcesNumber);
+                    freeResourcesNb -= neededResourcesNumber;
                 }
-                logger.debug("required number of nodes : " + neededResourcesNumber);
-                if (neededResourcesNumber == 0) {
+                logger.debug("required number of nodes : " + neededResources);
+                if (taskGroups.isEmpty()) {
                     break;
                 }
 
-                NodeSet nodeSet = getRMNodes(jobMap, neededResourcesNumber, tasksToSchedule);
+                //ask nodes for every group at once
+                List<NodeSet> nodeSets = getRMNodes(jobMap, neededResources, taskGroups);
+
+                //load the executable containers of every task that got nodes at once
+                Map<TaskIdWrapper, ExecutableContainer> containers = loadExecutableContainers(jobMap,
+                        taskGroups, nodeSets);
 
                 //start selected tasks
-                Node node = null;
-                InternalJob currentJob = null;
-                try {
-                    while (nodeSet != null && !nodeSet.isEmpty()) {
-                        EligibleTaskDescriptor taskDescriptor = tasksToSchedule.removeFirst();
-                        currentJob = jobMap.get(taskDescriptor.getJobId()).getInternal();
-                        InternalTask internalTask = currentJob.getIHMTasks().get(taskDescriptor.getTaskId());
-
-                        // load and Initialize the executable container
-                        loadAndInit(internalTask);
-
-                        //create launcher and try to start the task
-                        node = nodeSet.get(0);
-                        numberOfTaskStarted++;
-                        createExecution(nodeSet, node, currentJob, internalTask, taskDescriptor);
-
-                        //if every task that should be launched have been removed
-                        if (tasksToSchedule.isEmpty()) {
-                            //get back unused nodes to the RManager
-                            if (!nodeSet.isEmpty()) {
-                                releaseNodes(currentJob, nodeSet);
-                            }
-                            //and leave the loop
-                            break;
+                for (int i = 0; i < taskGroups.size(); i++) {
+                    numberOfTaskStarted += startTasks(jobMap, nodeSets.get(i), taskGroups.get(i),
+                            containers);
+                    if (activeObjectCreationRetryTimeNumber == 0) {
+                        //get back the nodes of the groups that will not be started
+                        for (int j = i + 1; j < taskGroups.size(); j++) {
+                            releaseNodesQuietly(jobMap, taskGroups.get(j), nodeSets.get(j));
                         }
-                    }
-                } catch (ActiveObjectCreationException e1) {
-                    //Something goes wrong with the active object creation (createLauncher)
-                    logger.warn("An exception occured while creating the task launcher.", e1);
-                    //so try to get back every remaining nodes to the resource manager
-                    try {
-                        releaseNodes(currentJob, nodeSet);
-                    } catch (Exception e2) {
-                        logger.info("Unable to get back the nodeSet to the RM", e2);
-                    }
-                    if (--activeObjectCreationRetryTimeNumber == 0) {
                         return numberOfTaskStarted;
                     }
-                } catch (Exception e1) {
-                    //if we are here, it is that something append while launching the current task.
-                    logger.warn("An exception occured while starting task.", e1);
-                    //so try to get back every remaining nodes to the resource manager
-                    try {
-                        releaseNodes(currentJob, nodeSet);
-                    } catch (Exception e2) {
-                        logger.info("Unable to get back the nodeSet to the RM", e2);
-                    }
                 }
             }
 
@@ -267,6 +261,110 @@ public final class SchedulingMethodImpl implements SchedulingMethod {
         }
     }
 
+    /**
+     * Start the given tasks on the given nodes.<br>
+     * Unused nodes are given back to the resource manager.
+     *
+     * @param nodeSet the nodes provided for the tasks, can be null if nodes could not be provided
+     * @param tasksToSchedule the compatible tasks for which the nodes have been asked
+     * @param containers the preloaded executable containers of the tasks
+     * @return the number of tasks that have been started
+     */
+    int startTasks(Map<JobId, JobDescriptor> jobMap, NodeSet nodeSet,
+            LinkedList<EligibleTaskDescriptor> tasksToSchedule,
+            Map<TaskIdWrapper, ExecutableContainer> containers) {
+        int numberOfTaskStarted = 0;
+        Node node = null;
+        InternalJob currentJob = null;
+        try {
+            while (nodeSet != null && !nodeSet.isEmpty()) {
+                EligibleTaskDescriptor taskDescriptor = tasksToSchedule.removeFirst();
+                currentJob = jobMap.get(taskDescriptor.getJobId()).getInternal();
+                InternalTask internalTask = currentJob.getIHMTasks().get(taskDescriptor.getTaskId());
+
+                // load and Initialize the executable container
+                loadAndInit(internalTask, containers.get(TaskIdWrapper.wrap(internalTask.getId())));
+
+                //create launcher and try to start the task
+                node = nodeSet.get(0);
+                numberOfTaskStarted++;
+                createExecution(nodeSet, node, currentJob, internalTask, taskDescriptor);
+
+                //if every task that should be launched have been removed
+                if (tasksToSchedule.isEmpty()) {
+                    //get back unused nodes to the RManager
+                    if (!nodeSet.isEmpty()) {
+                        releaseNodes(currentJob, nodeSet);
+                    }
+                    //and leave the loop
+                    break;
+                }
+            }
+        } catch (ActiveObjectCreationException e1) {
+            //Something goes wrong with the active object creation (createLauncher)
+            logger.warn("An exception occured while creating the task launcher.", e1);
+            //so try to get back every remaining nodes to the resource manager
+            try {
+                releaseNodes(currentJob, nodeSet);
+            } catch (Exception e2) {
+                logger.info("Unable to get back the nodeSet to the RM", e2);
+            }
+            --activeObjectCreationRetryTimeNumber;
+        } catch (Exception e1) {
+            //if we are here, it is that something append while launching the current task.
+            logger.warn("An exception occured while starting task.", e1);
+            //so try to get back every remaining nodes to the resource manager
+            try {
+                releaseNodes(currentJob, nodeSet);
+            } catch (Exception e2) {
+                logger.info("Unable to get back the nodeSet to the RM", e2);
+            }
+        }
+        return numberOfTaskStarted;
+    }
+
+    /**
+     * Load the executable containers of the tasks of the groups which got nodes.<br>
+     * Loading errors are only logged, containers will then be loaded one by one when tasks are started.
+     *
+     * @return the loaded containers
+     */
+    private Map<TaskIdWrapper, ExecutableContainer> loadExecutableContainers(Map<JobId, JobDescriptor> jobMap,
+            List<LinkedList<EligibleTaskDescriptor>> taskGroups, List<NodeSet> nodeSets) {
+        List<InternalTask> tasks = new ArrayList<>();
+        for (int i = 0; i < taskGroups.size(); i++) {
+            NodeSet nodeSet = nodeSets.get(i);
+            if (nodeSet == null || nodeSet.isEmpty()) {
+                continue;
+            }
+            for (EligibleTaskDescriptor taskDescriptor : taskGroups.get(i)) {
+                InternalJob job = jobMap.get(taskDescriptor.getJobId()).getInternal();
+                tasks.add(job.getIHMTasks().get(taskDescriptor.getTaskId()));
+            }
+        }
+        if (tasks.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try {
+            return getDBManager().loadExecutableContainers(tasks);
+        } catch (Exception e) {
+            logger.warn("Unable to load the executable containers of the tasks to start", e);
+            return Collections.emptyMap();
+        }
+    }
+
+    void releaseNodesQuietly(Map<JobId, JobDescriptor> jobMap,
+            LinkedList<EligibleTaskDescriptor> tasksToSchedule, NodeSet nodeSet) {
+        if (nodeSet == null || nodeSet.isEmpty()) {
+            return;
+        }
+        try {
+            releaseNodes(jobMap.get(tasksToSchedule.getFirst().getJobId()).getInternal(), nodeSet);
+        } catch (Exception e) {
+            logger.info("Unable to get back the nodeSet to the RM", e);
+        }
+    }
+
     /**
      * Extract the n first compatible tasks from the first argument list,
      * and return them according that the extraction is stopped when the maxResource number is reached.<br>
@@ -335,6 +433,78 @@ public final class SchedulingMethodImpl implements SchedulingMethod {
         return neededResource;
     }
 
+    /**
+     * Ask to the RM the nodes for several groups of compatible tasks.<br>
+     * Groups owned by the same user are sent to the RM in a single request. Groups of parallel tasks
+     * are still asked one by one as their topology may lead the job to be canceled.
+     *
+     * @param neededResources the number of resources to ask for each group (must be > 0).
+     * @param taskGroups the groups of compatible tasks to be scheduled
+     * @return one nodeSet per group, in the same order as the groups (see {@link #getRMNodes(Map, int, LinkedList)})
+     */
+    protected List<NodeSet> getRMNodes(Map<JobId, JobDescriptor> jobMap, List<Integer> neededResources,
+            List<LinkedList<EligibleTaskDescriptor>> taskGroups) {
+        NodeSet[] nodeSets = new NodeSet[taskGroups.size()];
+
+        //groups to be asked in a single request, by owner
+        Map<String, List<Integer>> groupsByOwner = new LinkedHashMap<>();
+        for (int i = 0; i < taskGroups.size(); i++) {
+            LinkedList<EligibleTaskDescriptor> tasksToSchedule = taskGroups.get(i);
+            EligibleTaskDescriptor etd = tasksToSchedule.getFirst();
+            InternalJob currentJob = jobMap.get(etd.getJobId()).getInternal();
+            InternalTask internalTask = currentJob.getIHMTasks().get(etd.getTaskId());
+            if (internalTask.isParallel() || taskGroups.size() == 1) {
+                nodeSets[i] = getRMNodes(jobMap, neededResources.get(i), tasksToSchedule);
+            } else {
+                List<Integer> groups = groupsByOwner.get(currentJob.getOwner());
+                if (groups == null) {
+                    groups = new ArrayList<>();
+                    groupsByOwner.put(currentJob.getOwner(), groups);
+                }
+                groups.add(i);
+            }
+        }
+
+        for (List<Integer> groups : groupsByOwner.values()) {
+            InternalJob ownerJob = jobMap.get(taskGroups.get(groups.get(0)).getFirst().getJobId())
+                    .getInternal();
+            List<Criteria> criteriaList = new ArrayList<>(groups.size());
+            for (Integer i : groups) {
+                LinkedList<EligibleTaskDescriptor> tasksToSchedule = taskGroups.get(i);
+                EligibleTaskDescriptor etd = tasksToSchedule.getFirst();
+                InternalJob currentJob = jobMap.get(etd.getJobId()).getInternal();
+                InternalTask internalTask = currentJob.getIHMTasks().get(etd.getTaskId());
+                criteriaList.add(createCriteria(currentJob, internalTask, neededResources.get(i),
+                        TopologyDescriptor.ARBITRARY, true, tasksToSchedule));
+            }
+            try {
+                List<NodeSet> provided = getRMProxiesManager().getUserRMProxy(ownerJob.getOwner(),
+                        ownerJob.getCredentials()).getNodes(criteriaList);
+                for (int j = 0; j < groups.size(); j++) {
+                    NodeSet nodeSet = provided.get(j);
+                    if (nodeSet.getSelectionFailure() != null) {
+                        //not the same as no free node, the tasks are left for the next scheduling loop
+                        logger.error("Failed to select nodes for the tasks " +
+                            taskGroups.get(groups.get(j)), nodeSet.getSelectionFailure());
+                        nodeSet = null;
+                    }
+                    nodeSets[groups.get(j)] = nodeSet;
+                }
+                logger.debug("provided nodes for " + groups.size() + " groups of " + ownerJob.getOwner());
+            } catch (RMProxyCreationException e) {
+                logger.info("Failed to create User RM Proxy : " + e.getMessage());
+                logger.debug("", e);
+                for (Integer i : groups) {
+                    //simulate jobs starts and cancel it
+                    schedulingService.simulateJobStartAndCancelIt(taskGroups.get(i),
+                            "Failed to create User RM Proxy : Authentication Failed to Resource Manager for user '" +
+                                ownerJob.getOwner() + "'");
+                }
+            }
+        }
+        return Arrays.asList(nodeSets);
+    }
+
     /**
      * Ask to the RM the given number of node resources.<br>
      * If there is a problem with these task selection (such as bad selectionScript) this method
@@ -375,26 +545,8 @@ public final class SchedulingMethodImpl implements SchedulingMethod {
             }
 
             try {
-                Criteria criteria = new Criteria(neededResourcesNumber);
-                criteria.setTopology(descriptor);
-                // resolve script variables (if any) in the list of selection
-                // scripts and then set it as the selection criteria.
-                criteria.setScripts(resolveScriptVariables(internalTask.getSelectionScripts(), currentJob
-                        .getVariables()));
-                criteria.setBlackList(internalTask.getNodeExclusion());
-                criteria.setBestEffort(bestEffort);
-
-                if (internalTask.getGenericInformations().containsKey(SchedulerConstants.NODE_ACCESS_TOKEN)) {
-                    criteria.setNodeAccessToken(internalTask.getGenericInformations().get(
-                            SchedulerConstants.NODE_ACCESS_TOKEN));
-                }
-
-                Collection<String> computationDescriptors = new ArrayList<>(tasksToSchedule.size());
-                for (EligibleTaskDescriptor task : tasksToSchedule) {
-                    computationDescriptors.add(TaskLogger.getTaskLogFilename(task.getTaskId()));
-                }
-
-                criteria.setComputationDescriptors(computationDescriptors);
+                Criteria criteria = createCriteria(currentJob, internalTask, neededResourcesNumber,
+                        descriptor, bestEffort, tasksToSchedule);
 
                 nodeSet = getRMProxiesManager().getUserRMProxy(currentJob.getOwner(),
                         currentJob.getCredentials()).getNodes(criteria);
@@ -420,14 +572,64 @@ public final class SchedulingMethodImpl implements SchedulingMethod {
         }
     }
 
+    /**
+     * Build the criteria used to ask nodes for a group of compatible tasks.
+     *
+     * @param currentJob the job owning the first task of the group
+     * @param internalTask the first task of the group
+     * @param neededResourcesNumber the number of resources to ask for
+     * @param descriptor the topology descriptor
+     * @param bestEffort the mode of node aggregation
+     * @param tasksToSchedule the task to be scheduled
+     * @return the criteria for this group of tasks
+     */
+    private Criteria createCriteria(InternalJob currentJob, InternalTask internalTask,
+            int neededResourcesNumber, TopologyDescriptor descriptor, boolean bestEffort,
+            LinkedList<EligibleTaskDescriptor> tasksToSchedule) {
+        Criteria criteria = new Criteria(neededResourcesNumber);
+        criteria.setTopology(descriptor);
+        // resolve script variables (if any) in the list of selection
+        // scripts and then set it as the selection criteria.
+        criteria.setScripts(resolveScriptVariables(internalTask.getSelectionScripts(), currentJob
+                .getVariables()));
+        criteria.setBlackList(internalTask.getNodeExclusion());
+        criteria.setBestEffort(bestEffort);
+
+        if (internalTask.getGenericInformations().containsKey(SchedulerConstants.NODE_ACCESS_TOKEN)) {
+            criteria.setNodeAccessToken(internalTask.getGenericInformations().get(
+                    SchedulerConstants.NODE_ACCESS_TOKEN));
+        }
+
+        Collection<String> computationDescriptors = new ArrayList<>(tasksToSchedule.size());
+        for (EligibleTaskDescriptor task : tasksToSchedule) {
+            computationDescriptors.add(TaskLogger.getTaskLogFilename(task.getTaskId()));
+        }
+
+        criteria.setComputationDescriptors(computationDescriptors);
+        return criteria;
+    }
+
     /**
      * Load and initialize the task to be started
      *
      * @param task the task to be initialized
      */
     protected void loadAndInit(InternalTask task) {
+        loadAndInit(task, null);
+    }
+
+    /**
+     * Initialize the task to be started with the given container,
+     * the container is loaded if it has not been preloaded.
+     *
+     * @param task the task to be initialized
+     * @param container the preloaded container of the task, can be null
+     */
+    protected void loadAndInit(InternalTask task, ExecutableContainer container) {
         tlogger.debug(task.getId(), "initializing the executable container");
-        ExecutableContainer container = getDBManager().loadExecutableContainer(task);
+        if (container == null) {
+            container = getDBManager().loadExecutableContainer(task);
+        }
         task.setExecutableContainer(container);
     }
 
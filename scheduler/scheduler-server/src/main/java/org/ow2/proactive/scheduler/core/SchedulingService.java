@@ -302,6 +302,14 @@ public class SchedulingService {
         return jobs.lockJobsToSchedule();
     }
 
+    /*
+     * Should be called only by scheduling method impl when job scheduling starts,
+     * locks only the jobs which may have eligible tasks
+     */
+    public Map<JobId, JobDescriptor> lockReadyJobsToSchedule() {
+        return jobs.lockReadyJobsToSchedule();
+    }
+
     /*
      * Should be called only by scheduling method impl after job scheduling finished
      */
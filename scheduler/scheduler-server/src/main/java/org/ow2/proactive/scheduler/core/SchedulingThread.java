@@ -15,6 +15,9 @@ public final class SchedulingThread extends Thread {
 
     private final SchedulingService service;
 
+    /** Set when a wake up is requested while the thread is not waiting, so the event is not lost */
+    private boolean wakeUpRequested = false;
+
     public SchedulingThread(SchedulingMethod schedulingMethod, SchedulingService service) {
         super("SchedulingThread");
         this.schedulingMethod = schedulingMethod;
@@ -44,12 +47,16 @@ public final class SchedulingThread extends Thread {
 
     protected void sleepSchedulingThread() throws InterruptedException {
         synchronized (this) {
-            this.wait(SCHEDULER_TIME_OUT);
+            if (!wakeUpRequested) {
+                this.wait(SCHEDULER_TIME_OUT);
+            }
+            wakeUpRequested = false;
         }
     }
 
     protected void wakeUpSchedulingThread() {
         synchronized (this) {
+            wakeUpRequested = true;
             this.notifyAll();
         }
     }
@@ -126,6 +126,7 @@ final class TerminationData {
             service.getInfrastructure().schedule(new Runnable() {
                 public void run() {
                     service.jobs.restartWaitingTask(restartData.taskId);
+                    service.wakeUpSchedulingThread();
                 }
             }, restartData.waitTime);
         }
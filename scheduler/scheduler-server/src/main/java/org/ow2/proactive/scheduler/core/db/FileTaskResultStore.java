@@ -0,0 +1,99 @@
+package org.ow2.proactive.scheduler.core.db;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+
+/**
+ * Content-addressed {@link TaskResultStore} writing every content in a file named after its
+ * SHA-256 digest. Identical contents are stored only once.
+ * <p>
+ * Files are spread in two levels of sub-directories built from the first characters of the
+ * digest, so that no directory holds too many files.
+ */
+public class FileTaskResultStore implements TaskResultStore {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Path root;
+
+    public FileTaskResultStore(File root) throws IOException {
+        this.root = root.toPath();
+        Files.createDirectories(this.root);
+    }
+
+    @Override
+    public String store(byte[] content) throws IOException {
+        String reference = digest(content);
+        Path file = getPath(reference);
+        if (Files.exists(file)) {
+            return reference;
+        }
+
+        Files.createDirectories(file.getParent());
+        // content is written in a temporary file first so that a partially written file is never visible
+        Path temporaryFile = Files.createTempFile(file.getParent(), reference, ".tmp");
+        try {
+            Files.write(temporaryFile, content);
+            Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // stored concurrently with the same content
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+        return reference;
+    }
+
+    @Override
+    public InputStream open(String reference) throws IOException {
+        try {
+            return Files.newInputStream(getPath(reference));
+        } catch (NoSuchFileException e) {
+            throw new IOException("No task result content for reference " + reference, e);
+        }
+    }
+
+    @Override
+    public byte[] load(String reference) throws IOException {
+        try {
+            return Files.readAllBytes(getPath(reference));
+        } catch (NoSuchFileException e) {
+            throw new IOException("No task result content for reference " + reference, e);
+        }
+    }
+
+    @Override
+    public void delete(String reference) throws IOException {
+        Files.deleteIfExists(getPath(reference));
+    }
+
+    private Path getPath(String reference) {
+        if (reference.length() < 4) {
+            throw new IllegalArgumentException("Invalid task result reference: " + reference);
+        }
+        return root.resolve(reference.substring(0, 2)).resolve(reference.substring(2, 4)).resolve(reference);
+    }
+
+    private static String digest(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            char[] hex = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xf];
+                hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xf];
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
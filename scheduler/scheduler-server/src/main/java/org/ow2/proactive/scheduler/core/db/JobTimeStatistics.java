@@ -0,0 +1,67 @@
+package org.ow2.proactive.scheduler.core.db;
+
+/**
+ * Aggregated submission, pending and execution times of the jobs stored in the database.
+ */
+public final class JobTimeStatistics {
+
+    private final long submittedJobsCount;
+
+    private final long firstSubmittedTime;
+
+    private final long lastSubmittedTime;
+
+    private final long startedJobsCount;
+
+    private final long totalPendingTime;
+
+    private final long executedJobsCount;
+
+    private final long totalExecutionTime;
+
+    JobTimeStatistics(long submittedJobsCount, long firstSubmittedTime, long lastSubmittedTime,
+            long startedJobsCount, long totalPendingTime, long executedJobsCount, long totalExecutionTime) {
+        this.submittedJobsCount = submittedJobsCount;
+        this.firstSubmittedTime = firstSubmittedTime;
+        this.lastSubmittedTime = lastSubmittedTime;
+        this.startedJobsCount = startedJobsCount;
+        this.totalPendingTime = totalPendingTime;
+        this.executedJobsCount = executedJobsCount;
+        this.totalExecutionTime = totalExecutionTime;
+    }
+
+    public long getSubmittedJobsCount() {
+        return submittedJobsCount;
+    }
+
+    public long getFirstSubmittedTime() {
+        return firstSubmittedTime;
+    }
+
+    public long getLastSubmittedTime() {
+        return lastSubmittedTime;
+    }
+
+    /**
+     * @return the number of jobs which have started, used to compute the mean pending time
+     */
+    public long getStartedJobsCount() {
+        return startedJobsCount;
+    }
+
+    public long getTotalPendingTime() {
+        return totalPendingTime;
+    }
+
+    /**
+     * @return the number of jobs which have started and finished, used to compute the mean execution time
+     */
+    public long getExecutedJobsCount() {
+        return executedJobsCount;
+    }
+
+    public long getTotalExecutionTime() {
+        return totalExecutionTime;
+    }
+
+}
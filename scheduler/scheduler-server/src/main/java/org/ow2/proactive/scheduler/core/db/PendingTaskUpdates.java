@@ -0,0 +1,173 @@
+package org.ow2.proactive.scheduler.core.db;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ow2.proactive.scheduler.common.job.JobInfo;
+import org.ow2.proactive.scheduler.common.job.JobStatus;
+import org.ow2.proactive.scheduler.common.task.TaskInfo;
+import org.ow2.proactive.scheduler.common.task.TaskStatus;
+import org.ow2.proactive.scheduler.task.TaskResultImpl;
+
+
+/**
+ * Queue of the state changes of finished tasks which have not been written to the database yet.
+ * <p>
+ * State changes are snapshots of the job and task attributes taken when the change is queued.
+ * Successive snapshots of the same job or task replace each other, so only the last one
+ * is written. Task results are never coalesced and are written in the order they were queued.
+ * <p>
+ * This class is not thread safe, callers must synchronize on it.
+ */
+final class PendingTaskUpdates {
+
+    private Map<Long, JobUpdate> jobUpdates = new LinkedHashMap<>();
+
+    private Map<TaskData.DBTaskId, TaskUpdate> taskUpdates = new LinkedHashMap<>();
+
+    private List<ResultUpdate> results = new ArrayList<>();
+
+    void addJobUpdate(long jobId, JobInfo jobInfo) {
+        jobUpdates.put(jobId, new JobUpdate(jobId, jobInfo));
+    }
+
+    void addTaskUpdate(TaskData.DBTaskId taskId, TaskInfo taskInfo) {
+        taskUpdates.put(taskId, new TaskUpdate(taskId, taskInfo));
+    }
+
+    void addResult(TaskData.DBTaskId taskId, TaskResultImpl result) {
+        results.add(new ResultUpdate(taskId, result));
+    }
+
+    /**
+     * @return the number of queued task state changes
+     */
+    int size() {
+        return Math.max(taskUpdates.size(), results.size());
+    }
+
+    boolean isEmpty() {
+        return jobUpdates.isEmpty() && taskUpdates.isEmpty() && results.isEmpty();
+    }
+
+    /**
+     * Removes every queued state change from this queue.
+     *
+     * @return a queue holding the removed state changes
+     */
+    PendingTaskUpdates drain() {
+        PendingTaskUpdates drained = new PendingTaskUpdates();
+        drained.jobUpdates = jobUpdates;
+        drained.taskUpdates = taskUpdates;
+        drained.results = results;
+        jobUpdates = new LinkedHashMap<>();
+        taskUpdates = new LinkedHashMap<>();
+        results = new ArrayList<>();
+        return drained;
+    }
+
+    /**
+     * Puts back state changes which could not be written. They are older than the ones
+     * queued meanwhile, which therefore replace them.
+     *
+     * @param failed the state changes previously removed with {@link #drain()}
+     */
+    void restore(PendingTaskUpdates failed) {
+        Map<Long, JobUpdate> restoredJobUpdates = new LinkedHashMap<>(failed.jobUpdates);
+        restoredJobUpdates.putAll(jobUpdates);
+        jobUpdates = restoredJobUpdates;
+
+        Map<TaskData.DBTaskId, TaskUpdate> restoredTaskUpdates = new LinkedHashMap<>(failed.taskUpdates);
+        restoredTaskUpdates.putAll(taskUpdates);
+        taskUpdates = restoredTaskUpdates;
+
+        List<ResultUpdate> restoredResults = new ArrayList<>(failed.results);
+        restoredResults.addAll(results);
+        results = restoredResults;
+    }
+
+    /**
+     * @return the jobs and tasks whose state changes are queued, to report them
+     */
+    @Override
+    public String toString() {
+        List<String> tasks = new ArrayList<>(taskUpdates.size());
+        for (TaskData.DBTaskId taskId : taskUpdates.keySet()) {
+            tasks.add(taskId.getJobId() + "/" + taskId.getTaskId());
+        }
+        return "jobs " + jobUpdates.keySet() + ", tasks " + tasks + ", " + results.size() + " task results";
+    }
+
+    Collection<JobUpdate> getJobUpdates() {
+        return jobUpdates.values();
+    }
+
+    Collection<TaskUpdate> getTaskUpdates() {
+        return taskUpdates.values();
+    }
+
+    List<ResultUpdate> getResults() {
+        return results;
+    }
+
+    static final class JobUpdate {
+
+        final long jobId;
+
+        final JobStatus status;
+
+        final long finishedTime;
+
+        final int numberOfPendingTasks;
+
+        final int numberOfFinishedTasks;
+
+        final int numberOfRunningTasks;
+
+        JobUpdate(long jobId, JobInfo jobInfo) {
+            this.jobId = jobId;
+            this.status = jobInfo.getStatus();
+            this.finishedTime = jobInfo.getFinishedTime();
+            this.numberOfPendingTasks = jobInfo.getNumberOfPendingTasks();
+            this.numberOfFinishedTasks = jobInfo.getNumberOfFinishedTasks();
+            this.numberOfRunningTasks = jobInfo.getNumberOfRunningTasks();
+        }
+
+    }
+
+    static final class TaskUpdate {
+
+        final TaskData.DBTaskId taskId;
+
+        final TaskStatus status;
+
+        final long finishedTime;
+
+        final long executionDuration;
+
+        TaskUpdate(TaskData.DBTaskId taskId, TaskInfo taskInfo) {
+            this.taskId = taskId;
+            this.status = taskInfo.getStatus();
+            this.finishedTime = taskInfo.getFinishedTime();
+            this.executionDuration = taskInfo.getExecutionDuration();
+        }
+
+    }
+
+    static final class ResultUpdate {
+
+        final TaskData.DBTaskId taskId;
+
+        final TaskResultImpl result;
+
+        ResultUpdate(TaskData.DBTaskId taskId, TaskResultImpl result) {
+            this.taskId = taskId;
+            this.result = result;
+        }
+
+    }
+
+}
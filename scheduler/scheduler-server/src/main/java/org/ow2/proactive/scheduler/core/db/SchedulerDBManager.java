@@ -1,7 +1,9 @@
 package org.ow2.proactive.scheduler.core.db;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.util.ArrayList;
@@ -15,8 +17,18 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.utils.NamedThreadFactory;
 import org.ow2.proactive.db.DatabaseManagerException;
 import org.ow2.proactive.db.FilteredExceptionCallback;
 import org.ow2.proactive.db.SortParameter;
@@ -52,6 +64,7 @@ import org.ow2.proactive.scheduler.task.internal.InternalScriptTask;
 import org.ow2.proactive.scheduler.task.internal.InternalTask;
 import org.ow2.proactive.scripting.InvalidScriptException;
 import org.ow2.proactive.utils.FileToBytesConverter;
+import org.ow2.proactive.utils.TaskIdWrapper;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import org.apache.log4j.Logger;
@@ -76,11 +89,29 @@ public class SchedulerDBManager {
 
     private static final String JAVA_PROPERTYNAME_NODB = "scheduler.database.nodb";
 
+    private static final int DEFAULT_EXECUTABLE_CONTAINER_CACHE_SIZE = 10000;
+
+    private static final int DEFAULT_WRITE_BEHIND_BATCH_SIZE = 100;
+
+    private static final String DEFAULT_JDBC_BATCH_SIZE = "50";
+
+    private static final int LOAD_JOBS_BATCH_SIZE = 100;
+
+    private static final int DEFAULT_RESULT_STORE_THRESHOLD = 64 * 1024;
+
+    /** Maximum number of task result content references checked by a single query */
+    private static final int RESULT_REFERENCES_BATCH_SIZE = 500;
+
+    private static final int DEFAULT_WRITE_BEHIND_DELAY = 500;
+
+    /** Number of consecutive failed writes after which the pending state changes are dropped */
+    private static final int MAX_WRITE_BEHIND_ATTEMPTS = 5;
+
     private static final Logger logger = Logger.getLogger(SchedulerDBManager.class);
 
     private static final Logger debugLogger = Logger.getLogger(SchedulerDBManager.class);
 
-    private static final Set<JobStatus> FINISHED_JOB_STATUSES =
+    public static final Set<JobStatus> FINISHED_JOB_STATUSES =
             ImmutableSet.of(
                     JobStatus.CANCELED,
                     JobStatus.FAILED,
@@ -97,16 +128,80 @@ public class SchedulerDBManager {
                     JobStatus.STALLED,
                     JobStatus.RUNNING);
 
-    private static final Set<JobStatus> NOT_FINISHED_JOB_STATUSES =
+    public static final Set<JobStatus> NOT_FINISHED_JOB_STATUSES =
             ImmutableSet.copyOf(
                     Iterables.concat(
                         RUNNING_JOB_STATUSES,
                         PENDING_JOB_STATUSES));
 
+    /*
+     * Statuses counted by the statistics queries, the runtime data MBean counts the jobs and
+     * tasks it is notified of in the same way
+     */
+
+    public static final Set<JobStatus> STATISTICS_PENDING_JOB_STATUSES =
+            ImmutableSet.of(
+                    JobStatus.PAUSED,
+                    JobStatus.PENDING);
+
+    public static final Set<JobStatus> STATISTICS_RUNNING_JOB_STATUSES =
+            ImmutableSet.of(
+                    JobStatus.RUNNING,
+                    JobStatus.STALLED);
+
+    /** Counted only for the jobs which are not finished */
+    public static final Set<TaskStatus> STATISTICS_PENDING_TASK_STATUSES =
+            ImmutableSet.of(
+                    TaskStatus.SUBMITTED,
+                    TaskStatus.PAUSED,
+                    TaskStatus.PENDING,
+                    TaskStatus.WAITING_ON_ERROR,
+                    TaskStatus.WAITING_ON_FAILURE);
+
+    /** Counted only for the jobs which are not finished */
+    public static final Set<TaskStatus> STATISTICS_RUNNING_TASK_STATUSES =
+            ImmutableSet.of(
+                    TaskStatus.RUNNING);
+
+    public static final Set<TaskStatus> STATISTICS_FINISHED_TASK_STATUSES =
+            ImmutableSet.of(
+                    TaskStatus.FINISHED,
+                    TaskStatus.FAULTY);
+
     private final SessionFactory sessionFactory;
 
     private final TransactionHelper transactionHelper;
 
+    private final TaskScriptCache taskScriptCache;
+
+    /** State changes of finished tasks not written yet, null if write-behind is disabled */
+    private final PendingTaskUpdates pendingTaskUpdates;
+
+    /** Serializes the writes of the pending state changes */
+    private final Object pendingTaskUpdatesFlushLock = new Object();
+
+    private final int writeBehindBatchSize;
+
+    /** Number of consecutive flushes which failed to write the pending state changes */
+    private int failedWriteBehindAttempts;
+
+    private ScheduledExecutorService writeBehindFlusher;
+
+    /** Store of the large task result payloads, null if they are kept in the database */
+    private final TaskResultStore resultStore;
+
+    private final int resultStoreThreshold;
+
+    /**
+     * Held for reading by the transactions which may store task result contents, until they are
+     * committed, and for writing while unused contents are deleted. As identical contents share the
+     * same reference, it prevents a content from being deleted while a new result refers to it.
+     */
+    private final ReadWriteLock resultStoreLock = new ReentrantReadWriteLock();
+
+    /** References of the task result contents stored by the current transaction of a thread */
+    private final ThreadLocal<Set<String>> storedResultReferences = new ThreadLocal<>();
+
     public static SchedulerDBManager createUsingProperties() {
         if (System.getProperty(JAVA_PROPERTYNAME_NODB) != null) {
             return createInMemorySchedulerDBManager();
@@ -150,6 +245,7 @@ public class SchedulerDBManager {
             configuration.addAnnotatedClass(EnvironmentModifierData.class);
             configuration.addAnnotatedClass(SelectorData.class);
             configuration.addAnnotatedClass(ThirdPartyCredentialData.class);
+            configuration.addAnnotatedClass(UserAccountData.class);
             if (drop) {
                 configuration.setProperty("hibernate.hbm2ddl.auto", "create");
             }
@@ -157,6 +253,10 @@ public class SchedulerDBManager {
             configuration.setProperty("hibernate.id.new_generator_mappings", "true");
             configuration.setProperty("hibernate.jdbc.use_streams_for_binary", "true");
             configuration.setProperty("hibernate.connection.isolation", "2");
+            // group inserts and updates of a same table in JDBC batches unless configured otherwise
+            setPropertyIfAbsent(configuration, "hibernate.jdbc.batch_size", DEFAULT_JDBC_BATCH_SIZE);
+            setPropertyIfAbsent(configuration, "hibernate.order_inserts", "true");
+            setPropertyIfAbsent(configuration, "hibernate.order_updates", "true");
 
             ServiceRegistry serviceRegistry = new ServiceRegistryBuilder().applySettings(
                     configuration.getProperties()).buildServiceRegistry();
@@ -166,7 +266,84 @@ public class SchedulerDBManager {
             throw new DatabaseManagerException("Initial SessionFactory creation failed", ex);
         }
         transactionHelper = new TransactionHelper(sessionFactory);
+        taskScriptCache = new TaskScriptCache(getExecutableContainerCacheSize());
+
+        resultStore = createResultStore();
+        if (PASchedulerProperties.SCHEDULER_DB_RESULT_STORE_THRESHOLD.isSet()) {
+            resultStoreThreshold = PASchedulerProperties.SCHEDULER_DB_RESULT_STORE_THRESHOLD.getValueAsInt();
+        } else {
+            resultStoreThreshold = DEFAULT_RESULT_STORE_THRESHOLD;
+        }
 
+        writeBehindBatchSize = getWriteBehindBatchSize();
+        if (PASchedulerProperties.SCHEDULER_DB_WRITE_BEHIND_ENABLED.getValueAsBoolean()) {
+            pendingTaskUpdates = new PendingTaskUpdates();
+            startWriteBehindFlusher();
+        } else {
+            pendingTaskUpdates = null;
+        }
+
+        if (!drop) {
+            initializeAccounts();
+        }
+    }
+
+    private static TaskResultStore createResultStore() {
+        String path = PASchedulerProperties.SCHEDULER_DB_RESULT_STORE_PATH.getValueAsStringOrNull();
+        if (path == null || path.trim().isEmpty()) {
+            return null;
+        }
+        File root = new File(PASchedulerProperties.getAbsolutePath(path.trim()));
+        try {
+            TaskResultStore store = new FileTaskResultStore(root);
+            logger.info("Large task results are stored in " + root.getAbsolutePath());
+            return store;
+        } catch (IOException e) {
+            throw new DatabaseManagerException("Failed to create the task result store in " + root, e);
+        }
+    }
+
+    private static void setPropertyIfAbsent(Configuration configuration, String name, String value) {
+        if (configuration.getProperty(name) == null) {
+            configuration.setProperty(name, value);
+        }
+    }
+
+    private void startWriteBehindFlusher() {
+        int delay = DEFAULT_WRITE_BEHIND_DELAY;
+        if (PASchedulerProperties.SCHEDULER_DB_WRITE_BEHIND_DELAY.isSet()) {
+            delay = PASchedulerProperties.SCHEDULER_DB_WRITE_BEHIND_DELAY.getValueAsInt();
+        }
+        writeBehindFlusher = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory(
+            "SchedulerDBWriteBehind"));
+        writeBehindFlusher.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    flushPendingTaskUpdates();
+                } catch (Throwable t) {
+                    debugLogger.error("Failed to write the state of finished tasks", t);
+                }
+            }
+        }, delay, delay, TimeUnit.MILLISECONDS);
+        logger.info("Write-behind of finished tasks enabled with batch size = " + writeBehindBatchSize +
+            " and delay = " + delay + " ms");
+    }
+
+    private static int getWriteBehindBatchSize() {
+        if (PASchedulerProperties.SCHEDULER_DB_WRITE_BEHIND_BATCH_SIZE.isSet()) {
+            return PASchedulerProperties.SCHEDULER_DB_WRITE_BEHIND_BATCH_SIZE.getValueAsInt();
+        } else {
+            return DEFAULT_WRITE_BEHIND_BATCH_SIZE;
+        }
+    }
+
+    private static int getExecutableContainerCacheSize() {
+        if (PASchedulerProperties.SCHEDULER_DB_EXECUTABLE_CONTAINER_CACHE_SIZE.isSet()) {
+            return PASchedulerProperties.SCHEDULER_DB_EXECUTABLE_CONTAINER_CACHE_SIZE.getValueAsInt();
+        } else {
+            return DEFAULT_EXECUTABLE_CONTAINER_CACHE_SIZE;
+        }
     }
 
     public List<JobInfo> getJobs(final int offset, final int limit, final String user, final boolean pending,
@@ -295,6 +472,14 @@ public class SchedulerDBManager {
     }
 
     public void close() {
+        if (writeBehindFlusher != null) {
+            writeBehindFlusher.shutdown();
+            try {
+                flushPendingTaskUpdates();
+            } catch (Exception e) {
+                debugLogger.error("Failed to write the state of finished tasks", e);
+            }
+        }
         try {
             if (sessionFactory != null) {
                 debugLogger.info("Closing session factory");
@@ -310,11 +495,11 @@ public class SchedulerDBManager {
     }
 
     public long getPendingJobsCount() {
-        return getJobsNumberWithStatus(Arrays.asList(JobStatus.PAUSED, JobStatus.PENDING));
+        return getJobsNumberWithStatus(STATISTICS_PENDING_JOB_STATUSES);
     }
 
     public long getRunningJobsCount() {
-        return getJobsNumberWithStatus(Arrays.asList(JobStatus.RUNNING, JobStatus.STALLED));
+        return getJobsNumberWithStatus(STATISTICS_RUNNING_JOB_STATUSES);
     }
 
     public long getTotalJobsCount() {
@@ -352,7 +537,7 @@ public class SchedulerDBManager {
                 Query query = session
                         .createQuery(
                                 "select count(*) from TaskData task where taskStatus in (:taskStatus) and task.jobData.removedTime = -1")
-                        .setParameterList("taskStatus", Arrays.asList(TaskStatus.FINISHED, TaskStatus.FAULTY));
+                        .setParameterList("taskStatus", STATISTICS_FINISHED_TASK_STATUSES);
 
 
                 return (Long) query.uniqueResult();
@@ -366,13 +551,11 @@ public class SchedulerDBManager {
 
             @Override
             public Long executeWork(Session session) {
-                Collection<TaskStatus> taskStatus = Arrays.asList(TaskStatus.SUBMITTED, TaskStatus.PAUSED,
-                        TaskStatus.PENDING, TaskStatus.WAITING_ON_ERROR, TaskStatus.WAITING_ON_FAILURE);
                 Query query = session
                         .createQuery(
                                 "select count(*) from TaskData task where taskStatus in (:taskStatus) and task.jobData.status in (:jobStatus) and task.jobData.removedTime = -1")
                         .setParameterList("jobStatus", NOT_FINISHED_JOB_STATUSES).setParameterList("taskStatus",
-                                taskStatus);
+                                STATISTICS_PENDING_TASK_STATUSES);
 
                 return (Long) query.uniqueResult();
             }
@@ -389,7 +572,7 @@ public class SchedulerDBManager {
                         "select count(*) from TaskData task where taskStatus in (:taskStatus) "
                             + "and task.jobData.status in (:jobStatus) and task.jobData.removedTime = -1")
                         .setParameterList("jobStatus", NOT_FINISHED_JOB_STATUSES).setParameterList("taskStatus",
-                                Arrays.asList(TaskStatus.RUNNING));
+                                STATISTICS_RUNNING_TASK_STATUSES);
 
                 return (Long) query.uniqueResult();
             }
@@ -457,6 +640,32 @@ public class SchedulerDBManager {
         });
     }
 
+    /**
+     * Loads the data needed to compute the mean job pending time, execution time and submitting period.
+     */
+    public JobTimeStatistics loadJobTimeStatistics() {
+        return runWithoutTransaction(new SessionWork<JobTimeStatistics>() {
+            @Override
+            public JobTimeStatistics executeWork(Session session) {
+                Object[] submitted = (Object[]) session.createQuery(
+                        "select count(*), min(submittedTime), max(submittedTime) from JobData").uniqueResult();
+                Object[] started = (Object[]) session.createQuery(
+                        "select count(*), sum(startTime - submittedTime) from JobData " +
+                            "where startTime > 0 and submittedTime > 0").uniqueResult();
+                Object[] executed = (Object[]) session.createQuery(
+                        "select count(*), sum(finishedTime - startTime) from JobData " +
+                            "where startTime > 0 and finishedTime > 0").uniqueResult();
+                return new JobTimeStatistics(toLong(submitted[0]), toLong(submitted[1]),
+                    toLong(submitted[2]), toLong(started[0]), toLong(started[1]), toLong(executed[0]),
+                    toLong(executed[1]));
+            }
+        });
+    }
+
+    private static long toLong(Object value) {
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+
     public long getJobRunningTime(final String jobId) {
         final long id = Long.parseLong(jobId);
         Long result = runWithoutTransaction(new SessionWork<Long>() {
@@ -591,41 +800,132 @@ public class SchedulerDBManager {
 
             @Override
             public SchedulerAccount executeWork(Session session) {
+                int taskCount = 0;
+                long taskDuration = 0;
+                int jobCount = 0;
+                long jobDuration = 0;
+
+                // finished jobs are already accounted
+                UserAccountData accountData = (UserAccountData) session.get(UserAccountData.class, username);
+                if (accountData != null) {
+                    taskCount = accountData.getTaskCount();
+                    taskDuration = accountData.getTaskDuration();
+                    jobCount = accountData.getJobCount();
+                    jobDuration = accountData.getJobDuration();
+                }
+
+                // only the tasks of the jobs which are not finished yet have to be read
                 Query tasksQuery = session.createQuery(
                         "select count(*), sum(task.finishedTime) - sum(task.startTime) from TaskData task "
-                            + "where task.finishedTime > 0 and task.jobData.owner = :username").setParameter(
-                        "username", username);
-
-                int taskCount;
-                long taskDuration;
+                            + "where task.finishedTime > 0 and task.jobData.owner = :username "
+                            + "and task.jobData.status in (:statuses)").setParameter("username", username)
+                        .setParameterList("statuses", NOT_FINISHED_JOB_STATUSES);
 
                 Object[] taskResult = (Object[]) tasksQuery.uniqueResult();
-                taskCount = ((Number) taskResult[0]).intValue();
+                taskCount += ((Number) taskResult[0]).intValue();
                 if (taskResult[1] != null) {
-                    taskDuration = ((Number) taskResult[1]).longValue();
-                } else {
-                    taskDuration = 0;
+                    taskDuration += ((Number) taskResult[1]).longValue();
                 }
 
-                int jobCount;
-                long jobDuration;
+                return new SchedulerAccount(username, taskCount, taskDuration, jobCount, jobDuration);
+            }
 
-                Query jobQuery = session.createQuery(
-                        "select count(*), sum(finishedTime) - sum(startTime) from JobData"
-                            + " where owner = :username and finishedTime > 0").setParameter("username",
-                        username);
+        });
+    }
 
-                Object[] jobResult = (Object[]) jobQuery.uniqueResult();
-                jobCount = ((Number) jobResult[0]).intValue();
-                if (jobResult[1] != null) {
-                    jobDuration = ((Number) jobResult[1]).longValue();
-                } else {
-                    jobDuration = 0;
+    /**
+     * Adds the tasks and the duration of a job which has just finished to the account of its owner.
+     * Must be called in the transaction writing the final state of the job and its tasks.
+     */
+    private void addFinishedJobToAccount(Session session, InternalJob job) {
+        Object[] taskResult = (Object[]) session.createQuery(
+                "select count(*), sum(finishedTime) - sum(startTime) from TaskData "
+                    + "where id.jobId = :jobId and finishedTime > 0").setParameter("jobId", jobId(job))
+                .uniqueResult();
+        int taskCount = ((Number) taskResult[0]).intValue();
+        long taskDuration = taskResult[1] == null ? 0 : ((Number) taskResult[1]).longValue();
+
+        int jobCount = 0;
+        long jobDuration = 0;
+        JobInfo jobInfo = job.getJobInfo();
+        if (jobInfo.getFinishedTime() > 0) {
+            jobCount = 1;
+            jobDuration = jobInfo.getFinishedTime() - jobInfo.getStartTime();
+        }
+
+        int updated = session.createQuery(
+                "update UserAccountData set taskCount = taskCount + :taskCount, "
+                    + "taskDuration = taskDuration + :taskDuration, jobCount = jobCount + :jobCount, "
+                    + "jobDuration = jobDuration + :jobDuration where username = :username")
+                .setParameter("taskCount", taskCount).setParameter("taskDuration", taskDuration)
+                .setParameter("jobCount", jobCount).setParameter("jobDuration", jobDuration).setParameter(
+                        "username", job.getOwner()).executeUpdate();
+        if (updated == 0) {
+            UserAccountData accountData = new UserAccountData(job.getOwner());
+            accountData.setTaskCount(taskCount);
+            accountData.setTaskDuration(taskDuration);
+            accountData.setJobCount(jobCount);
+            accountData.setJobDuration(jobDuration);
+            session.save(accountData);
+        }
+    }
+
+    private void createAccountIfAbsent(Session session, String username) {
+        if (session.get(UserAccountData.class, username) == null) {
+            session.save(new UserAccountData(username));
+        }
+    }
+
+    /**
+     * Fills the accounts table from the finished jobs when it is empty, which happens
+     * the first time an existing database is used with accounts stored incrementally.
+     */
+    private void initializeAccounts() {
+        runWithTransactionNoFlush(new SessionWork<Void>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Void executeWork(Session session) {
+                long accountsNumber = (Long) session.createQuery("select count(*) from UserAccountData")
+                        .uniqueResult();
+                if (accountsNumber > 0) {
+                    return null;
                 }
 
-                return new SchedulerAccount(username, taskCount, taskDuration, jobCount, jobDuration);
-            }
+                Map<String, UserAccountData> accounts = new HashMap<>();
+                for (String owner : (List<String>) session.createQuery("select distinct owner from JobData")
+                        .list()) {
+                    accounts.put(owner, new UserAccountData(owner));
+                }
+                if (accounts.isEmpty()) {
+                    return null;
+                }
+                logger.info("Initializing the accounts of " + accounts.size() + " users");
+
+                List<Object[]> taskResults = session.createQuery(
+                        "select task.jobData.owner, count(*), sum(task.finishedTime) - sum(task.startTime) "
+                            + "from TaskData task where task.finishedTime > 0 "
+                            + "and task.jobData.status in (:statuses) group by task.jobData.owner")
+                        .setParameterList("statuses", FINISHED_JOB_STATUSES).list();
+                for (Object[] taskResult : taskResults) {
+                    UserAccountData accountData = accounts.get(taskResult[0]);
+                    accountData.setTaskCount(((Number) taskResult[1]).intValue());
+                    accountData.setTaskDuration(toLong(taskResult[2]));
+                }
 
+                List<Object[]> jobResults = session.createQuery(
+                        "select owner, count(*), sum(finishedTime) - sum(startTime) from JobData "
+                            + "where finishedTime > 0 group by owner").list();
+                for (Object[] jobResult : jobResults) {
+                    UserAccountData accountData = accounts.get(jobResult[0]);
+                    accountData.setJobCount(((Number) jobResult[1]).intValue());
+                    accountData.setJobDuration(toLong(jobResult[2]));
+                }
+
+                for (UserAccountData accountData : accounts.values()) {
+                    session.save(accountData);
+                }
+                return null;
+            }
         });
     }
 
@@ -651,12 +951,18 @@ public class SchedulerDBManager {
     }
 
     public void removeJob(final JobId jobId, final long removedTime, final boolean removeData) {
-        runWithTransaction(new SessionWork<Void>() {
+        taskScriptCache.removeJob(jobId);
+        Set<String> resultReferences = runWithTransaction(new SessionWork<Set<String>>() {
             @Override
-            public Void executeWork(Session session) {
+            public Set<String> executeWork(Session session) {
                 long id = jobId(jobId);
+                Set<String> references = Collections.emptySet();
 
                 if (removeData) {
+                    if (resultStore != null) {
+                        references = getResultReferences(session, id);
+                    }
+
                     session.createSQLQuery("delete from TASK_DATA_DEPENDENCIES where JOB_ID = :jobId")
                             .setParameter("jobId", id).executeUpdate();
                     session.createSQLQuery("delete from TASK_DATA_JOINED_BRANCHES where JOB_ID = :jobId")
@@ -672,10 +978,124 @@ public class SchedulerDBManager {
                             "jobId", id).executeUpdate();
                 }
 
-                return null;
+                return references;
             }
 
         });
+
+        // stored contents are deleted once the transaction is committed
+        if (resultReferences != null && !resultReferences.isEmpty()) {
+            deleteUnusedResults(resultReferences);
+        }
+    }
+
+    /**
+     * Deletes the given contents from the result store if no task result refers to them.
+     * References are checked with the result store locked, as results committed meanwhile may
+     * refer to the same contents.
+     */
+    private void deleteUnusedResults(final Set<String> references) {
+        resultStoreLock.writeLock().lock();
+        try {
+            Set<String> unusedReferences = transactionHelper.runWithTransaction(
+                    new SessionWork<Set<String>>() {
+                        @Override
+                        public Set<String> executeWork(Session session) {
+                            return getUnusedResultReferences(session, references);
+                        }
+                    }, true);
+            if (unusedReferences == null) {
+                debugLogger.warn("Failed to check the references of task result contents " + references +
+                    ", they are not deleted");
+                return;
+            }
+            for (String reference : unusedReferences) {
+                try {
+                    resultStore.delete(reference);
+                } catch (IOException e) {
+                    debugLogger.warn("Failed to delete task result content " + reference, e);
+                }
+            }
+        } finally {
+            resultStoreLock.writeLock().unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> getResultReferences(Session session, long jobId) {
+        List<Object[]> rows = session.createQuery(
+                "select serializedValueReference, serializedExceptionReference, logsReference " +
+                    "from TaskResultData where taskRuntimeData.id.jobId = :jobId").setParameter("jobId",
+                jobId).list();
+        Set<String> references = new HashSet<>();
+        for (Object[] row : rows) {
+            for (Object reference : row) {
+                if (reference != null) {
+                    references.add((String) reference);
+                }
+            }
+        }
+        return references;
+    }
+
+    /**
+     * @return the references which are not used by any task result anymore
+     */
+    @SuppressWarnings("unchecked")
+    private Set<String> getUnusedResultReferences(Session session, Set<String> references) {
+        Set<String> unusedReferences = new HashSet<>(references);
+        List<String> referenceList = new ArrayList<>(references);
+        for (int i = 0; i < referenceList.size(); i += RESULT_REFERENCES_BATCH_SIZE) {
+            List<String> batch = referenceList.subList(i, Math.min(referenceList.size(), i +
+                RESULT_REFERENCES_BATCH_SIZE));
+            List<Object[]> rows = session.createQuery(
+                    "select serializedValueReference, serializedExceptionReference, logsReference " +
+                        "from TaskResultData where serializedValueReference in (:references) " +
+                        "or serializedExceptionReference in (:references) or logsReference in (:references)")
+                    .setParameterList("references", batch).list();
+            for (Object[] row : rows) {
+                unusedReferences.removeAll(Arrays.asList(row));
+            }
+        }
+        return unusedReferences;
+    }
+
+    /**
+     * Opens a stream on the serialized value of a task result without loading it fully in memory
+     * when it is held by the result store.
+     *
+     * @param taskId the task
+     * @param index the index of the result, 0 being the last result of the task
+     * @return a stream on the serialized value, null if there is no such result or if it has no value
+     */
+    public InputStream openTaskResultValue(final TaskId taskId, final int index) {
+        Object[] value = runWithoutTransaction(new SessionWork<Object[]>() {
+            @Override
+            public Object[] executeWork(Session session) {
+                TaskData task = (TaskData) session.load(TaskData.class, taskId(taskId));
+                Query query = session.createQuery(
+                        "select serializedValueReference, serializedValue from TaskResultData result " +
+                            "where result.taskRuntimeData = :task order by result.resultTime desc")
+                        .setParameter("task", task);
+                query.setMaxResults(1);
+                query.setFirstResult(index);
+                return (Object[]) query.uniqueResult();
+            }
+        });
+
+        if (value == null) {
+            return null;
+        }
+        String reference = (String) value[0];
+        if (reference != null && resultStore != null) {
+            try {
+                return resultStore.open(reference);
+            } catch (IOException e) {
+                throw new DatabaseManagerException("Failed to load task result content " + reference, e);
+            }
+        }
+        byte[] serializedValue = (byte[]) value[1];
+        return serializedValue == null ? null : new ByteArrayInputStream(serializedValue);
     }
 
     public List<InternalJob> loadNotFinishedJobs(boolean fullState) {
@@ -688,10 +1108,10 @@ public class SchedulerDBManager {
 
     private List<InternalJob> loadJobs(final boolean fullState, final Collection<JobStatus> status,
             final long period) {
-        return runWithoutTransaction(new SessionWork<List<InternalJob>>() {
+        List<Long> ids = runWithoutTransaction(new SessionWork<List<Long>>() {
             @Override
             @SuppressWarnings("unchecked")
-            public List<InternalJob> executeWork(Session session) {
+            public List<Long> executeWork(Session session) {
                 Query query;
                 if (period > 0) {
                     long minSubmittedTime = System.currentTimeMillis() - period;
@@ -706,12 +1126,74 @@ public class SchedulerDBManager {
                             .setParameterList("status", status);
                 }
 
-                List<Long> ids = query.list();
-
-                return loadInternalJobs(fullState, session, ids);
+                return query.list();
             }
 
         });
+        return loadInternalJobsInParallel(fullState, ids);
+    }
+
+    /**
+     * Loads the given jobs by batches, each batch being loaded in its own session
+     * by one of the recovery threads.
+     */
+    private List<InternalJob> loadInternalJobsInParallel(final boolean fullState, final List<Long> ids) {
+        int threadsNumber = getRecoveryThreadsNumber();
+        if (threadsNumber <= 1 || ids.size() <= LOAD_JOBS_BATCH_SIZE) {
+            return runWithoutTransaction(new SessionWork<List<InternalJob>>() {
+                @Override
+                public List<InternalJob> executeWork(Session session) {
+                    return loadInternalJobs(fullState, session, ids);
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadsNumber, new NamedThreadFactory(
+            "SchedulerDBJobsLoader"));
+        try {
+            List<Future<List<InternalJob>>> batches = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i += LOAD_JOBS_BATCH_SIZE) {
+                final List<Long> batchIds = ids.subList(i, Math.min(ids.size(), i + LOAD_JOBS_BATCH_SIZE));
+                batches.add(executor.submit(new Callable<List<InternalJob>>() {
+                    @Override
+                    public List<InternalJob> call() {
+                        return transactionHelper.runWithoutTransaction(new SessionWork<List<InternalJob>>() {
+                            @Override
+                            public List<InternalJob> executeWork(Session session) {
+                                Query jobQuery = session.createQuery("from JobData as job where job.id in (:ids)");
+                                List<InternalJob> jobs = new ArrayList<>(batchIds.size());
+                                batchLoadJobs(session, fullState, jobQuery, batchIds, jobs);
+                                return jobs;
+                            }
+                        });
+                    }
+                }));
+            }
+
+            List<InternalJob> result = new ArrayList<>(ids.size());
+            for (Future<List<InternalJob>> batch : batches) {
+                result.addAll(batch.get());
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseManagerException("Interrupted while loading jobs", e);
+        } catch (ExecutionException e) {
+            throw new DatabaseManagerException("Failed to load jobs", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the number of threads used to load and recover the jobs at scheduler startup
+     */
+    static int getRecoveryThreadsNumber() {
+        if (PASchedulerProperties.SCHEDULER_DB_RECOVERY_THREADS.isSet()) {
+            return Math.max(1, PASchedulerProperties.SCHEDULER_DB_RECOVERY_THREADS.getValueAsInt());
+        } else {
+            return Runtime.getRuntime().availableProcessors();
+        }
     }
 
     public InternalJob loadJobWithTasksIfNotRemoved(final JobId id) {
@@ -772,13 +1254,11 @@ public class SchedulerDBManager {
 
         List<InternalJob> result = new ArrayList<>(ids.size());
 
-        final int BATCH_SIZE = 100;
-
-        List<Long> batchLoadIds = new ArrayList<>(BATCH_SIZE);
+        List<Long> batchLoadIds = new ArrayList<>(LOAD_JOBS_BATCH_SIZE);
 
         for (Long id : ids) {
             batchLoadIds.add(id);
-            if (batchLoadIds.size() == BATCH_SIZE) {
+            if (batchLoadIds.size() == LOAD_JOBS_BATCH_SIZE) {
                 batchLoadJobs(session, fullState, jobQuery, batchLoadIds, result);
                 batchLoadIds.clear();
                 session.clear();
@@ -875,7 +1355,7 @@ public class SchedulerDBManager {
     }
 
     public void changeJobPriority(final JobId jobId, final JobPriority priority) {
-        runWithTransaction(new SessionWork<Void>() {
+        runWithTransactionNoFlush(new SessionWork<Void>() {
             @Override
             public Void executeWork(Session session) {
                 long id = jobId(jobId);
@@ -934,7 +1414,7 @@ public class SchedulerDBManager {
     }
 
     public void taskRestarted(final InternalJob job, final InternalTask task, final TaskResultImpl result) {
-        runWithTransaction(new SessionWork<Void>() {
+        runWithResultTransaction(new SessionWork<Void>() {
             @Override
             public Void executeWork(Session session) {
                 long jobId = jobId(job);
@@ -978,9 +1458,9 @@ public class SchedulerDBManager {
     @SuppressWarnings("unchecked")
     public void updateAfterWorkflowTaskFinished(final InternalJob job, final ChangedTasksInfo changesInfo,
             final TaskResultImpl result) {
-        runWithTransaction(new SessionWork<Void>() {
+        List<InternalTask> savedTasks = runWithResultTransaction(new SessionWork<List<InternalTask>>() {
             @Override
-            public Void executeWork(Session session) {
+            public List<InternalTask> executeWork(Session session) {
                 String jobUpdate = "update JobData set status = :status, "
                         + "finishedTime = :finishedTime, numberOfPendingTasks = :numberOfPendingTasks, "
                         + "numberOfFinishedTasks = :numberOfFinishedTasks, "
@@ -1013,9 +1493,9 @@ public class SchedulerDBManager {
                 Query tasksQuery = session.createQuery("from TaskData where id in (:ids)").setParameterList(
                         "ids", taskIds);
                 List<TaskData> tasksToUpdate = tasksQuery.list();
-                Set<TaskId> newTasks = changesInfo.getNewTasks();
+                Set<TaskId> newTaskIds = changesInfo.getNewTasks();
 
-                int newListSize = tasksToUpdate.size() + newTasks.size();
+                int newListSize = tasksToUpdate.size() + newTaskIds.size();
                 List<TaskData> taskRuntimeDataList = new ArrayList<>(newListSize);
                 List<InternalTask> tasks = new ArrayList<>(newListSize);
 
@@ -1027,8 +1507,9 @@ public class SchedulerDBManager {
                     tasks.add(task);
                 }
 
+                List<InternalTask> newTasks = new ArrayList<>(newTaskIds.size());
                 int counter = 0;
-                for (TaskId newTaskId : newTasks) {
+                for (TaskId newTaskId : newTaskIds) {
                     InternalTask task = job.getIHMTasks().get(newTaskId);
                     if (task.getExecutableContainer() == null) {
                         InternalTask from = task.getReplicatedFrom();
@@ -1041,6 +1522,7 @@ public class SchedulerDBManager {
                     TaskData taskData = saveNewTask(session, jobRuntimeData, task);
                     taskRuntimeDataList.add(taskData);
                     tasks.add(task);
+                    newTasks.add(task);
                     if (++counter % 50 == 0) {
                         session.flush();
                         session.clear();
@@ -1053,13 +1535,20 @@ public class SchedulerDBManager {
                 saveTaskResult(taskId, result, session);
 
                 if (FINISHED_JOB_STATUSES.contains(job.getStatus())) {
+                    session.flush();
+                    addFinishedJobToAccount(session, job);
                     removeJobRuntimeData(session, jobId);
                 }
 
-                return null;
+                return newTasks;
             }
 
         }, false);
+
+        // scripts are cached once the new tasks are committed
+        if (savedTasks != null) {
+            cacheExecutableContainers(savedTasks);
+        }
     }
 
     public void updateAfterJobKilled(InternalJob job, Set<TaskId> tasksToUpdate) {
@@ -1091,6 +1580,10 @@ public class SchedulerDBManager {
                 session.createQuery(jobUpdate).setParameter("status", jobInfo.getStatus()).setParameter(
                         "jobId", jobId(job)).executeUpdate();
 
+                if (FINISHED_JOB_STATUSES.contains(jobInfo.getStatus())) {
+                    addFinishedJobToAccount(session, job);
+                }
+
                 return null;
             }
 
@@ -1099,12 +1592,121 @@ public class SchedulerDBManager {
 
     public void updateAfterTaskFinished(final InternalJob job, final InternalTask finishedTask,
             final TaskResultImpl result) {
-        updateAfterTaskFinished(job, finishedTask, result, new HashSet<TaskId>(1));
+        // the end of a job is always written immediately since its runtime data is removed
+        if (pendingTaskUpdates != null && !FINISHED_JOB_STATUSES.contains(job.getStatus())) {
+            int pendingUpdatesNumber;
+            synchronized (pendingTaskUpdates) {
+                pendingTaskUpdates.addJobUpdate(jobId(job), job.getJobInfo());
+                if (finishedTask != null) {
+                    TaskData.DBTaskId taskId = taskId(finishedTask);
+                    pendingTaskUpdates.addTaskUpdate(taskId, finishedTask.getTaskInfo());
+                    if (result != null) {
+                        pendingTaskUpdates.addResult(taskId, result);
+                    }
+                }
+                pendingUpdatesNumber = pendingTaskUpdates.size();
+            }
+            if (pendingUpdatesNumber >= writeBehindBatchSize) {
+                flushPendingTaskUpdates();
+            }
+        } else {
+            updateAfterTaskFinished(job, finishedTask, result, new HashSet<TaskId>(1));
+        }
+    }
+
+    /**
+     * Writes the queued state changes of finished tasks in a single transaction.
+     * Does nothing if write-behind is disabled.
+     * <p>
+     * If the transaction fails, the state changes are queued again to be written by the next flush,
+     * the failure is only logged as the caller of the flush is not concerned by it. After
+     * {@value #MAX_WRITE_BEHIND_ATTEMPTS} consecutive failures, the pending state changes are dropped
+     * and reported in the logs: as the flush is retried each time a task finishes once the batch is
+     * full, it bounds the size of the queue while the database cannot be written.
+     */
+    public void flushPendingTaskUpdates() {
+        if (pendingTaskUpdates == null) {
+            return;
+        }
+        synchronized (pendingTaskUpdatesFlushLock) {
+            final PendingTaskUpdates updates;
+            synchronized (pendingTaskUpdates) {
+                if (pendingTaskUpdates.isEmpty()) {
+                    return;
+                }
+                updates = pendingTaskUpdates.drain();
+            }
+            boolean written = false;
+            try {
+                // connection failures are not thrown by the transaction helper, null is returned instead
+                written = runStoringResults(new SessionWork<Boolean>() {
+                    @Override
+                    public Boolean executeWork(Session session) {
+                        writeTaskUpdates(session, updates);
+                        return Boolean.TRUE;
+                    }
+                }, true) != null;
+            } catch (RuntimeException e) {
+                debugLogger.error("Failed to write the state of finished tasks", e);
+            } finally {
+                if (written) {
+                    failedWriteBehindAttempts = 0;
+                } else if (++failedWriteBehindAttempts < MAX_WRITE_BEHIND_ATTEMPTS) {
+                    debugLogger.warn("The state of finished tasks will be written by the next flush");
+                    synchronized (pendingTaskUpdates) {
+                        pendingTaskUpdates.restore(updates);
+                    }
+                } else {
+                    failedWriteBehindAttempts = 0;
+                    logger.error("Dropping the state changes of finished tasks after " +
+                        MAX_WRITE_BEHIND_ATTEMPTS + " failed writes: " + updates);
+                }
+            }
+        }
+    }
+
+    private void writeTaskUpdates(Session session, PendingTaskUpdates updates) {
+        String jobUpdate = "update JobData set status = :status, "
+            + "finishedTime = :finishedTime, numberOfPendingTasks = :numberOfPendingTasks, "
+            + "numberOfFinishedTasks = :numberOfFinishedTasks, "
+            + "numberOfRunningTasks = :numberOfRunningTasks where id = :jobId";
+
+        Query jobUpdateQuery = session.createQuery(jobUpdate);
+
+        for (PendingTaskUpdates.JobUpdate update : updates.getJobUpdates()) {
+            jobUpdateQuery.setParameter("status", update.status).setParameter("finishedTime",
+                    update.finishedTime).setParameter("numberOfPendingTasks", update.numberOfPendingTasks)
+                    .setParameter("numberOfFinishedTasks", update.numberOfFinishedTasks).setParameter(
+                            "numberOfRunningTasks", update.numberOfRunningTasks).setParameter("jobId",
+                            update.jobId).executeUpdate();
+        }
+
+        String taskUpdate = "update TaskData task set task.taskStatus = :taskStatus, "
+            + "task.finishedTime = :finishedTime, " + "task.executionDuration = :executionDuration "
+            + "where task.id = :taskId";
+
+        Query taskUpdateQuery = session.createQuery(taskUpdate);
+
+        for (PendingTaskUpdates.TaskUpdate update : updates.getTaskUpdates()) {
+            taskUpdateQuery.setParameter("taskStatus", update.status).setParameter("finishedTime",
+                    update.finishedTime).setParameter("executionDuration", update.executionDuration)
+                    .setParameter("taskId", update.taskId).executeUpdate();
+        }
+
+        // results are inserted in JDBC batches
+        int counter = 0;
+        for (PendingTaskUpdates.ResultUpdate update : updates.getResults()) {
+            saveTaskResult(update.taskId, update.result, session);
+            if (++counter % writeBehindBatchSize == 0) {
+                session.flush();
+                session.clear();
+            }
+        }
     }
 
     private void updateAfterTaskFinished(final InternalJob job, final InternalTask finishedTask,
             final TaskResultImpl result, final Set<TaskId> tasksToUpdate) {
-        runWithTransaction(new SessionWork<Void>() {
+        runWithResultTransaction(new SessionWork<Void>() {
             @Override
             public Void executeWork(Session session) {
                 long jobId = jobId(job);
@@ -1152,6 +1754,7 @@ public class SchedulerDBManager {
                     session.flush();
                     session.clear();
 
+                    addFinishedJobToAccount(session, job);
                     removeJobRuntimeData(session, jobId);
                 }
 
@@ -1165,13 +1768,27 @@ public class SchedulerDBManager {
         TaskData taskRuntimeData = (TaskData) session.load(TaskData.class, taskId);
 
         TaskResultData resultData = TaskResultData.createTaskResultData(taskRuntimeData, result);
+        if (resultStore != null) {
+            try {
+                resultData.storePayloads(resultStore, resultStoreThreshold);
+                Set<String> storedReferences = storedResultReferences.get();
+                if (storedReferences != null) {
+                    storedReferences.addAll(Arrays.asList(resultData.getSerializedValueReference(),
+                            resultData.getSerializedExceptionReference(), resultData.getLogsReference()));
+                    storedReferences.remove(null);
+                }
+            } catch (IOException e) {
+                debugLogger.warn("Failed to write the result of task " + taskId.getTaskId() + " of job " +
+                    taskId.getJobId() + " to the result store, it is kept in the database", e);
+            }
+        }
         session.save(resultData);
 
         return resultData;
     }
 
     public void jobSetToBeRemoved(final JobId jobId) {
-        runWithTransaction(new SessionWork<Void>() {
+        runWithTransactionNoFlush(new SessionWork<Void>() {
             @Override
             public Void executeWork(Session session) {
                 long id = jobId(jobId);
@@ -1301,7 +1918,7 @@ public class SchedulerDBManager {
             boolean nextTask = !dbTaskId.equals(currentTaskId);
             if (nextTask) {
                 TaskId taskId = TaskIdImpl.createTaskId(jobId, taskName, dbTaskId.getTaskId());
-                jobResult.addTaskResult(taskName, resultData.toTaskResult(taskId),
+                jobResult.addTaskResult(taskName, resultData.toTaskResult(taskId, resultStore),
                         preciousResult);
                 currentTaskId = dbTaskId;
             }
@@ -1372,17 +1989,18 @@ public class SchedulerDBManager {
         if (results.isEmpty()) {
             return null;
         } else {
-            return results.get(0).toTaskResult(taskId);
+            return results.get(0).toTaskResult(taskId, resultStore);
         }
     }
 
     public void newJobSubmitted(final InternalJob job) {
-        runWithTransaction(new SessionWork<JobData>() {
+        JobData jobData = runWithTransactionNoFlush(new SessionWork<JobData>() {
 
             @Override
             public JobData executeWork(Session session) {
                 JobData jobRuntimeData = JobData.createJobData(job);
                 session.save(jobRuntimeData);
+                createAccountIfAbsent(session, job.getOwner());
 
                 job.setId(new JobIdImpl(jobRuntimeData.getId(), job.getName()));
 
@@ -1403,25 +2021,45 @@ public class SchedulerDBManager {
                     job.getIHMTasks().put(task.getId(), task);
                 }
 
+                // dependencies are set before saving the tasks so that every row is written
+                // with a single insert, inserts are sent in JDBC batches when the session is flushed
                 List<InternalTask> tasks = job.getITasks();
                 List<TaskData> taskRuntimeDataList = new ArrayList<>(tasks.size());
                 for (InternalTask task : tasks) {
-                    taskRuntimeDataList.add(saveNewTask(session, jobRuntimeData, task));
+                    taskRuntimeDataList.add(createNewTask(jobRuntimeData, task));
                 }
                 saveTaskDependencies(session, tasks, taskRuntimeDataList);
 
+                for (TaskData taskRuntimeData : taskRuntimeDataList) {
+                    session.save(taskRuntimeData);
+                }
+
                 return jobRuntimeData;
             }
 
         });
+
+        // scripts are cached once the job is committed
+        if (jobData != null) {
+            cacheExecutableContainers(job.getITasks());
+        }
     }
 
-    private TaskData getTaskReference(Session session, InternalTask task) {
+    private TaskData getTaskReference(Session session, InternalTask task,
+            Map<TaskIdWrapper, TaskData> taskRuntimeDataMap) {
+        TaskData taskRuntimeData = taskRuntimeDataMap.get(TaskIdWrapper.wrap(task.getId()));
+        if (taskRuntimeData != null) {
+            return taskRuntimeData;
+        }
         return (TaskData) session.get(TaskData.class, taskId(task));
     }
 
     private void saveTaskDependencies(Session session, List<InternalTask> tasks,
             List<TaskData> taskRuntimeDataList) {
+        Map<TaskIdWrapper, TaskData> taskRuntimeDataMap = new HashMap<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            taskRuntimeDataMap.put(TaskIdWrapper.wrap(tasks.get(i).getId()), taskRuntimeDataList.get(i));
+        }
         for (int i = 0; i < tasks.size(); i++) {
             InternalTask task = tasks.get(i);
             TaskData taskRuntimeData = taskRuntimeDataList.get(i);
@@ -1436,7 +2074,7 @@ public class SchedulerDBManager {
             }
             if (task.getIfBranch() != null) {
                 InternalTask ifBranch = task.getIfBranch();
-                taskRuntimeData.setIfBranch(getTaskReference(session, ifBranch));
+                taskRuntimeData.setIfBranch(getTaskReference(session, ifBranch, taskRuntimeDataMap));
             } else {
                 taskRuntimeData.setIfBranch(null);
             }
@@ -1453,19 +2091,41 @@ public class SchedulerDBManager {
     }
 
     private TaskData saveNewTask(Session session, JobData jobRuntimeData, InternalTask task) {
+        TaskData taskRuntimeData = createNewTask(jobRuntimeData, task);
+        session.save(taskRuntimeData);
+        return taskRuntimeData;
+    }
+
+    private TaskData createNewTask(JobData jobRuntimeData, InternalTask task) {
         // TODO: use double dispatch to prevent branching
         if (isScriptTask(task)) {
-            TaskData taskRuntimeData = TaskData.createTaskData(jobRuntimeData, (InternalScriptTask) task);
-            session.save(taskRuntimeData);
-            return taskRuntimeData;
+            return TaskData.createTaskData(jobRuntimeData, (InternalScriptTask) task);
         } else {
             throw new IllegalArgumentException("Unexpected task class: " + task.getClass());
         }
     }
 
+    /**
+     * Caches the scripts of the given tasks, which must be committed: a transaction which is
+     * rolled back must not leave the scripts of tasks which do not exist in the cache.
+     */
+    private void cacheExecutableContainers(List<InternalTask> tasks) {
+        for (InternalTask task : tasks) {
+            try {
+                taskScriptCache.put(task.getId(), task.getExecutableContainer());
+            } catch (InvalidScriptException e) {
+                // the container will be read from the database when the task is started
+                debugLogger.warn("Failed to cache the script of task " + task.getId(), e);
+            }
+        }
+    }
+
     private ExecutableContainer loadExecutableContainer(Session session, InternalTask task) {
         try {
-            ExecutableContainer container = null;
+            ExecutableContainer container = taskScriptCache.get(task.getId());
+            if (container != null) {
+                return container;
+            }
 
             if (isScriptTask(task)) {
                 TaskData taskData = queryScriptTaskData(session, task);
@@ -1498,7 +2158,15 @@ public class SchedulerDBManager {
     }
 
     public ExecutableContainer loadExecutableContainer(final InternalTask task) {
-        return runWithoutTransaction(new SessionWork<ExecutableContainer>() {
+        try {
+            ExecutableContainer container = taskScriptCache.get(task.getId());
+            if (container != null) {
+                return container;
+            }
+        } catch (InvalidScriptException e) {
+            throw new DatabaseManagerException(e);
+        }
+        return runWithoutTransactionNoFlush(new SessionWork<ExecutableContainer>() {
             @Override
             public ExecutableContainer executeWork(Session session) {
                 return loadExecutableContainer(session, task);
@@ -1506,8 +2174,71 @@ public class SchedulerDBManager {
         });
     }
 
+    /**
+     * Loads the executable containers of several tasks at once: containers which are not
+     * cached are read with a single query per job.
+     *
+     * @param tasks the tasks for which the containers must be loaded
+     * @return the loaded containers, tasks whose data could not be found are not part of the map
+     */
+    public Map<TaskIdWrapper, ExecutableContainer> loadExecutableContainers(
+            final Collection<InternalTask> tasks) {
+        final Map<TaskIdWrapper, ExecutableContainer> containers = new HashMap<>(tasks.size());
+        final Map<Long, Map<Long, InternalTask>> missingTasks = new HashMap<>();
+        try {
+            for (InternalTask task : tasks) {
+                if (!isScriptTask(task)) {
+                    throw new IllegalArgumentException("Unexpected task class: " + task.getClass());
+                }
+                ExecutableContainer container = taskScriptCache.get(task.getId());
+                if (container != null) {
+                    containers.put(TaskIdWrapper.wrap(task.getId()), container);
+                } else {
+                    long jobId = jobId(task.getJobId());
+                    Map<Long, InternalTask> jobTasks = missingTasks.get(jobId);
+                    if (jobTasks == null) {
+                        jobTasks = new HashMap<>();
+                        missingTasks.put(jobId, jobTasks);
+                    }
+                    jobTasks.put(task.getId().longValue(), task);
+                }
+            }
+        } catch (InvalidScriptException e) {
+            throw new DatabaseManagerException(e);
+        }
+
+        if (missingTasks.isEmpty()) {
+            return containers;
+        }
+
+        return runWithoutTransactionNoFlush(new SessionWork<Map<TaskIdWrapper, ExecutableContainer>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Map<TaskIdWrapper, ExecutableContainer> executeWork(Session session) {
+                try {
+                    for (Map.Entry<Long, Map<Long, InternalTask>> entry : missingTasks.entrySet()) {
+                        Map<Long, InternalTask> jobTasks = entry.getValue();
+                        List<TaskData> taskDataList = session.createQuery(
+                                "from TaskData td left join fetch td.script " +
+                                    "where td.id.jobId = :jobId and td.id.taskId in (:taskIds)")
+                                .setParameter("jobId", entry.getKey())
+                                .setParameterList("taskIds", jobTasks.keySet()).list();
+                        for (TaskData taskData : taskDataList) {
+                            InternalTask task = jobTasks.get(taskData.getId().getTaskId());
+                            containers.put(TaskIdWrapper.wrap(task.getId()), taskData
+                                    .createExecutableContainer());
+                        }
+                    }
+                    return containers;
+                } catch (InvalidScriptException e) {
+                    throw new DatabaseManagerException(e);
+                }
+            }
+        });
+    }
+
     public List<SchedulerUserInfo> loadUsersWithJobs() {
-        return runWithoutTransaction(new SessionWork<List<SchedulerUserInfo>>() {
+        return runWithoutTransactionNoFlush(new SessionWork<List<SchedulerUserInfo>>() {
             @Override
             public List<SchedulerUserInfo> executeWork(Session session) {
                 Query query = session
@@ -1528,15 +2259,80 @@ public class SchedulerDBManager {
     }
 
     private <T> T runWithTransaction(SessionWork<T> sessionWork) {
+        flushPendingTaskUpdates();
         return transactionHelper.runWithTransaction(sessionWork);
     }
 
     private <T> T runWithTransaction(SessionWork<T> sessionWork, boolean readonly) {
+        flushPendingTaskUpdates();
 
         return transactionHelper.runWithTransaction(sessionWork, readonly);
     }
 
+    /**
+     * Runs a transaction which may store task result contents, see {@link #resultStoreLock}.
+     */
+    private <T> T runWithResultTransaction(SessionWork<T> sessionWork) {
+        return runWithResultTransaction(sessionWork, true);
+    }
+
+    private <T> T runWithResultTransaction(SessionWork<T> sessionWork, boolean readonly) {
+        flushPendingTaskUpdates();
+        return runStoringResults(sessionWork, readonly);
+    }
+
+    /**
+     * Runs a transaction which may store task result contents without flushing the pending task
+     * updates. The contents stored by a transaction which is not committed are deleted, unless
+     * other task results refer to them.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T runStoringResults(final SessionWork<T> sessionWork, boolean readonly) {
+        Set<String> storedReferences = new HashSet<>();
+        Object[] result = null;
+        storedResultReferences.set(storedReferences);
+        resultStoreLock.readLock().lock();
+        try {
+            // the result is wrapped to tell a work returning null from a failed transaction
+            result = transactionHelper.runWithTransaction(new SessionWork<Object[]>() {
+                @Override
+                public Object[] executeWork(Session session) {
+                    return new Object[] { sessionWork.executeWork(session) };
+                }
+            }, readonly);
+            return result == null ? null : (T) result[0];
+        } finally {
+            resultStoreLock.readLock().unlock();
+            storedResultReferences.remove();
+            if (result == null && !storedReferences.isEmpty()) {
+                try {
+                    deleteUnusedResults(storedReferences);
+                } catch (RuntimeException e) {
+                    debugLogger.warn("Failed to delete the task result contents " + storedReferences +
+                        " stored by a rolled back transaction", e);
+                }
+            }
+        }
+    }
+
     private <T> T runWithoutTransaction(SessionWork<T> sessionWork) {
+        flushPendingTaskUpdates();
+        return transactionHelper.runWithoutTransaction(sessionWork);
+    }
+
+    /**
+     * Runs a transaction which neither reads nor writes the job and task states queued by the
+     * write-behind, they do not have to be written first.
+     */
+    private <T> T runWithTransactionNoFlush(SessionWork<T> sessionWork) {
+        return transactionHelper.runWithTransaction(sessionWork);
+    }
+
+    /**
+     * Runs a session which does not read the job and task states queued by the write-behind,
+     * they do not have to be written first.
+     */
+    private <T> T runWithoutTransactionNoFlush(SessionWork<T> sessionWork) {
         return transactionHelper.runWithoutTransaction(sessionWork);
     }
 
@@ -1596,7 +2392,7 @@ public class SchedulerDBManager {
 
     public void putThirdPartyCredential(final String username, final String key,
             final HybridEncryptedData encryptedCredential) {
-        runWithTransaction(new SessionWork<Void>() {
+        runWithTransactionNoFlush(new SessionWork<Void>() {
             @Override
             public Void executeWork(Session session) {
                 session.saveOrUpdate(new ThirdPartyCredentialData(username, key, encryptedCredential
@@ -1607,7 +2403,7 @@ public class SchedulerDBManager {
     }
 
     public Set<String> thirdPartyCredentialsKeySet(final String username) {
-        return runWithoutTransaction(new SessionWork<Set<String>>() {
+        return runWithoutTransactionNoFlush(new SessionWork<Set<String>>() {
             @Override
             @SuppressWarnings("unchecked")
             public Set<String> executeWork(Session session) {
@@ -1622,7 +2418,7 @@ public class SchedulerDBManager {
     }
 
     public void removeThirdPartyCredential(final String username, final String key) {
-        runWithTransaction(new SessionWork<Void>() {
+        runWithTransactionNoFlush(new SessionWork<Void>() {
             @Override
             public Void executeWork(Session session) {
                 Query query = session.createQuery(
@@ -1635,7 +2431,7 @@ public class SchedulerDBManager {
     }
 
     public Map<String, HybridEncryptedData> thirdPartyCredentialsMap(final String username) {
-        return runWithoutTransaction(new SessionWork<Map<String, HybridEncryptedData>>() {
+        return runWithoutTransactionNoFlush(new SessionWork<Map<String, HybridEncryptedData>>() {
             @Override
             @SuppressWarnings("unchecked")
             public Map<String, HybridEncryptedData> executeWork(Session session) {
@@ -1660,7 +2456,7 @@ public class SchedulerDBManager {
     }
 
     public boolean hasThirdPartyCredentials(final String jobOwner) {
-        return runWithoutTransaction(new SessionWork<Boolean>() {
+        return runWithoutTransactionNoFlush(new SessionWork<Boolean>() {
             @Override
             public Boolean executeWork(Session session) {
                 Long count = (Long) session.createQuery(
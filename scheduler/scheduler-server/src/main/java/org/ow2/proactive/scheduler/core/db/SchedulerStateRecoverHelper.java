@@ -1,9 +1,13 @@
 package org.ow2.proactive.scheduler.core.db;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.ow2.proactive.scheduler.common.job.JobState;
 import org.ow2.proactive.scheduler.common.job.JobStatus;
@@ -14,6 +18,7 @@ import org.ow2.proactive.scheduler.job.InternalJob;
 import org.ow2.proactive.scheduler.task.internal.InternalTask;
 import org.ow2.proactive.scheduler.util.JobLogger;
 import org.apache.log4j.Logger;
+import org.objectweb.proactive.utils.NamedThreadFactory;
 
 
 public class SchedulerStateRecoverHelper {
@@ -107,46 +112,11 @@ public class SchedulerStateRecoverHelper {
         }
 
         Vector<InternalJob> finishedJobs = new Vector<>();
-          
-        for (Iterator<InternalJob> iterator = runningJobs.iterator(); iterator.hasNext(); ) {
-            InternalJob job = iterator.next();
-            try {
-                ArrayList<InternalTask> tasksList = copyAndSort(job.getITasks());
-
-                //simulate the running execution to recreate the tree.
-                for (InternalTask task : tasksList) {
-                    job.recoverTask(task.getId());
-                }
 
-                if ((job.getStatus() == JobStatus.RUNNING) || (job.getStatus() == JobStatus.PAUSED)) {
-                    //set the status to stalled because the scheduler start in stopped mode.
-                    if (job.getStatus() == JobStatus.RUNNING) {
-                        job.setStatus(JobStatus.STALLED);
-                    }
-
-                    //set the task to pause inside the job if it is paused.
-                    if (job.getStatus() == JobStatus.PAUSED) {
-                        job.setStatus(JobStatus.STALLED);
-                        job.setPaused();
-                    }
-
-                    //update the count of pending and running task.
-                    job.setNumberOfPendingTasks(
-                      job.getNumberOfPendingTasks() + job.getNumberOfRunningTasks());
-                    job.setNumberOfRunningTasks(0);
-                }
-            } catch (Exception e) {
-                logger.error("Failed to recover job " + job.getId() + " " + job.getName() +
-                    " job might be in a inconsistent state", e);
-                jobLogger
-                        .error(job.getId(), "Failed to recover job, job might be in a inconsistent state", e);
-                // partially cancel job (not tasks) and move it to finished jobs to avoid running it
-                iterator.remove();
-                job.setStatus(JobStatus.CANCELED);
-                finishedJobs.add(job);
-                dbManager.updateJobAndTasksState(job);
-            }
-        }
+        // running jobs are independent from each other so their tasks are recovered in parallel
+        List<InternalJob> failedJobs = recoverRunningJobs(runningJobs);
+        runningJobs.removeAll(failedJobs);
+        finishedJobs.addAll(failedJobs);
 
         for (InternalJob job : pendingJobs) {
             //set the task to pause inside the job if it is paused.
@@ -161,6 +131,96 @@ public class SchedulerStateRecoverHelper {
         return new RecoveredSchedulerState(pendingJobs, runningJobs, finishedJobs);
     }
 
+    /**
+     * Recovers the tasks of the given running jobs using the recovery threads.
+     *
+     * @param runningJobs the running jobs to recover
+     * @return the jobs which failed to be recovered and have been canceled
+     */
+    private List<InternalJob> recoverRunningJobs(List<InternalJob> runningJobs) {
+        List<InternalJob> failedJobs = new ArrayList<>();
+        int threadsNumber = Math.min(SchedulerDBManager.getRecoveryThreadsNumber(), runningJobs.size());
+        if (threadsNumber <= 1) {
+            for (InternalJob job : runningJobs) {
+                if (!recoverRunningJob(job)) {
+                    failedJobs.add(job);
+                }
+            }
+            return failedJobs;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadsNumber, new NamedThreadFactory(
+            "SchedulerStateRecovery"));
+        try {
+            List<Future<Boolean>> results = new ArrayList<>(runningJobs.size());
+            for (final InternalJob job : runningJobs) {
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        return recoverRunningJob(job);
+                    }
+                }));
+            }
+            for (int i = 0; i < runningJobs.size(); i++) {
+                if (!results.get(i).get()) {
+                    failedJobs.add(runningJobs.get(i));
+                }
+            }
+            return failedJobs;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while recovering running jobs", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to recover running jobs", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Recovers the tasks of a running job, the job is canceled if its recovery fails.
+     *
+     * @return true if the job has been recovered, false if it has been canceled
+     */
+    private boolean recoverRunningJob(InternalJob job) {
+        try {
+            ArrayList<InternalTask> tasksList = copyAndSort(job.getITasks());
+
+            //simulate the running execution to recreate the tree.
+            for (InternalTask task : tasksList) {
+                job.recoverTask(task.getId());
+            }
+
+            if ((job.getStatus() == JobStatus.RUNNING) || (job.getStatus() == JobStatus.PAUSED)) {
+                //set the status to stalled because the scheduler start in stopped mode.
+                if (job.getStatus() == JobStatus.RUNNING) {
+                    job.setStatus(JobStatus.STALLED);
+                }
+
+                //set the task to pause inside the job if it is paused.
+                if (job.getStatus() == JobStatus.PAUSED) {
+                    job.setStatus(JobStatus.STALLED);
+                    job.setPaused();
+                }
+
+                //update the count of pending and running task.
+                job.setNumberOfPendingTasks(
+                  job.getNumberOfPendingTasks() + job.getNumberOfRunningTasks());
+                job.setNumberOfRunningTasks(0);
+            }
+            return true;
+        } catch (Exception e) {
+            logger.error("Failed to recover job " + job.getId() + " " + job.getName() +
+                " job might be in a inconsistent state", e);
+            jobLogger
+                    .error(job.getId(), "Failed to recover job, job might be in a inconsistent state", e);
+            // partially cancel job (not tasks) and move it to finished jobs to avoid running it
+            job.setStatus(JobStatus.CANCELED);
+            dbManager.updateJobAndTasksState(job);
+            return false;
+        }
+    }
+
     private void runningTasksToPending(List<InternalTask> tasks) {
         for (InternalTask task : tasks) {
             if (task.getStatus() == TaskStatus.RUNNING) {
@@ -1,5 +1,6 @@
 package org.ow2.proactive.scheduler.core.db;
 
+import java.io.IOException;
 import java.util.Map;
 
 import javax.persistence.Column;
@@ -16,6 +17,9 @@ import javax.persistence.ManyToOne;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
+import org.objectweb.proactive.core.util.converter.ByteToObjectConverter;
+import org.objectweb.proactive.core.util.converter.ObjectToByteConverter;
+import org.ow2.proactive.db.DatabaseManagerException;
 import org.ow2.proactive.scheduler.common.task.TaskId;
 import org.ow2.proactive.scheduler.common.task.TaskLogs;
 import org.ow2.proactive.scheduler.common.task.flow.FlowAction;
@@ -50,10 +54,31 @@ public class TaskResultData {
 
     private TaskLogs logs;
 
+    private String serializedValueReference;
+
+    private Long serializedValueSize;
+
+    private String serializedExceptionReference;
+
+    private Long serializedExceptionSize;
+
+    private String logsReference;
+
+    private Long logsSize;
+
     TaskResultImpl toTaskResult(TaskId taskId) {
+        return toTaskResult(taskId, null);
+    }
+
+    /**
+     * @param resultStore the store holding the payloads which are not in the database, can be null
+     */
+    TaskResultImpl toTaskResult(TaskId taskId, TaskResultStore resultStore) {
 
-        TaskResultImpl result = new TaskResultImpl(taskId, getSerializedValue(), getSerializedException(),
-            getLogs(), getPropagatedVariables());
+        TaskResultImpl result = new TaskResultImpl(taskId, loadPayload(getSerializedValue(),
+                getSerializedValueReference(), resultStore), loadPayload(getSerializedException(),
+                getSerializedExceptionReference(), resultStore), loadLogs(resultStore),
+            getPropagatedVariables());
 
         result.setPreviewerClassName(getPreviewerClassName());
         FlowActionData actionData = getFlowAction();
@@ -93,6 +118,62 @@ public class TaskResultData {
         return resultData;
     }
 
+    /**
+     * Moves the payloads larger than the given threshold from this object to the result store.
+     * A payload which can not be written to the store is kept in the database.
+     */
+    void storePayloads(TaskResultStore resultStore, int threshold) throws IOException {
+        if (serializedValue != null && serializedValue.length > threshold) {
+            serializedValueReference = resultStore.store(serializedValue);
+            serializedValueSize = (long) serializedValue.length;
+            serializedValue = null;
+        }
+        if (serializedException != null && serializedException.length > threshold) {
+            serializedExceptionReference = resultStore.store(serializedException);
+            serializedExceptionSize = (long) serializedException.length;
+            serializedException = null;
+        }
+        if (logs != null) {
+            byte[] serializedLogs = ObjectToByteConverter.ObjectStream.convert(logs);
+            if (serializedLogs.length > threshold) {
+                logsReference = resultStore.store(serializedLogs);
+                logsSize = (long) serializedLogs.length;
+                logs = null;
+            }
+        }
+    }
+
+    private static byte[] loadPayload(byte[] payload, String reference, TaskResultStore resultStore) {
+        if (reference == null) {
+            return payload;
+        }
+        try {
+            return getResultStore(resultStore).load(reference);
+        } catch (IOException e) {
+            throw new DatabaseManagerException("Failed to load task result content " + reference, e);
+        }
+    }
+
+    private TaskLogs loadLogs(TaskResultStore resultStore) {
+        if (logsReference == null) {
+            return getLogs();
+        }
+        try {
+            return (TaskLogs) ByteToObjectConverter.ObjectStream.convert(getResultStore(resultStore).load(
+                    logsReference));
+        } catch (Exception e) {
+            throw new DatabaseManagerException("Failed to load task logs " + logsReference, e);
+        }
+    }
+
+    private static TaskResultStore getResultStore(TaskResultStore resultStore) {
+        if (resultStore == null) {
+            throw new DatabaseManagerException(
+                "Task result content is in a result store but no result store is configured");
+        }
+        return resultStore;
+    }
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "TASK_RESULT_DATA_ID_SEQUENCE")
     @SequenceGenerator(name = "TASK_RESULT_DATA_ID_SEQUENCE", sequenceName = "TASK_RESULT_DATA_ID_SEQUENCE")
@@ -183,4 +264,61 @@ public class TaskResultData {
     public void setPropagatedVariables(Map<String, byte[]> executionVariables) {
         this.propagatedVariables = executionVariables;
     }
+
+    @Column(name = "RESULT_VALUE_REF", length = 64)
+    @Index(name = "TASK_RESULT_DATA_RESULT_VALUE_REF_INDEX")
+    public String getSerializedValueReference() {
+        return serializedValueReference;
+    }
+
+    public void setSerializedValueReference(String serializedValueReference) {
+        this.serializedValueReference = serializedValueReference;
+    }
+
+    @Column(name = "RESULT_VALUE_SIZE")
+    public Long getSerializedValueSize() {
+        return serializedValueSize;
+    }
+
+    public void setSerializedValueSize(Long serializedValueSize) {
+        this.serializedValueSize = serializedValueSize;
+    }
+
+    @Column(name = "RESULT_EXCEPTION_REF", length = 64)
+    @Index(name = "TASK_RESULT_DATA_RESULT_EXCEPTION_REF_INDEX")
+    public String getSerializedExceptionReference() {
+        return serializedExceptionReference;
+    }
+
+    public void setSerializedExceptionReference(String serializedExceptionReference) {
+        this.serializedExceptionReference = serializedExceptionReference;
+    }
+
+    @Column(name = "RESULT_EXCEPTION_SIZE")
+    public Long getSerializedExceptionSize() {
+        return serializedExceptionSize;
+    }
+
+    public void setSerializedExceptionSize(Long serializedExceptionSize) {
+        this.serializedExceptionSize = serializedExceptionSize;
+    }
+
+    @Column(name = "LOGS_REF", length = 64)
+    @Index(name = "TASK_RESULT_DATA_LOGS_REF_INDEX")
+    public String getLogsReference() {
+        return logsReference;
+    }
+
+    public void setLogsReference(String logsReference) {
+        this.logsReference = logsReference;
+    }
+
+    @Column(name = "LOGS_SIZE")
+    public Long getLogsSize() {
+        return logsSize;
+    }
+
+    public void setLogsSize(Long logsSize) {
+        this.logsSize = logsSize;
+    }
 }
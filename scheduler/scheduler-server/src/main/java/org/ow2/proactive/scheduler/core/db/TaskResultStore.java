@@ -0,0 +1,45 @@
+package org.ow2.proactive.scheduler.core.db;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+
+/**
+ * Storage of the large payloads of task results (values, exceptions and logs)
+ * outside of the scheduler database. The database only keeps the reference
+ * returned by the store and the size of the payload.
+ */
+public interface TaskResultStore {
+
+    /**
+     * Stores the given content.
+     *
+     * @param content the content to store
+     * @return the reference to use to read the content back
+     */
+    String store(byte[] content) throws IOException;
+
+    /**
+     * Opens a stream on a stored content, the caller must close it.
+     *
+     * @param reference the reference returned by {@link #store(byte[])}
+     * @return a stream on the content
+     */
+    InputStream open(String reference) throws IOException;
+
+    /**
+     * Reads a stored content fully.
+     *
+     * @param reference the reference returned by {@link #store(byte[])}
+     * @return the content
+     */
+    byte[] load(String reference) throws IOException;
+
+    /**
+     * Deletes a stored content, does nothing if it does not exist.
+     *
+     * @param reference the reference returned by {@link #store(byte[])}
+     */
+    void delete(String reference) throws IOException;
+
+}
@@ -0,0 +1,83 @@
+package org.ow2.proactive.scheduler.core.db;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.ow2.proactive.scheduler.common.job.JobId;
+import org.ow2.proactive.scheduler.common.task.TaskId;
+import org.ow2.proactive.scheduler.task.containers.ExecutableContainer;
+import org.ow2.proactive.scheduler.task.containers.ScriptExecutableContainer;
+import org.ow2.proactive.scripting.InvalidScriptException;
+import org.ow2.proactive.scripting.TaskScript;
+import org.ow2.proactive.utils.TaskIdWrapper;
+
+
+/**
+ * Bounded LRU cache of the scripts of the submitted tasks, used to build the
+ * executable containers of the tasks to start without reading them from the database.
+ * <p>
+ * Cached scripts are never handed out: a new container holding a copy of the script
+ * is created for every lookup since containers are modified once given to a task.
+ */
+final class TaskScriptCache {
+
+    private final int maxSize;
+
+    private final LinkedHashMap<TaskIdWrapper, TaskScript> scripts;
+
+    TaskScriptCache(final int maxSize) {
+        this.maxSize = maxSize;
+        this.scripts = new LinkedHashMap<TaskIdWrapper, TaskScript>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TaskIdWrapper, TaskScript> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Caches the script of the given container if it is a script container.
+     */
+    void put(TaskId taskId, ExecutableContainer container) throws InvalidScriptException {
+        if (maxSize <= 0 || !(container instanceof ScriptExecutableContainer)) {
+            return;
+        }
+        TaskScript copy = new TaskScript(((ScriptExecutableContainer) container).getScript());
+        synchronized (scripts) {
+            scripts.put(TaskIdWrapper.wrap(taskId), copy);
+        }
+    }
+
+    /**
+     * @return a new container for the given task, or null if its script is not cached
+     */
+    ExecutableContainer get(TaskId taskId) throws InvalidScriptException {
+        if (maxSize <= 0) {
+            return null;
+        }
+        TaskScript script;
+        synchronized (scripts) {
+            script = scripts.get(TaskIdWrapper.wrap(taskId));
+        }
+        if (script == null) {
+            return null;
+        }
+        return new ScriptExecutableContainer(new TaskScript(script));
+    }
+
+    void removeJob(JobId jobId) {
+        if (maxSize <= 0) {
+            return;
+        }
+        synchronized (scripts) {
+            Iterator<TaskIdWrapper> iterator = scripts.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().getTaskId().getJobId().equals(jobId)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+}
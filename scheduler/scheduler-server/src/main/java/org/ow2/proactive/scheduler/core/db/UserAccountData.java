@@ -0,0 +1,79 @@
+package org.ow2.proactive.scheduler.core.db;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+
+/**
+ * Accounting totals of the finished jobs of a user, updated each time one of its jobs finishes.
+ */
+@Entity
+@Table(name = "USER_ACCOUNT_DATA")
+public class UserAccountData {
+
+    private String username;
+
+    private int taskCount;
+
+    private long taskDuration;
+
+    private int jobCount;
+
+    private long jobDuration;
+
+    public UserAccountData() {
+    }
+
+    UserAccountData(String username) {
+        this.username = username;
+    }
+
+    @Id
+    @Column(name = "USERNAME")
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    @Column(name = "TASK_COUNT", nullable = false)
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    public void setTaskCount(int taskCount) {
+        this.taskCount = taskCount;
+    }
+
+    @Column(name = "TASK_DURATION", nullable = false)
+    public long getTaskDuration() {
+        return taskDuration;
+    }
+
+    public void setTaskDuration(long taskDuration) {
+        this.taskDuration = taskDuration;
+    }
+
+    @Column(name = "JOB_COUNT", nullable = false)
+    public int getJobCount() {
+        return jobCount;
+    }
+
+    public void setJobCount(int jobCount) {
+        this.jobCount = jobCount;
+    }
+
+    @Column(name = "JOB_DURATION", nullable = false)
+    public long getJobDuration() {
+        return jobDuration;
+    }
+
+    public void setJobDuration(long jobDuration) {
+        this.jobDuration = jobDuration;
+    }
+
+}
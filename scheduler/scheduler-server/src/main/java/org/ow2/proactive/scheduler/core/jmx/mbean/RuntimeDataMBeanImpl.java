@@ -37,30 +37,88 @@
 package org.ow2.proactive.scheduler.core.jmx.mbean;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.management.NotCompliantMBeanException;
 import javax.management.StandardMBean;
 
+import org.apache.log4j.Logger;
 import org.ow2.proactive.jmx.Chronological;
 import org.ow2.proactive.scheduler.common.NotificationData;
 import org.ow2.proactive.scheduler.common.SchedulerEvent;
 import org.ow2.proactive.scheduler.common.SchedulerUsers;
+import org.ow2.proactive.scheduler.common.job.JobId;
+import org.ow2.proactive.scheduler.common.job.JobInfo;
+import org.ow2.proactive.scheduler.common.job.JobState;
+import org.ow2.proactive.scheduler.common.job.JobStatus;
 import org.ow2.proactive.scheduler.common.job.UserIdentification;
+import org.ow2.proactive.scheduler.common.task.TaskId;
+import org.ow2.proactive.scheduler.common.task.TaskInfo;
+import org.ow2.proactive.scheduler.common.task.TaskState;
+import org.ow2.proactive.scheduler.common.task.TaskStatus;
+import org.ow2.proactive.scheduler.core.db.JobTimeStatistics;
 import org.ow2.proactive.scheduler.core.db.SchedulerDBManager;
 import org.ow2.proactive.scheduler.core.jmx.SchedulerJMXHelper;
+import org.ow2.proactive.scheduler.job.JobInfoImpl;
+import org.ow2.proactive.scheduler.task.ClientTaskState;
 import org.ow2.proactive.utils.Tools;
 
 
 /**
  * Implementation of the SchedulerRuntimeMBean interface.
+ * <p>
+ * Job and task counts and mean job times are kept in memory: they are read from the
+ * database when the scheduler state is recovered and then updated from the scheduler job and task events.
+ * Jobs and tasks are counted according to their status as the statistics queries of the
+ * {@link SchedulerDBManager} do.
  *
  * @author The ProActive Team
  * @since ProActive Scheduling 2.1
  */
 public final class RuntimeDataMBeanImpl extends StandardMBean implements RuntimeDataMBean {
 
+    private static final Logger logger = Logger.getLogger(RuntimeDataMBeanImpl.class);
+
     private final SchedulerDBManager dbManager;
 
+    /** Guards the counters below */
+    private final Object countersLock = new Object();
+
+    /** Last known statuses of the jobs known by the scheduler and of their tasks */
+    private final Map<JobId, JobStatuses> jobStatuses = new HashMap<>();
+
+    private int pendingJobsCount;
+
+    private int runningJobsCount;
+
+    private int finishedJobsCount;
+
+    private int totalJobsCount;
+
+    private int pendingTasksCount;
+
+    private int runningTasksCount;
+
+    private int finishedTasksCount;
+
+    private int totalTasksCount;
+
+    private long submittedJobsCount;
+
+    private long firstSubmittedTime;
+
+    private long lastSubmittedTime;
+
+    private long startedJobsCount;
+
+    private long totalPendingTime;
+
+    private long executedJobsCount;
+
+    private long totalExecutionTime;
+
     private final SchedulerUsers schedulerClients;
 
     /** Current Scheduler status typed as scheduler event */
@@ -72,6 +130,152 @@ public final class RuntimeDataMBeanImpl extends StandardMBean implements Runtime
         this.dbManager = dbManager;
     }
 
+    /**
+     * Initializes the counters from the database once the scheduler state is recovered.
+     *
+     * @param jobs the jobs recovered by the scheduler, their counts are already part
+     *          of the counters read from the database
+     */
+    public void recover(Collection<JobState> jobs) {
+        synchronized (countersLock) {
+            for (JobState job : jobs) {
+                jobStatuses.put(job.getId(), new JobStatuses(job));
+            }
+        }
+        if (dbManager == null) {
+            return;
+        }
+        try {
+            synchronized (countersLock) {
+                pendingJobsCount = (int) dbManager.getPendingJobsCount();
+                runningJobsCount = (int) dbManager.getRunningJobsCount();
+                finishedJobsCount = (int) dbManager.getFinishedJobsCount();
+                totalJobsCount = (int) dbManager.getTotalJobsCount();
+                pendingTasksCount = (int) dbManager.getPendingTasksCount();
+                runningTasksCount = (int) dbManager.getRunningTasksCount();
+                finishedTasksCount = (int) dbManager.getFinishedTasksCount();
+                totalTasksCount = (int) dbManager.getTotalTasksCount();
+
+                JobTimeStatistics statistics = dbManager.loadJobTimeStatistics();
+                submittedJobsCount = statistics.getSubmittedJobsCount();
+                firstSubmittedTime = statistics.getFirstSubmittedTime();
+                lastSubmittedTime = statistics.getLastSubmittedTime();
+                startedJobsCount = statistics.getStartedJobsCount();
+                totalPendingTime = statistics.getTotalPendingTime();
+                executedJobsCount = statistics.getExecutedJobsCount();
+                totalExecutionTime = statistics.getTotalExecutionTime();
+            }
+        } catch (Exception e) {
+            logger.error("Failed to load the scheduler statistics from the database", e);
+        }
+    }
+
+    public void jobSubmittedEvent(JobState job) {
+        JobInfo jobInfo = job.getJobInfo();
+        synchronized (countersLock) {
+            JobStatuses submitted = new JobStatuses(job);
+            JobStatuses previous = jobStatuses.put(job.getId(), submitted);
+            if (previous != null) {
+                add(previous, -1);
+            }
+            add(submitted, 1);
+
+            submittedJobsCount++;
+            if (firstSubmittedTime <= 0) {
+                firstSubmittedTime = jobInfo.getSubmittedTime();
+            }
+            lastSubmittedTime = Math.max(lastSubmittedTime, jobInfo.getSubmittedTime());
+        }
+    }
+
+    public void jobStateUpdatedEvent(NotificationData<JobInfo> notification) {
+        JobInfo jobInfo = notification.getData();
+        synchronized (countersLock) {
+            switch (notification.getEventType()) {
+                case JOB_PENDING_TO_RUNNING:
+                    if (jobInfo.getStartTime() > 0 && jobInfo.getSubmittedTime() > 0) {
+                        startedJobsCount++;
+                        totalPendingTime += jobInfo.getStartTime() - jobInfo.getSubmittedTime();
+                    }
+                    break;
+                case JOB_RUNNING_TO_FINISHED:
+                    if (jobInfo.getStartTime() > 0 && jobInfo.getFinishedTime() > 0) {
+                        executedJobsCount++;
+                        totalExecutionTime += jobInfo.getFinishedTime() - jobInfo.getStartTime();
+                    }
+                    break;
+                default:
+                    break;
+            }
+            updateJobStatuses(jobInfo, notification.getEventType() == SchedulerEvent.JOB_REMOVE_FINISHED);
+        }
+    }
+
+    public void taskStateUpdatedEvent(NotificationData<TaskInfo> notification) {
+        TaskInfo taskInfo = notification.getData();
+        synchronized (countersLock) {
+            JobStatuses job = jobStatuses.get(taskInfo.getJobId());
+            if (job != null) {
+                TaskStatus previous = job.taskStatuses.put(taskInfo.getTaskId(), taskInfo.getStatus());
+                add(job.status, previous, -1);
+                add(job.status, taskInfo.getStatus(), 1);
+            }
+        }
+    }
+
+    private void updateJobStatuses(JobInfo jobInfo, boolean removed) {
+        JobStatuses job;
+        if (removed) {
+            job = jobStatuses.remove(jobInfo.getJobId());
+            if (job == null) {
+                // job not known by this MBean, only its last status is available
+                job = new JobStatuses(jobInfo.getStatus());
+            }
+            add(job, -1);
+        } else {
+            job = jobStatuses.get(jobInfo.getJobId());
+            if (job == null) {
+                job = new JobStatuses(jobInfo.getStatus());
+                jobStatuses.put(jobInfo.getJobId(), job);
+            } else {
+                add(job, -1);
+            }
+            job.update(jobInfo);
+            add(job, 1);
+        }
+    }
+
+    private void add(JobStatuses job, int sign) {
+        if (SchedulerDBManager.STATISTICS_PENDING_JOB_STATUSES.contains(job.status)) {
+            pendingJobsCount += sign;
+        } else if (SchedulerDBManager.STATISTICS_RUNNING_JOB_STATUSES.contains(job.status)) {
+            runningJobsCount += sign;
+        } else if (SchedulerDBManager.FINISHED_JOB_STATUSES.contains(job.status)) {
+            finishedJobsCount += sign;
+        }
+        totalJobsCount += sign;
+        for (TaskStatus taskStatus : job.taskStatuses.values()) {
+            add(job.status, taskStatus, sign);
+        }
+    }
+
+    private void add(JobStatus jobStatus, TaskStatus taskStatus, int sign) {
+        if (taskStatus == null) {
+            return;
+        }
+        if (SchedulerDBManager.NOT_FINISHED_JOB_STATUSES.contains(jobStatus)) {
+            if (SchedulerDBManager.STATISTICS_PENDING_TASK_STATUSES.contains(taskStatus)) {
+                pendingTasksCount += sign;
+            } else if (SchedulerDBManager.STATISTICS_RUNNING_TASK_STATUSES.contains(taskStatus)) {
+                runningTasksCount += sign;
+            }
+        }
+        if (SchedulerDBManager.STATISTICS_FINISHED_TASK_STATUSES.contains(taskStatus)) {
+            finishedTasksCount += sign;
+        }
+        totalTasksCount += sign;
+    }
+
     public void usersUpdatedEvent(final NotificationData<UserIdentification> notificationData) {
         synchronized (schedulerClients) {
             this.schedulerClients.update(notificationData.getData());
@@ -108,56 +312,72 @@ public final class RuntimeDataMBeanImpl extends StandardMBean implements Runtime
      */
     @Chronological
     public int getFinishedJobsCount() {
-        return (int) dbManager.getFinishedJobsCount();
+        synchronized (countersLock) {
+            return finishedJobsCount;
+        }
     }
 
     /**
      * @return current number of pending jobs
      */
     public int getPendingJobsCount() {
-        return (int) dbManager.getPendingJobsCount();
+        synchronized (countersLock) {
+            return pendingJobsCount;
+        }
     }
 
     /**
      * @return current number of running jobs
      */
     public int getRunningJobsCount() {
-        return (int) dbManager.getRunningJobsCount();
+        synchronized (countersLock) {
+            return runningJobsCount;
+        }
     }
 
     /**
      * @return current number of jobs submitted to the Scheduler
      */
     public int getTotalJobsCount() {
-        return (int) dbManager.getTotalJobsCount();
+        synchronized (countersLock) {
+            return totalJobsCount;
+        }
     }
 
     /**
      * @return current number of pending tasks
      */
     public int getPendingTasksCount() {
-        return (int) dbManager.getPendingTasksCount();
+        synchronized (countersLock) {
+            return pendingTasksCount;
+        }
     }
 
     /**
      * @return current number of finished tasks
      */
     public int getFinishedTasksCount() {
-        return (int) dbManager.getFinishedTasksCount();
+        synchronized (countersLock) {
+            return finishedTasksCount;
+        }
     }
 
     /**
      * @return current number of running tasks
      */
     public int getRunningTasksCount() {
-        return (int) dbManager.getRunningTasksCount();
+        synchronized (countersLock) {
+            return runningTasksCount;
+        }
     }
 
     /**
      * @return current number of tasks submitted to the Scheduler
      */
     public int getTotalTasksCount() {
-        return (int) dbManager.getTotalTasksCount();
+        synchronized (countersLock) {
+            return totalTasksCount;
+        }
     }
 
     /**
@@ -174,7 +394,9 @@ public final class RuntimeDataMBeanImpl extends StandardMBean implements Runtime
      */
     @Chronological
     public int getMeanJobPendingTime() {
-        return (int) dbManager.getMeanJobPendingTime();
+        synchronized (countersLock) {
+            return startedJobsCount == 0 ? 0 : (int) (totalPendingTime / startedJobsCount);
+        }
     }
 
     /**
@@ -182,7 +404,9 @@ public final class RuntimeDataMBeanImpl extends StandardMBean implements Runtime
      */
     @Chronological
     public int getMeanJobExecutionTime() {
-        return (int) dbManager.getMeanJobExecutionTime();
+        synchronized (countersLock) {
+            return executedJobsCount == 0 ? 0 : (int) (totalExecutionTime / executedJobsCount);
+        }
     }
 
     /**
@@ -190,7 +414,12 @@ public final class RuntimeDataMBeanImpl extends StandardMBean implements Runtime
      */
     @Chronological
     public int getJobSubmittingPeriod() {
-        return (int) dbManager.getMeanJobSubmittingPeriod();
+        synchronized (countersLock) {
+            if (submittedJobsCount < 2) {
+                return 0;
+            }
+            return (int) ((lastSubmittedTime - firstSubmittedTime) / (submittedJobsCount - 1));
+        }
     }
 
     // UTILITY METHODS
@@ -323,4 +552,47 @@ public final class RuntimeDataMBeanImpl extends StandardMBean implements Runtime
     public byte[] getStatisticHistory() throws IOException {
         return SchedulerJMXHelper.getInstance().getDataStore().getBytes();
     }
+
+    /**
+     * Statuses of a job and of its tasks at a given time
+     */
+    private static final class JobStatuses {
+
+        private JobStatus status;
+
+        private final Map<TaskId, TaskStatus> taskStatuses = new HashMap<>();
+
+        JobStatuses(JobStatus status) {
+            this.status = status;
+        }
+
+        JobStatuses(JobState job) {
+            this(job.getStatus());
+            for (TaskState task : job.getTasks()) {
+                taskStatuses.put(task.getId(), task.getStatus());
+            }
+        }
+
+        /**
+         * Applies the new status of the job, and the statuses of the tasks skipped or replicated
+         * by a control flow action.
+         */
+        void update(JobInfo jobInfo) {
+            status = jobInfo.getStatus();
+            if (jobInfo instanceof JobInfoImpl) {
+                JobInfoImpl jobInfoImpl = (JobInfoImpl) jobInfo;
+                if (jobInfoImpl.getTasksSkipped() != null) {
+                    for (TaskId taskId : jobInfoImpl.getTasksSkipped()) {
+                        taskStatuses.put(taskId, TaskStatus.SKIPPED);
+                    }
+                }
+                if (jobInfoImpl.getModifiedTasks() != null) {
+                    for (ClientTaskState task : jobInfoImpl.getModifiedTasks()) {
+                        taskStatuses.put(task.getId(), task.getStatus());
+                    }
+                }
+            }
+        }
+
+    }
 }
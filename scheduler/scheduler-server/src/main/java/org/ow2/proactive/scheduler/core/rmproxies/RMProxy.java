@@ -49,6 +49,7 @@ import org.ow2.proactive.utils.NodeSet;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.List;
 
 
 /**
@@ -105,6 +106,20 @@ public class RMProxy {
         return proxyActiveObject.getState();
     }
 
+    /**
+     * Return the RM state from a local view maintained from RM node events.
+     * Unlike {@link #getState()}, it does not need a round-trip to the RM, but it may
+     * lag behind the RM by the events not yet received.
+     *
+     * @return the RM state from a local view
+     */
+    public RMState getCachedState() {
+        if (proxyActiveObject == null) {
+            throw new RuntimeException("Proxy is not initialized");
+        }
+        return proxyActiveObject.getCachedState();
+    }
+
     public void rebind(URI rmURI) throws RMException, RMProxyCreationException {
 
         if (rmURI.equals(this.rmURL) && proxyActiveObject != null &&
@@ -128,6 +143,16 @@ public class RMProxy {
         return nodeSet;
     }
 
+    /**
+     * Get nodes for several criteria with a single request to the RM.
+     *
+     * @param criteriaList criteria to select nodes
+     * @return one node set per criterion, in the same order as the given criteria
+     */
+    public List<NodeSet> getNodes(List<Criteria> criteriaList) throws RMProxyCreationException {
+        return proxyActiveObject.getNodes(criteriaList);
+    }
+
     public void releaseNodes(NodeSet nodeSet) {
         releaseNodes(nodeSet, null);
     }
@@ -20,6 +20,12 @@ import org.objectweb.proactive.extensions.annotation.ActiveObject;
 import org.ow2.proactive.authentication.crypto.Credentials;
 import org.ow2.proactive.resourcemanager.authentication.RMAuthentication;
 import org.ow2.proactive.resourcemanager.common.RMState;
+import org.ow2.proactive.resourcemanager.common.event.RMEvent;
+import org.ow2.proactive.resourcemanager.common.event.RMEventType;
+import org.ow2.proactive.resourcemanager.common.event.RMInitialState;
+import org.ow2.proactive.resourcemanager.common.event.RMNodeEvent;
+import org.ow2.proactive.resourcemanager.common.event.RMNodeSourceEvent;
+import org.ow2.proactive.resourcemanager.frontend.RMEventListener;
 import org.ow2.proactive.resourcemanager.frontend.ResourceManager;
 import org.ow2.proactive.scripting.Script;
 import org.ow2.proactive.scripting.ScriptHandler;
@@ -31,7 +37,7 @@ import org.apache.log4j.Logger;
 
 
 @ActiveObject
-public class RMProxyActiveObject {
+public class RMProxyActiveObject implements RMEventListener {
 
     protected static final Logger logger = Logger.getLogger(RMProxyActiveObject.class);
 
@@ -40,6 +46,9 @@ public class RMProxyActiveObject {
     /** list of nodes and clean script being executed */
     private Map<Node, ScriptResult<?>> nodes = new HashMap<>();
 
+    /** local view of the RM state maintained from node events, created on the first call to getCachedState */
+    private RMStateView stateView;
+
     public RMProxyActiveObject() {
     }
 
@@ -72,6 +81,13 @@ public class RMProxyActiveObject {
 
     @ImmediateService
     public BooleanWrapper disconnect() {
+        if (stateView != null) {
+            try {
+                rm.getMonitoring().removeRMEventListener();
+            } catch (Exception e) {
+                logger.debug("Cannot remove the RM event listener", e);
+            }
+        }
         return rm.disconnect();
     }
 
@@ -85,11 +101,63 @@ public class RMProxyActiveObject {
         return rm.getState();
     }
 
+    /**
+     * Return the RM state from the local view maintained from node events.
+     * The first call subscribes to the RM node events, following calls do not reach the RM.
+     * This method is served in FIFO order with the events, so the view is never older than
+     * the initial state it has been built from.
+     *
+     * @return the RM state from the local view
+     */
+    public RMState getCachedState() {
+        if (stateView == null) {
+            try {
+                RMInitialState initialState = rm.getMonitoring().addRMEventListener(
+                        (RMEventListener) PAActiveObject.getStubOnThis(), RMEventType.NODE_ADDED,
+                        RMEventType.NODE_REMOVED, RMEventType.NODE_STATE_CHANGED);
+                stateView = new RMStateView(initialState);
+            } catch (Exception e) {
+                logger.warn("Cannot subscribe to RM events, asking the RM for its state", e);
+                return rm.getState();
+            }
+        }
+        return stateView.getState();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void rmEvent(RMEvent event) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void nodeSourceEvent(RMNodeSourceEvent event) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void nodeEvent(RMNodeEvent event) {
+        if (stateView != null) {
+            stateView.nodeEvent(event);
+        }
+    }
+
     @ImmediateService
     public NodeSet getNodes(Criteria criteria) {
         return rm.getNodes(criteria);
     }
 
+    @ImmediateService
+    public List<NodeSet> getNodes(List<Criteria> criteriaList) {
+        return rm.getNodes(criteriaList);
+    }
+
     @ImmediateService
     public BooleanWrapper releaseNode(Node node) {
         return rm.releaseNode(node);
@@ -0,0 +1,159 @@
+/*
+ * ################################################################
+ *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2011 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s): ActiveEon Team - http://www.activeeon.com
+ *
+ * ################################################################
+ * $$ACTIVEEON_CONTRIBUTOR$$
+ */
+package org.ow2.proactive.scheduler.core.rmproxies;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.ow2.proactive.resourcemanager.common.NodeState;
+import org.ow2.proactive.resourcemanager.common.RMState;
+import org.ow2.proactive.resourcemanager.common.event.RMInitialState;
+import org.ow2.proactive.resourcemanager.common.event.RMNodeEvent;
+
+
+/**
+ * Local view of the resource manager nodes, initialized from an {@link RMInitialState}
+ * and then maintained from node events. It provides the same counters as the RM state
+ * without any call to the resource manager.
+ *
+ * Deploying and lost nodes are not counted, as in the resource manager core.
+ *
+ */
+class RMStateView {
+
+    private static final class NodeEntry {
+
+        private final String nodeSource;
+
+        private final NodeState state;
+
+        private NodeEntry(String nodeSource, NodeState state) {
+            this.nodeSource = nodeSource;
+            this.state = state;
+        }
+    }
+
+    /** Known nodes by url */
+    private final Map<String, NodeEntry> nodes = new HashMap<>();
+
+    /** Number of free nodes by node source name */
+    private final Map<String, Integer> freeNodesPerNodeSource = new HashMap<>();
+
+    private int freeNodesNumber = 0;
+
+    private int aliveNodesNumber = 0;
+
+    RMStateView(RMInitialState initialState) {
+        for (RMNodeEvent event : initialState.getNodesEvents()) {
+            nodeUpdated(event);
+        }
+    }
+
+    /**
+     * Apply a node event received from the resource manager.
+     *
+     * @param event the node event
+     */
+    synchronized void nodeEvent(RMNodeEvent event) {
+        switch (event.getEventType()) {
+            case NODE_ADDED:
+            case NODE_STATE_CHANGED:
+                nodeUpdated(event);
+                break;
+            case NODE_REMOVED:
+                removeNode(event.getNodeUrl());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Return the RM state computed from the known nodes.
+     *
+     * @return the RM state computed from the known nodes.
+     */
+    synchronized RMState getState() {
+        return new RMState(freeNodesNumber, aliveNodesNumber, nodes.size());
+    }
+
+    /**
+     * Return the number of free nodes in the given node source.
+     *
+     * @param nodeSource the node source name
+     * @return the number of free nodes in the given node source.
+     */
+    synchronized int getFreeNodesNumber(String nodeSource) {
+        Integer free = freeNodesPerNodeSource.get(nodeSource);
+        return free == null ? 0 : free;
+    }
+
+    private void nodeUpdated(RMNodeEvent event) {
+        removeNode(event.getNodeUrl());
+        NodeState state = event.getNodeState();
+        if (state == NodeState.DEPLOYING || state == NodeState.LOST) {
+            return;
+        }
+        NodeEntry entry = new NodeEntry(event.getNodeSource(), state);
+        nodes.put(event.getNodeUrl(), entry);
+        count(entry, 1);
+    }
+
+    private void removeNode(String nodeUrl) {
+        NodeEntry entry = nodes.remove(nodeUrl);
+        if (entry != null) {
+            count(entry, -1);
+        }
+    }
+
+    private void count(NodeEntry entry, int delta) {
+        if (entry.state != NodeState.DOWN) {
+            aliveNodesNumber += delta;
+        }
+        if (entry.state == NodeState.FREE) {
+            freeNodesNumber += delta;
+            Integer free = freeNodesPerNodeSource.get(entry.nodeSource);
+            int newValue = (free == null ? 0 : free) + delta;
+            if (newValue == 0) {
+                freeNodesPerNodeSource.remove(entry.nodeSource);
+            } else {
+                freeNodesPerNodeSource.put(entry.nodeSource, newValue);
+            }
+        }
+    }
+
+}
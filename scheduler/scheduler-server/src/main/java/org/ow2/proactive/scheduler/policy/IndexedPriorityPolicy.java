@@ -0,0 +1,179 @@
+/*
+ * ################################################################
+ *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2011 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s):
+ *
+ * ################################################################
+ * $$PROACTIVE_INITIAL_DEV$$
+ */
+package org.ow2.proactive.scheduler.policy;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Vector;
+
+import org.ow2.proactive.scheduler.common.job.JobId;
+import org.ow2.proactive.scheduler.common.job.JobPriority;
+import org.ow2.proactive.scheduler.descriptor.EligibleTaskDescriptor;
+import org.ow2.proactive.scheduler.descriptor.JobDescriptor;
+
+
+/**
+ * Implementation of the policy giving the same order as {@link DefaultPolicy} (FIFO according to the jobs priorities)
+ * but keeping jobs in an ordered index between two scheduling loops.
+ * <ul>
+ * 	<li>Jobs are keyed by (priority, job id), a new job or a job whose priority has changed
+ * 	is (re)inserted in O(log n).</li>
+ * 	<li>The list of jobs is never sorted, jobs which are not given anymore are evicted
+ * 	while the index is traversed.</li>
+ * </ul>
+ * This policy is worth using when a lot of jobs are pending.
+ *
+ * @author The ProActive Team
+ * @since ProActive Scheduling 6.3
+ */
+public class IndexedPriorityPolicy extends Policy {
+
+    /** Jobs ordered by priority then by submission order */
+    private final TreeMap<JobKey, IndexedJob> queue = new TreeMap<>();
+
+    /** Current key of every indexed job */
+    private final Map<JobId, JobKey> keys = new HashMap<>();
+
+    /** Incremented on each call, used to detect the jobs that have not been given */
+    private long generation = 0;
+
+    /**
+     * {@inheritDoc}
+     * Override reload to avoid reading config file
+     * Attempting to read a non-existing file will fail policy changes or renewal.
+     */
+    @Override
+    public boolean reloadConfig() {
+        return true;
+    }
+
+    /**
+     * This method return the tasks using FIFO policy according to the jobs priorities.
+     *
+     * @see org.ow2.proactive.scheduler.policy.Policy#getOrderedTasks(java.util.List)
+     */
+    @Override
+    public Vector<EligibleTaskDescriptor> getOrderedTasks(List<JobDescriptor> jobs) {
+        generation++;
+
+        for (JobDescriptor jd : jobs) {
+            JobId jobId = jd.getJobId();
+            JobPriority priority = jd.getInternal().getPriority();
+            JobKey key = keys.get(jobId);
+            if (key == null || key.priority != priority) {
+                //new job or priority change : re-key it
+                if (key != null) {
+                    queue.remove(key);
+                }
+                key = new JobKey(priority, jobId);
+                keys.put(jobId, key);
+                queue.put(key, new IndexedJob(jd, generation));
+            } else {
+                IndexedJob indexedJob = queue.get(key);
+                indexedJob.descriptor = jd;
+                indexedJob.generation = generation;
+            }
+        }
+
+        Vector<EligibleTaskDescriptor> toReturn = new Vector<>();
+        for (Iterator<Map.Entry<JobKey, IndexedJob>> it = queue.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<JobKey, IndexedJob> entry = it.next();
+            IndexedJob indexedJob = entry.getValue();
+            if (indexedJob.generation != generation) {
+                //job is finished or has nothing to schedule anymore
+                it.remove();
+                keys.remove(entry.getKey().jobId);
+            } else {
+                toReturn.addAll(indexedJob.descriptor.getEligibleTasks());
+            }
+        }
+
+        //return sorted list of tasks
+        return toReturn;
+    }
+
+    /**
+     * Return the number of jobs currently indexed by this policy.
+     *
+     * @return the number of jobs currently indexed by this policy.
+     */
+    int size() {
+        return queue.size();
+    }
+
+    private static final class IndexedJob implements Serializable {
+
+        private JobDescriptor descriptor;
+
+        private long generation;
+
+        private IndexedJob(JobDescriptor descriptor, long generation) {
+            this.descriptor = descriptor;
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * Same order as {@link DefaultPolicy#FIFO_BY_PRIORITY_COMPARATOR}, but the priority is
+     * captured when the job is indexed so that the key stays stable inside the tree.
+     */
+    private static final class JobKey implements Comparable<JobKey>, Serializable {
+
+        private final JobPriority priority;
+
+        private final JobId jobId;
+
+        private JobKey(JobPriority priority, JobId jobId) {
+            this.priority = priority;
+            this.jobId = jobId;
+        }
+
+        @Override
+        public int compareTo(JobKey other) {
+            if (priority.equals(other.priority)) {
+                return jobId.compareTo(other.jobId);
+            } else {
+                return other.priority.compareTo(priority);
+            }
+        }
+    }
+
+}
@@ -98,4 +98,45 @@ public class SchedulingServiceTest1 extends BaseServiceTest {
         infrastructure.assertRequests(1);
     }
 
+    @Test
+    public void testLockReadyJobsToSchedule() throws Exception {
+        TaskFlowJob job = createTestJob();
+        JavaTask task2 = new JavaTask();
+        task2.setExecutableClassName("class");
+        task2.setName("task2");
+        task2.addDependence(job.getTask("task1"));
+        job.addTask(task2);
+        service.submitJob(createJob(job));
+
+        Map<JobId, JobDescriptor> jobsMap;
+        JobDescriptor jobDesc;
+
+        jobsMap = service.lockReadyJobsToSchedule();
+        assertEquals(1, jobsMap.size());
+        jobDesc = jobsMap.values().iterator().next();
+        Assert.assertEquals(1, jobDesc.getEligibleTasks().size());
+        taskStarted(jobDesc, jobDesc.getEligibleTasks().iterator().next());
+        service.unlockJobsToSchedule(jobsMap.values());
+
+        // no eligible task left, the job is not locked by the scheduling loop anymore
+        jobsMap = service.lockReadyJobsToSchedule();
+        assertEquals(0, jobsMap.size());
+        service.unlockJobsToSchedule(jobsMap.values());
+
+        jobsMap = service.lockJobsToSchedule();
+        assertEquals(1, jobsMap.size());
+        service.unlockJobsToSchedule(jobsMap.values());
+
+        // task1 termination makes task2 eligible
+        TaskId taskId = jobDesc.getInternal().getTask("task1").getId();
+        service.taskTerminatedWithResult(taskId, new TaskResultImpl(taskId, "Result", null, 0));
+
+        jobsMap = service.lockReadyJobsToSchedule();
+        assertEquals(1, jobsMap.size());
+        jobDesc = jobsMap.values().iterator().next();
+        Assert.assertEquals(1, jobDesc.getEligibleTasks().size());
+        Assert.assertEquals("task2", jobDesc.getEligibleTasks().iterator().next().getInternal().getName());
+        service.unlockJobsToSchedule(jobsMap.values());
+    }
+
 }
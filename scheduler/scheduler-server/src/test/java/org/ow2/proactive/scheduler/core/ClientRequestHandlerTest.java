@@ -0,0 +1,208 @@
+/*
+ *  *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2014 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s):
+ *
+ *  * $$ACTIVEEON_INITIAL_DEV$$
+ */
+package org.ow2.proactive.scheduler.core;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.proactive.core.UniqueID;
+import org.ow2.proactive.scheduler.common.NotificationData;
+import org.ow2.proactive.scheduler.common.SchedulerEvent;
+import org.ow2.proactive.scheduler.common.SchedulerEventListener;
+import org.ow2.proactive.scheduler.common.job.JobInfo;
+import org.ow2.proactive.scheduler.common.job.JobState;
+import org.ow2.proactive.scheduler.common.job.UserIdentification;
+import org.ow2.proactive.scheduler.common.task.TaskId;
+import org.ow2.proactive.scheduler.common.task.TaskInfo;
+import org.ow2.proactive.scheduler.job.JobIdImpl;
+import org.ow2.proactive.scheduler.task.TaskIdImpl;
+import org.ow2.proactive.scheduler.task.TaskInfoImpl;
+import org.ow2.tests.ProActiveTest;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class ClientRequestHandlerTest extends ProActiveTest {
+
+    private TaskId task1;
+    private TaskId task2;
+
+    private BlockingListener listener;
+    private ClientRequestHandler handler;
+    private Method taskStateUpdatedEvent;
+
+    @Before
+    public void createHandler() throws Exception {
+        task1 = TaskIdImpl.createTaskId(JobIdImpl.makeJobId("1"), "task1", 1);
+        task2 = TaskIdImpl.createTaskId(JobIdImpl.makeJobId("1"), "task2", 2);
+        listener = new BlockingListener();
+        handler = new ClientRequestHandler(null, new UniqueID("client"), listener);
+        taskStateUpdatedEvent = SchedulerEventListener.class.getMethod("taskStateUpdatedEvent",
+                NotificationData.class);
+    }
+
+    @Test
+    public void queuedProgressIsReplacedByTheNextProgressOfTheTask() throws Exception {
+        sendWhileTheListenerIsBusy(progress(task1, 10));
+        addEvent(progress(task1, 20));
+        addEvent(progress(task2, 5));
+        addEvent(progress(task1, 30));
+        addEvent(progress(task2, 6));
+        addEvent(event(task1, SchedulerEvent.TASK_RUNNING_TO_FINISHED));
+
+        assertEquals(Collections.singletonList("task1 TASK_PROGRESS 10"), listener.received);
+        listener.release();
+
+        listener.waitForEvents(4);
+        assertEquals(listOf("task1 TASK_PROGRESS 10", "task1 TASK_PROGRESS 30", "task2 TASK_PROGRESS 6",
+                "task1 TASK_RUNNING_TO_FINISHED 0"), listener.received);
+    }
+
+    @Test
+    public void progressIsNotMovedBeforeTheOtherEventsOfTheTask() throws Exception {
+        sendWhileTheListenerIsBusy(progress(task1, 10));
+        addEvent(progress(task1, 20));
+        addEvent(event(task1, SchedulerEvent.TASK_PENDING_TO_RUNNING));
+        addEvent(progress(task1, 30));
+        addEvent(progress(task1, 40));
+        listener.release();
+
+        listener.waitForEvents(4);
+        assertEquals(listOf("task1 TASK_PROGRESS 10", "task1 TASK_PROGRESS 20",
+                "task1 TASK_PENDING_TO_RUNNING 0", "task1 TASK_PROGRESS 40"), listener.received);
+    }
+
+    @Test
+    public void otherTaskEventsAreNotCoalesced() throws Exception {
+        sendWhileTheListenerIsBusy(event(task1, SchedulerEvent.TASK_PENDING_TO_RUNNING));
+        addEvent(event(task1, SchedulerEvent.TASK_WAITING_FOR_RESTART));
+        addEvent(event(task1, SchedulerEvent.TASK_PENDING_TO_RUNNING));
+        addEvent(event(task1, SchedulerEvent.TASK_RUNNING_TO_FINISHED));
+        listener.release();
+
+        listener.waitForEvents(4);
+        assertEquals(listOf("task1 TASK_PENDING_TO_RUNNING 0", "task1 TASK_WAITING_FOR_RESTART 0",
+                "task1 TASK_PENDING_TO_RUNNING 0", "task1 TASK_RUNNING_TO_FINISHED 0"), listener.received);
+    }
+
+    /**
+     * Send the first event and wait for the listener to block on it, the next events are queued
+     */
+    private void sendWhileTheListenerIsBusy(NotificationData<TaskInfo> notification) throws Exception {
+        addEvent(notification);
+        assertTrue(listener.busy.await(10, TimeUnit.SECONDS));
+    }
+
+    private void addEvent(NotificationData<TaskInfo> notification) {
+        handler.addEvent(taskStateUpdatedEvent, notification);
+    }
+
+    private static NotificationData<TaskInfo> progress(TaskId taskId, int progress) {
+        TaskInfoImpl taskInfo = new TaskInfoImpl();
+        taskInfo.setTaskId(taskId);
+        taskInfo.setProgress(progress);
+        return new NotificationData<TaskInfo>(SchedulerEvent.TASK_PROGRESS, taskInfo);
+    }
+
+    private static NotificationData<TaskInfo> event(TaskId taskId, SchedulerEvent event) {
+        TaskInfoImpl taskInfo = new TaskInfoImpl();
+        taskInfo.setTaskId(taskId);
+        return new NotificationData<TaskInfo>(event, taskInfo);
+    }
+
+    private static List<String> listOf(String... events) {
+        List<String> list = new ArrayList<>();
+        Collections.addAll(list, events);
+        return list;
+    }
+
+    /**
+     * Records the received task events and blocks on the first one until released
+     */
+    private static class BlockingListener implements SchedulerEventListener {
+
+        private final CountDownLatch busy = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+
+        void release() {
+            released.countDown();
+        }
+
+        void waitForEvents(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 10000;
+            while (received.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+
+        @Override
+        public void taskStateUpdatedEvent(NotificationData<TaskInfo> notification) {
+            TaskInfo taskInfo = notification.getData();
+            received.add(taskInfo.getTaskId().getReadableName() + " " + notification.getEventType() + " " +
+                taskInfo.getProgress());
+            busy.countDown();
+            try {
+                released.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void schedulerStateUpdatedEvent(SchedulerEvent eventType) {
+        }
+
+        @Override
+        public void jobSubmittedEvent(JobState job) {
+        }
+
+        @Override
+        public void jobStateUpdatedEvent(NotificationData<JobInfo> notification) {
+        }
+
+        @Override
+        public void usersUpdatedEvent(NotificationData<UserIdentification> notification) {
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ *  *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2014 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s):
+ *
+ *  * $$ACTIVEEON_INITIAL_DEV$$
+ */
+package org.ow2.proactive.scheduler.core;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.objectweb.proactive.core.UniqueID;
+import org.ow2.proactive.scheduler.common.SchedulerEvent;
+import org.ow2.proactive.scheduler.job.UserIdentificationImpl;
+import org.ow2.tests.ProActiveTest;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class ListeningUsersIndexTest extends ProActiveTest {
+
+    private ListeningUser admin;
+    private ListeningUser john;
+    private ListeningUser jane;
+    private ListeningUser notListening;
+
+    private ListeningUsersIndex index;
+
+    @Before
+    public void createIndex() {
+        admin = listeningUser("admin", false);
+        john = listeningUser("john", true, SchedulerEvent.JOB_SUBMITTED, SchedulerEvent.TASK_PROGRESS);
+        jane = listeningUser("jane", false, SchedulerEvent.TASK_PROGRESS);
+        notListening = new ListeningUser(new UserIdentificationImpl("bob"));
+
+        index = new ListeningUsersIndex(Arrays.asList(admin, john, jane, notListening));
+    }
+
+    @Test
+    public void listenersOfAnEventAreTheUsersListeningToIt() {
+        assertListeners(index.getListeners(SchedulerEvent.TASK_PROGRESS), admin, john, jane);
+        assertListeners(index.getListeners(SchedulerEvent.JOB_SUBMITTED), admin, john);
+        assertListeners(index.getListeners(SchedulerEvent.KILLED), admin);
+    }
+
+    @Test
+    public void usersListeningToTheirEventsOnlyAreListenersOfTheirOwnEvents() {
+        assertListeners(index.getListeners(SchedulerEvent.TASK_PROGRESS, "john"), admin, john, jane);
+        assertListeners(index.getListeners(SchedulerEvent.TASK_PROGRESS, "jane"), admin, jane);
+        assertListeners(index.getListeners(SchedulerEvent.JOB_SUBMITTED, "jane"), admin);
+        assertListeners(index.getListeners(SchedulerEvent.JOB_SUBMITTED, "john"), admin, john);
+    }
+
+    @Test
+    public void emptyIndexHasNoListeners() {
+        assertTrue(ListeningUsersIndex.EMPTY.getListeners(SchedulerEvent.TASK_PROGRESS).isEmpty());
+        assertTrue(ListeningUsersIndex.EMPTY.getListeners(SchedulerEvent.TASK_PROGRESS, "john").isEmpty());
+    }
+
+    @Test
+    public void indexIsNotModifiedByLaterListenerChanges() {
+        john.clearListener();
+        notListening.setListener(new ClientRequestHandler(null, new UniqueID("bob"), null));
+
+        assertListeners(index.getListeners(SchedulerEvent.TASK_PROGRESS), admin, john, jane);
+        assertListeners(new ListeningUsersIndex(Arrays.asList(admin, john, jane, notListening))
+                .getListeners(SchedulerEvent.TASK_PROGRESS), admin, jane, notListening);
+    }
+
+    private static ListeningUser listeningUser(String username, boolean myEventsOnly,
+            SchedulerEvent... events) {
+        UserIdentificationImpl user = new UserIdentificationImpl(username);
+        user.setMyEventsOnly(myEventsOnly);
+        user.setUserEvents(events);
+        ListeningUser listeningUser = new ListeningUser(user);
+        listeningUser.setListener(new ClientRequestHandler(null, new UniqueID(username), null));
+        return listeningUser;
+    }
+
+    private static void assertListeners(List<ListeningUser> listeners, ListeningUser... expected) {
+        assertEquals(expected.length, listeners.size());
+        assertEquals(new HashSet<>(Arrays.asList(expected)), new HashSet<>(listeners));
+    }
+
+}
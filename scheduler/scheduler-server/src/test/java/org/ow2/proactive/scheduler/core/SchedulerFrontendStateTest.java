@@ -1,5 +1,7 @@
 package org.ow2.proactive.scheduler.core;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -9,13 +11,21 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import org.objectweb.proactive.core.UniqueID;
+import org.ow2.proactive.scheduler.common.job.JobPriority;
+import org.ow2.proactive.scheduler.common.job.JobState;
 import org.ow2.proactive.scheduler.core.jmx.SchedulerJMXHelper;
 import org.ow2.proactive.scheduler.core.jmx.mbean.RuntimeDataMBeanImpl;
 import org.ow2.proactive.scheduler.core.properties.PASchedulerProperties;
+import org.ow2.proactive.scheduler.job.ClientJobState;
+import org.ow2.proactive.scheduler.job.InternalJob;
+import org.ow2.proactive.scheduler.job.InternalTaskFlowJob;
+import org.ow2.proactive.scheduler.job.JobIdImpl;
 import org.ow2.proactive.scheduler.job.UserIdentificationImpl;
 import org.ow2.tests.ProActiveTest;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -59,4 +69,89 @@ public class SchedulerFrontendStateTest extends ProActiveTest {
             // expected timeout exception after two seconds
         }
     }
+
+    @Test
+    public void concurrent_readers_should_not_be_blocked_by_event_dispatch() throws Exception {
+        SchedulerJMXHelper mockJMX = mock(SchedulerJMXHelper.class);
+        when(mockJMX.getSchedulerRuntimeMBean()).thenReturn(new RuntimeDataMBeanImpl(null));
+
+        InternalJob job = new InternalTaskFlowJob("job", JobPriority.NORMAL, false, "");
+        job.setId(JobIdImpl.makeJobId("1"));
+        job.setOwner("john");
+        SchedulerStateImpl schedulerState = new SchedulerStateImpl();
+        schedulerState.getPendingJobs().add(job);
+
+        final ThreadLocal<UniqueID> callerId = new ThreadLocal<>();
+        final SchedulerFrontendState schedulerFrontendState = new SchedulerFrontendState(schedulerState,
+            mockJMX) {
+            @Override
+            UniqueID getCallerId() {
+                return callerId.get();
+            }
+        };
+
+        final int readers = 4;
+        UniqueID[] readerIds = new UniqueID[readers];
+        for (int i = 0; i < readers; i++) {
+            readerIds[i] = new UniqueID("reader" + i);
+            schedulerFrontendState.connect(readerIds[i], new UserIdentificationImpl("john"), null);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(readers);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            // events are dispatched while holding the monitor of the front-end state
+            synchronized (schedulerFrontendState) {
+                for (int i = 0; i < readers; i++) {
+                    final UniqueID id = readerIds[i];
+                    results.add(executor.submit(new Callable<Object>() {
+                        @Override
+                        public Object call() throws Exception {
+                            callerId.set(id);
+                            for (int j = 0; j < 100; j++) {
+                                schedulerFrontendState.checkPermission("getJobState", "denied");
+                                JobState jobState = schedulerFrontendState.getJobState(JobIdImpl
+                                        .makeJobId("1"));
+                                assertEquals("john", jobState.getOwner());
+                                schedulerFrontendState.renewSession();
+                            }
+                            return null;
+                        }
+                    }));
+                }
+                for (Future<Object> result : results) {
+                    result.get(10, TimeUnit.SECONDS);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void job_state_should_be_a_copy() throws Exception {
+        SchedulerJMXHelper mockJMX = mock(SchedulerJMXHelper.class);
+        when(mockJMX.getSchedulerRuntimeMBean()).thenReturn(new RuntimeDataMBeanImpl(null));
+
+        InternalJob job = new InternalTaskFlowJob("job", JobPriority.NORMAL, false, "");
+        job.setId(JobIdImpl.makeJobId("1"));
+        job.setOwner("john");
+        SchedulerStateImpl schedulerState = new SchedulerStateImpl();
+        schedulerState.getPendingJobs().add(new ClientJobState(job));
+
+        final UniqueID id = new UniqueID("reader");
+        SchedulerFrontendState schedulerFrontendState = new SchedulerFrontendState(schedulerState, mockJMX) {
+            @Override
+            UniqueID getCallerId() {
+                return id;
+            }
+        };
+        schedulerFrontendState.connect(id, new UserIdentificationImpl("john"), null);
+
+        JobState jobState = schedulerFrontendState.getJobState(job.getId());
+
+        assertNotSame(schedulerState.getPendingJobs().get(0), jobState);
+        assertNotSame(jobState, schedulerFrontendState.getJobState(job.getId()));
+        assertEquals(job.getId(), jobState.getId());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,352 @@
+/*
+ *  *
+ * ProActive Parallel Suite(TM): The Java(TM) library for
+ *    Parallel, Distributed, Multi-Core Computing for
+ *    Enterprise Grids & Clouds
+ *
+ * Copyright (C) 1997-2014 INRIA/University of
+ *                 Nice-Sophia Antipolis/ActiveEon
+ * Contact: proactive@ow2.org or contact@activeeon.com
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation; version 3 of
+ * the License.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307
+ * USA
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ *
+ *  Initial developer(s):               The ProActive Team
+ *                        http://proactive.inria.fr/team_members.htm
+ *  Contributor(s):
+ *
+ *  * $$ACTIVEEON_INITIAL_DEV$$
+ */
+package org.ow2.proactive.scheduler.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.objectweb.proactive.ActiveObjectCreationException;
+import org.objectweb.proactive.core.node.Node;
+import org.ow2.proactive.authentication.crypto.Credentials;
+import org.ow2.proactive.scheduler.common.TaskTerminateNotification;
+import org.ow2.proactive.scheduler.common.job.JobId;
+import org.ow2.proactive.scheduler.common.task.TaskId;
+import org.ow2.proactive.scheduler.core.rmproxies.RMProxiesManager;
+import org.ow2.proactive.scheduler.core.rmproxies.RMProxy;
+import org.ow2.proactive.scheduler.core.rmproxies.RMProxyCreationException;
+import org.ow2.proactive.scheduler.descriptor.EligibleTaskDescriptor;
+import org.ow2.proactive.scheduler.descriptor.JobDescriptor;
+import org.ow2.proactive.scheduler.job.InternalJob;
+import org.ow2.proactive.scheduler.job.JobIdImpl;
+import org.ow2.proactive.scheduler.task.TaskIdImpl;
+import org.ow2.proactive.scheduler.task.TaskLauncher;
+import org.ow2.proactive.scheduler.task.containers.ExecutableContainer;
+import org.ow2.proactive.scheduler.task.internal.InternalTask;
+import org.ow2.proactive.scheduler.util.TaskLogger;
+import org.ow2.proactive.threading.TimeoutThreadPoolExecutor;
+import org.ow2.proactive.utils.Criteria;
+import org.ow2.proactive.utils.NodeSet;
+import org.ow2.proactive.utils.TaskIdWrapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+
+public class SchedulingMethodImplTest {
+
+    private SchedulingService schedulingService;
+    private RMProxiesManager rmProxiesManager;
+    private SchedulingMethodImpl schedulingMethod;
+
+    private Map<JobId, JobDescriptor> jobMap;
+    private Map<TaskIdWrapper, ExecutableContainer> containers;
+    private int jobCount;
+
+    /** tasks for which the resource manager fails to select nodes */
+    private Set<String> failingTasks;
+
+    @Before
+    public void setUp() {
+        schedulingService = mock(SchedulingService.class);
+        rmProxiesManager = mock(RMProxiesManager.class);
+        SchedulingInfrastructure infrastructure = mock(SchedulingInfrastructure.class);
+        when(schedulingService.getInfrastructure()).thenReturn(infrastructure);
+        when(infrastructure.getRMProxiesManager()).thenReturn(rmProxiesManager);
+        when(infrastructure.getDataSpaceServiceStarter()).thenReturn(mock(DataSpaceServiceStarter.class));
+
+        schedulingMethod = new SchedulingMethodImpl(schedulingService, mock(TaskTerminateNotification.class),
+            mock(TimeoutThreadPoolExecutor.class), null);
+
+        jobMap = new HashMap<>();
+        containers = new HashMap<>();
+        failingTasks = new HashSet<>();
+    }
+
+    @Test
+    public void batchedRequestGivesTheSameNodesAsOneRequestPerGroup() throws Exception {
+        RMProxy proxy = userProxy("alice");
+        LinkedList<EligibleTaskDescriptor> group1 = group(job("alice"), 2);
+        LinkedList<EligibleTaskDescriptor> group2 = group(job("alice"), 1);
+        LinkedList<EligibleTaskDescriptor> group3 = group(job("alice"), 3);
+
+        List<NodeSet> batched = schedulingMethod.getRMNodes(jobMap, Arrays.asList(2, 1, 3), Arrays.asList(
+                group1, group2, group3));
+
+        verify(proxy, times(1)).getNodes(anyListOf(Criteria.class));
+        verify(proxy, never()).getNodes(any(Criteria.class));
+        assertEquals(3, batched.size());
+        assertEquals(urls(schedulingMethod.getRMNodes(jobMap, 2, group1)), urls(batched.get(0)));
+        assertEquals(urls(schedulingMethod.getRMNodes(jobMap, 1, group2)), urls(batched.get(1)));
+        assertEquals(urls(schedulingMethod.getRMNodes(jobMap, 3, group3)), urls(batched.get(2)));
+    }
+
+    @Test
+    public void groupsOfEachOwnerAreAskedWithTheirOwnProxy() throws Exception {
+        RMProxy aliceProxy = userProxy("alice");
+        RMProxy bobProxy = userProxy("bob");
+        LinkedList<EligibleTaskDescriptor> aliceGroup = group(job("alice"), 1);
+        LinkedList<EligibleTaskDescriptor> bobGroup = group(job("bob"), 2);
+
+        List<NodeSet> nodeSets = schedulingMethod.getRMNodes(jobMap, Arrays.asList(1, 2), Arrays.asList(
+                aliceGroup, bobGroup));
+
+        verify(aliceProxy, times(1)).getNodes(anyListOf(Criteria.class));
+        verify(bobProxy, times(1)).getNodes(anyListOf(Criteria.class));
+        assertEquals(urls(taskNodes(aliceGroup)), urls(nodeSets.get(0)));
+        assertEquals(urls(taskNodes(bobGroup)), urls(nodeSets.get(1)));
+    }
+
+    @Test
+    public void failedSelectionOnlyLosesTheNodesOfItsGroup() throws Exception {
+        userProxy("alice");
+        LinkedList<EligibleTaskDescriptor> group1 = group(job("alice"), 1);
+        LinkedList<EligibleTaskDescriptor> group2 = group(job("alice"), 1);
+        LinkedList<EligibleTaskDescriptor> group3 = group(job("alice"), 2);
+        failingTasks.add(group2.getFirst().getTaskId().toString());
+
+        List<NodeSet> nodeSets = schedulingMethod.getRMNodes(jobMap, Arrays.asList(1, 1, 2), Arrays.asList(
+                group1, group2, group3));
+
+        assertEquals(urls(taskNodes(group1)), urls(nodeSets.get(0)));
+        assertNull(nodeSets.get(1));
+        assertEquals(urls(taskNodes(group3)), urls(nodeSets.get(2)));
+    }
+
+    @Test
+    public void groupsOfAnOwnerWithoutProxyAreCanceledOnly() throws Exception {
+        userProxy("alice");
+        when(rmProxiesManager.getUserRMProxy(eq("bob"), any(Credentials.class))).thenThrow(
+                new RMProxyCreationException("authentication failed"));
+        LinkedList<EligibleTaskDescriptor> bobGroup = group(job("bob"), 1);
+        LinkedList<EligibleTaskDescriptor> aliceGroup = group(job("alice"), 1);
+
+        List<NodeSet> nodeSets = schedulingMethod.getRMNodes(jobMap, Arrays.asList(1, 1), Arrays.asList(
+                bobGroup, aliceGroup));
+
+        assertNull(nodeSets.get(0));
+        assertEquals(urls(taskNodes(aliceGroup)), urls(nodeSets.get(1)));
+        verify(schedulingService).simulateJobStartAndCancelIt(eq(bobGroup), anyString());
+        verify(schedulingService, never()).simulateJobStartAndCancelIt(eq(aliceGroup), anyString());
+    }
+
+    @Test
+    public void startTasksStartsOneTaskPerNodeAndGivesBackTheOthers() throws Exception {
+        RMProxy proxy = userProxy("alice");
+        LinkedList<EligibleTaskDescriptor> tasks = group(job("alice"), 2);
+        NodeSet nodeSet = nodes("node1", "node2", "node3");
+
+        int started = schedulingMethod.startTasks(jobMap, nodeSet, tasks, containers);
+
+        assertEquals(2, started);
+        verify(schedulingService, times(2)).taskStarted(any(InternalJob.class), any(InternalTask.class),
+                any(TaskLauncher.class));
+        ArgumentCaptor<NodeSet> released = ArgumentCaptor.forClass(NodeSet.class);
+        verify(proxy).releaseNodes(released.capture());
+        assertEquals(Arrays.asList("node3"), urls(released.getValue()));
+    }
+
+    @Test
+    public void startTasksGivesBackTheNodesWhenALauncherCannotBeCreated() throws Exception {
+        RMProxy proxy = userProxy("alice");
+        LinkedList<EligibleTaskDescriptor> tasks = group(job("alice"), 2);
+        InternalTask firstTask = tasks.getFirst().getInternal();
+        when(firstTask.createLauncher(any(InternalJob.class), any(Node.class))).thenThrow(
+                new ActiveObjectCreationException("node unreachable"));
+        NodeSet nodeSet = nodes("node1", "node2");
+        schedulingMethod.activeObjectCreationRetryTimeNumber = 3;
+
+        schedulingMethod.startTasks(jobMap, nodeSet, tasks, containers);
+
+        verify(schedulingService, never()).taskStarted(any(InternalJob.class), any(InternalTask.class),
+                any(TaskLauncher.class));
+        ArgumentCaptor<NodeSet> released = ArgumentCaptor.forClass(NodeSet.class);
+        verify(proxy).releaseNodes(released.capture());
+        assertEquals(Arrays.asList("node1", "node2"), urls(released.getValue()));
+        assertEquals(2, schedulingMethod.activeObjectCreationRetryTimeNumber);
+    }
+
+    @Test
+    public void startTasksWithoutNodesStartsNothing() throws Exception {
+        RMProxy proxy = userProxy("alice");
+        LinkedList<EligibleTaskDescriptor> tasks = group(job("alice"), 1);
+
+        assertEquals(0, schedulingMethod.startTasks(jobMap, null, tasks, containers));
+        assertEquals(0, schedulingMethod.startTasks(jobMap, new NodeSet(), tasks, containers));
+
+        verify(proxy, never()).releaseNodes(any(NodeSet.class));
+        verify(schedulingService, never()).taskStarted(any(InternalJob.class), any(InternalTask.class),
+                any(TaskLauncher.class));
+    }
+
+    @Test
+    public void releaseNodesQuietlyIgnoresReleaseFailures() throws Exception {
+        RMProxy proxy = userProxy("alice");
+        doThrow(new RuntimeException("resource manager unreachable")).when(proxy).releaseNodes(
+                any(NodeSet.class));
+        LinkedList<EligibleTaskDescriptor> tasks = group(job("alice"), 1);
+        NodeSet nodeSet = nodes("node1");
+
+        schedulingMethod.releaseNodesQuietly(jobMap, tasks, nodeSet);
+
+        verify(proxy).releaseNodes(nodeSet);
+    }
+
+    @Test
+    public void releaseNodesQuietlyDoesNothingWithoutNodes() throws Exception {
+        LinkedList<EligibleTaskDescriptor> tasks = group(job("alice"), 1);
+
+        schedulingMethod.releaseNodesQuietly(jobMap, tasks, null);
+        schedulingMethod.releaseNodesQuietly(jobMap, tasks, new NodeSet());
+
+        verify(rmProxiesManager, never()).getUserRMProxy(anyString(), any(Credentials.class));
+    }
+
+    private InternalJob job(String owner) {
+        JobId jobId = JobIdImpl.makeJobId(Integer.toString(++jobCount));
+        InternalJob job = mock(InternalJob.class);
+        when(job.getId()).thenReturn(jobId);
+        when(job.getOwner()).thenReturn(owner);
+        when(job.getIHMTasks()).thenReturn(new HashMap<TaskId, InternalTask>());
+        JobDescriptor jobDescriptor = mock(JobDescriptor.class);
+        when(jobDescriptor.getInternal()).thenReturn(job);
+        jobMap.put(jobId, jobDescriptor);
+        return job;
+    }
+
+    private LinkedList<EligibleTaskDescriptor> group(InternalJob job, int size) {
+        LinkedList<EligibleTaskDescriptor> group = new LinkedList<>();
+        for (int i = 0; i < size; i++) {
+            TaskId taskId = TaskIdImpl.createTaskId(job.getId(), "task" + i, i);
+            InternalTask task = mock(InternalTask.class);
+            when(task.getId()).thenReturn(taskId);
+            ExecutableContainer container = mock(ExecutableContainer.class);
+            when(task.getExecutableContainer()).thenReturn(container);
+            containers.put(TaskIdWrapper.wrap(taskId), container);
+            job.getIHMTasks().put(taskId, task);
+
+            EligibleTaskDescriptor descriptor = mock(EligibleTaskDescriptor.class);
+            when(descriptor.getJobId()).thenReturn(job.getId());
+            when(descriptor.getTaskId()).thenReturn(taskId);
+            when(descriptor.getInternal()).thenReturn(task);
+            group.add(descriptor);
+        }
+        return group;
+    }
+
+    /**
+     * The user proxy of the given owner, backed by a resource manager which gives to each task
+     * a node named after it, except to the failing tasks.
+     */
+    private RMProxy userProxy(String owner) throws Exception {
+        RMProxy proxy = mock(RMProxy.class);
+        when(proxy.getNodes(any(Criteria.class))).thenAnswer(new Answer<NodeSet>() {
+            @Override
+            public NodeSet answer(InvocationOnMock invocation) {
+                return select((Criteria) invocation.getArguments()[0]);
+            }
+        });
+        when(proxy.getNodes(anyListOf(Criteria.class))).thenAnswer(new Answer<List<NodeSet>>() {
+            @Override
+            public List<NodeSet> answer(InvocationOnMock invocation) {
+                List<NodeSet> nodeSets = new ArrayList<>();
+                for (Object criteria : (List<?>) invocation.getArguments()[0]) {
+                    nodeSets.add(select((Criteria) criteria));
+                }
+                return nodeSets;
+            }
+        });
+        when(rmProxiesManager.getUserRMProxy(eq(owner), any(Credentials.class))).thenReturn(proxy);
+        return proxy;
+    }
+
+    private NodeSet select(Criteria criteria) {
+        NodeSet nodeSet = new NodeSet();
+        for (String taskLog : criteria.getComputationDescriptors()) {
+            if (failingTasks.contains(taskLog)) {
+                NodeSet failed = new NodeSet();
+                failed.setSelectionFailure(new IllegalArgumentException("bad selection script"));
+                return failed;
+            }
+            nodeSet.add(node(taskLog));
+        }
+        return nodeSet;
+    }
+
+    private static NodeSet taskNodes(List<EligibleTaskDescriptor> tasks) {
+        NodeSet nodeSet = new NodeSet();
+        for (EligibleTaskDescriptor task : tasks) {
+            nodeSet.add(node(TaskLogger.getTaskLogFilename(task.getTaskId())));
+        }
+        return nodeSet;
+    }
+
+    private static NodeSet nodes(String... urls) {
+        NodeSet nodeSet = new NodeSet();
+        for (String url : urls) {
+            nodeSet.add(node(url));
+        }
+        return nodeSet;
+    }
+
+    private static Node node(String url) {
+        Node node = mock(Node.class, RETURNS_DEEP_STUBS);
+        when(node.getNodeInformation().getURL()).thenReturn(url);
+        return node;
+    }
+
+    private static List<String> urls(NodeSet nodeSet) {
+        List<String> urls = new ArrayList<>();
+        for (Node node : nodeSet) {
+            urls.add(node.getNodeInformation().getURL());
+        }
+        return urls;
+    }
+
+}
@@ -0,0 +1,89 @@
+package org.ow2.proactive.scheduler.core.db;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.ow2.proactive.scheduler.common.job.JobInfo;
+import org.ow2.proactive.scheduler.common.job.JobStatus;
+import org.ow2.proactive.scheduler.common.task.TaskInfo;
+import org.ow2.proactive.scheduler.common.task.TaskStatus;
+import org.ow2.proactive.scheduler.task.TaskResultImpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class PendingTaskUpdatesTest {
+
+    @Test
+    public void restored_updates_are_written_again() throws Exception {
+        PendingTaskUpdates updates = new PendingTaskUpdates();
+        TaskResultImpl result = mock(TaskResultImpl.class);
+        updates.addJobUpdate(1, jobInfo(JobStatus.RUNNING));
+        updates.addTaskUpdate(taskId(1, 1), taskInfo(TaskStatus.FINISHED));
+        updates.addResult(taskId(1, 1), result);
+
+        PendingTaskUpdates failed = updates.drain();
+        assertTrue(updates.isEmpty());
+
+        updates.restore(failed);
+
+        assertEquals(JobStatus.RUNNING, updates.getJobUpdates().iterator().next().status);
+        assertEquals(TaskStatus.FINISHED, updates.getTaskUpdates().iterator().next().status);
+        assertSame(result, updates.getResults().get(0).result);
+    }
+
+    @Test
+    public void updates_queued_after_the_failure_replace_the_restored_ones() throws Exception {
+        PendingTaskUpdates updates = new PendingTaskUpdates();
+        TaskResultImpl firstResult = mock(TaskResultImpl.class);
+        TaskResultImpl secondResult = mock(TaskResultImpl.class);
+        updates.addJobUpdate(1, jobInfo(JobStatus.RUNNING));
+        updates.addTaskUpdate(taskId(1, 1), taskInfo(TaskStatus.FAULTY));
+        updates.addResult(taskId(1, 1), firstResult);
+
+        PendingTaskUpdates failed = updates.drain();
+        updates.addJobUpdate(1, jobInfo(JobStatus.STALLED));
+        updates.addTaskUpdate(taskId(1, 1), taskInfo(TaskStatus.FINISHED));
+        updates.addTaskUpdate(taskId(1, 2), taskInfo(TaskStatus.FINISHED));
+        updates.addResult(taskId(1, 2), secondResult);
+        updates.restore(failed);
+
+        assertEquals(1, updates.getJobUpdates().size());
+        assertEquals(JobStatus.STALLED, updates.getJobUpdates().iterator().next().status);
+
+        List<PendingTaskUpdates.TaskUpdate> taskUpdates = new ArrayList<>(updates.getTaskUpdates());
+        assertEquals(2, taskUpdates.size());
+        assertEquals(taskId(1, 1), taskUpdates.get(0).taskId);
+        assertEquals(TaskStatus.FINISHED, taskUpdates.get(0).status);
+        assertEquals(taskId(1, 2), taskUpdates.get(1).taskId);
+
+        assertEquals(2, updates.getResults().size());
+        assertSame(firstResult, updates.getResults().get(0).result);
+        assertSame(secondResult, updates.getResults().get(1).result);
+    }
+
+    private static JobInfo jobInfo(JobStatus status) {
+        JobInfo jobInfo = mock(JobInfo.class);
+        when(jobInfo.getStatus()).thenReturn(status);
+        return jobInfo;
+    }
+
+    private static TaskInfo taskInfo(TaskStatus status) {
+        TaskInfo taskInfo = mock(TaskInfo.class);
+        when(taskInfo.getStatus()).thenReturn(status);
+        return taskInfo;
+    }
+
+    private static TaskData.DBTaskId taskId(long jobId, long taskId) {
+        TaskData.DBTaskId id = new TaskData.DBTaskId();
+        id.setJobId(jobId);
+        id.setTaskId(taskId);
+        return id;
+    }
+
+}
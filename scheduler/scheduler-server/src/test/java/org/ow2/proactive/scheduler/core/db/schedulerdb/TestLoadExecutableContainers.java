@@ -0,0 +1,75 @@
+package org.ow2.proactive.scheduler.core.db.schedulerdb;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ow2.proactive.scheduler.common.job.TaskFlowJob;
+import org.ow2.proactive.scheduler.job.InternalJob;
+import org.ow2.proactive.scheduler.task.containers.ExecutableContainer;
+import org.ow2.proactive.scheduler.task.containers.ScriptExecutableContainer;
+import org.ow2.proactive.scheduler.task.internal.InternalTask;
+import org.ow2.proactive.utils.TaskIdWrapper;
+
+
+public class TestLoadExecutableContainers extends BaseSchedulerDBTest {
+
+    @Test
+    public void testLoadSeveralJobs() throws Exception {
+        InternalJob job1 = submitJobWithTwoTasks();
+        InternalJob job2 = submitJobWithTwoTasks();
+
+        checkContainers(job1, job2);
+    }
+
+    @Test
+    public void testLoadNotCachedContainers() throws Exception {
+        InternalJob job1 = submitJobWithTwoTasks();
+        InternalJob job2 = submitJobWithTwoTasks();
+
+        // evicts the cached scripts of the first job, its data is kept in the database
+        dbManager.removeJob(job1.getId(), System.currentTimeMillis(), false);
+
+        checkContainers(job1, job2);
+
+        ExecutableContainer container = dbManager.loadExecutableContainer(job1.getTask("task1"));
+        Assert.assertNotNull(container);
+    }
+
+    @Test
+    public void testContainersAreNotShared() throws Exception {
+        InternalJob job = submitJobWithTwoTasks();
+        InternalTask task = job.getTask("task1");
+
+        ExecutableContainer container1 = dbManager.loadExecutableContainer(task);
+        ExecutableContainer container2 = dbManager.loadExecutableContainer(task);
+
+        Assert.assertNotSame(container1, container2);
+        Assert.assertNotSame(((ScriptExecutableContainer) container1).getScript(),
+                ((ScriptExecutableContainer) container2).getScript());
+    }
+
+    private InternalJob submitJobWithTwoTasks() throws Exception {
+        TaskFlowJob jobDef = new TaskFlowJob();
+        jobDef.addTask(createDefaultTask("task1"));
+        jobDef.addTask(createDefaultTask("task2"));
+        return defaultSubmitJobAndLoadInternal(true, jobDef);
+    }
+
+    private void checkContainers(InternalJob job1, InternalJob job2) {
+        Map<TaskIdWrapper, ExecutableContainer> containers = dbManager.loadExecutableContainers(Arrays
+                .asList(job1.getTask("task1"), job1.getTask("task2"), job2.getTask("task1"), job2
+                        .getTask("task2")));
+
+        Assert.assertEquals(4, containers.size());
+        for (InternalJob job : Arrays.asList(job1, job2)) {
+            for (InternalTask task : job.getITasks()) {
+                ExecutableContainer container = containers.get(TaskIdWrapper.wrap(task.getId()));
+                Assert.assertTrue(container instanceof ScriptExecutableContainer);
+                Assert.assertNotNull(((ScriptExecutableContainer) container).getScript());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,163 @@
+package org.ow2.proactive.scheduler.core.db.schedulerdb;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.ow2.proactive.scheduler.common.NotificationData;
+import org.ow2.proactive.scheduler.common.SchedulerEvent;
+import org.ow2.proactive.scheduler.common.job.JobInfo;
+import org.ow2.proactive.scheduler.common.job.JobState;
+import org.ow2.proactive.scheduler.common.job.JobStatus;
+import org.ow2.proactive.scheduler.common.job.TaskFlowJob;
+import org.ow2.proactive.scheduler.common.task.SimpleTaskLogs;
+import org.ow2.proactive.scheduler.common.task.TaskId;
+import org.ow2.proactive.scheduler.common.task.TaskInfo;
+import org.ow2.proactive.scheduler.core.jmx.mbean.RuntimeDataMBeanImpl;
+import org.ow2.proactive.scheduler.job.InternalJob;
+import org.ow2.proactive.scheduler.job.JobInfoImpl;
+import org.ow2.proactive.scheduler.task.TaskInfoImpl;
+import org.ow2.proactive.scheduler.task.TaskResultImpl;
+import org.ow2.proactive.scheduler.task.internal.InternalTask;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Checks that the job and task counts kept in memory by the runtime data MBean are the
+ * ones counted by the statistics queries of the database.
+ */
+public class TestRuntimeDataCounts extends BaseSchedulerDBTest {
+
+    private RuntimeDataMBeanImpl runtimeData;
+
+    @Before
+    public void createRuntimeData() throws Exception {
+        runtimeData = new RuntimeDataMBeanImpl(dbManager);
+        runtimeData.recover(Collections.<JobState> emptyList());
+    }
+
+    @Test
+    public void countsMatchTheDatabaseAfterJobTransitions() throws Exception {
+        InternalJob finishedJob = submitJob();
+        InternalJob pausedJob = submitJob();
+        InternalJob killedJob = submitJob();
+        InternalJob canceledJob = submitJob();
+        InternalJob failedJob = submitJob();
+        checkCounts();
+
+        // one task finished, the job is still running
+        startTask(finishedJob, "task1");
+        finishTask(finishedJob, "task1");
+        checkCounts();
+
+        // a running task, the others are paused
+        startTask(pausedJob, "task1");
+        Set<TaskId> pausedTasks = pausedJob.setPaused();
+        dbManager.updateJobAndTasksState(pausedJob);
+        taskEvents(pausedJob, pausedTasks);
+        jobEvent(pausedJob, SchedulerEvent.JOB_PAUSED);
+        checkCounts();
+
+        startTask(killedJob, "task1");
+        Set<TaskId> killedTasks = killedJob.failed(null, JobStatus.KILLED);
+        dbManager.updateAfterJobKilled(killedJob, killedTasks);
+        taskEvents(killedJob, killedTasks);
+        jobEvent(killedJob, SchedulerEvent.JOB_RUNNING_TO_FINISHED);
+        checkCounts();
+
+        endJob(canceledJob, JobStatus.CANCELED);
+        endJob(failedJob, JobStatus.FAILED);
+        checkCounts();
+
+        // the job is finished when its last tasks are
+        finishTask(finishedJob, "task2", "task3");
+        Assert.assertEquals(JobStatus.FINISHED, finishedJob.getStatus());
+        checkCounts();
+
+        dbManager.removeJob(killedJob.getId(), System.currentTimeMillis(), false);
+        jobEvent(killedJob, SchedulerEvent.JOB_REMOVE_FINISHED);
+        checkCounts();
+    }
+
+    private InternalJob submitJob() throws Exception {
+        TaskFlowJob jobDef = new TaskFlowJob();
+        jobDef.addTask(createDefaultTask("task1"));
+        jobDef.addTask(createDefaultTask("task2"));
+        jobDef.addTask(createDefaultTask("task3"));
+        InternalJob job = defaultSubmitJobAndLoadInternal(true, jobDef);
+        runtimeData.jobSubmittedEvent(job);
+        return job;
+    }
+
+    private void startTask(InternalJob job, String taskName) throws Exception {
+        boolean jobStarted = job.getStatus() == JobStatus.PENDING;
+        if (jobStarted) {
+            job.start();
+        }
+        InternalTask task = startTask(job, job.getTask(taskName));
+        dbManager.jobTaskStarted(job, task, jobStarted);
+        if (jobStarted) {
+            jobEvent(job, SchedulerEvent.JOB_PENDING_TO_RUNNING);
+        }
+        taskEvent(task, SchedulerEvent.TASK_PENDING_TO_RUNNING);
+    }
+
+    private void finishTask(InternalJob job, String... taskNames) throws Exception {
+        for (String taskName : taskNames) {
+            if (job.getTask(taskName).getStartTime() <= 0) {
+                startTask(job, taskName);
+            }
+            InternalTask task = job.getTask(taskName);
+            TaskResultImpl result = new TaskResultImpl(null, "ok", null, 0);
+            job.terminateTask(false, task.getId(), null, null, result);
+            if (job.isFinished()) {
+                job.terminate();
+            }
+            dbManager.updateAfterTaskFinished(job, task, result);
+            taskEvent(task, SchedulerEvent.TASK_RUNNING_TO_FINISHED);
+            if (job.isFinished()) {
+                jobEvent(job, SchedulerEvent.JOB_RUNNING_TO_FINISHED);
+            }
+        }
+    }
+
+    private void endJob(InternalJob job, JobStatus status) throws Exception {
+        startTask(job, "task1");
+        InternalTask task = job.getTask("task1");
+        Set<TaskId> updatedTasks = job.failed(task.getId(), status);
+        dbManager.updateAfterJobFailed(job, task, new TaskResultImpl(task.getId(), new Exception("failure"),
+            new SimpleTaskLogs("", "failure"), 0), updatedTasks);
+        // the task causing the end of the job is updated along with the others
+        taskEvents(job, updatedTasks);
+        jobEvent(job, SchedulerEvent.JOB_RUNNING_TO_FINISHED);
+    }
+
+    private void taskEvents(InternalJob job, Set<TaskId> taskIds) throws Exception {
+        for (TaskId taskId : taskIds) {
+            taskEvent(job.getTask(taskId), SchedulerEvent.TASK_RUNNING_TO_FINISHED);
+        }
+    }
+
+    private void taskEvent(InternalTask task, SchedulerEvent event) {
+        TaskInfo taskInfo = new TaskInfoImpl((TaskInfoImpl) task.getTaskInfo());
+        runtimeData.taskStateUpdatedEvent(new NotificationData<>(event, taskInfo));
+    }
+
+    private void jobEvent(InternalJob job, SchedulerEvent event) {
+        JobInfo jobInfo = new JobInfoImpl((JobInfoImpl) job.getJobInfo());
+        runtimeData.jobStateUpdatedEvent(new NotificationData<>(event, jobInfo));
+    }
+
+    private void checkCounts() {
+        Assert.assertEquals(dbManager.getPendingJobsCount(), runtimeData.getPendingJobsCount());
+        Assert.assertEquals(dbManager.getRunningJobsCount(), runtimeData.getRunningJobsCount());
+        Assert.assertEquals(dbManager.getFinishedJobsCount(), runtimeData.getFinishedJobsCount());
+        Assert.assertEquals(dbManager.getTotalJobsCount(), runtimeData.getTotalJobsCount());
+        Assert.assertEquals(dbManager.getPendingTasksCount(), runtimeData.getPendingTasksCount());
+        Assert.assertEquals(dbManager.getRunningTasksCount(), runtimeData.getRunningTasksCount());
+        Assert.assertEquals(dbManager.getFinishedTasksCount(), runtimeData.getFinishedTasksCount());
+        Assert.assertEquals(dbManager.getTotalTasksCount(), runtimeData.getTotalTasksCount());
+    }
+
+}
@@ -0,0 +1,167 @@
+package org.ow2.proactive.scheduler.core.db.schedulerdb;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.cfg.Configuration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.ow2.proactive.db.DatabaseManagerException;
+import org.ow2.proactive.scheduler.common.job.TaskFlowJob;
+import org.ow2.proactive.scheduler.common.task.TaskResult;
+import org.ow2.proactive.scheduler.core.db.SchedulerDBManager;
+import org.ow2.proactive.scheduler.core.properties.PASchedulerProperties;
+import org.ow2.proactive.scheduler.job.InternalJob;
+import org.ow2.proactive.scheduler.task.TaskResultImpl;
+import org.ow2.proactive.scheduler.task.internal.InternalTask;
+
+
+public class TestTaskResultStore extends BaseSchedulerDBTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File storeRoot;
+
+    @Before
+    public void enableResultStore() throws Exception {
+        dbManager.close();
+        storeRoot = folder.newFolder("results");
+        PASchedulerProperties.SCHEDULER_DB_RESULT_STORE_PATH.updateProperty(storeRoot.getAbsolutePath());
+        PASchedulerProperties.SCHEDULER_DB_RESULT_STORE_THRESHOLD.updateProperty("100");
+        Configuration config = new Configuration().configure(new File(this.getClass().getResource(
+                "/functionaltests/config/hibernate.cfg.xml").toURI()));
+        dbManager = new SchedulerDBManager(config, true);
+    }
+
+    @After
+    public void disableResultStore() {
+        PASchedulerProperties.SCHEDULER_DB_RESULT_STORE_PATH.updateProperty("");
+    }
+
+    @Test
+    public void testLargeResultIsStoredOutOfDatabase() throws Throwable {
+        InternalJob job = submitJob();
+        InternalTask task = job.getTask("task1");
+
+        String largeValue = createString(10000);
+        dbManager.updateAfterTaskFinished(job, task, new TaskResultImpl(null, new TestResult(1, largeValue),
+            null, 0));
+
+        Assert.assertNull(readValueColumn());
+        Assert.assertEquals(1, listStoredFiles().size());
+
+        TaskResult result = dbManager.loadTaskResult(job.getId(), "task1", 0);
+        Assert.assertEquals(largeValue, ((TestResult) result.value()).getB());
+
+        InputStream value = dbManager.openTaskResultValue(task.getId(), 0);
+        Assert.assertNotNull(value);
+        value.close();
+    }
+
+    @Test
+    public void testSmallResultIsStoredInDatabase() throws Throwable {
+        InternalJob job = submitJob();
+        InternalTask task = job.getTask("task1");
+
+        dbManager.updateAfterTaskFinished(job, task, new TaskResultImpl(null, new TestResult(1, "a"), null, 0));
+
+        Assert.assertNotNull(readValueColumn());
+        Assert.assertTrue(listStoredFiles().isEmpty());
+
+        TaskResult result = dbManager.loadTaskResult(job.getId(), "task1", 0);
+        Assert.assertEquals("a", ((TestResult) result.value()).getB());
+    }
+
+    @Test
+    public void testStoredResultIsDeletedWithJob() throws Exception {
+        InternalJob job = submitJob();
+        InternalTask task = job.getTask("task1");
+        dbManager.updateAfterTaskFinished(job, task, new TaskResultImpl(null, new TestResult(1,
+            createString(10000)), null, 0));
+        Assert.assertEquals(1, listStoredFiles().size());
+
+        dbManager.removeJob(job.getId(), System.currentTimeMillis(), true);
+
+        Assert.assertTrue(listStoredFiles().isEmpty());
+    }
+
+    @Test
+    public void testSharedContentIsKeptUntilLastResultIsRemoved() throws Exception {
+        String largeValue = createString(10000);
+        InternalJob job1 = submitJob();
+        dbManager.updateAfterTaskFinished(job1, job1.getTask("task1"), new TaskResultImpl(null,
+            new TestResult(1, largeValue), null, 0));
+        InternalJob job2 = submitJob();
+        dbManager.updateAfterTaskFinished(job2, job2.getTask("task1"), new TaskResultImpl(null,
+            new TestResult(1, largeValue), null, 0));
+        Assert.assertEquals(1, listStoredFiles().size());
+
+        dbManager.removeJob(job1.getId(), System.currentTimeMillis(), true);
+
+        Assert.assertEquals(1, listStoredFiles().size());
+        TaskResult result = dbManager.loadTaskResult(job2.getId(), "task1", 0);
+        Assert.assertEquals(largeValue, ((TestResult) result.value()).getB());
+
+        dbManager.removeJob(job2.getId(), System.currentTimeMillis(), true);
+
+        Assert.assertTrue(listStoredFiles().isEmpty());
+    }
+
+    @Test
+    public void testContentOfRolledBackResultIsDeleted() throws Exception {
+        InternalJob job = submitJob();
+        InternalTask task = job.getTask("task1");
+        dbManager.removeJob(job.getId(), System.currentTimeMillis(), true);
+
+        // the result refers to a removed task, its transaction is rolled back
+        try {
+            dbManager.updateAfterTaskFinished(job, task, new TaskResultImpl(null, new TestResult(1,
+                createString(10000)), null, 0));
+        } catch (DatabaseManagerException expected) {
+        }
+
+        Assert.assertTrue(listStoredFiles().isEmpty());
+    }
+
+    private InternalJob submitJob() throws Exception {
+        TaskFlowJob jobDef = new TaskFlowJob();
+        jobDef.addTask(createDefaultTask("task1"));
+        return defaultSubmitJobAndLoadInternal(true, jobDef);
+    }
+
+    private byte[] readValueColumn() {
+        Session session = dbManager.getSessionFactory().openSession();
+        try {
+            return (byte[]) session.createQuery("select serializedValue from TaskResultData").uniqueResult();
+        } finally {
+            session.close();
+        }
+    }
+
+    private List<Path> listStoredFiles() throws Exception {
+        List<Path> files = new ArrayList<>();
+        listFiles(storeRoot.toPath(), files);
+        return files;
+    }
+
+    private void listFiles(Path directory, List<Path> files) throws Exception {
+        for (Path path : Files.newDirectoryStream(directory)) {
+            if (Files.isDirectory(path)) {
+                listFiles(path, files);
+            } else {
+                files.add(path);
+            }
+        }
+    }
+
+}
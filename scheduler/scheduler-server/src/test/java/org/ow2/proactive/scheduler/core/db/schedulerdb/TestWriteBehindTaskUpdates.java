@@ -0,0 +1,139 @@
+package org.ow2.proactive.scheduler.core.db.schedulerdb;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hibernate.Session;
+import org.hibernate.cfg.Configuration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ow2.proactive.scheduler.common.job.JobPriority;
+import org.ow2.proactive.scheduler.common.job.JobResult;
+import org.ow2.proactive.scheduler.common.job.TaskFlowJob;
+import org.ow2.proactive.scheduler.core.db.SchedulerDBManager;
+import org.ow2.proactive.scheduler.core.properties.PASchedulerProperties;
+import org.ow2.proactive.scheduler.job.InternalJob;
+import org.ow2.proactive.scheduler.task.TaskResultImpl;
+import org.ow2.proactive.scheduler.task.internal.InternalTask;
+
+
+public class TestWriteBehindTaskUpdates extends BaseSchedulerDBTest {
+
+    private static final PASchedulerProperties[] WRITE_BEHIND_PROPERTIES = {
+            PASchedulerProperties.SCHEDULER_DB_WRITE_BEHIND_ENABLED,
+            PASchedulerProperties.SCHEDULER_DB_WRITE_BEHIND_BATCH_SIZE,
+            PASchedulerProperties.SCHEDULER_DB_WRITE_BEHIND_DELAY };
+
+    private final Map<PASchedulerProperties, String> previousValues = new HashMap<>();
+
+    @Before
+    public void enableWriteBehind() throws Exception {
+        dbManager.close();
+        for (PASchedulerProperties property : WRITE_BEHIND_PROPERTIES) {
+            previousValues.put(property, property.getValueAsStringOrNull());
+        }
+        PASchedulerProperties.SCHEDULER_DB_WRITE_BEHIND_ENABLED.updateProperty("true");
+        PASchedulerProperties.SCHEDULER_DB_WRITE_BEHIND_BATCH_SIZE.updateProperty("3");
+        // long enough for the timer to never trigger during the test
+        PASchedulerProperties.SCHEDULER_DB_WRITE_BEHIND_DELAY.updateProperty("3600000");
+        Configuration config = new Configuration().configure(new File(this.getClass().getResource(
+                "/functionaltests/config/hibernate.cfg.xml").toURI()));
+        dbManager = new SchedulerDBManager(config, true);
+    }
+
+    @After
+    public void restoreWriteBehindProperties() {
+        for (PASchedulerProperties property : WRITE_BEHIND_PROPERTIES) {
+            String previousValue = previousValues.get(property);
+            if (previousValue == null) {
+                property.unSet();
+            } else {
+                property.updateProperty(previousValue);
+            }
+        }
+    }
+
+    @Test
+    public void testUpdatesAreVisibleToReads() throws Exception {
+        InternalJob job = submitJob(3);
+        InternalTask task1 = job.getTask("task1");
+
+        dbManager.updateAfterTaskFinished(job, task1, new TaskResultImpl(null, new TestResult(0, "1"), null,
+            0));
+        Assert.assertEquals(0, countWrittenResults());
+
+        JobResult result = dbManager.loadJobResult(job.getId());
+        Assert.assertEquals(1, result.getAllResults().size());
+        Assert.assertEquals(1, countWrittenResults());
+    }
+
+    @Test
+    public void testUpdatesAreWrittenWhenBatchIsFull() throws Exception {
+        InternalJob job = submitJob(4);
+
+        for (int i = 1; i <= 2; i++) {
+            InternalTask task = job.getTask("task" + i);
+            dbManager.updateAfterTaskFinished(job, task, new TaskResultImpl(null, new TestResult(i, "" + i),
+                null, 0));
+        }
+        Assert.assertEquals(0, countWrittenResults());
+
+        InternalTask task3 = job.getTask("task3");
+        dbManager.updateAfterTaskFinished(job, task3, new TaskResultImpl(null, new TestResult(3, "3"), null,
+            0));
+        Assert.assertEquals(3, countWrittenResults());
+    }
+
+    @Test
+    public void testFlush() throws Exception {
+        InternalJob job = submitJob(2);
+        InternalTask task1 = job.getTask("task1");
+        dbManager.updateAfterTaskFinished(job, task1, new TaskResultImpl(null, new TestResult(0, "1"), null,
+            0));
+        Assert.assertEquals(0, countWrittenResults());
+
+        dbManager.flushPendingTaskUpdates();
+        Assert.assertEquals(1, countWrittenResults());
+    }
+
+    @Test
+    public void testUpdatesAreNotWrittenByUnrelatedOperations() throws Exception {
+        InternalJob job = submitJob(2);
+        InternalTask task1 = job.getTask("task1");
+        dbManager.updateAfterTaskFinished(job, task1, new TaskResultImpl(null, new TestResult(0, "1"), null,
+            0));
+
+        dbManager.changeJobPriority(job.getId(), JobPriority.HIGH);
+        dbManager.loadExecutableContainer(job.getTask("task2"));
+        submitJob(1);
+        Assert.assertEquals(0, countWrittenResults());
+
+        dbManager.loadJobResult(job.getId());
+        Assert.assertEquals(1, countWrittenResults());
+    }
+
+    /**
+     * Counts the results in the database without going through the db manager which
+     * would write the pending updates first.
+     */
+    private long countWrittenResults() {
+        Session session = dbManager.getSessionFactory().openSession();
+        try {
+            return (Long) session.createQuery("select count(*) from TaskResultData").uniqueResult();
+        } finally {
+            session.close();
+        }
+    }
+
+    private InternalJob submitJob(int tasksNumber) throws Exception {
+        TaskFlowJob jobDef = new TaskFlowJob();
+        for (int i = 1; i <= tasksNumber; i++) {
+            jobDef.addTask(createDefaultTask("task" + i));
+        }
+        return defaultSubmitJobAndLoadInternal(true, jobDef);
+    }
+
+}
@@ -0,0 +1,71 @@
+package org.ow2.proactive.scheduler.core.rmproxies;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+import org.ow2.proactive.resourcemanager.common.NodeState;
+import org.ow2.proactive.resourcemanager.common.RMState;
+import org.ow2.proactive.resourcemanager.common.event.RMEventType;
+import org.ow2.proactive.resourcemanager.common.event.RMInitialState;
+import org.ow2.proactive.resourcemanager.common.event.RMNodeDescriptor;
+import org.ow2.proactive.resourcemanager.common.event.RMNodeEvent;
+import org.ow2.proactive.resourcemanager.common.event.RMNodeSourceEvent;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class RMStateViewTest {
+
+    @Test
+    public void initial_state() {
+        RMStateView view = createView(nodeEvent("node1", "ns1", NodeState.FREE, null), nodeEvent("node2",
+                "ns1", NodeState.BUSY, null), nodeEvent("node3", "ns2", NodeState.DOWN, null), nodeEvent(
+                "node4", "ns2", NodeState.DEPLOYING, null));
+
+        assertState(view.getState(), 1, 2, 3);
+        assertEquals(1, view.getFreeNodesNumber("ns1"));
+        assertEquals(0, view.getFreeNodesNumber("ns2"));
+    }
+
+    @Test
+    public void node_events() {
+        RMStateView view = createView(nodeEvent("node1", "ns1", NodeState.FREE, null));
+
+        view.nodeEvent(nodeEvent("node2", "ns2", NodeState.FREE, RMEventType.NODE_ADDED));
+        assertState(view.getState(), 2, 2, 2);
+        assertEquals(1, view.getFreeNodesNumber("ns2"));
+
+        view.nodeEvent(nodeEvent("node1", "ns1", NodeState.BUSY, RMEventType.NODE_STATE_CHANGED));
+        assertState(view.getState(), 1, 2, 2);
+        assertEquals(0, view.getFreeNodesNumber("ns1"));
+
+        view.nodeEvent(nodeEvent("node1", "ns1", NodeState.DOWN, RMEventType.NODE_STATE_CHANGED));
+        assertState(view.getState(), 1, 1, 2);
+
+        view.nodeEvent(nodeEvent("node2", "ns2", NodeState.FREE, RMEventType.NODE_REMOVED));
+        assertState(view.getState(), 0, 0, 1);
+        assertEquals(0, view.getFreeNodesNumber("ns2"));
+    }
+
+    private static void assertState(RMState state, int free, int alive, int total) {
+        assertEquals(free, state.getFreeNodesNumber());
+        assertEquals(alive, state.getTotalAliveNodesNumber());
+        assertEquals(total, state.getTotalNodesNumber());
+    }
+
+    private static RMStateView createView(RMNodeEvent... events) {
+        ArrayList<RMNodeEvent> nodeEvents = new ArrayList<>();
+        for (RMNodeEvent event : events) {
+            nodeEvents.add(event);
+        }
+        return new RMStateView(new RMInitialState(nodeEvents, new ArrayList<RMNodeSourceEvent>()));
+    }
+
+    private static RMNodeEvent nodeEvent(String url, String nodeSource, NodeState state, RMEventType type) {
+        RMNodeDescriptor descriptor = new RMNodeDescriptor();
+        descriptor.setNodeURL(url);
+        descriptor.setNodeSourceName(nodeSource);
+        descriptor.setState(state);
+        return new RMNodeEvent(descriptor, type, null, null);
+    }
+}
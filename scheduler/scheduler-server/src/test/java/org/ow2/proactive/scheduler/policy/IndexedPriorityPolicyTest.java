@@ -0,0 +1,113 @@
+package org.ow2.proactive.scheduler.policy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Vector;
+
+import org.junit.Test;
+import org.ow2.proactive.scheduler.common.job.JobPriority;
+import org.ow2.proactive.scheduler.descriptor.EligibleTaskDescriptor;
+import org.ow2.proactive.scheduler.descriptor.JobDescriptor;
+import org.ow2.proactive.scheduler.descriptor.JobDescriptorImpl;
+import org.ow2.proactive.scheduler.job.InternalTaskFlowJob;
+import org.ow2.proactive.scheduler.job.JobIdImpl;
+import org.ow2.proactive.scheduler.task.internal.InternalScriptTask;
+import org.ow2.proactive.scheduler.task.internal.InternalTask;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class IndexedPriorityPolicyTest {
+
+    private int jobId;
+
+    @Test
+    public void empty_list_of_tasks() throws Exception {
+        Vector<EligibleTaskDescriptor> orderedTasks = new IndexedPriorityPolicy().getOrderedTasks(Collections
+                .<JobDescriptor> emptyList());
+
+        assertTrue(orderedTasks.isEmpty());
+    }
+
+    @Test
+    public void job_with_different_priorities() throws Exception {
+        JobDescriptorImpl jobHigh = createSingleTaskJob(JobPriority.HIGH);
+        JobDescriptorImpl jobLow = createSingleTaskJob(JobPriority.LOW);
+        JobDescriptorImpl jobNormal = createSingleTaskJob(JobPriority.NORMAL);
+
+        List<JobDescriptor> jobs = submitJobs(jobHigh, jobLow, jobNormal);
+
+        Vector<EligibleTaskDescriptor> orderedTasks = new IndexedPriorityPolicy().getOrderedTasks(jobs);
+
+        assertEquals(jobHigh.getJobId(), orderedTasks.get(0).getJobId());
+        assertEquals(jobNormal.getJobId(), orderedTasks.get(1).getJobId());
+        assertEquals(jobLow.getJobId(), orderedTasks.get(2).getJobId());
+    }
+
+    @Test
+    public void job_with_same_priorities() throws Exception {
+        JobDescriptorImpl job1 = createSingleTaskJob();
+        JobDescriptorImpl job2 = createSingleTaskJob();
+        JobDescriptorImpl job3 = createSingleTaskJob();
+
+        List<JobDescriptor> jobs = submitJobs(job1, job3, job2);
+
+        Vector<EligibleTaskDescriptor> orderedTasks = new IndexedPriorityPolicy().getOrderedTasks(jobs);
+
+        assertEquals(job1.getJobId(), orderedTasks.get(0).getJobId());
+        assertEquals(job2.getJobId(), orderedTasks.get(1).getJobId());
+        assertEquals(job3.getJobId(), orderedTasks.get(2).getJobId());
+    }
+
+    @Test
+    public void priority_change_rekeys_job() throws Exception {
+        JobDescriptorImpl job1 = createSingleTaskJob();
+        JobDescriptorImpl job2 = createSingleTaskJob();
+        IndexedPriorityPolicy policy = new IndexedPriorityPolicy();
+
+        Vector<EligibleTaskDescriptor> orderedTasks = policy.getOrderedTasks(submitJobs(job1, job2));
+        assertEquals(job1.getJobId(), orderedTasks.get(0).getJobId());
+
+        job2.getInternal().setPriority(JobPriority.HIGH);
+        orderedTasks = policy.getOrderedTasks(submitJobs(job1, job2));
+
+        assertEquals(job2.getJobId(), orderedTasks.get(0).getJobId());
+        assertEquals(job1.getJobId(), orderedTasks.get(1).getJobId());
+        assertEquals(2, policy.size());
+    }
+
+    @Test
+    public void jobs_not_given_anymore_are_evicted() throws Exception {
+        JobDescriptorImpl job1 = createSingleTaskJob();
+        JobDescriptorImpl job2 = createSingleTaskJob();
+        IndexedPriorityPolicy policy = new IndexedPriorityPolicy();
+
+        policy.getOrderedTasks(submitJobs(job1, job2));
+        Vector<EligibleTaskDescriptor> orderedTasks = policy.getOrderedTasks(submitJobs(job2));
+
+        assertEquals(1, orderedTasks.size());
+        assertEquals(job2.getJobId(), orderedTasks.get(0).getJobId());
+        assertEquals(1, policy.size());
+    }
+
+    private JobDescriptorImpl createSingleTaskJob(JobPriority jobPriority) {
+        InternalTaskFlowJob taskFlowJob = new InternalTaskFlowJob("test", jobPriority, true, "");
+        taskFlowJob.setId(JobIdImpl.makeJobId(Integer.toString(jobId++)));
+        ArrayList<InternalTask> tasks = new ArrayList<>();
+        tasks.add(new InternalScriptTask());
+        taskFlowJob.addTasks(tasks);
+        return new JobDescriptorImpl(taskFlowJob);
+    }
+
+    private List<JobDescriptor> submitJobs(JobDescriptorImpl... jobs) {
+        List<JobDescriptor> submittedJobs = new ArrayList<>();
+        Collections.addAll(submittedJobs, jobs);
+        return submittedJobs;
+    }
+
+    private JobDescriptorImpl createSingleTaskJob() {
+        return createSingleTaskJob(JobPriority.NORMAL);
+    }
+}